@@ -0,0 +1,39 @@
+package com.umasuo.datapoint.application.dto;
+
+import com.umasuo.datapoint.infrastructure.update.UpdateAction;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Update actions of one data definition in a batch update.
+ */
+@Data
+public class BatchUpdateItem {
+
+  /**
+   * The data definition id.
+   */
+  @NotNull
+  private UUID id;
+
+  /**
+   * The expected version, a mismatch fails the whole batch with 409 Conflict.
+   */
+  @NotNull
+  @Min(0)
+  private Integer version;
+
+  /**
+   * The update actions.
+   */
+  @NotNull
+  @Valid
+  private List<UpdateAction> actions;
+}
@@ -0,0 +1,22 @@
+package com.umasuo.datapoint.application.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Batch of data definition updates, applied in one transaction.
+ */
+@Data
+public class BatchUpdateRequest {
+
+  /**
+   * The updates, one per data definition.
+   */
+  @NotNull
+  @Valid
+  private List<BatchUpdateItem> items;
+}
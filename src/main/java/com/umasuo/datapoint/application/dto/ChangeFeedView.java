@@ -0,0 +1,28 @@
+package com.umasuo.datapoint.application.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Changes after a sequence number.
+ */
+@Data
+public class ChangeFeedView implements Serializable {
+
+  /**
+   * auto generated serial id.
+   */
+  private static final long serialVersionUID = -6031784416357542870L;
+
+  /**
+   * Changes ordered by seq.
+   */
+  private List<DefinitionChangeView> changes;
+
+  /**
+   * Sequence number to pass as since in the next request.
+   */
+  private Long nextSince;
+}
@@ -4,6 +4,7 @@ import lombok.Data;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.UUID;
 
 import javax.validation.constraints.NotNull;
 
@@ -24,10 +25,10 @@ public class CopyRequest implements Serializable {
   /**
    * 平台定义的产品数据。
    */
-  private List<String> platformDataDefinitionIds;
+  private List<UUID> platformDataDefinitionIds;
 
   /**
    * 开发者自定义的公用数据。
    */
-  private List<String> developerDataDefinitionIds;
+  private List<UUID> developerDataDefinitionIds;
 }
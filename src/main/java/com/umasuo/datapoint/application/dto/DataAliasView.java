@@ -0,0 +1,35 @@
+package com.umasuo.datapoint.application.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data alias lookup table of one product, indexed by alias: dataIds.get(alias) is the dataId
+ * and ids.get(alias) the data definition id, both null for aliases of deleted definitions.
+ */
+@Data
+public class DataAliasView implements Serializable {
+
+  /**
+   * auto generated serial id.
+   */
+  private static final long serialVersionUID = -2270519364386129813L;
+
+  /**
+   * The product id.
+   */
+  private String productId;
+
+  /**
+   * DataId of each alias.
+   */
+  private List<String> dataIds;
+
+  /**
+   * Data definition id of each alias.
+   */
+  private List<UUID> ids;
+}
@@ -5,6 +5,7 @@ import com.umasuo.datapoint.infrastructure.enums.Category;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.UUID;
 
 /**
  * DataDefinitionView.
@@ -20,7 +21,7 @@ public class DataDefinitionView implements Serializable {
   /**
    * auto generated uuid.
    */
-  private String id;
+  private UUID id;
 
   /**
    * The Created at.
@@ -47,6 +48,11 @@ public class DataDefinitionView implements Serializable {
    */
   private String dataId;
 
+  /**
+   * Dense alias of dataId in the product.
+   */
+  private Integer dataAlias;
+
   /**
    * Data schema.
    */
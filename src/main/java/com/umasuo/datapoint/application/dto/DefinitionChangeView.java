@@ -0,0 +1,66 @@
+package com.umasuo.datapoint.application.dto;
+
+import com.umasuo.datapoint.infrastructure.enums.ChangeOperation;
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * One data definition change.
+ */
+@Data
+public class DefinitionChangeView implements Serializable {
+
+  /**
+   * auto generated serial id.
+   */
+  private static final long serialVersionUID = 4107339816093025512L;
+
+  /**
+   * Sequence number, pass the last one as since to get later changes.
+   */
+  private Long seq;
+
+  /**
+   * When the change happened.
+   */
+  private Long createdAt;
+
+  /**
+   * Type of the changed data definition.
+   */
+  private DefinitionType definitionType;
+
+  /**
+   * The operation.
+   */
+  private ChangeOperation operation;
+
+  /**
+   * Id of the changed data definition, null if the whole product changed.
+   */
+  private UUID definitionId;
+
+  /**
+   * Version after the change, null for deletes.
+   */
+  private Integer version;
+
+  /**
+   * Developer id, null for platform data definitions.
+   */
+  private String developerId;
+
+  /**
+   * Product id of device data definitions.
+   */
+  private String productId;
+
+  /**
+   * Product type id of platform data definitions.
+   */
+  private String productTypeId;
+}
@@ -2,6 +2,8 @@ package com.umasuo.datapoint.application.dto;
 
 import lombok.Data;
 
+import java.util.UUID;
+
 /**
  * DeveloperDataDefinitionView.
  */
@@ -11,7 +13,7 @@ public class DeveloperDataDefinitionView {
   /**
    * auto generated uuid.
    */
-  private String id;
+  private UUID id;
 
   /**
    * The Created at.
@@ -0,0 +1,43 @@
+package com.umasuo.datapoint.application.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * One field of a data definition schema, found in the field index.
+ */
+@Data
+public class FieldPathView implements Serializable {
+
+  /**
+   * auto generated serial id.
+   */
+  private static final long serialVersionUID = 3379542104983305877L;
+
+  /**
+   * Data definition id.
+   */
+  private UUID definitionId;
+
+  /**
+   * Product id.
+   */
+  private String productId;
+
+  /**
+   * DataId of the data definition.
+   */
+  private String dataId;
+
+  /**
+   * Path of the field in payloads, e.g. readings[].temperature.
+   */
+  private String path;
+
+  /**
+   * Json schema type of the field.
+   */
+  private String type;
+}
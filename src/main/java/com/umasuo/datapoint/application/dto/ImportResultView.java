@@ -0,0 +1,28 @@
+package com.umasuo.datapoint.application.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Result of a bulk import.
+ */
+@Data
+public class ImportResultView implements Serializable {
+
+  /**
+   * auto generated serial id.
+   */
+  private static final long serialVersionUID = 2369174501385562279L;
+
+  /**
+   * Imported data definition count.
+   */
+  private Integer imported;
+
+  /**
+   * Products which got new data definitions.
+   */
+  private List<String> productIds;
+}
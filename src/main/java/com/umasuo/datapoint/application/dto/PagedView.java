@@ -0,0 +1,35 @@
+package com.umasuo.datapoint.application.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of a keyset paginated list.
+ *
+ * @param <T> the view type
+ */
+@Data
+public class PagedView<T> implements Serializable {
+
+  /**
+   * auto generated serial id.
+   */
+  private static final long serialVersionUID = -1894752305893264510L;
+
+  /**
+   * Results in this page, ordered by createdAt and id.
+   */
+  private List<T> results;
+
+  /**
+   * Requested page size.
+   */
+  private Integer limit;
+
+  /**
+   * Cursor for the next page, null if this is the last page.
+   */
+  private String nextCursor;
+}
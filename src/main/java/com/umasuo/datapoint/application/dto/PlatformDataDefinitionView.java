@@ -2,6 +2,8 @@ package com.umasuo.datapoint.application.dto;
 
 import lombok.Data;
 
+import java.util.UUID;
+
 /**
  * PlatformDataDefinitionView.
  */
@@ -11,7 +13,7 @@ public final class PlatformDataDefinitionView {
   /**
    * auto generated uuid.
    */
-  private String id;
+  private UUID id;
 
   /**
    * The Created at.
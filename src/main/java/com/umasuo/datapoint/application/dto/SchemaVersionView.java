@@ -0,0 +1,38 @@
+package com.umasuo.datapoint.application.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * The schema of a data definition at one version.
+ */
+@Data
+public class SchemaVersionView implements Serializable {
+
+  /**
+   * auto generated serial id.
+   */
+  private static final long serialVersionUID = 4417420857263311458L;
+
+  /**
+   * Data definition id.
+   */
+  private UUID definitionId;
+
+  /**
+   * Version which wrote this schema, at or before the requested version.
+   */
+  private Integer version;
+
+  /**
+   * When this schema was written.
+   */
+  private Long createdAt;
+
+  /**
+   * The schema.
+   */
+  private String dataSchema;
+}
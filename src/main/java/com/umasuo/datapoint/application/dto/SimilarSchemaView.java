@@ -0,0 +1,50 @@
+package com.umasuo.datapoint.application.dto;
+
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * A platform or developer data definition whose schema is similar to a given schema.
+ */
+@Data
+public class SimilarSchemaView implements Serializable {
+
+  /**
+   * auto generated serial id.
+   */
+  private static final long serialVersionUID = -6021558837493520716L;
+
+  /**
+   * PLATFORM or DEVELOPER.
+   */
+  private DefinitionType type;
+
+  /**
+   * Data definition id.
+   */
+  private UUID id;
+
+  /**
+   * DataId of the data definition.
+   */
+  private String dataId;
+
+  /**
+   * Name of the data definition.
+   */
+  private String name;
+
+  /**
+   * Product type id, only for platform data definitions.
+   */
+  private String productTypeId;
+
+  /**
+   * Estimated Jaccard similarity of the (path, type) of both schemas' fields, between 0 and 1.
+   */
+  private double similarity;
+}
@@ -0,0 +1,32 @@
+package com.umasuo.datapoint.application.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * One payload to validate against the data definition of a product selected by dataId.
+ */
+@Data
+public class ValidationItem {
+
+  /**
+   * The productId.
+   */
+  @NotNull
+  private String productId;
+
+  /**
+   * 数据格点ID，例如: s001。
+   */
+  @NotNull
+  private String dataId;
+
+  /**
+   * The device payload.
+   */
+  @NotNull
+  private JsonNode payload;
+}
@@ -0,0 +1,23 @@
+package com.umasuo.datapoint.application.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Batch of payloads to validate, each against the data definition selected by
+ * (productId, dataId).
+ */
+@Data
+public class ValidationRequest {
+
+  /**
+   * The payloads.
+   */
+  @NotNull
+  @Valid
+  private List<ValidationItem> items;
+}
@@ -0,0 +1,43 @@
+package com.umasuo.datapoint.application.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Result of validating one payload.
+ */
+@Data
+public class ValidationResultView implements Serializable {
+
+  /**
+   * auto generated serial id.
+   */
+  private static final long serialVersionUID = -3326711473940591026L;
+
+  /**
+   * Index of the payload in the request.
+   */
+  private Integer index;
+
+  /**
+   * DataId the payload was validated against, null when validated by data definition id.
+   */
+  private String dataId;
+
+  /**
+   * True if the payload matches the schema.
+   */
+  private Boolean valid;
+
+  /**
+   * Validation errors, empty if valid.
+   */
+  private List<String> errors;
+
+  /**
+   * True if the payload was not validated since the service was busy, it should be sent again.
+   */
+  private Boolean retryable;
+}
@@ -10,6 +10,7 @@ import com.umasuo.datapoint.infrastructure.enums.Category;
 
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -56,6 +57,7 @@ public final class DataDefinitionMapper {
       view.setVersion(model.getVersion());
       view.setDeveloperId(model.getDeveloperId());
       view.setDataId(model.getDataId());
+      view.setDataAlias(model.getDataAlias());
       view.setName(model.getName());
       view.setDescription(model.getDescription());
       view.setOpenable(model.getOpenable());
@@ -179,9 +181,9 @@ public final class DataDefinitionMapper {
    * @param dataDefinitions
    * @return
    */
-  public static Map<String, DeviceDataDefinition> toModelMap(
+  public static Map<UUID, DeviceDataDefinition> toModelMap(
       List<DeviceDataDefinition> dataDefinitions) {
-    Map<String, DeviceDataDefinition> entityMap =
+    Map<UUID, DeviceDataDefinition> entityMap =
         dataDefinitions.stream().collect(Collectors.toMap(x -> x.getId(), x -> x));
 
     return entityMap;
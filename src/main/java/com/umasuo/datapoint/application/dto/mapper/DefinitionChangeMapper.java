@@ -0,0 +1,59 @@
+package com.umasuo.datapoint.application.dto.mapper;
+
+import com.umasuo.datapoint.application.dto.ChangeFeedView;
+import com.umasuo.datapoint.application.dto.DefinitionChangeView;
+import com.umasuo.datapoint.domain.model.DefinitionChange;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * DefinitionChangeMapper.
+ */
+public final class DefinitionChangeMapper {
+
+  /**
+   * Private default constructor.
+   */
+  private DefinitionChangeMapper() {
+  }
+
+  /**
+   * Convert change to view.
+   *
+   * @param change the change
+   * @return the view
+   */
+  public static DefinitionChangeView toView(DefinitionChange change) {
+    DefinitionChangeView view = new DefinitionChangeView();
+
+    view.setSeq(change.getSeq());
+    view.setCreatedAt(change.getCreatedAt());
+    view.setDefinitionType(change.getDefinitionType());
+    view.setOperation(change.getOperation());
+    view.setDefinitionId(change.getDefinitionId());
+    view.setVersion(change.getVersion());
+    view.setDeveloperId(change.getDeveloperId());
+    view.setProductId(change.getProductId());
+    view.setProductTypeId(change.getProductTypeId());
+
+    return view;
+  }
+
+  /**
+   * Build feed view, nextSince stays at since when there is no change.
+   *
+   * @param changes the changes ordered by seq
+   * @param since the since
+   * @return the feed view
+   */
+  public static ChangeFeedView toView(List<DefinitionChange> changes, long since) {
+    ChangeFeedView view = new ChangeFeedView();
+
+    view.setChanges(changes.stream().map(DefinitionChangeMapper::toView)
+        .collect(Collectors.toList()));
+    view.setNextSince(changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq());
+
+    return view;
+  }
+}
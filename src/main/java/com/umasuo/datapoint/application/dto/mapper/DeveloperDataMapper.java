@@ -7,6 +7,7 @@ import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
 
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -70,9 +71,9 @@ public final class DeveloperDataMapper {
   /**
    * To model map.
    */
-  public static Map<String, DeveloperDataDefinition> toModelMap(
+  public static Map<UUID, DeveloperDataDefinition> toModelMap(
       List<DeveloperDataDefinition> definitions) {
-    Map<String, DeveloperDataDefinition> entityMap =
+    Map<UUID, DeveloperDataDefinition> entityMap =
         definitions.stream().collect(Collectors.toMap(x -> x.getId(), x -> x));
 
     return entityMap;
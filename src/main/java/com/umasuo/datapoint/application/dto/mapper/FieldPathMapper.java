@@ -0,0 +1,45 @@
+package com.umasuo.datapoint.application.dto.mapper;
+
+import com.umasuo.datapoint.application.dto.FieldPathView;
+import com.umasuo.datapoint.domain.model.SchemaField;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * FieldPathMapper.
+ */
+public final class FieldPathMapper {
+
+  /**
+   * private Default constructor.
+   */
+  private FieldPathMapper() {
+  }
+
+  /**
+   * To views.
+   *
+   * @param fields the fields
+   * @return the views
+   */
+  public static List<FieldPathView> toView(List<SchemaField> fields) {
+    return fields.stream().map(FieldPathMapper::toView).collect(Collectors.toList());
+  }
+
+  /**
+   * To view.
+   *
+   * @param field the field
+   * @return the view
+   */
+  public static FieldPathView toView(SchemaField field) {
+    FieldPathView view = new FieldPathView();
+    view.setDefinitionId(field.getDefinitionId());
+    view.setProductId(field.getProductId());
+    view.setDataId(field.getDataId());
+    view.setPath(field.getPath());
+    view.setType(field.getType());
+    return view;
+  }
+}
@@ -0,0 +1,46 @@
+package com.umasuo.datapoint.application.dto.mapper;
+
+import com.umasuo.datapoint.application.dto.PagedView;
+import com.umasuo.datapoint.infrastructure.paging.Cursor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * PagedViewMapper.
+ */
+public final class PagedViewMapper {
+
+  /**
+   * Private default constructor.
+   */
+  private PagedViewMapper() {
+  }
+
+  /**
+   * Build page view from rows, rows are queried with limit + 1 to know if there is a next page.
+   *
+   * @param rows the rows
+   * @param limit the limit
+   * @param mapper entity to view mapper
+   * @param cursorOf entity to cursor function
+   * @param <E> entity type
+   * @param <V> view type
+   * @return the paged view
+   */
+  public static <E, V> PagedView<V> toView(List<E> rows, int limit, Function<E, V> mapper,
+      Function<E, Cursor> cursorOf) {
+    boolean hasNext = rows.size() > limit;
+    List<E> pageRows = hasNext ? rows.subList(0, limit) : rows;
+
+    PagedView<V> view = new PagedView<>();
+    view.setLimit(limit);
+    view.setResults(pageRows.stream().map(mapper).collect(Collectors.toList()));
+    if (hasNext) {
+      view.setNextCursor(cursorOf.apply(pageRows.get(pageRows.size() - 1)).encode());
+    }
+
+    return view;
+  }
+}
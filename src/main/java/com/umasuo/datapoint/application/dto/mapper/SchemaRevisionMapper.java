@@ -0,0 +1,33 @@
+package com.umasuo.datapoint.application.dto.mapper;
+
+import com.umasuo.datapoint.application.dto.SchemaVersionView;
+import com.umasuo.datapoint.domain.model.SchemaRevision;
+
+/**
+ * SchemaRevisionMapper.
+ */
+public final class SchemaRevisionMapper {
+
+  /**
+   * Private default constructor.
+   */
+  private SchemaRevisionMapper() {
+  }
+
+  /**
+   * Convert a checkpoint revision to view.
+   *
+   * @param revision revision holding the full schema
+   * @return the view
+   */
+  public static SchemaVersionView toView(SchemaRevision revision) {
+    SchemaVersionView view = new SchemaVersionView();
+
+    view.setDefinitionId(revision.getDefinitionId());
+    view.setVersion(revision.getVersion());
+    view.setCreatedAt(revision.getCreatedAt());
+    view.setDataSchema(revision.getContent());
+
+    return view;
+  }
+}
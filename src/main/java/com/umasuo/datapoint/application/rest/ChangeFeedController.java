@@ -0,0 +1,60 @@
+package com.umasuo.datapoint.application.rest;
+
+import com.umasuo.datapoint.application.dto.ChangeFeedView;
+import com.umasuo.datapoint.application.service.ChangeFeedApplication;
+import com.umasuo.datapoint.infrastructure.Router;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * ChangeFeedController.
+ */
+@RestController
+@CrossOrigin
+public class ChangeFeedController {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChangeFeedController.class);
+
+  /**
+   * Change feed application.
+   */
+  @Autowired
+  private transient ChangeFeedApplication changeFeedApplication;
+
+  /**
+   * Get data definition changes after since, optionally waiting for new ones.
+   *
+   * @param developerId the developer id, changes of all developers if absent
+   * @param since the last seen sequence number
+   * @param limit the limit
+   * @param wait how long to wait when there is no change, in milliseconds
+   * @return the changes
+   */
+  @GetMapping(Router.DATA_CHANGES)
+  public DeferredResult<ChangeFeedView> getChanges(
+      @RequestHeader(required = false) String developerId,
+      @RequestParam(defaultValue = "0") Long since,
+      @RequestParam(defaultValue = "100") Integer limit,
+      @RequestParam(defaultValue = "0") Long wait) {
+    LOGGER.info("Enter. developerId: {}, since: {}, limit: {}, wait: {}.",
+        developerId, since, limit, wait);
+
+    DeferredResult<ChangeFeedView> result =
+        changeFeedApplication.poll(developerId, since, limit, wait);
+
+    LOGGER.info("Exit.");
+
+    return result;
+  }
+}
@@ -0,0 +1,89 @@
+package com.umasuo.datapoint.application.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.umasuo.datapoint.application.service.CodecApplication;
+import com.umasuo.datapoint.infrastructure.Router;
+import com.umasuo.datapoint.infrastructure.routing.ReadOnlyRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+/**
+ * CodecController, encodes device payloads to the compact binary format of their data
+ * definition, and back.
+ * 内部接口，供设备数据接入和存储服务使用。
+ * Only reads, so requests are routed to replicas.
+ */
+@ReadOnlyRequest
+@RestController
+@CrossOrigin
+public class CodecController {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(CodecController.class);
+
+  /**
+   * Codec application.
+   */
+  @Autowired
+  private transient CodecApplication codecApplication;
+
+  /**
+   * Encode a payload with the current schema of a data definition.
+   *
+   * @param id the data definition id
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param payload the payload
+   * @return the encoded payload
+   */
+  @PostMapping(value = Router.DATA_ENCODE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public byte[] encode(@PathVariable UUID id,
+                       @RequestHeader String developerId,
+                       @RequestParam String productId,
+                       @RequestBody JsonNode payload) {
+    LOGGER.info("Enter. developerId: {}, productId: {}, id: {}.", developerId, productId, id);
+
+    byte[] result = codecApplication.encode(developerId, productId, id, payload);
+
+    LOGGER.info("Exit. size: {}.", result.length);
+
+    return result;
+  }
+
+  /**
+   * Decode a payload with the schema of the version it was encoded with.
+   *
+   * @param id the data definition id
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param bytes the encoded payload
+   * @return the payload
+   */
+  @PostMapping(value = Router.DATA_DECODE, consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public JsonNode decode(@PathVariable UUID id,
+                         @RequestHeader String developerId,
+                         @RequestParam String productId,
+                         @RequestBody byte[] bytes) {
+    LOGGER.info("Enter. developerId: {}, productId: {}, id: {}.", developerId, productId, id);
+
+    JsonNode result = codecApplication.decode(developerId, productId, id, bytes);
+
+    LOGGER.info("Exit.");
+
+    return result;
+  }
+}
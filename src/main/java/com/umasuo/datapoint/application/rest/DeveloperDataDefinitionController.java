@@ -2,8 +2,10 @@ package com.umasuo.datapoint.application.rest;
 
 import com.umasuo.datapoint.application.dto.DeveloperDataDefinitionDraft;
 import com.umasuo.datapoint.application.dto.DeveloperDataDefinitionView;
+import com.umasuo.datapoint.application.dto.PagedView;
 import com.umasuo.datapoint.application.service.DeveloperDataApplication;
 import com.umasuo.datapoint.infrastructure.Router;
+import com.umasuo.datapoint.infrastructure.export.ExportFormat;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,10 +17,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.UUID;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 /**
@@ -67,7 +72,7 @@ public class DeveloperDataDefinitionController {
    * @param id
    */
   @DeleteMapping(Router.DEVELOPER_DATA_WITH_ID)
-  public void delete(@RequestHeader String developerId, @PathVariable String id) {
+  public void delete(@RequestHeader String developerId, @PathVariable UUID id) {
     LOGGER.info("Enter. developerId: {}, dataDefinition id: {}.", developerId, id);
 
     developerDataApplication.delete(developerId, id);
@@ -84,7 +89,7 @@ public class DeveloperDataDefinitionController {
    */
   @GetMapping(Router.DEVELOPER_DATA_WITH_ID)
   public DeveloperDataDefinitionView getOne(@RequestHeader String developerId,
-                                            @PathVariable String id) {
+                                            @PathVariable UUID id) {
     LOGGER.info("Enter. developerId: {}, dataDefinition id: {}.", developerId, id);
 
     DeveloperDataDefinitionView result = developerDataApplication.getOne(developerId, id);
@@ -96,24 +101,49 @@ public class DeveloperDataDefinitionController {
   }
 
   /**
-   * Get developer data.
+   * Get one page of developer data.
    *
    * @param developerId
+   * @param cursor
+   * @param limit
    * @return
    */
   @GetMapping(Router.DEVELOPER_DATA_ROOT)
-  public List<DeveloperDataDefinitionView> getDeveloperData(
-      @RequestHeader String developerId) {
+  public PagedView<DeveloperDataDefinitionView> getDeveloperData(
+      @RequestHeader String developerId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") Integer limit) {
 
-    LOGGER.info("Enter. developerId: {}.", developerId);
+    LOGGER.info("Enter. developerId: {}, cursor: {}, limit: {}.", developerId, cursor, limit);
 
-    List<DeveloperDataDefinitionView> result =
-        developerDataApplication.getDeveloperData(developerId);
+    PagedView<DeveloperDataDefinitionView> result =
+        developerDataApplication.getDeveloperData(developerId, cursor, limit);
 
     LOGGER.trace("found developerDataDefinition: {}.", result);
-    LOGGER.info("Exit. developerDataDefinition size: {}.", result.size());
+    LOGGER.info("Exit. developerDataDefinition size: {}.", result.getResults().size());
 
     return result;
   }
 
+  /**
+   * Export developer data as a stream.
+   *
+   * @param developerId
+   * @param format ndjson or smile
+   * @param response
+   * @throws IOException
+   */
+  @GetMapping(Router.DEVELOPER_DATA_EXPORT)
+  public void export(@RequestHeader String developerId,
+                     @RequestParam(defaultValue = "ndjson") String format,
+                     HttpServletResponse response) throws IOException {
+    LOGGER.info("Enter. developerId: {}, format: {}.", developerId, format);
+
+    ExportFormat exportFormat = ExportFormat.of(format);
+    response.setContentType(exportFormat.getContentType());
+
+    developerDataApplication.export(developerId, exportFormat, response.getOutputStream());
+
+    LOGGER.info("Exit.");
+  }
 }
@@ -1,11 +1,17 @@
 package com.umasuo.datapoint.application.rest;
 
+import com.umasuo.datapoint.application.dto.BatchUpdateRequest;
 import com.umasuo.datapoint.application.dto.CopyRequest;
+import com.umasuo.datapoint.application.dto.DataAliasView;
 import com.umasuo.datapoint.application.dto.DataDefinitionDraft;
 import com.umasuo.datapoint.application.dto.DataDefinitionView;
+import com.umasuo.datapoint.application.dto.ImportResultView;
+import com.umasuo.datapoint.application.dto.PagedView;
+import com.umasuo.datapoint.application.dto.SchemaVersionView;
 import com.umasuo.datapoint.application.service.DataDefinitionApplication;
-import com.umasuo.datapoint.domain.service.DataDefinitionService;
+import com.umasuo.datapoint.application.service.DataImportApplication;
 import com.umasuo.datapoint.infrastructure.Router;
+import com.umasuo.datapoint.infrastructure.export.ExportFormat;
 import com.umasuo.datapoint.infrastructure.update.UpdateRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,9 +27,13 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 /**
@@ -40,16 +50,16 @@ public class DeviceDataDefinitionController {
       .class);
 
   /**
-   * Data definition service.
+   * Data definition app.
    */
   @Autowired
-  private transient DataDefinitionService definitionService;
+  private transient DataDefinitionApplication definitionApplication;
 
   /**
-   * Data definition app.
+   * Data import app.
    */
   @Autowired
-  private transient DataDefinitionApplication definitionApplication;
+  private transient DataImportApplication importApplication;
 
   /**
    * 新建数据定义.
@@ -79,11 +89,11 @@ public class DeviceDataDefinitionController {
    * @return 拷贝后生成的数据定义id
    */
   @PostMapping(Router.DATA_COPY)
-  public List<String> copy(@RequestHeader("developerId") String developerId,
+  public List<UUID> copy(@RequestHeader("developerId") String developerId,
                            @RequestBody @Valid CopyRequest request) {
     LOGGER.info("Enter. developerId: {}, copyRequest: {}.", developerId, request);
 
-    List<String> dateDefinitionIds = definitionApplication.handleCopyRequest(developerId, request);
+    List<UUID> dateDefinitionIds = definitionApplication.handleCopyRequest(developerId, request);
 
     LOGGER.info("Exit. newDataDefinitionIds: {}.", dateDefinitionIds);
 
@@ -99,7 +109,7 @@ public class DeviceDataDefinitionController {
    * @return updated DeviceDataDefinition
    */
   @PutMapping(value = Router.DATA_DEFINITION_WITH_ID)
-  public DataDefinitionView update(@PathVariable String id,
+  public DataDefinitionView update(@PathVariable UUID id,
                                    @RequestHeader String developerId,
                                    @RequestBody @Valid UpdateRequest updateRequest) {
     LOGGER.info("Enter. dataDefinitionId: {}, updateRequest: {}, developerId: {}.",
@@ -115,6 +125,26 @@ public class DeviceDataDefinitionController {
     return result;
   }
 
+  /**
+   * Update many DeviceDataDefinitions in one transaction, all or none are updated.
+   *
+   * @param developerId the Developer id
+   * @param request the updates, each with id, version and actions
+   * @return updated DeviceDataDefinitions, in the order of the items
+   */
+  @PutMapping(value = Router.DATA_DEFINITION_ROOT)
+  public List<DataDefinitionView> batchUpdate(@RequestHeader String developerId,
+                                              @RequestBody @Valid BatchUpdateRequest request) {
+    LOGGER.info("Enter. developerId: {}, size: {}.", developerId, request.getItems().size());
+
+    List<DataDefinitionView> result =
+        definitionApplication.batchUpdate(developerId, request.getItems());
+
+    LOGGER.info("Exit. updated size: {}.", result.size());
+
+    return result;
+  }
+
   /**
    * Delete.
    *
@@ -123,7 +153,7 @@ public class DeviceDataDefinitionController {
    * @param productId
    */
   @DeleteMapping(value = Router.DATA_DEFINITION_WITH_ID)
-  public void delete(@PathVariable String id,
+  public void delete(@PathVariable UUID id,
                      @RequestHeader String developerId, @RequestParam String productId) {
     LOGGER.info("Enter. id: {}, developerId: {}, productId: {}.", id, developerId, productId);
 
@@ -148,20 +178,28 @@ public class DeviceDataDefinitionController {
   }
 
   /**
-   * Get by product id.
+   * Get one page of data definitions by product id.
    *
    * @param developerId
    * @param productId
+   * @param cursor
+   * @param limit
    * @return
    */
   @GetMapping(value = Router.DATA_DEFINITION_ROOT, params = {"productId"})
-  public List<DataDefinitionView> getByProductId(@RequestHeader String developerId,
-                                                 @RequestParam String productId) {
-    LOGGER.info("Enter. developerId: {}, productId: {}.", developerId, productId);
+  public PagedView<DataDefinitionView> getByProductId(@RequestHeader String developerId,
+                                                      @RequestParam String productId,
+                                                      @RequestParam(required = false)
+                                                          String cursor,
+                                                      @RequestParam(defaultValue = "20")
+                                                          Integer limit) {
+    LOGGER.info("Enter. developerId: {}, productId: {}, cursor: {}, limit: {}.",
+        developerId, productId, cursor, limit);
 
-    List<DataDefinitionView> result = definitionApplication.getByProductId(developerId, productId);
+    PagedView<DataDefinitionView> result =
+        definitionApplication.getPageByProductId(developerId, productId, cursor, limit);
 
-    LOGGER.info("Exit. dataDefinition size: {}.", result.size());
+    LOGGER.info("Exit. dataDefinition size: {}.", result.getResults().size());
 
     return result;
   }
@@ -195,7 +233,7 @@ public class DeviceDataDefinitionController {
    * @return
    */
   @GetMapping(value = Router.DATA_DEFINITION_WITH_ID)
-  public DataDefinitionView get(@PathVariable("id") String id,
+  public DataDefinitionView get(@PathVariable("id") UUID id,
                                 @RequestHeader String developerId, @RequestParam String productId) {
     LOGGER.info("Enter. developerId: {}, productId: {}, id: {}.", developerId, productId, id);
 
@@ -207,19 +245,131 @@ public class DeviceDataDefinitionController {
   }
 
   /**
-   * Gets all open data definition.
+   * Get the data alias lookup table of a product.
+   * 内部接口，供设备数据接入服务按 alias 查找数据定义。
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @return the lookup table, indexed by alias
+   */
+  @GetMapping(value = Router.DATA_ALIASES)
+  public DataAliasView getAliases(@RequestHeader String developerId,
+                                  @RequestParam String productId) {
+    LOGGER.info("Enter. developerId: {}, productId: {}.", developerId, productId);
+
+    DataAliasView result = definitionApplication.getAliases(developerId, productId);
+
+    LOGGER.info("Exit. alias size: {}.", result.getDataIds().size());
+
+    return result;
+  }
+
+  /**
+   * Get the schema of a data definition at a version.
+   *
+   * @param id the id
+   * @param version the version, the schema written at or before it is returned
+   * @param developerId the developer id
+   * @return the schema version view
+   */
+  @GetMapping(value = Router.DATA_SCHEMA_VERSION)
+  public SchemaVersionView getSchema(@PathVariable("id") UUID id,
+      @PathVariable("version") Integer version, @RequestHeader String developerId) {
+    LOGGER.info("Enter. developerId: {}, id: {}, version: {}.", developerId, id, version);
+
+    SchemaVersionView result = definitionApplication.getSchema(developerId, id, version);
+
+    LOGGER.info("Exit. version: {}.", result.getVersion());
+
+    return result;
+  }
+
+  /**
+   * Get the current schema of a data definition, with references to developer and platform
+   * data definitions resolved into one self contained schema.
    *
+   * @param id the id
    * @param developerId the developer id
+   * @param productId the product id
+   * @return the schema version view
+   */
+  @GetMapping(value = Router.DATA_RESOLVED_SCHEMA)
+  public SchemaVersionView getResolvedSchema(@PathVariable("id") UUID id,
+      @RequestHeader String developerId, @RequestParam String productId) {
+    LOGGER.info("Enter. developerId: {}, productId: {}, id: {}.", developerId, productId, id);
+
+    SchemaVersionView result =
+        definitionApplication.getResolvedSchema(developerId, productId, id);
+
+    LOGGER.info("Exit. version: {}.", result.getVersion());
+
+    return result;
+  }
+
+  /**
+   * Gets one page of open data definition.
+   *
+   * @param developerId the developer id
+   * @param cursor the cursor
+   * @param limit the limit
    * @return the all open data
    */
   @GetMapping(value = Router.DATA_DEFINITION_ROOT, params = {"isOpen", "developerId"})
-  public List<DataDefinitionView> getAllOpenData(@RequestParam String developerId,
-                                                 @RequestParam Boolean isOpen) {
+  public PagedView<DataDefinitionView> getAllOpenData(@RequestParam String developerId,
+                                                      @RequestParam Boolean isOpen,
+                                                      @RequestParam(required = false)
+                                                          String cursor,
+                                                      @RequestParam(defaultValue = "20")
+                                                          Integer limit) {
+    LOGGER.info("Enter. developerId: {}, cursor: {}, limit: {}.", developerId, cursor, limit);
+
+    PagedView<DataDefinitionView> result =
+        definitionApplication.getAllOpenData(developerId, cursor, limit);
+
+    LOGGER.info("Exit. dataDefinition size: {}.", result.getResults().size());
+
+    return result;
+  }
+
+  /**
+   * Export data definitions of the developer as a stream.
+   * 内部接口，不带developerId时导出所有开发者的数据定义。
+   *
+   * @param developerId the developer id
+   * @param format ndjson or smile
+   * @param response the response
+   * @throws IOException the io exception
+   */
+  @GetMapping(value = Router.DATA_EXPORT)
+  public void export(@RequestHeader(required = false) String developerId,
+                     @RequestParam(defaultValue = "ndjson") String format,
+                     HttpServletResponse response) throws IOException {
+    LOGGER.info("Enter. developerId: {}, format: {}.", developerId, format);
+
+    ExportFormat exportFormat = ExportFormat.of(format);
+    response.setContentType(exportFormat.getContentType());
+
+    definitionApplication.export(developerId, exportFormat, response.getOutputStream());
+
+    LOGGER.info("Exit.");
+  }
+
+  /**
+   * Bulk import data definitions, request body is NDJSON with one DataDefinitionDraft per line.
+   *
+   * @param developerId the developer id
+   * @param request the request
+   * @return the import result
+   * @throws IOException the io exception
+   */
+  @PostMapping(value = Router.DATA_IMPORT)
+  public ImportResultView importData(@RequestHeader String developerId,
+                                     HttpServletRequest request) throws IOException {
     LOGGER.info("Enter. developerId: {}.", developerId);
 
-    List<DataDefinitionView> result = definitionService.getAllOpenData(developerId);
+    ImportResultView result = importApplication.importData(developerId, request.getInputStream());
 
-    LOGGER.info("Exit. dataDefinition size: {}.", result.size());
+    LOGGER.info("Exit. import result: {}.", result);
 
     return result;
   }
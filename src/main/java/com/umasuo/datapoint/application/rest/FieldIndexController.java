@@ -0,0 +1,81 @@
+package com.umasuo.datapoint.application.rest;
+
+import com.umasuo.datapoint.application.dto.FieldPathView;
+import com.umasuo.datapoint.application.service.FieldIndexApplication;
+import com.umasuo.datapoint.infrastructure.Router;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * FieldIndexController, searches fields of a developer's data definition schemas.
+ */
+@RestController
+@CrossOrigin
+public class FieldIndexController {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(FieldIndexController.class);
+
+  /**
+   * Field index application.
+   */
+  @Autowired
+  private transient FieldIndexApplication fieldIndexApplication;
+
+  /**
+   * Find fields by name, e.g. temperature, or by path, e.g. readings[].temperature.
+   *
+   * @param developerId the developer id
+   * @param name the field name
+   * @param path the field path
+   * @param type the json schema type, number also matches integer fields
+   * @param limit the limit
+   * @return the fields
+   */
+  @GetMapping(value = Router.DATA_FIELDS)
+  public List<FieldPathView> find(@RequestHeader String developerId,
+                                  @RequestParam(required = false) String name,
+                                  @RequestParam(required = false) String path,
+                                  @RequestParam(required = false) String type,
+                                  @RequestParam(defaultValue = "100") Integer limit) {
+    LOGGER.info("Enter. developerId: {}, name: {}, path: {}, type: {}, limit: {}.",
+        developerId, name, path, type, limit);
+
+    List<FieldPathView> result =
+        fieldIndexApplication.find(developerId, name, path, type, limit);
+
+    LOGGER.info("Exit. field size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * Rebuild the field index of the developer's data definitions.
+   * 内部接口，用于索引建立之前写入的数据定义。
+   *
+   * @param developerId the developer id
+   * @return indexed data definition count
+   */
+  @PostMapping(value = Router.DATA_FIELDS_REINDEX)
+  public long reindex(@RequestHeader String developerId) {
+    LOGGER.info("Enter. developerId: {}.", developerId);
+
+    long result = fieldIndexApplication.reindex(developerId);
+
+    LOGGER.info("Exit. indexed size: {}.", result);
+
+    return result;
+  }
+}
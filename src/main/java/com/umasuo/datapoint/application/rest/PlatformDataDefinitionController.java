@@ -1,9 +1,12 @@
 package com.umasuo.datapoint.application.rest;
 
+import com.umasuo.datapoint.application.dto.PagedView;
 import com.umasuo.datapoint.application.dto.PlatformDataDefinitionDraft;
 import com.umasuo.datapoint.application.dto.PlatformDataDefinitionView;
+import com.umasuo.datapoint.application.dto.SchemaVersionView;
 import com.umasuo.datapoint.application.service.PlatformDataApplication;
 import com.umasuo.datapoint.infrastructure.Router;
+import com.umasuo.datapoint.infrastructure.export.ExportFormat;
 import com.umasuo.datapoint.infrastructure.update.UpdateRequest;
 
 import org.slf4j.Logger;
@@ -19,9 +22,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
+import java.util.UUID;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 /**
@@ -80,7 +85,7 @@ public class PlatformDataDefinitionController {
    * @param productTypeId the product type id
    */
   @DeleteMapping(value = Router.PLATFORM_DATA_WITH_ID)
-  public void delete(@PathVariable("id") String id, @RequestParam String productTypeId) {
+  public void delete(@PathVariable("id") UUID id, @RequestParam String productTypeId) {
     LOG.debug("Enter. id: {}, productType id: {}.", id, productTypeId);
 
     dataApplication.delete(id, productTypeId);
@@ -96,7 +101,7 @@ public class PlatformDataDefinitionController {
    * @param updateRequest the update request
    */
   @PutMapping(value = Router.PLATFORM_DATA_WITH_ID)
-  public void update(@PathVariable("id") String id,
+  public void update(@PathVariable("id") UUID id,
       @RequestBody @Valid UpdateRequest updateRequest) {
     LOG.info("Enter. dataDefinitionId: {}, updateRequest: {}.", id, updateRequest);
 
@@ -105,6 +110,25 @@ public class PlatformDataDefinitionController {
     LOG.info("Exit.");
   }
 
+  /**
+   * Get the schema of a platform data definition at a version.
+   *
+   * @param id the id
+   * @param version the version, the schema written at or before it is returned
+   * @return the schema version view
+   */
+  @GetMapping(value = Router.PLATFORM_SCHEMA_VERSION)
+  public SchemaVersionView getSchema(@PathVariable("id") UUID id,
+      @PathVariable("version") Integer version) {
+    LOG.info("Enter. id: {}, version: {}.", id, version);
+
+    SchemaVersionView result = dataApplication.getSchema(id, version);
+
+    LOG.info("Exit. version: {}.", result.getVersion());
+
+    return result;
+  }
+
   /**
    * Get data definitions by product type.
    * 暂时是内部接口。
@@ -123,18 +147,43 @@ public class PlatformDataDefinitionController {
   }
 
   /**
-   * 根据product type ID列表查询对应的PlatformDataDefinitionView列表。
+   * 分页查询所有的PlatformDataDefinitionView。
    * 暂时是内部接口
    *
+   * @param cursor the cursor
+   * @param limit the limit
    * @return PlatformDataDefinitionView列表
    */
   @GetMapping(value = Router.PLATFORM_DATA_ROOT)
-  public Map<String, List<PlatformDataDefinitionView>> getAll() {
-    LOG.info("Enter.");
+  public PagedView<PlatformDataDefinitionView> getAll(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") Integer limit) {
+    LOG.info("Enter. cursor: {}, limit: {}.", cursor, limit);
 
-    Map<String, List<PlatformDataDefinitionView>> result = dataApplication.getAll();
+    PagedView<PlatformDataDefinitionView> result = dataApplication.getAll(cursor, limit);
 
-    LOG.info("Exit. dataDefinition size: {}.", result.size());
+    LOG.info("Exit. dataDefinition size: {}.", result.getResults().size());
     return result;
   }
+
+  /**
+   * Export all platform data definitions as a stream.
+   * 暂时是内部接口
+   *
+   * @param format ndjson or smile
+   * @param response the response
+   * @throws IOException the io exception
+   */
+  @GetMapping(value = Router.PLATFORM_DATA_EXPORT)
+  public void export(@RequestParam(defaultValue = "ndjson") String format,
+                     HttpServletResponse response) throws IOException {
+    LOG.info("Enter. format: {}.", format);
+
+    ExportFormat exportFormat = ExportFormat.of(format);
+    response.setContentType(exportFormat.getContentType());
+
+    dataApplication.export(exportFormat, response.getOutputStream());
+
+    LOG.info("Exit.");
+  }
 }
@@ -0,0 +1,91 @@
+package com.umasuo.datapoint.application.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.umasuo.datapoint.application.dto.SimilarSchemaView;
+import com.umasuo.datapoint.application.service.SimilarityApplication;
+import com.umasuo.datapoint.infrastructure.Router;
+import com.umasuo.datapoint.infrastructure.routing.ReadOnlyRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * SimilarSchemaController, suggests platform and developer data definitions with a similar
+ * schema, to reuse instead of writing a new one.
+ * Only reads, so requests are routed to replicas.
+ */
+@ReadOnlyRequest
+@RestController
+@CrossOrigin
+public class SimilarSchemaController {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SimilarSchemaController.class);
+
+  /**
+   * Similarity application.
+   */
+  @Autowired
+  private transient SimilarityApplication similarityApplication;
+
+  /**
+   * Find data definitions similar to a schema, e.g. one being written.
+   *
+   * @param developerId the developer id
+   * @param limit max results
+   * @param schema the schema
+   * @return the similar data definitions, most similar first
+   */
+  @PostMapping(value = Router.DATA_SIMILAR)
+  public List<SimilarSchemaView> findSimilar(@RequestHeader String developerId,
+                                             @RequestParam(defaultValue = "10") Integer limit,
+                                             @RequestBody JsonNode schema) {
+    LOGGER.info("Enter. developerId: {}, limit: {}.", developerId, limit);
+
+    List<SimilarSchemaView> result =
+        similarityApplication.findSimilar(developerId, schema.toString(), limit);
+
+    LOGGER.info("Exit. result size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * Find data definitions similar to a device data definition.
+   *
+   * @param id the device data definition id
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param limit max results
+   * @return the similar data definitions, most similar first
+   */
+  @GetMapping(value = Router.DATA_DEFINITION_SIMILAR)
+  public List<SimilarSchemaView> findSimilar(@PathVariable UUID id,
+                                             @RequestHeader String developerId,
+                                             @RequestParam String productId,
+                                             @RequestParam(defaultValue = "10") Integer limit) {
+    LOGGER.info("Enter. developerId: {}, productId: {}, id: {}, limit: {}.", developerId,
+        productId, id, limit);
+
+    List<SimilarSchemaView> result =
+        similarityApplication.findSimilar(developerId, productId, id, limit);
+
+    LOGGER.info("Exit. result size: {}.", result.size());
+
+    return result;
+  }
+}
@@ -0,0 +1,122 @@
+package com.umasuo.datapoint.application.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.umasuo.datapoint.application.dto.ValidationRequest;
+import com.umasuo.datapoint.application.dto.ValidationResultView;
+import com.umasuo.datapoint.application.service.ValidationApplication;
+import com.umasuo.datapoint.infrastructure.Router;
+import com.umasuo.datapoint.infrastructure.export.ExportFormat;
+import com.umasuo.datapoint.infrastructure.routing.ReadOnlyRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+
+/**
+ * ValidationController, validates device payloads against stored data definitions.
+ * 内部接口，供设备数据接入服务使用。
+ * Only reads, so requests are routed to replicas.
+ */
+@ReadOnlyRequest
+@RestController
+@CrossOrigin
+public class ValidationController {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ValidationController.class);
+
+  /**
+   * Validation application.
+   */
+  @Autowired
+  private transient ValidationApplication validationApplication;
+
+  /**
+   * Validate payloads against one data definition.
+   *
+   * @param id the data definition id
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param payloads the payloads, a json array
+   * @return result of each payload
+   */
+  @PostMapping(value = Router.DATA_VALIDATE)
+  public List<ValidationResultView> validate(@PathVariable UUID id,
+                                             @RequestHeader String developerId,
+                                             @RequestParam String productId,
+                                             @RequestBody List<JsonNode> payloads) {
+    LOGGER.info("Enter. developerId: {}, productId: {}, id: {}.", developerId, productId, id);
+
+    List<ValidationResultView> result =
+        validationApplication.validate(developerId, productId, id, payloads);
+
+    LOGGER.info("Exit. result size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * Validate payloads, each against the data definition selected by productId and dataId.
+   *
+   * @param developerId the developer id
+   * @param request the request
+   * @return result of each payload
+   */
+  @PostMapping(value = Router.DATA_BATCH_VALIDATE)
+  public List<ValidationResultView> validate(@RequestHeader String developerId,
+                                             @RequestBody @Valid ValidationRequest request) {
+    LOGGER.info("Enter. developerId: {}.", developerId);
+
+    List<ValidationResultView> result =
+        validationApplication.validate(developerId, request.getItems());
+
+    LOGGER.info("Exit. result size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * Validate a NDJSON stream, one {productId, dataId, payload} per line, the result of each
+   * line is streamed back as NDJSON.
+   *
+   * @param developerId the developer id
+   * @param productId the product id of lines without productId
+   * @param invalidOnly only return results of invalid lines
+   * @param request the request
+   * @param response the response
+   * @throws IOException the io exception
+   */
+  @PostMapping(value = Router.DATA_STREAM_VALIDATE)
+  public void validate(@RequestHeader String developerId,
+                       @RequestParam(required = false) String productId,
+                       @RequestParam(defaultValue = "false") Boolean invalidOnly,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+    LOGGER.info("Enter. developerId: {}, productId: {}, invalidOnly: {}.",
+        developerId, productId, invalidOnly);
+
+    response.setContentType(ExportFormat.NDJSON.getContentType());
+
+    validationApplication.validate(developerId, productId, invalidOnly,
+        request.getInputStream(), response.getOutputStream());
+
+    LOGGER.info("Exit.");
+  }
+}
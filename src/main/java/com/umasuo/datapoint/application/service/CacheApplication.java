@@ -1,21 +1,31 @@
 package com.umasuo.datapoint.application.service;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.umasuo.datapoint.application.dto.mapper.DataDefinitionMapper;
 import com.umasuo.datapoint.application.dto.mapper.DeveloperDataMapper;
 import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
 import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
 import com.umasuo.datapoint.domain.model.PlatformDataDefinition;
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+import com.umasuo.datapoint.infrastructure.paging.Cursor;
+import com.umasuo.datapoint.infrastructure.reference.ResolvedSchema;
+import com.umasuo.datapoint.infrastructure.reference.SchemaReference;
+import com.umasuo.datapoint.infrastructure.sharding.ShardMap;
 import com.umasuo.datapoint.infrastructure.util.RedisUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * CacheApplication.
@@ -28,12 +38,41 @@ public class CacheApplication {
    */
   private static final Logger LOGGER = LoggerFactory.getLogger(CacheApplication.class);
 
+  /**
+   * Resolved schemas expire after this, a bound on staleness if an invalidation is missed.
+   */
+  private static final long RESOLVED_SCHEMA_TTL_HOURS = 24;
+
+  /**
+   * Page caches expire this long after their first page is cached, so a walk over many cursors
+   * can not grow a hash forever.
+   */
+  private static final long PAGE_CACHE_TTL_MINUTES = 10;
+
   /**
    * Redis template.
    */
   @Autowired
   private transient RedisTemplate redisTemplate;
 
+  /**
+   * Redis template of the hashes of definitions by id, whose fields are uuids.
+   */
+  @Autowired
+  private transient RedisTemplate uuidHashRedisTemplate;
+
+  /**
+   * String redis template, generations of data definitions are plain counters.
+   */
+  @Autowired
+  private transient StringRedisTemplate stringRedisTemplate;
+
+  /**
+   * Shard map, keys of developer data carry the developer's shard.
+   */
+  @Autowired
+  private transient ShardMap shardMap;
+
   /**
    * 获取平台预设的产品数据。
    *
@@ -88,8 +127,9 @@ public class CacheApplication {
   public void deletePlatformDefinition() {
     LOGGER.debug("Enter.");
 
-    redisTemplate.delete(RedisUtils.PLATFORM_DEFINITION_KEY);
-
+    redisTemplate.delete(
+        Lists.newArrayList(RedisUtils.PLATFORM_DEFINITION_KEY,
+            RedisUtils.PLATFORM_DEFINITION_PAGE_KEY));
 
     LOGGER.debug("Exit.");
   }
@@ -102,9 +142,10 @@ public class CacheApplication {
   public void deleteDeveloperDefinition(String developerId) {
     LOGGER.debug("Enter. developerId: {}.", developerId);
 
-    String key = String.format(RedisUtils.DEVELOPER_DEFINITION_FORMAT, developerId);
+    String key = developerKey(RedisUtils.DEVELOPER_DEFINITION_FORMAT, developerId);
+    String pageKey = developerKey(RedisUtils.DEVELOPER_DEFINITION_PAGE_FORMAT, developerId);
 
-    redisTemplate.delete(key);
+    redisTemplate.delete(Lists.newArrayList(key, pageKey));
 
     LOGGER.debug("Exit.");
   }
@@ -118,9 +159,9 @@ public class CacheApplication {
   public List<DeveloperDataDefinition> getAllDeveloperDefinition(String developerId) {
     LOGGER.debug("Enter. developerId: {}.", developerId);
 
-    String key = String.format(RedisUtils.DEVELOPER_DEFINITION_FORMAT, developerId);
+    String key = developerKey(RedisUtils.DEVELOPER_DEFINITION_FORMAT, developerId);
 
-    List<DeveloperDataDefinition> result = redisTemplate.opsForHash().values(key);
+    List<DeveloperDataDefinition> result = uuidHashRedisTemplate.opsForHash().values(key);
 
     LOGGER.debug("Exit. developer dataDefinition size: {}.", result.size());
 
@@ -137,11 +178,11 @@ public class CacheApplication {
       List<DeveloperDataDefinition> definitions) {
     LOGGER.debug("Enter. developer: {}, dataDefinition size: {}.", developerId, definitions.size());
 
-    Map<String, DeveloperDataDefinition> entityMap = DeveloperDataMapper.toModelMap(definitions);
+    Map<UUID, DeveloperDataDefinition> entityMap = DeveloperDataMapper.toModelMap(definitions);
 
-    String key = String.format(RedisUtils.DEVELOPER_DEFINITION_FORMAT, developerId);
+    String key = developerKey(RedisUtils.DEVELOPER_DEFINITION_FORMAT, developerId);
 
-    redisTemplate.opsForHash().putAll(key, entityMap);
+    uuidHashRedisTemplate.opsForHash().putAll(key, entityMap);
 
     LOGGER.debug("Exit.");
   }
@@ -153,13 +194,13 @@ public class CacheApplication {
    * @param id dataDefinition id
    * @return DeveloperDataDefinition developer definition by id
    */
-  public DeveloperDataDefinition getDeveloperDefinitionById(String developerId, String id) {
+  public DeveloperDataDefinition getDeveloperDefinitionById(String developerId, UUID id) {
     LOGGER.debug("Enter. developerId: {}, id: {}.", developerId, id);
 
-    String key = String.format(RedisUtils.DEVELOPER_DEFINITION_FORMAT, developerId);
+    String key = developerKey(RedisUtils.DEVELOPER_DEFINITION_FORMAT, developerId);
 
     DeveloperDataDefinition result =
-        (DeveloperDataDefinition) redisTemplate.opsForHash().get(key, id);
+        (DeveloperDataDefinition) uuidHashRedisTemplate.opsForHash().get(key, id);
 
     LOGGER.debug("Exit. dataDefinition: {}.", result);
 
@@ -177,10 +218,10 @@ public class CacheApplication {
 
     LOGGER.debug("Enter. developerId: {}, productId: {}.", developerId, productId);
 
-    String key = String.format(RedisUtils.DEVICE_DEFINITION_FORMAT, developerId, productId);
+    String key = productKey(RedisUtils.DEVICE_DEFINITION_FORMAT, developerId, productId);
 
     List<DeviceDataDefinition> result = (List<DeviceDataDefinition>)
-        redisTemplate.opsForHash().values(key);
+        uuidHashRedisTemplate.opsForHash().values(key);
 
     LOGGER.debug("Exit. dataDefinition size: {}.", result.size());
     return result;
@@ -195,13 +236,13 @@ public class CacheApplication {
    * @return product data definition
    */
   public DeviceDataDefinition getProductDataDefinition(String developerId, String productId,
-      String id) {
+      UUID id) {
     LOGGER.debug("Enter. developerId: {}, productId: {}, id: {}.", developerId, productId, id);
 
-    String key = String.format(RedisUtils.DEVICE_DEFINITION_FORMAT, developerId, productId);
+    String key = productKey(RedisUtils.DEVICE_DEFINITION_FORMAT, developerId, productId);
 
     DeviceDataDefinition dataDefinition =
-        (DeviceDataDefinition) redisTemplate.opsForHash().get(key, id);
+        (DeviceDataDefinition) uuidHashRedisTemplate.opsForHash().get(key, id);
 
     LOGGER.debug("Exit. dataDefinition: {}.", dataDefinition);
 
@@ -221,11 +262,11 @@ public class CacheApplication {
     LOGGER.debug("Enter. developerId: {}, productId: {}, dataDefinition size: {}.",
         developerId, productId, dataDefinitions.size());
 
-    String key = String.format(RedisUtils.DEVICE_DEFINITION_FORMAT, developerId, productId);
+    String key = productKey(RedisUtils.DEVICE_DEFINITION_FORMAT, developerId, productId);
 
-    Map<String, DeviceDataDefinition> entityMap = DataDefinitionMapper.toModelMap(dataDefinitions);
+    Map<UUID, DeviceDataDefinition> entityMap = DataDefinitionMapper.toModelMap(dataDefinitions);
 
-    redisTemplate.opsForHash().putAll(key, entityMap);
+    uuidHashRedisTemplate.opsForHash().putAll(key, entityMap);
 
     LOGGER.debug("Exit.");
   }
@@ -237,13 +278,286 @@ public class CacheApplication {
    * @param productId the product id
    */
   public void deleteProductDataDefinition(String developerId, String productId) {
-    LOGGER.debug("Enter. developerId: {}, productId: {}, dataDefinition size: {}.",
-        developerId, productId);
+    LOGGER.debug("Enter. developerId: {}, productId: {}.", developerId, productId);
+
+    String key = productKey(RedisUtils.DEVICE_DEFINITION_FORMAT, developerId, productId);
+    String pageKey =
+        productKey(RedisUtils.DEVICE_DEFINITION_PAGE_FORMAT, developerId, productId);
+
+    redisTemplate.delete(Lists.newArrayList(key, pageKey));
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * 获取产品数据定义的某一页.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param cursor the cursor
+   * @param limit the limit
+   * @return page rows, null if not cached
+   */
+  public List<DeviceDataDefinition> getProductDataPage(String developerId, String productId,
+      Cursor cursor, int limit) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}, cursor: {}, limit: {}.",
+        developerId, productId, cursor, limit);
+
+    String key = productKey(RedisUtils.DEVICE_DEFINITION_PAGE_FORMAT, developerId, productId);
+
+    List<DeviceDataDefinition> result = (List<DeviceDataDefinition>)
+        redisTemplate.opsForHash().get(key, pageField(cursor, limit));
+
+    LOGGER.debug("Exit. hit cache? {}.", result != null);
+    return result;
+  }
+
+  /**
+   * 缓存产品数据定义的某一页.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param cursor the cursor
+   * @param limit the limit
+   * @param rows the page rows
+   */
+  public void cacheProductDataPage(String developerId, String productId, Cursor cursor,
+      int limit, List<DeviceDataDefinition> rows) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}, cursor: {}, limit: {}.",
+        developerId, productId, cursor, limit);
+
+    String key = productKey(RedisUtils.DEVICE_DEFINITION_PAGE_FORMAT, developerId, productId);
+
+    putPage(key, pageField(cursor, limit), rows);
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * 获取开发者数据定义的某一页.
+   *
+   * @param developerId the developer id
+   * @param cursor the cursor
+   * @param limit the limit
+   * @return page rows, null if not cached
+   */
+  public List<DeveloperDataDefinition> getDeveloperDataPage(String developerId, Cursor cursor,
+      int limit) {
+    LOGGER.debug("Enter. developerId: {}, cursor: {}, limit: {}.", developerId, cursor, limit);
 
-    String key = String.format(RedisUtils.DEVICE_DEFINITION_FORMAT, developerId, productId);
+    String key = developerKey(RedisUtils.DEVELOPER_DEFINITION_PAGE_FORMAT, developerId);
 
-    redisTemplate.delete(key);
+    List<DeveloperDataDefinition> result = (List<DeveloperDataDefinition>)
+        redisTemplate.opsForHash().get(key, pageField(cursor, limit));
+
+    LOGGER.debug("Exit. hit cache? {}.", result != null);
+    return result;
+  }
+
+  /**
+   * 缓存开发者数据定义的某一页.
+   *
+   * @param developerId the developer id
+   * @param cursor the cursor
+   * @param limit the limit
+   * @param rows the page rows
+   */
+  public void cacheDeveloperDataPage(String developerId, Cursor cursor, int limit,
+      List<DeveloperDataDefinition> rows) {
+    LOGGER.debug("Enter. developerId: {}, cursor: {}, limit: {}.", developerId, cursor, limit);
+
+    String key = developerKey(RedisUtils.DEVELOPER_DEFINITION_PAGE_FORMAT, developerId);
+
+    putPage(key, pageField(cursor, limit), rows);
 
     LOGGER.debug("Exit.");
   }
+
+  /**
+   * 获取平台数据定义的某一页.
+   *
+   * @param cursor the cursor
+   * @param limit the limit
+   * @return page rows, null if not cached
+   */
+  public List<PlatformDataDefinition> getPlatformDataPage(Cursor cursor, int limit) {
+    LOGGER.debug("Enter. cursor: {}, limit: {}.", cursor, limit);
+
+    List<PlatformDataDefinition> result = (List<PlatformDataDefinition>)
+        redisTemplate.opsForHash().get(RedisUtils.PLATFORM_DEFINITION_PAGE_KEY,
+            pageField(cursor, limit));
+
+    LOGGER.debug("Exit. hit cache? {}.", result != null);
+    return result;
+  }
+
+  /**
+   * 缓存平台数据定义的某一页.
+   *
+   * @param cursor the cursor
+   * @param limit the limit
+   * @param rows the page rows
+   */
+  public void cachePlatformDataPage(Cursor cursor, int limit, List<PlatformDataDefinition> rows) {
+    LOGGER.debug("Enter. cursor: {}, limit: {}.", cursor, limit);
+
+    putPage(RedisUtils.PLATFORM_DEFINITION_PAGE_KEY, pageField(cursor, limit), rows);
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * 获取数据定义某个版本展开引用后的 schema.
+   * An entry is only returned if no data definition it includes changed since it was resolved,
+   * checked against the generations stored with it.
+   *
+   * @param type the definition type
+   * @param id the id
+   * @param version the version
+   * @return the resolved schema, null if not cached or stale
+   */
+  public ResolvedSchema getResolvedSchema(DefinitionType type, UUID id, Integer version) {
+    LOGGER.debug("Enter. type: {}, id: {}, version: {}.", type, id, version);
+
+    Object cached = redisTemplate.opsForValue()
+        .get(String.format(RedisUtils.RESOLVED_SCHEMA_FORMAT, type, id, version));
+    ResolvedSchema result = cached instanceof ResolvedSchema ? (ResolvedSchema) cached : null;
+    if (result != null && !isCurrent(result)) {
+      LOGGER.debug("Resolved schema is stale.");
+      result = null;
+    }
+
+    LOGGER.debug("Exit. hit cache? {}.", result != null);
+    return result;
+  }
+
+  /**
+   * 缓存数据定义某个版本展开引用后的 schema.
+   * The generations of its dependencies must be read before their schemas were, so a change
+   * committed meanwhile is seen as stale on read, and entries expire anyway.
+   *
+   * @param type the definition type
+   * @param id the id
+   * @param version the version
+   * @param resolved the resolved schema, with the generations of its dependencies
+   */
+  public void cacheResolvedSchema(DefinitionType type, UUID id, Integer version,
+      ResolvedSchema resolved) {
+    LOGGER.debug("Enter. type: {}, id: {}, version: {}, generations: {}.",
+        type, id, version, resolved.getGenerations());
+
+    redisTemplate.opsForValue().set(
+        String.format(RedisUtils.RESOLVED_SCHEMA_FORMAT, type, id, version), resolved,
+        RESOLVED_SCHEMA_TTL_HOURS, TimeUnit.HOURS);
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * 获取某个数据定义的 generation, 每次修改后加一.
+   *
+   * @param dependency the SchemaReference key of the data definition
+   * @return the generation, 0 if it never changed
+   */
+  public long getSchemaGeneration(String dependency) {
+    String generation = stringRedisTemplate.opsForValue()
+        .get(String.format(RedisUtils.SCHEMA_GENERATION_FORMAT, dependency));
+    return generation == null ? 0L : Long.parseLong(generation);
+  }
+
+  /**
+   * 使包含某个数据定义的所有展开后的 schema 失效, 必须在修改提交之后调用.
+   * 缓存里记录的依赖是传递的, 所以只需要改一个 generation.
+   * The generation outlives every entry resolved before it, so an expired generation never
+   * matches a stale entry again.
+   *
+   * @param type the definition type
+   * @param id the id
+   */
+  public void invalidateResolvedSchemas(DefinitionType type, UUID id) {
+    LOGGER.debug("Enter. type: {}, id: {}.", type, id);
+
+    String key = String.format(RedisUtils.SCHEMA_GENERATION_FORMAT,
+        SchemaReference.key(type, id));
+    Long generation = stringRedisTemplate.opsForValue().increment(key, 1L);
+    stringRedisTemplate.expire(key, 2 * RESOLVED_SCHEMA_TTL_HOURS, TimeUnit.HOURS);
+
+    LOGGER.debug("Exit. generation: {}.", generation);
+  }
+
+  /**
+   * Whether no dependency of a resolved schema changed since it was resolved.
+   *
+   * @param resolved the resolved schema
+   * @return true if it is current
+   */
+  private boolean isCurrent(ResolvedSchema resolved) {
+    Map<String, Long> generations = resolved.getGenerations();
+    if (generations == null) {
+      return false;
+    }
+    if (generations.isEmpty()) {
+      return true;
+    }
+    List<String> dependencies = Lists.newArrayList(generations.keySet());
+    List<String> keys = dependencies.stream()
+        .map(dependency -> String.format(RedisUtils.SCHEMA_GENERATION_FORMAT, dependency))
+        .collect(Collectors.toList());
+    List<String> current = stringRedisTemplate.opsForValue().multiGet(keys);
+    for (int i = 0; i < dependencies.size(); i++) {
+      long generation = current.get(i) == null ? 0L : Long.parseLong(current.get(i));
+      if (generation != generations.get(dependencies.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Hash field of one page.
+   *
+   * @param cursor the cursor
+   * @param limit the limit
+   * @return the field
+   */
+  private String pageField(Cursor cursor, int limit) {
+    return String.format(RedisUtils.PAGE_FIELD_FORMAT, cursor.encode(), limit);
+  }
+
+  /**
+   * Cache a page as a field of a page hash, the hash expires with its first page.
+   *
+   * @param key the page hash key
+   * @param field the page field
+   * @param rows the page rows
+   */
+  private void putPage(String key, String field, List<?> rows) {
+    redisTemplate.opsForHash().put(key, field, Lists.newArrayList(rows));
+    if (redisTemplate.getExpire(key) < 0) {
+      redisTemplate.expire(key, PAGE_CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+    }
+  }
+
+  /**
+   * Cache key of a developer's data, on the developer's shard.
+   *
+   * @param format the key format
+   * @param developerId the developer id
+   * @return the key
+   */
+  private String developerKey(String format, String developerId) {
+    return String.format(format, shardMap.shardOf(developerId), developerId);
+  }
+
+  /**
+   * Cache key of a product's data, on the developer's shard.
+   *
+   * @param format the key format
+   * @param developerId the developer id
+   * @param productId the product id
+   * @return the key
+   */
+  private String productKey(String format, String developerId, String productId) {
+    return String.format(format, shardMap.shardOf(developerId), developerId, productId);
+  }
 }
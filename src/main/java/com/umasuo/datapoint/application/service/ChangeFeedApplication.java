@@ -0,0 +1,203 @@
+package com.umasuo.datapoint.application.service;
+
+import com.umasuo.datapoint.application.dto.ChangeFeedView;
+import com.umasuo.datapoint.application.dto.mapper.DefinitionChangeMapper;
+import com.umasuo.datapoint.domain.model.DefinitionChange;
+import com.umasuo.datapoint.domain.service.DefinitionChangeService;
+import com.umasuo.datapoint.infrastructure.sharding.ShardContext;
+import com.umasuo.datapoint.infrastructure.validator.PageValidator;
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Change feed of data definitions, read by sequence number with optional long poll.
+ * Long polls are woken by the change notification published after each commit.
+ */
+@Service
+public class ChangeFeedApplication implements MessageListener {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChangeFeedApplication.class);
+
+  /**
+   * Max long poll wait, in milliseconds.
+   */
+  public static final long MAX_WAIT_MILLIS = 30000L;
+
+  /**
+   * Change service.
+   */
+  @Autowired
+  private transient DefinitionChangeService changeService;
+
+  /**
+   * Pending long polls.
+   */
+  private final transient Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Get changes after since.
+   *
+   * @param developerId the developer id, null for all developers
+   * @param since the sequence number
+   * @param limit the limit
+   * @return the change feed view
+   */
+  public ChangeFeedView getChanges(String developerId, long since, int limit) {
+    LOGGER.debug("Enter. developerId: {}, since: {}, limit: {}.", developerId, since, limit);
+
+    List<DefinitionChange> changes = changeService.getChanges(developerId, since, limit);
+
+    ChangeFeedView result = DefinitionChangeMapper.toView(changes, since);
+
+    LOGGER.debug("Exit. change size: {}, nextSince: {}.",
+        result.getChanges().size(), result.getNextSince());
+
+    return result;
+  }
+
+  /**
+   * Get changes after since, waiting up to waitMillis if there is none yet.
+   *
+   * @param developerId the developer id, null for all developers
+   * @param since the sequence number
+   * @param limit the limit
+   * @param waitMillis how long to wait for a change, 0 returns at once
+   * @return the deferred change feed view, empty if nothing changed in time
+   */
+  public DeferredResult<ChangeFeedView> poll(String developerId, Long since, Integer limit,
+      Long waitMillis) {
+    LOGGER.debug("Enter. developerId: {}, since: {}, limit: {}, wait: {}.",
+        developerId, since, limit, waitMillis);
+
+    PageValidator.validateLimit(limit);
+    validate(since, waitMillis);
+
+    ChangeFeedView view = getChanges(developerId, since, limit);
+    DeferredResult<ChangeFeedView> result = new DeferredResult<>(waitMillis, view);
+
+    if (!view.getChanges().isEmpty() || waitMillis == 0) {
+      result.setResult(view);
+      return result;
+    }
+
+    Waiter waiter = new Waiter(ShardContext.get(), developerId, since, limit, result);
+    waiters.add(waiter);
+    result.onCompletion(() -> waiters.remove(waiter));
+
+    // a change committed before the waiter was added would not wake it
+    wake(waiter);
+
+    LOGGER.debug("Exit. waiting, waiter size: {}.", waiters.size());
+
+    return result;
+  }
+
+  /**
+   * Wake long polls of the shard, called on each change notification.
+   *
+   * @param message the message, body is the shard
+   * @param pattern the pattern
+   */
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    String shard = new String(message.getBody(), StandardCharsets.UTF_8);
+    LOGGER.debug("Enter. shard: {}, waiter size: {}.", shard, waiters.size());
+
+    waiters.stream().filter(waiter -> waiter.shard.equals(shard)).forEach(this::wake);
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * Complete the waiter if it has changes now.
+   *
+   * @param waiter the waiter
+   */
+  private void wake(Waiter waiter) {
+    try {
+      ChangeFeedView view = ShardContext.callOn(waiter.shard,
+          () -> getChanges(waiter.developerId, waiter.since, waiter.limit));
+      if (!view.getChanges().isEmpty()) {
+        waiter.result.setResult(view);
+      }
+    } catch (RuntimeException ex) {
+      LOGGER.warn("Read changes for waiter failed.", ex);
+      waiter.result.setErrorResult(ex);
+    }
+  }
+
+  /**
+   * Validate since and wait.
+   *
+   * @param since the since
+   * @param waitMillis the wait millis
+   */
+  private void validate(Long since, Long waitMillis) {
+    if (since == null || since < 0) {
+      LOGGER.debug("Invalid since: {}.", since);
+      throw new ParametersException("since should not be negative");
+    }
+    if (waitMillis == null || waitMillis < 0 || waitMillis > MAX_WAIT_MILLIS) {
+      LOGGER.debug("Invalid wait: {}.", waitMillis);
+      throw new ParametersException("wait should be between 0 and " + MAX_WAIT_MILLIS);
+    }
+  }
+
+  /**
+   * A pending long poll.
+   */
+  private static final class Waiter {
+
+    /**
+     * Shard of the request.
+     */
+    private final String shard;
+
+    /**
+     * Developer id, nullable.
+     */
+    private final String developerId;
+
+    /**
+     * Since.
+     */
+    private final long since;
+
+    /**
+     * Limit.
+     */
+    private final int limit;
+
+    /**
+     * The deferred result.
+     */
+    private final DeferredResult<ChangeFeedView> result;
+
+    /**
+     * Instantiates a new Waiter.
+     */
+    private Waiter(String shard, String developerId, long since, int limit,
+        DeferredResult<ChangeFeedView> result) {
+      this.shard = shard;
+      this.developerId = developerId;
+      this.since = since;
+      this.limit = limit;
+      this.result = result;
+    }
+  }
+}
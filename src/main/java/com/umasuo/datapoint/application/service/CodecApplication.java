@@ -0,0 +1,134 @@
+package com.umasuo.datapoint.application.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.domain.service.SchemaHistoryService;
+import com.umasuo.datapoint.infrastructure.codec.PayloadCodec;
+import com.umasuo.datapoint.infrastructure.codec.PayloadCodecs;
+import com.umasuo.datapoint.infrastructure.validator.SchemaGuard;
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Encodes device payloads to the compact binary format of their data definition, and back.
+ * Payloads are encoded with the current schema and carry its version, so payloads encoded
+ * before a schema change are decoded with the schema of their version, read from the schema
+ * history. Schemas of past versions never change, so they are cached here by id and version.
+ */
+@Service
+public class CodecApplication {
+
+  /**
+   * LOGGER.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(CodecApplication.class);
+
+  /**
+   * Max schemas of past versions cached.
+   */
+  private static final int MAX_CACHED_REVISIONS = 1024;
+
+  /**
+   * Schemas of past versions, keyed by data definition id and version.
+   */
+  private final Cache<String, String> revisions = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_REVISIONS)
+      .build();
+
+  /**
+   * Data definition app, reads through the product cache.
+   */
+  @Autowired
+  private transient DataDefinitionApplication definitionApplication;
+
+  /**
+   * Schema history service.
+   */
+  @Autowired
+  private transient SchemaHistoryService schemaHistoryService;
+
+  /**
+   * Schema guard.
+   */
+  @Autowired
+  private transient SchemaGuard schemaGuard;
+
+  /**
+   * Encode a payload with the current schema of a data definition.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param id the data definition id
+   * @param payload the payload
+   * @return the encoded payload
+   */
+  public byte[] encode(String developerId, String productId, UUID id, JsonNode payload) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}, id: {}.", developerId, productId, id);
+
+    if (payload == null) {
+      throw new ParametersException("Payload should not be null.");
+    }
+    DeviceDataDefinition dataDefinition = definitionApplication.getModel(developerId, productId,
+        id);
+    byte[] result = schemaGuard.call(() -> PayloadCodecs.forSchema(dataDefinition.getDataSchema())
+        .encode(payload, dataDefinition.getVersion()));
+
+    LOGGER.debug("Exit. size: {}.", result.length);
+
+    return result;
+  }
+
+  /**
+   * Decode a payload with the schema of the version it was encoded with.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param id the data definition id
+   * @param bytes the encoded payload
+   * @return the payload
+   */
+  public JsonNode decode(String developerId, String productId, UUID id, byte[] bytes) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}, id: {}, size: {}.", developerId,
+        productId, id, bytes == null ? null : bytes.length);
+
+    if (bytes == null || bytes.length == 0) {
+      throw new ParametersException("Encoded payload should not be empty.");
+    }
+    DeviceDataDefinition dataDefinition = definitionApplication.getModel(developerId, productId,
+        id);
+    int version = PayloadCodec.readVersion(bytes);
+    String schema = version == dataDefinition.getVersion() ? dataDefinition.getDataSchema()
+        : getRevisionSchema(id, version);
+    JsonNode result = schemaGuard.call(() -> PayloadCodecs.forSchema(schema).decode(bytes));
+
+    LOGGER.debug("Exit. version: {}.", version);
+
+    return result;
+  }
+
+  /**
+   * Get the schema of a past version, on the request thread since it may read the database.
+   *
+   * @param id the data definition id
+   * @param version the version
+   * @return the schema
+   */
+  private String getRevisionSchema(UUID id, int version) {
+    String key = id + ":" + version;
+    String schema = revisions.getIfPresent(key);
+    if (schema == null) {
+      LOGGER.debug("Schema of version: {} is not cached, read the history.", version);
+      schema = schemaHistoryService.getRevision(id, version).getContent();
+      revisions.put(key, schema);
+    }
+    return schema;
+  }
+}
@@ -2,31 +2,58 @@ package com.umasuo.datapoint.application.service;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.umasuo.datapoint.application.dto.BatchUpdateItem;
 import com.umasuo.datapoint.application.dto.CopyRequest;
+import com.umasuo.datapoint.application.dto.DataAliasView;
 import com.umasuo.datapoint.application.dto.DataDefinitionDraft;
 import com.umasuo.datapoint.application.dto.DataDefinitionView;
+import com.umasuo.datapoint.application.dto.PagedView;
+import com.umasuo.datapoint.application.dto.SchemaVersionView;
 import com.umasuo.datapoint.application.dto.mapper.DataDefinitionMapper;
+import com.umasuo.datapoint.application.dto.mapper.PagedViewMapper;
+import com.umasuo.datapoint.application.dto.mapper.SchemaRevisionMapper;
 import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
 import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
 import com.umasuo.datapoint.domain.model.PlatformDataDefinition;
 import com.umasuo.datapoint.domain.service.DataDefinitionService;
+import com.umasuo.datapoint.domain.service.DefinitionChangeService;
 import com.umasuo.datapoint.domain.service.DeveloperDataService;
 import com.umasuo.datapoint.domain.service.PlatformDataService;
+import com.umasuo.datapoint.domain.service.SchemaHistoryService;
+import com.umasuo.datapoint.infrastructure.enums.ChangeOperation;
+import com.umasuo.datapoint.infrastructure.export.ExportFormat;
+import com.umasuo.datapoint.infrastructure.export.ExportWriter;
+import com.umasuo.datapoint.infrastructure.paging.Cursor;
+import com.umasuo.datapoint.infrastructure.sharding.ShardContext;
+import com.umasuo.datapoint.infrastructure.sharding.ShardMap;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
 import com.umasuo.datapoint.infrastructure.update.UpdateAction;
 import com.umasuo.datapoint.infrastructure.update.UpdaterService;
+import com.umasuo.datapoint.infrastructure.util.TransactionUtils;
 import com.umasuo.datapoint.infrastructure.validator.CopyRequestValidator;
 import com.umasuo.datapoint.infrastructure.validator.DefinitionValidator;
-import com.umasuo.datapoint.infrastructure.validator.SchemaValidator;
+import com.umasuo.datapoint.infrastructure.validator.PageValidator;
+import com.umasuo.datapoint.infrastructure.validator.SchemaGuard;
 import com.umasuo.exception.NotExistException;
+import com.umasuo.exception.ParametersException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import java.util.function.Consumer;
 
 /**
@@ -40,6 +67,11 @@ public class DataDefinitionApplication {
    */
   private final static Logger LOGGER = LoggerFactory.getLogger(DataDefinitionApplication.class);
 
+  /**
+   * Max data definitions updated by one batch update.
+   */
+  public static final int MAX_BATCH_UPDATE_SIZE = 200;
+
   /**
    * The DataDefinitionService.
    */
@@ -70,8 +102,46 @@ public class DataDefinitionApplication {
   @Autowired
   private transient UpdaterService updaterService;
 
+  /**
+   * Shard map.
+   */
+  @Autowired
+  private transient ShardMap shardMap;
+
+  /**
+   * Change feed, written in the transaction of each change.
+   */
+  @Autowired
+  private transient DefinitionChangeService changeService;
+
+  /**
+   * Schema history, written in the transaction of each schema change.
+   */
+  @Autowired
+  private transient SchemaHistoryService schemaHistoryService;
+
+  /**
+   * Transaction template, for transactions started after reading other shards.
+   */
+  @Autowired
+  private transient TransactionTemplate transactionTemplate;
+
+  /**
+   * Schema guard, schemas are validated on the guard pool with a timeout.
+   */
+  @Autowired
+  private transient SchemaGuard schemaGuard;
+
+  /**
+   * Schema resolution, references in new schemas are checked.
+   */
+  @Autowired
+  private transient SchemaResolutionApplication resolutionApplication;
+
   /**
    * Create DeviceDataDefinition.
+   * References are checked before the transaction, since referenced platform data lives on the
+   * global shard while the transaction is bound to the developer's shard.
    *
    * @param draft the draft
    * @param developerId the developer id
@@ -80,16 +150,20 @@ public class DataDefinitionApplication {
   public DataDefinitionView create(DataDefinitionDraft draft, String developerId) {
     LOGGER.debug("Enter. draft: {}, developerId: {}.", draft, developerId);
 
-    SchemaValidator.validate(draft.getSchema());
-
-    definitionService.isExistName(developerId, draft.getProductId(), draft.getName());
-
-    definitionService.isExistDataId(developerId, draft.getProductId(), draft.getDataId());
+    schemaGuard.validate(draft.getSchema());
+    resolutionApplication.checkReferences(developerId, draft.getSchema());
 
-    DeviceDataDefinition definition =
-        definitionService.save(DataDefinitionMapper.toModel(draft, developerId));
+    DeviceDataDefinition definition = ShardContext.callOn(shardMap.shardOf(developerId),
+        () -> transactionTemplate.execute(status -> {
+          DeviceDataDefinition created =
+              definitionService.create(DataDefinitionMapper.toModel(draft, developerId));
+          changeService.recordDevice(ChangeOperation.CREATE, created);
+          schemaHistoryService.recordDevice(created);
+          return created;
+        }));
 
-    cacheApplication.deleteProductDataDefinition(developerId, draft.getProductId());
+    TransactionUtils.afterCommit(() ->
+        cacheApplication.deleteProductDataDefinition(developerId, draft.getProductId()));
 
     DataDefinitionView view = DataDefinitionMapper.toView(definition);
 
@@ -101,15 +175,17 @@ public class DataDefinitionApplication {
   /**
    * 处理拷贝数据定义的请求。
    * 请求分为开发者的数据定义和平台的数据定义。
+   * Sources are read first, outside the transaction, since platform data lives on the global
+   * shard while the copies are written to the developer's shard.
    *
    * @param developerId the developer id
    * @param request the request
    * @return the list
    */
-  public List<String> handleCopyRequest(String developerId, CopyRequest request) {
+  public List<UUID> handleCopyRequest(String developerId, CopyRequest request) {
     LOGGER.info("Enter. developerId: {}, copyRequest: {}.", developerId, request);
 
-    List<String> newDataDefinitionIds = Lists.newArrayList();
+    List<DeviceDataDefinition> newDataDefinitions = Lists.newArrayList();
 
     // 拷贝平台的数据定义
     boolean isCopyFromPlatform = !CollectionUtils.isEmpty(request.getPlatformDataDefinitionIds());
@@ -121,18 +197,27 @@ public class DataDefinitionApplication {
     CopyRequestValidator.validateNullRequest(isCopyFromPlatform, isCopyFromDeveloper);
 
     if (isCopyFromPlatform) {
-      List<String> copyPlatformDataIds = copyFromPlatformData(
-          developerId, request.getProductId(), request.getPlatformDataDefinitionIds());
-      newDataDefinitionIds.addAll(copyPlatformDataIds);
+      newDataDefinitions.addAll(copyFromPlatformData(
+          developerId, request.getProductId(), request.getPlatformDataDefinitionIds()));
     }
 
     if (isCopyFromDeveloper) {
-      List<String> copyDeveloperDataIds = copyFromDeveloperData(
-          developerId, request.getProductId(), request.getDeveloperDataDefinitionIds());
-      newDataDefinitionIds.addAll(copyDeveloperDataIds);
+      newDataDefinitions.addAll(copyFromDeveloperData(
+          developerId, request.getProductId(), request.getDeveloperDataDefinitionIds()));
     }
 
-    cacheApplication.deleteProductDataDefinition(developerId, request.getProductId());
+    // 拷贝结果在一个事务里写入开发者的分片
+    List<UUID> newDataDefinitionIds = ShardContext.callOn(shardMap.shardOf(developerId),
+        () -> transactionTemplate.execute(status -> {
+          List<UUID> ids = definitionService.saveAll(newDataDefinitions);
+          newDataDefinitions.forEach(
+              definition -> changeService.recordDevice(ChangeOperation.COPY, definition));
+          schemaHistoryService.recordNewDevices(newDataDefinitions);
+          return ids;
+        }));
+
+    TransactionUtils.afterCommit(() ->
+        cacheApplication.deleteProductDataDefinition(developerId, request.getProductId()));
 
     LOGGER.info("Exit. newDataDefinitionIds: {}.", newDataDefinitionIds);
     return newDataDefinitionIds;
@@ -144,21 +229,16 @@ public class DataDefinitionApplication {
    * @param developerId the developer id
    * @param productId the product id
    * @param requestIds the dataDefinition id list
-   * @return new dataDefinition id list
+   * @return new dataDefinition list, not saved yet
    */
-  private List<String> copyFromPlatformData(String developerId, String productId,
-      List<String> requestIds) {
+  private List<DeviceDataDefinition> copyFromPlatformData(String developerId, String productId,
+      List<UUID> requestIds) {
 
     List<PlatformDataDefinition> dataDefinitions = platformDataService.getByIds(requestIds);
 
     CopyRequestValidator.matchRequestIds(requestIds, dataDefinitions);
 
-    List<DeviceDataDefinition> newDataDefinitions =
-        DataDefinitionMapper.copyFromPlatformData(developerId, productId, dataDefinitions);
-
-    List<String> newDataDefinitionIds = definitionService.saveAll(newDataDefinitions);
-
-    return newDataDefinitionIds;
+    return DataDefinitionMapper.copyFromPlatformData(developerId, productId, dataDefinitions);
   }
 
   /**
@@ -167,24 +247,21 @@ public class DataDefinitionApplication {
    * @param developerId the developer id
    * @param productId the product id
    * @param requestIds the dataDefinition id list
-   * @return new dataDefinition id list
+   * @return new dataDefinition list, not saved yet
    */
-  private List<String> copyFromDeveloperData(String developerId, String productId,
-      List<String> requestIds) {
-    List<DeveloperDataDefinition> dataDefinitions = developerDataService.getByIds(requestIds);
-
-    CopyRequestValidator.matchRequestIds(requestIds, dataDefinitions);
-
-    List<DeviceDataDefinition> newDataDefinitions = DataDefinitionMapper
-        .copyFromDeveloperData(developerId, productId, dataDefinitions);
+  private List<DeviceDataDefinition> copyFromDeveloperData(String developerId, String productId,
+      List<UUID> requestIds) {
+    return ShardContext.callOn(shardMap.shardOf(developerId), () -> {
+      List<DeveloperDataDefinition> dataDefinitions = developerDataService.getByIds(requestIds);
 
-    List<String> newDataDefinitionIds = definitionService.saveAll(newDataDefinitions);
+      CopyRequestValidator.matchRequestIds(requestIds, dataDefinitions);
 
-    return newDataDefinitionIds;
+      return DataDefinitionMapper.copyFromDeveloperData(developerId, productId, dataDefinitions);
+    });
   }
 
   /**
-   * Update DeviceDataDefinition.
+   * Update DeviceDataDefinition, references of a new schema are checked before the transaction.
    *
    * @param id the id
    * @param developerId the developer id
@@ -192,22 +269,33 @@ public class DataDefinitionApplication {
    * @param actions the actions
    * @return updated DataDefinitionView
    */
-  public DataDefinitionView update(String id, String developerId, Integer version,
+  public DataDefinitionView update(UUID id, String developerId, Integer version,
       List<UpdateAction> actions) {
     LOGGER.debug("Enter. id: {}, version: {}, developerId:{}, actions: {}.",
         id, version, developerId, actions);
 
-    DeviceDataDefinition definition = definitionService.getById(id);
-
-    DefinitionValidator.validateDeveloper(developerId, definition.getDeveloperId(), id);
-
-//    VersionValidator.checkVersion(version, definition.getVersion());
+    ChangeSet changes = new ChangeSet();
 
-    actions.stream().forEach(action -> updaterService.handle(definition, action));
-
-    DeviceDataDefinition updatedDefinition = definitionService.save(definition);
+    updaterService.handle(changes, actions);
+    if (changes.contains(ChangeSet.DATA_SCHEMA)) {
+      resolutionApplication.checkReferences(developerId,
+          (String) changes.getChanges().get(ChangeSet.DATA_SCHEMA));
+    }
 
-    cacheApplication.deleteProductDataDefinition(developerId, definition.getProductId());
+    DeviceDataDefinition updatedDefinition = ShardContext.callOn(shardMap.shardOf(developerId),
+        () -> transactionTemplate.execute(status -> {
+          DeviceDataDefinition updated =
+              definitionService.update(developerId, id, version, changes);
+          changeService.recordDevice(ChangeOperation.UPDATE, updated);
+          if (changes.contains(ChangeSet.DATA_SCHEMA)) {
+            schemaHistoryService.recordDevice(updated);
+          }
+          return updated;
+        }));
+
+    String productId = updatedDefinition.getProductId();
+    TransactionUtils.afterCommit(() ->
+        cacheApplication.deleteProductDataDefinition(developerId, productId));
 
     DataDefinitionView result = DataDefinitionMapper.toView(updatedDefinition);
 
@@ -217,6 +305,114 @@ public class DataDefinitionApplication {
     return result;
   }
 
+  /**
+   * Update many DeviceDataDefinitions in one transaction, all or none are updated.
+   * Every item's actions and references are checked before the transaction starts, the rows
+   * are read with one query and written with one JDBC batch, and the cache of each changed
+   * product is dropped once after commit.
+   *
+   * @param developerId the developer id
+   * @param items the updates
+   * @return updated DataDefinitionViews, in the order of items
+   */
+  public List<DataDefinitionView> batchUpdate(String developerId, List<BatchUpdateItem> items) {
+    LOGGER.debug("Enter. developerId: {}, size: {}.", developerId,
+        items == null ? null : items.size());
+
+    if (items == null || items.isEmpty() || items.size() > MAX_BATCH_UPDATE_SIZE) {
+      throw new ParametersException("Items size should between 1 and " + MAX_BATCH_UPDATE_SIZE);
+    }
+
+    Map<UUID, Integer> versions = Maps.newHashMap();
+    Map<UUID, ChangeSet> changes = Maps.newLinkedHashMap();
+    for (BatchUpdateItem item : items) {
+      ChangeSet itemChanges = new ChangeSet();
+      updaterService.handle(itemChanges, item.getActions());
+      if (itemChanges.contains(ChangeSet.DATA_SCHEMA)) {
+        resolutionApplication.checkReferences(developerId,
+            (String) itemChanges.getChanges().get(ChangeSet.DATA_SCHEMA));
+      }
+      if (changes.put(item.getId(), itemChanges) != null) {
+        throw new ParametersException("DataDefinition is updated twice: " + item.getId());
+      }
+      versions.put(item.getId(), item.getVersion());
+    }
+
+    Set<String> productIds = Sets.newLinkedHashSet();
+    List<DeviceDataDefinition> updatedDefinitions = ShardContext.callOn(
+        shardMap.shardOf(developerId), () -> transactionTemplate.execute(status -> {
+          List<DeviceDataDefinition> updated =
+              definitionService.updateAll(developerId, versions, changes);
+          for (DeviceDataDefinition updatedDefinition : updated) {
+            ChangeSet definitionChanges = changes.get(updatedDefinition.getId());
+            if (definitionChanges.isEmpty()) {
+              continue;
+            }
+            changeService.recordDevice(ChangeOperation.UPDATE, updatedDefinition);
+            if (definitionChanges.contains(ChangeSet.DATA_SCHEMA)) {
+              schemaHistoryService.recordDevice(updatedDefinition);
+            }
+            productIds.add(updatedDefinition.getProductId());
+          }
+          return updated;
+        }));
+    TransactionUtils.afterCommit(() -> productIds.forEach(productId ->
+        cacheApplication.deleteProductDataDefinition(developerId, productId)));
+
+    List<DataDefinitionView> result = DataDefinitionMapper.toView(updatedDefinitions);
+
+    LOGGER.debug("Exit. updated size: {}, product size: {}.", result.size(), productIds.size());
+
+    return result;
+  }
+
+  /**
+   * Get the schema of a data definition at a version.
+   *
+   * @param developerId the developer id
+   * @param id the id
+   * @param version the version
+   * @return the schema version view
+   */
+  public SchemaVersionView getSchema(String developerId, UUID id, Integer version) {
+    LOGGER.debug("Enter. developerId: {}, id: {}, version: {}.", developerId, id, version);
+
+    // 只有数据定义的所有者可以查看历史
+    definitionService.getById(developerId, id);
+
+    SchemaVersionView result =
+        SchemaRevisionMapper.toView(schemaHistoryService.getRevision(id, version));
+
+    LOGGER.debug("Exit. version: {}.", result.getVersion());
+
+    return result;
+  }
+
+  /**
+   * Get the current schema of a data definition, with references to developer and platform
+   * data definitions resolved.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param id the id
+   * @return the schema version view
+   */
+  public SchemaVersionView getResolvedSchema(String developerId, String productId, UUID id) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}, id: {}.", developerId, productId, id);
+
+    DeviceDataDefinition dataDefinition = getModel(developerId, productId, id);
+
+    SchemaVersionView result = new SchemaVersionView();
+    result.setDefinitionId(dataDefinition.getId());
+    result.setVersion(dataDefinition.getVersion());
+    result.setCreatedAt(dataDefinition.getLastModifiedAt());
+    result.setDataSchema(resolutionApplication.resolve(dataDefinition));
+
+    LOGGER.debug("Exit. version: {}.", result.getVersion());
+
+    return result;
+  }
+
   /**
    * Delete.
    *
@@ -224,18 +420,21 @@ public class DataDefinitionApplication {
    * @param productId the product id
    * @param id the id
    */
-  public void delete(String developerId, String productId, String id) {
+  @Transactional
+  public void delete(String developerId, String productId, UUID id) {
     LOGGER.debug("Enter. id: {}, developerId: {}, productId: {}.", id, developerId, productId);
 
-    DeviceDataDefinition dataDefinition = definitionService.getById(id);
-
-    DefinitionValidator.validateDeveloper(developerId, dataDefinition.getDeveloperId(), id);
+    DeviceDataDefinition dataDefinition = definitionService.getById(developerId, id);
 
     DefinitionValidator.validateProduct(productId, dataDefinition.getProductId(), id);
 
-    definitionService.delete(id);
+    definitionService.delete(developerId, id);
+
+    changeService.recordDevice(ChangeOperation.DELETE, developerId, dataDefinition.getProductId(),
+        id);
 
-    cacheApplication.deleteProductDataDefinition(developerId, dataDefinition.getProductId());
+    TransactionUtils.afterCommit(() ->
+        cacheApplication.deleteProductDataDefinition(developerId, dataDefinition.getProductId()));
 
     LOGGER.debug("Exit.");
   }
@@ -246,12 +445,16 @@ public class DataDefinitionApplication {
    * @param developerId the developer id
    * @param productId the product id
    */
+  @Transactional
   public void delete(String developerId, String productId) {
     LOGGER.debug("Enter. developerId: {}, productId: {}.", developerId, productId);
 
     definitionService.deleteByProduct(developerId, productId);
 
-    cacheApplication.deleteProductDataDefinition(developerId, productId);
+    changeService.recordDevice(ChangeOperation.DELETE, developerId, productId, null);
+
+    TransactionUtils.afterCommit(() ->
+        cacheApplication.deleteProductDataDefinition(developerId, productId));
 
     LOGGER.debug("Exit.");
   }
@@ -266,6 +469,24 @@ public class DataDefinitionApplication {
   public List<DataDefinitionView> getByProductId(String developerId, String productId) {
     LOGGER.debug("Enter. developerId: {}, productId: {}.", developerId, productId);
 
+    List<DataDefinitionView> result =
+        DataDefinitionMapper.toView(getModelsByProductId(developerId, productId));
+
+    LOGGER.debug("Exit. dataDefinition size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * 获取productId对应的所有dataDefinition, 优先从缓存读取.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @return dataDefinition list
+   */
+  public List<DeviceDataDefinition> getModelsByProductId(String developerId, String productId) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}.", developerId, productId);
+
     List<DeviceDataDefinition> dataDefinitions =
         cacheApplication.getProductDataDefinition(developerId, productId);
 
@@ -275,9 +496,68 @@ public class DataDefinitionApplication {
       cacheApplication.cacheProductDataDefinition(developerId, productId, dataDefinitions);
     }
 
-    List<DataDefinitionView> result = DataDefinitionMapper.toView(dataDefinitions);
+    LOGGER.debug("Exit. dataDefinition size: {}.", dataDefinitions.size());
 
-    LOGGER.debug("Exit. dataDefinition size: {}.", result.size());
+    return dataDefinitions;
+  }
+
+  /**
+   * 分页获取productId对应的dataDefinition.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param cursor the cursor, null for the first page
+   * @param limit the limit
+   * @return one page of dataDefinition
+   */
+  public PagedView<DataDefinitionView> getPageByProductId(String developerId, String productId,
+      String cursor, Integer limit) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}, cursor: {}, limit: {}.",
+        developerId, productId, cursor, limit);
+
+    PageValidator.validateLimit(limit);
+    Cursor start = Cursor.decode(cursor);
+
+    List<DeviceDataDefinition> rows =
+        cacheApplication.getProductDataPage(developerId, productId, start, limit);
+
+    if (rows == null) {
+      rows = definitionService.getPageByProductId(developerId, productId, start, limit);
+
+      cacheApplication.cacheProductDataPage(developerId, productId, start, limit, rows);
+    }
+
+    PagedView<DataDefinitionView> result = PagedViewMapper.toView(rows, limit,
+        DataDefinitionMapper::toView, data -> Cursor.of(data.getCreatedAt(), data.getId()));
+
+    LOGGER.debug("Exit. dataDefinition size: {}.", result.getResults().size());
+
+    return result;
+  }
+
+  /**
+   * 分页获取开发者公开的dataDefinition.
+   * The developer is a query parameter, not the caller, so the query runs on its shard.
+   *
+   * @param developerId the developer id
+   * @param cursor the cursor, null for the first page
+   * @param limit the limit
+   * @return one page of dataDefinition
+   */
+  public PagedView<DataDefinitionView> getAllOpenData(String developerId, String cursor,
+      Integer limit) {
+    LOGGER.debug("Enter. developerId: {}, cursor: {}, limit: {}.", developerId, cursor, limit);
+
+    PageValidator.validateLimit(limit);
+
+    Cursor start = Cursor.decode(cursor);
+    List<DeviceDataDefinition> rows = ShardContext.callOn(shardMap.shardOf(developerId),
+        () -> definitionService.getOpenDataPage(developerId, start, limit));
+
+    PagedView<DataDefinitionView> result = PagedViewMapper.toView(rows, limit,
+        DataDefinitionMapper::toView, data -> Cursor.of(data.getCreatedAt(), data.getId()));
+
+    LOGGER.debug("Exit. dataDefinition size: {}.", result.getResults().size());
 
     return result;
   }
@@ -303,6 +583,39 @@ public class DataDefinitionApplication {
     return result;
   }
 
+  /**
+   * Get the data alias lookup table of a product, from the product cache.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @return the lookup table, indexed by alias
+   */
+  public DataAliasView getAliases(String developerId, String productId) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}.", developerId, productId);
+
+    List<DeviceDataDefinition> dataDefinitions = getModelsByProductId(developerId, productId);
+
+    int size = dataDefinitions.stream().map(DeviceDataDefinition::getDataAlias)
+        .filter(Objects::nonNull).mapToInt(alias -> alias + 1).max().orElse(0);
+    List<String> dataIds = Lists.newArrayList(Collections.nCopies(size, (String) null));
+    List<UUID> ids = Lists.newArrayList(Collections.nCopies(size, (UUID) null));
+    dataDefinitions.stream().filter(definition -> definition.getDataAlias() != null)
+        .forEach(definition -> {
+          dataIds.set(definition.getDataAlias(), definition.getDataId());
+          ids.set(definition.getDataAlias(), definition.getId());
+        });
+
+    DataAliasView result = new DataAliasView();
+    result.setProductId(productId);
+    result.setDataIds(dataIds);
+    result.setIds(ids);
+
+    LOGGER.debug("Exit. alias size: {}, dataDefinition size: {}.", size,
+        dataDefinitions.size());
+
+    return result;
+  }
+
   /**
    * Get data definition view.
    *
@@ -311,7 +624,25 @@ public class DataDefinitionApplication {
    * @param id the id
    * @return the data definition view
    */
-  public DataDefinitionView get(String developerId, String productId, String id) {
+  public DataDefinitionView get(String developerId, String productId, UUID id) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}, id: {}.", developerId, productId, id);
+
+    DataDefinitionView result = DataDefinitionMapper.toView(getModel(developerId, productId, id));
+
+    LOGGER.debug("Exit. dataDefinition: {}.", result);
+
+    return result;
+  }
+
+  /**
+   * Get data definition, from the cache of the product if it is cached.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param id the id
+   * @return the data definition
+   */
+  public DeviceDataDefinition getModel(String developerId, String productId, UUID id) {
     LOGGER.debug("Enter. developerId: {}, productId: {}, id: {}.", developerId, productId, id);
 
     DeviceDataDefinition dataDefinition =
@@ -334,10 +665,35 @@ public class DataDefinitionApplication {
       }
     }
 
-    DataDefinitionView result = DataDefinitionMapper.toView(dataDefinition);
+    LOGGER.debug("Exit. dataDefinition version: {}.", dataDefinition.getVersion());
 
-    LOGGER.debug("Exit. dataDefinition: {}.", result);
+    return dataDefinition;
+  }
 
-    return result;
+  /**
+   * Export data definitions of a developer, or of all developers on every shard if developerId
+   * is null.
+   *
+   * @param developerId the developer id, nullable
+   * @param format the format
+   * @param outputStream the output stream
+   * @throws IOException the io exception
+   */
+  public void export(String developerId, ExportFormat format, OutputStream outputStream)
+      throws IOException {
+    LOGGER.info("Enter. developerId: {}, format: {}.", developerId, format);
+
+    long count = 0;
+    try (ExportWriter writer = new ExportWriter(format, outputStream)) {
+      if (developerId != null) {
+        count = definitionService.export(developerId, writer::write);
+      } else {
+        for (String shard : shardMap.getShards()) {
+          count += ShardContext.callOn(shard, () -> definitionService.export(null, writer::write));
+        }
+      }
+    }
+
+    LOGGER.info("Exit. exported size: {}.", count);
   }
 }
@@ -0,0 +1,348 @@
+package com.umasuo.datapoint.application.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.umasuo.datapoint.application.dto.DataDefinitionDraft;
+import com.umasuo.datapoint.application.dto.ImportResultView;
+import com.umasuo.datapoint.application.dto.mapper.DataDefinitionMapper;
+import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.domain.service.DataDefinitionService;
+import com.umasuo.datapoint.domain.service.DefinitionChangeService;
+import com.umasuo.datapoint.domain.service.SchemaHistoryService;
+import com.umasuo.datapoint.infrastructure.configuration.SchemaExecutorConfig;
+import com.umasuo.datapoint.infrastructure.enums.ChangeOperation;
+import com.umasuo.datapoint.infrastructure.util.TransactionUtils;
+import com.umasuo.datapoint.infrastructure.util.UuidUtils;
+import com.umasuo.datapoint.infrastructure.validator.SchemaValidator;
+import com.umasuo.exception.AlreadyExistException;
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+/**
+ * Bulk import of DeviceDataDefinition from a NDJSON stream.
+ * The stream is handled in batches, each batch is validated, its references are checked,
+ * it is checked for uniqueness with one query and loaded with COPY, the whole import runs in one
+ * transaction.
+ */
+@Service
+public class DataImportApplication {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DataImportApplication.class);
+
+  /**
+   * Rows per batch.
+   */
+  private static final int BATCH_SIZE = 1000;
+
+  /**
+   * Separator in uniqueness keys.
+   */
+  private static final char KEY_SEPARATOR = '\u0000';
+
+  /**
+   * Draft reader.
+   */
+  private static final ObjectReader DRAFT_READER =
+      new ObjectMapper().readerFor(DataDefinitionDraft.class);
+
+  /**
+   * The DataDefinitionService.
+   */
+  @Autowired
+  private transient DataDefinitionService definitionService;
+
+  /**
+   * Cache application service.
+   */
+  @Autowired
+  private transient CacheApplication cacheApplication;
+
+  /**
+   * Change feed, one entry per imported product.
+   */
+  @Autowired
+  private transient DefinitionChangeService changeService;
+
+  /**
+   * Schema history.
+   */
+  @Autowired
+  private transient SchemaHistoryService schemaHistoryService;
+
+  /**
+   * Schema resolution, references of imported schemas are checked as on create.
+   */
+  @Autowired
+  private transient SchemaResolutionApplication resolutionApplication;
+
+  /**
+   * Bean validator for drafts.
+   */
+  @Autowired
+  private transient Validator validator;
+
+  /**
+   * Bounded pool for schema validation.
+   */
+  @Autowired
+  @Qualifier(SchemaExecutorConfig.SCHEMA_EXECUTOR)
+  private transient ExecutorService schemaExecutor;
+
+  /**
+   * Max time to wait for the schemas of one batch, in milliseconds.
+   */
+  @Value("${datapoint.schema.timeout-millis:2000}")
+  private transient long timeoutMillis;
+
+  /**
+   * Import DeviceDataDefinition drafts, one json draft per line.
+   *
+   * @param developerId the developer id
+   * @param inputStream the NDJSON input stream
+   * @return the import result
+   * @throws IOException the io exception
+   */
+  @Transactional
+  public ImportResultView importData(String developerId, InputStream inputStream)
+      throws IOException {
+    LOGGER.info("Enter. developerId: {}.", developerId);
+
+    Set<String> productIds = Sets.newHashSet();
+    Set<String> importedKeys = Sets.newHashSet();
+    int imported = 0;
+    // lines parsed so far, the batch being filled is not imported yet
+    int lines = 0;
+
+    try (MappingIterator<DataDefinitionDraft> drafts = DRAFT_READER.readValues(inputStream)) {
+      List<DataDefinitionDraft> batch = Lists.newArrayListWithCapacity(BATCH_SIZE);
+      while (drafts.hasNextValue()) {
+        DataDefinitionDraft draft = drafts.nextValue();
+        lines++;
+        batch.add(draft);
+        if (batch.size() == BATCH_SIZE) {
+          imported += importBatch(developerId, batch, imported, productIds, importedKeys);
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty()) {
+        imported += importBatch(developerId, batch, imported, productIds, importedKeys);
+      }
+    } catch (JsonProcessingException e) {
+      LOGGER.debug("Invalid import line: {}.", lines + 1, e);
+      throw new ParametersException("Invalid json at line " + (lines + 1));
+    }
+
+    productIds.forEach(productId -> {
+      changeService.recordDevice(ChangeOperation.IMPORT, developerId, productId, null);
+      TransactionUtils.afterCommit(() ->
+          cacheApplication.deleteProductDataDefinition(developerId, productId));
+    });
+
+    ImportResultView result = new ImportResultView();
+    result.setImported(imported);
+    result.setProductIds(Lists.newArrayList(productIds));
+
+    LOGGER.info("Exit. imported size: {}, product size: {}.", imported, productIds.size());
+
+    return result;
+  }
+
+  /**
+   * Validate and load one batch.
+   *
+   * @param developerId the developer id
+   * @param batch the batch
+   * @param offset lines before this batch
+   * @param productIds products touched so far
+   * @param importedKeys uniqueness keys imported so far
+   * @return imported size
+   */
+  private int importBatch(String developerId, List<DataDefinitionDraft> batch, int offset,
+      Set<String> productIds, Set<String> importedKeys) {
+    LOGGER.debug("Enter. offset: {}, batch size: {}.", offset, batch.size());
+
+    validateDrafts(batch, offset);
+
+    validateSchemas(batch, offset);
+
+    checkReferences(developerId, batch, offset);
+
+    checkUnique(developerId, batch, importedKeys);
+
+    long now = System.currentTimeMillis();
+    List<DeviceDataDefinition> dataDefinitions = batch.stream().map(draft -> {
+      DeviceDataDefinition dataDefinition = DataDefinitionMapper.toModel(draft, developerId);
+      dataDefinition.setId(UuidUtils.timeOrdered());
+      dataDefinition.setCreatedAt(now);
+      dataDefinition.setLastModifiedAt(now);
+      dataDefinition.setVersion(0);
+      return dataDefinition;
+    }).collect(Collectors.toList());
+
+    definitionService.copyIn(dataDefinitions);
+    schemaHistoryService.recordNewDevices(dataDefinitions);
+
+    batch.forEach(draft -> productIds.add(draft.getProductId()));
+
+    LOGGER.debug("Exit.");
+
+    return batch.size();
+  }
+
+  /**
+   * Check required fields of drafts.
+   *
+   * @param batch the batch
+   * @param offset lines before this batch
+   */
+  private void validateDrafts(List<DataDefinitionDraft> batch, int offset) {
+    for (int i = 0; i < batch.size(); i++) {
+      Set<ConstraintViolation<DataDefinitionDraft>> violations = validator.validate(batch.get(i));
+      if (!violations.isEmpty()) {
+        ConstraintViolation<DataDefinitionDraft> violation = violations.iterator().next();
+        LOGGER.debug("Invalid draft at line: {}, violation: {}.", offset + i + 1, violation);
+        throw new ParametersException("Line " + (offset + i + 1) + ": "
+            + violation.getPropertyPath() + " " + violation.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Validate schemas of a batch on the schema pool, within the timeout for the whole batch.
+   *
+   * @param batch the batch
+   * @param offset lines before this batch
+   */
+  private void validateSchemas(List<DataDefinitionDraft> batch, int offset) {
+    List<Future<?>> futures = Lists.newArrayListWithCapacity(batch.size());
+    batch.forEach(draft ->
+        futures.add(schemaExecutor.submit(() -> SchemaValidator.validate(draft.getSchema()))));
+
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        futures.forEach(future -> future.cancel(true));
+        LOGGER.debug("Schema at line: {} timed out.", offset + i + 1);
+        throw new ParametersException("Line " + (offset + i + 1)
+            + ": DataSchema took too long to handle.");
+      } catch (ExecutionException e) {
+        LOGGER.debug("Invalid schema at line: {}.", offset + i + 1, e.getCause());
+        throw new ParametersException("Line " + (offset + i + 1) + ": "
+            + e.getCause().getMessage());
+      } catch (InterruptedException e) {
+        futures.forEach(future -> future.cancel(true));
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while validating schemas", e);
+      }
+    }
+  }
+
+  /**
+   * Check that the data definitions each schema refers to exist and belong to the developer.
+   * The check suspends the import transaction, see SchemaResolutionApplication.
+   *
+   * @param developerId the developer id
+   * @param batch the batch
+   * @param offset lines before this batch
+   */
+  private void checkReferences(String developerId, List<DataDefinitionDraft> batch,
+      int offset) {
+    for (int i = 0; i < batch.size(); i++) {
+      try {
+        resolutionApplication.checkReferences(developerId, batch.get(i).getSchema());
+      } catch (ParametersException e) {
+        LOGGER.debug("Invalid reference at line: {}.", offset + i + 1, e);
+        throw new ParametersException("Line " + (offset + i + 1) + ": " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Check dataId and name uniqueness against imported rows and the database.
+   *
+   * @param developerId the developer id
+   * @param batch the batch
+   * @param importedKeys uniqueness keys imported so far, new keys are added
+   */
+  private void checkUnique(String developerId, List<DataDefinitionDraft> batch,
+      Set<String> importedKeys) {
+    for (DataDefinitionDraft draft : batch) {
+      if (!importedKeys.add(dataIdKey(draft.getProductId(), draft.getDataId()))
+          || !importedKeys.add(nameKey(draft.getProductId(), draft.getName()))) {
+        LOGGER.debug("Duplicated dataId or name in import: {}.", draft);
+        throw new AlreadyExistException("Duplicated dataId: " + draft.getDataId()
+            + " or name: " + draft.getName() + " in product: " + draft.getProductId());
+      }
+    }
+
+    Set<String> batchProductIds = Sets.newHashSet();
+    Set<String> batchDataIds = Sets.newHashSet();
+    Set<String> batchNames = Sets.newHashSet();
+    Set<String> batchKeys = Sets.newHashSet();
+    batch.forEach(draft -> {
+      batchProductIds.add(draft.getProductId());
+      batchDataIds.add(draft.getDataId());
+      batchNames.add(draft.getName());
+      batchKeys.add(dataIdKey(draft.getProductId(), draft.getDataId()));
+      batchKeys.add(nameKey(draft.getProductId(), draft.getName()));
+    });
+
+    List<Object[]> existKeys =
+        definitionService.getKeys(developerId, batchProductIds, batchDataIds, batchNames);
+
+    for (Object[] key : existKeys) {
+      String productId = (String) key[0];
+      if (batchKeys.contains(dataIdKey(productId, (String) key[1]))
+          || batchKeys.contains(nameKey(productId, (String) key[2]))) {
+        LOGGER.debug("DataId: {} or name: {} has existed in product: {}.",
+            key[1], key[2], productId);
+        throw new AlreadyExistException("Data Definition already exist for dataId: " + key[1]
+            + " or name: " + key[2] + " in product: " + productId);
+      }
+    }
+  }
+
+  /**
+   * Uniqueness key of dataId in product.
+   */
+  private String dataIdKey(String productId, String dataId) {
+    return "d" + KEY_SEPARATOR + productId + KEY_SEPARATOR + dataId;
+  }
+
+  /**
+   * Uniqueness key of name in product.
+   */
+  private String nameKey(String productId, String name) {
+    return "n" + KEY_SEPARATOR + productId + KEY_SEPARATOR + name;
+  }
+}
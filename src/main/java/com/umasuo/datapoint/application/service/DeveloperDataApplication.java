@@ -2,11 +2,22 @@ package com.umasuo.datapoint.application.service;
 
 import com.umasuo.datapoint.application.dto.DeveloperDataDefinitionDraft;
 import com.umasuo.datapoint.application.dto.DeveloperDataDefinitionView;
+import com.umasuo.datapoint.application.dto.PagedView;
 import com.umasuo.datapoint.application.dto.mapper.DeveloperDataMapper;
+import com.umasuo.datapoint.application.dto.mapper.PagedViewMapper;
 import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
+import com.umasuo.datapoint.domain.service.DefinitionChangeService;
 import com.umasuo.datapoint.domain.service.DeveloperDataService;
-import com.umasuo.datapoint.infrastructure.validator.SchemaValidator;
-import com.umasuo.exception.AlreadyExistException;
+import com.umasuo.datapoint.infrastructure.enums.ChangeOperation;
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+import com.umasuo.datapoint.infrastructure.export.ExportFormat;
+import com.umasuo.datapoint.infrastructure.export.ExportWriter;
+import com.umasuo.datapoint.infrastructure.paging.Cursor;
+import com.umasuo.datapoint.infrastructure.sharding.ShardContext;
+import com.umasuo.datapoint.infrastructure.sharding.ShardMap;
+import com.umasuo.datapoint.infrastructure.util.TransactionUtils;
+import com.umasuo.datapoint.infrastructure.validator.PageValidator;
+import com.umasuo.datapoint.infrastructure.validator.SchemaGuard;
 import com.umasuo.exception.AuthFailedException;
 import com.umasuo.exception.NotExistException;
 
@@ -14,8 +25,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * DeveloperDataApplication.
@@ -40,8 +56,47 @@ public class DeveloperDataApplication {
   @Autowired
   private transient CacheApplication cacheApplication;
 
+  /**
+   * Change feed, written in the transaction of each change.
+   */
+  @Autowired
+  private transient DefinitionChangeService changeService;
+
+  /**
+   * Schema guard, schemas are validated on the guard pool with a timeout.
+   */
+  @Autowired
+  private transient SchemaGuard schemaGuard;
+
+  /**
+   * Schema resolution, references in new schemas are checked, and resolved schemas including a
+   * deleted one are dropped.
+   */
+  @Autowired
+  private transient SchemaResolutionApplication resolutionApplication;
+
+  /**
+   * Similarity app, the developer's index is dropped on changes.
+   */
+  @Autowired
+  private transient SimilarityApplication similarityApplication;
+
+  /**
+   * Shard map.
+   */
+  @Autowired
+  private transient ShardMap shardMap;
+
+  /**
+   * Transaction template, for transactions started after reading other shards.
+   */
+  @Autowired
+  private transient TransactionTemplate transactionTemplate;
+
   /**
    * Create developer data definition.
+   * References are checked before the transaction, since referenced platform data lives on the
+   * global shard while the transaction is bound to the developer's shard.
    * @param developerId
    * @param draft
    * @return
@@ -50,27 +105,20 @@ public class DeveloperDataApplication {
       DeveloperDataDefinitionDraft draft) {
 
     //检查schema是否正确
-    SchemaValidator.validate(draft.getSchema());
-
-    boolean isNameExist = developerDataService.isNameExist(developerId, draft.getName());
-
-    if (isNameExist) {
-      LOGGER.debug("Can not add dateDefinition with name exist.");
-      throw new AlreadyExistException("DataDefinition name exist");
-    }
-
-    boolean isDataIdExist = developerDataService.isDataIdExist(developerId, draft.getDataId());
-
-    if (isDataIdExist) {
-      LOGGER.debug("Can not add dateDefinition with dataId exist.");
-      throw new AlreadyExistException("DataDefinition dataId exist");
-    }
+    schemaGuard.validate(draft.getSchema());
+    resolutionApplication.checkReferences(developerId, draft.getSchema());
 
     DeveloperDataDefinition dataDefinition = DeveloperDataMapper.toModel(developerId, draft);
 
-    developerDataService.save(dataDefinition);
+    ShardContext.callOn(shardMap.shardOf(developerId),
+        () -> transactionTemplate.execute(status -> {
+          developerDataService.create(dataDefinition);
+          changeService.recordDeveloper(ChangeOperation.CREATE, dataDefinition);
+          return dataDefinition;
+        }));
 
-    cacheApplication.deleteDeveloperDefinition(developerId);
+    TransactionUtils.afterCommit(() -> cacheApplication.deleteDeveloperDefinition(developerId));
+    TransactionUtils.afterCommit(() -> similarityApplication.invalidateDeveloper(developerId));
 
     DeveloperDataDefinitionView result = DeveloperDataMapper.toView(dataDefinition);
 
@@ -84,7 +132,8 @@ public class DeveloperDataApplication {
    * @param developerId
    * @param id
    */
-  public void delete(String developerId, String id) {
+  @Transactional
+  public void delete(String developerId, UUID id) {
     LOGGER.debug("Enter. developerId: {}, dataDefinition id: {}.", developerId, id);
 
     //todo version
@@ -92,7 +141,11 @@ public class DeveloperDataApplication {
 
     developerDataService.delete(id);
 
-    cacheApplication.deleteDeveloperDefinition(developerId);
+    changeService.recordDeveloper(ChangeOperation.DELETE, developerId, id, null);
+
+    TransactionUtils.afterCommit(() -> cacheApplication.deleteDeveloperDefinition(developerId));
+    TransactionUtils.afterCommit(() -> similarityApplication.invalidateDeveloper(developerId));
+    resolutionApplication.invalidate(DefinitionType.DEVELOPER, id);
   }
 
   /**
@@ -101,7 +154,7 @@ public class DeveloperDataApplication {
    * @param id
    * @return
    */
-  public DeveloperDataDefinitionView getOne(String developerId, String id) {
+  public DeveloperDataDefinitionView getOne(String developerId, UUID id) {
     LOGGER.debug("Enter. developerId: {}, dataDefinition id: {}.", developerId, id);
 
     DeveloperDataDefinition dataDefinition = getById(developerId, id);
@@ -114,25 +167,32 @@ public class DeveloperDataApplication {
   }
 
   /**
-   * Get developer's data definition.
+   * Get one page of developer's data definition.
    * @param developerId
+   * @param cursor
+   * @param limit
    * @return
    */
-  public List<DeveloperDataDefinitionView> getDeveloperData(String developerId) {
-    LOGGER.debug("Enter. developerId: {}.", developerId);
+  public PagedView<DeveloperDataDefinitionView> getDeveloperData(String developerId,
+      String cursor, Integer limit) {
+    LOGGER.debug("Enter. developerId: {}, cursor: {}, limit: {}.", developerId, cursor, limit);
+
+    PageValidator.validateLimit(limit);
+    Cursor start = Cursor.decode(cursor);
 
-    List<DeveloperDataDefinition> dataDefinitions =
-        cacheApplication.getAllDeveloperDefinition(developerId);
+    List<DeveloperDataDefinition> rows =
+        cacheApplication.getDeveloperDataPage(developerId, start, limit);
 
-    if (dataDefinitions == null || dataDefinitions.isEmpty()) {
-      dataDefinitions = developerDataService.getDeveloperDefinition(developerId);
+    if (rows == null) {
+      rows = developerDataService.getDeveloperDefinitionPage(developerId, start, limit);
 
-      cacheApplication.cacheDeveloperDefinition(developerId, dataDefinitions);
+      cacheApplication.cacheDeveloperDataPage(developerId, start, limit, rows);
     }
 
-    List<DeveloperDataDefinitionView> result = DeveloperDataMapper.toView(dataDefinitions);
+    PagedView<DeveloperDataDefinitionView> result = PagedViewMapper.toView(rows, limit,
+        DeveloperDataMapper::toView, data -> Cursor.of(data.getCreatedAt(), data.getId()));
 
-    LOGGER.debug("Exit. developerDataDefinition size: {}.", result.size());
+    LOGGER.debug("Exit. developerDataDefinition size: {}.", result.getResults().size());
 
     return result;
   }
@@ -143,7 +203,7 @@ public class DeveloperDataApplication {
    * @param id
    * @return
    */
-  private DeveloperDataDefinition getById(String developerId, String id) {
+  private DeveloperDataDefinition getById(String developerId, UUID id) {
 
     DeveloperDataDefinition dataDefinition = developerDataService.getById(id);
     if (dataDefinition == null) {
@@ -157,4 +217,24 @@ public class DeveloperDataApplication {
     }
     return dataDefinition;
   }
+
+  /**
+   * Export data definitions of a developer.
+   *
+   * @param developerId the developer id
+   * @param format the format
+   * @param outputStream the output stream
+   * @throws IOException the io exception
+   */
+  public void export(String developerId, ExportFormat format, OutputStream outputStream)
+      throws IOException {
+    LOGGER.info("Enter. developerId: {}, format: {}.", developerId, format);
+
+    long count;
+    try (ExportWriter writer = new ExportWriter(format, outputStream)) {
+      count = developerDataService.export(developerId, writer::write);
+    }
+
+    LOGGER.info("Exit. exported size: {}.", count);
+  }
 }
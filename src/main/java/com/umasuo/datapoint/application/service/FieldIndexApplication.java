@@ -0,0 +1,110 @@
+package com.umasuo.datapoint.application.service;
+
+import com.google.common.collect.Lists;
+import com.umasuo.datapoint.application.dto.FieldPathView;
+import com.umasuo.datapoint.application.dto.mapper.FieldPathMapper;
+import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.domain.service.DataDefinitionService;
+import com.umasuo.datapoint.domain.service.SchemaFieldService;
+import com.umasuo.datapoint.infrastructure.index.FieldPathExtractor;
+import com.umasuo.datapoint.infrastructure.validator.PageValidator;
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Searches fields of a developer's data definitions through the field index, e.g. every data
+ * definition with a number field named temperature, whatever the product.
+ */
+@Service
+public class FieldIndexApplication {
+
+  /**
+   * LOGGER.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(FieldIndexApplication.class);
+
+  /**
+   * Data definitions indexed per batch when rebuilding.
+   */
+  private static final int REINDEX_BATCH_SIZE = 200;
+
+  /**
+   * Field index service.
+   */
+  @Autowired
+  private transient SchemaFieldService schemaFieldService;
+
+  /**
+   * Data definition service.
+   */
+  @Autowired
+  private transient DataDefinitionService definitionService;
+
+  /**
+   * Find fields by name or by path.
+   *
+   * @param developerId the developer id
+   * @param name the field name, nullable
+   * @param path the field path, nullable
+   * @param type the type, nullable
+   * @param limit the limit
+   * @return the fields
+   */
+  public List<FieldPathView> find(String developerId, String name, String path, String type,
+      Integer limit) {
+    LOGGER.debug("Enter. developerId: {}, name: {}, path: {}, type: {}, limit: {}.",
+        developerId, name, path, type, limit);
+
+    if ((name == null) == (path == null)) {
+      throw new ParametersException("Either name or path should be given.");
+    }
+    if (type != null && !FieldPathExtractor.TYPES.contains(type)) {
+      throw new ParametersException("Type should be one of " + FieldPathExtractor.TYPES);
+    }
+    PageValidator.validateLimit(limit);
+
+    List<FieldPathView> result =
+        FieldPathMapper.toView(schemaFieldService.find(developerId, name, path, type, limit));
+
+    LOGGER.debug("Exit. field size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * Rebuild the field index of a developer's data definitions, for data definitions written
+   * before the index existed.
+   *
+   * @param developerId the developer id
+   * @return indexed data definition count
+   */
+  @Transactional
+  public long reindex(String developerId) {
+    LOGGER.info("Enter. developerId: {}.", developerId);
+
+    schemaFieldService.removeByDeveloper(developerId);
+
+    List<DeviceDataDefinition> batch = Lists.newArrayListWithCapacity(REINDEX_BATCH_SIZE);
+    long count = definitionService.export(developerId, dataDefinition -> {
+      batch.add(dataDefinition);
+      if (batch.size() == REINDEX_BATCH_SIZE) {
+        schemaFieldService.index(batch);
+        batch.clear();
+      }
+    });
+    if (!batch.isEmpty()) {
+      schemaFieldService.index(batch);
+    }
+
+    LOGGER.info("Exit. indexed size: {}.", count);
+
+    return count;
+  }
+}
@@ -1,21 +1,41 @@
 package com.umasuo.datapoint.application.service;
 
 import com.umasuo.datapoint.application.dto.PlatformDataDefinitionDraft;
+import com.umasuo.datapoint.application.dto.PagedView;
 import com.umasuo.datapoint.application.dto.PlatformDataDefinitionView;
+import com.umasuo.datapoint.application.dto.SchemaVersionView;
+import com.umasuo.datapoint.application.dto.mapper.PagedViewMapper;
 import com.umasuo.datapoint.application.dto.mapper.PlatformDataMapper;
+import com.umasuo.datapoint.application.dto.mapper.SchemaRevisionMapper;
 import com.umasuo.datapoint.domain.model.PlatformDataDefinition;
+import com.umasuo.datapoint.domain.service.DefinitionChangeService;
 import com.umasuo.datapoint.domain.service.PlatformDataService;
+import com.umasuo.datapoint.domain.service.SchemaHistoryService;
+import com.umasuo.datapoint.infrastructure.enums.ChangeOperation;
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+import com.umasuo.datapoint.infrastructure.export.ExportFormat;
+import com.umasuo.datapoint.infrastructure.export.ExportWriter;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
 import com.umasuo.datapoint.infrastructure.update.UpdateAction;
+import com.umasuo.datapoint.infrastructure.paging.Cursor;
+import com.umasuo.datapoint.infrastructure.sharding.ShardContext;
+import com.umasuo.datapoint.infrastructure.sharding.ShardMap;
 import com.umasuo.datapoint.infrastructure.update.UpdaterService;
+import com.umasuo.datapoint.infrastructure.util.TransactionUtils;
+import com.umasuo.datapoint.infrastructure.validator.PageValidator;
 import com.umasuo.exception.ParametersException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * PlatformDataApplication.
@@ -46,23 +66,54 @@ public class PlatformDataApplication {
   @Autowired
   private transient UpdaterService updaterService;
 
+  /**
+   * Change feed, written in the transaction of each change.
+   */
+  @Autowired
+  private transient DefinitionChangeService changeService;
+
+  /**
+   * Schema history, written in the transaction of each schema change.
+   */
+  @Autowired
+  private transient SchemaHistoryService schemaHistoryService;
+
+  /**
+   * Schema resolution, references in new schemas are checked, and resolved schemas including a
+   * changed one are dropped.
+   */
+  @Autowired
+  private transient SchemaResolutionApplication resolutionApplication;
+
+  /**
+   * Similarity app, the platform index is dropped on changes.
+   */
+  @Autowired
+  private transient SimilarityApplication similarityApplication;
+
   /**
    * Create platform data definition view.
    *
    * @param draft the draft
    * @return the platform data definition view
    */
+  @Transactional
   public PlatformDataDefinitionView create(PlatformDataDefinitionDraft draft) {
     LOGGER.debug("Enter. draft: {}.", draft);
 
+    // 平台数据定义只能引用平台数据定义
+    resolutionApplication.checkReferences(null, draft.getSchema());
+
     PlatformDataDefinition dataDefinition = PlatformDataMapper.toModel(draft);
 
-    platformDataService.existDataId(draft.getProductTypeId(), dataDefinition.getDataId());
+    platformDataService.create(dataDefinition);
 
-    platformDataService.save(dataDefinition);
+    changeService.recordPlatform(ChangeOperation.CREATE, dataDefinition);
+    schemaHistoryService.recordPlatform(dataDefinition);
 
     PlatformDataDefinitionView result = PlatformDataMapper.toView(dataDefinition);
-    cacheApplication.deletePlatformDefinition();
+    TransactionUtils.afterCommit(cacheApplication::deletePlatformDefinition);
+    TransactionUtils.afterCommit(similarityApplication::invalidatePlatform);
 
     LOGGER.debug("Exit. new platformDataDefinition id: {}.", result.getId());
     return result;
@@ -74,12 +125,20 @@ public class PlatformDataApplication {
    *
    * @param productTypeId the product type id
    */
+  @Transactional
   public void deleteByProductType(String productTypeId) {
     LOGGER.debug("Enter. productType id: {}.", productTypeId);
 
+    List<PlatformDataDefinition> deleted = platformDataService.getByProductTypeId(productTypeId);
+
     platformDataService.deleteByProductType(productTypeId);
 
-    cacheApplication.deletePlatformDefinition();
+    changeService.recordPlatform(ChangeOperation.DELETE, productTypeId, null, null);
+
+    TransactionUtils.afterCommit(cacheApplication::deletePlatformDefinition);
+    TransactionUtils.afterCommit(similarityApplication::invalidatePlatform);
+    deleted.forEach(dataDefinition ->
+        resolutionApplication.invalidate(DefinitionType.PLATFORM, dataDefinition.getId()));
 
     LOGGER.debug("Exit.");
   }
@@ -90,7 +149,8 @@ public class PlatformDataApplication {
    * @param id the id
    * @param productTypeId the product type id
    */
-  public void delete(String id, String productTypeId) {
+  @Transactional
+  public void delete(UUID id, String productTypeId) {
     LOGGER.debug("Enter. id: {}, productType id: {}.", id, productTypeId);
 
     PlatformDataDefinition dataDefinition = platformDataService.getById(id);
@@ -104,7 +164,11 @@ public class PlatformDataApplication {
 
     platformDataService.delete(id);
 
-    cacheApplication.deletePlatformDefinition();
+    changeService.recordPlatform(ChangeOperation.DELETE, productTypeId, id, null);
+
+    TransactionUtils.afterCommit(cacheApplication::deletePlatformDefinition);
+    TransactionUtils.afterCommit(similarityApplication::invalidatePlatform);
+    resolutionApplication.invalidate(DefinitionType.PLATFORM, id);
 
     LOGGER.debug("Exit.");
   }
@@ -117,16 +181,28 @@ public class PlatformDataApplication {
    * @param actions the actions
    * @return the platform data definition view
    */
-  public PlatformDataDefinitionView update(String id, Integer version, List<UpdateAction> actions) {
+  @Transactional
+  public PlatformDataDefinitionView update(UUID id, Integer version, List<UpdateAction> actions) {
     LOGGER.debug("Enter. id: {}, version: {}, actions: {}.", id, version, actions);
 
-    PlatformDataDefinition definition = platformDataService.getById(id);
+    ChangeSet changes = new ChangeSet();
 
-    actions.stream().forEach(action -> updaterService.handle(definition, action));
+    updaterService.handle(changes, actions);
+    if (changes.contains(ChangeSet.DATA_SCHEMA)) {
+      resolutionApplication.checkReferences(null,
+          (String) changes.getChanges().get(ChangeSet.DATA_SCHEMA));
+    }
 
-    PlatformDataDefinition updatedDefinition = platformDataService.save(definition);
+    PlatformDataDefinition updatedDefinition = platformDataService.update(id, version, changes);
+
+    changeService.recordPlatform(ChangeOperation.UPDATE, updatedDefinition);
+    if (changes.contains(ChangeSet.DATA_SCHEMA)) {
+      schemaHistoryService.recordPlatform(updatedDefinition);
+    }
 
-    cacheApplication.deletePlatformDefinition();
+    TransactionUtils.afterCommit(cacheApplication::deletePlatformDefinition);
+    TransactionUtils.afterCommit(similarityApplication::invalidatePlatform);
+    resolutionApplication.invalidate(DefinitionType.PLATFORM, id);
 
     PlatformDataDefinitionView result = PlatformDataMapper.toView(updatedDefinition);
 
@@ -137,29 +213,50 @@ public class PlatformDataApplication {
   }
 
   /**
-   * Get all platform.
+   * Get the schema of a platform data definition at a version.
    *
-   * @return all all
+   * @param id the id
+   * @param version the version
+   * @return the schema version view
    */
-  public Map<String, List<PlatformDataDefinitionView>> getAll() {
-    LOGGER.info("Enter.");
+  public SchemaVersionView getSchema(UUID id, Integer version) {
+    LOGGER.debug("Enter. id: {}, version: {}.", id, version);
 
-    Map<String, List<PlatformDataDefinition>> cacheDefinitions =
-        cacheApplication.getAllPlatformDefinition();
+    // 平台数据定义的历史和数据定义一样存在全局分片
+    SchemaVersionView result = ShardContext.callOn(ShardMap.GLOBAL_SHARD,
+        () -> SchemaRevisionMapper.toView(schemaHistoryService.getRevision(id, version)));
 
-    if (cacheDefinitions == null || cacheDefinitions.isEmpty()) {
-      LOGGER.debug("Cache fail, get from database.");
-      List<PlatformDataDefinition> dataDefinitions = platformDataService.getAll();
+    LOGGER.debug("Exit. version: {}.", result.getVersion());
+
+    return result;
+  }
+
+  /**
+   * Get one page of platform data definitions.
+   *
+   * @param cursor the cursor, null for the first page
+   * @param limit the limit
+   * @return one page of platform data definitions
+   */
+  public PagedView<PlatformDataDefinitionView> getAll(String cursor, Integer limit) {
+    LOGGER.info("Enter. cursor: {}, limit: {}.", cursor, limit);
 
-      cacheDefinitions = PlatformDataMapper.toModelMap(dataDefinitions);
+    PageValidator.validateLimit(limit);
+    Cursor start = Cursor.decode(cursor);
 
-      cacheApplication.cachePlatformDefinition(cacheDefinitions);
+    List<PlatformDataDefinition> rows = cacheApplication.getPlatformDataPage(start, limit);
+
+    if (rows == null) {
+      LOGGER.debug("Cache fail, get from database.");
+      rows = platformDataService.getPage(start, limit);
+
+      cacheApplication.cachePlatformDataPage(start, limit, rows);
     }
 
-    Map<String, List<PlatformDataDefinitionView>> result =
-        PlatformDataMapper.toModelMap(cacheDefinitions);
+    PagedView<PlatformDataDefinitionView> result = PagedViewMapper.toView(rows, limit,
+        PlatformDataMapper::toView, data -> Cursor.of(data.getCreatedAt(), data.getId()));
 
-    LOGGER.info("Exit. dataDefinition size: {}.", result.size());
+    LOGGER.info("Exit. dataDefinition size: {}.", result.getResults().size());
     return result;
   }
 
@@ -190,4 +287,22 @@ public class PlatformDataApplication {
 
     return result;
   }
+
+  /**
+   * Export all platform data definitions.
+   *
+   * @param format the format
+   * @param outputStream the output stream
+   * @throws IOException the io exception
+   */
+  public void export(ExportFormat format, OutputStream outputStream) throws IOException {
+    LOGGER.info("Enter. format: {}.", format);
+
+    long count;
+    try (ExportWriter writer = new ExportWriter(format, outputStream)) {
+      count = platformDataService.export(writer::write);
+    }
+
+    LOGGER.info("Exit. exported size: {}.", count);
+  }
 }
@@ -0,0 +1,84 @@
+package com.umasuo.datapoint.application.service;
+
+import com.umasuo.datapoint.domain.service.DataDefinitionService;
+import com.umasuo.datapoint.domain.service.SchemaStorageService;
+import com.umasuo.datapoint.infrastructure.sharding.ShardContext;
+import com.umasuo.datapoint.infrastructure.sharding.ShardMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Purges tombstoned data definitions in the background.
+ * Runs on the purge cron, by default only at night, in small batches on every shard.
+ * Schema blobs no data definition refers to any more are purged in the same run.
+ */
+@Service
+public class PurgeApplication {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PurgeApplication.class);
+
+  /**
+   * The DataDefinitionService.
+   */
+  @Autowired
+  private transient DataDefinitionService definitionService;
+
+  /**
+   * The SchemaStorageService.
+   */
+  @Autowired
+  private transient SchemaStorageService schemaStorageService;
+
+  /**
+   * Shard map.
+   */
+  @Autowired
+  private transient ShardMap shardMap;
+
+  /**
+   * Rows are kept this long after deleted, in milliseconds.
+   */
+  @Value("${datapoint.purge.grace-millis:3600000}")
+  private transient long graceMillis;
+
+  /**
+   * Rows deleted per batch.
+   */
+  @Value("${datapoint.purge.batch-size:500}")
+  private transient int batchSize;
+
+  /**
+   * Max batches per shard in one run.
+   */
+  @Value("${datapoint.purge.max-batches:200}")
+  private transient int maxBatches;
+
+  /**
+   * Purge tombstoned rows older than the grace period.
+   */
+  @Scheduled(cron = "${datapoint.purge.cron:0 */10 1-5 * * *}")
+  public void purgeDeleted() {
+    long deletedBefore = System.currentTimeMillis() - graceMillis;
+    LOGGER.info("Enter. deletedBefore: {}.", deletedBefore);
+
+    long count = 0;
+    long blobCount = 0;
+    for (String shard : shardMap.getShards()) {
+      count += ShardContext.callOn(shard,
+          () -> definitionService.purge(deletedBefore, batchSize, maxBatches));
+      // blobs written within the grace period may belong to a transaction not committed yet
+      blobCount += ShardContext.callOn(shard,
+          () -> schemaStorageService.purgeOrphans(deletedBefore, batchSize, maxBatches));
+    }
+
+    LOGGER.info("Exit. purged size: {}, purged blob size: {}.", count, blobCount);
+  }
+}
@@ -0,0 +1,182 @@
+package com.umasuo.datapoint.application.service;
+
+import com.google.common.collect.Maps;
+import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
+import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.domain.service.DeveloperDataService;
+import com.umasuo.datapoint.domain.service.PlatformDataService;
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+import com.umasuo.datapoint.infrastructure.reference.ResolvedSchema;
+import com.umasuo.datapoint.infrastructure.reference.SchemaReference;
+import com.umasuo.datapoint.infrastructure.reference.SchemaResolver;
+import com.umasuo.datapoint.infrastructure.util.TransactionUtils;
+import com.umasuo.exception.NotExistException;
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Resolves references of data definition schemas to developer and platform data definitions.
+ * Resolved schemas of device data definitions are cached per version with the generations of
+ * the data definitions they include, and a change of one of them, once committed, bumps its
+ * generation so the cached entries are dropped on read. Readers get a self contained schema
+ * without resolving it.
+ * Must run on the request thread, since referenced data definitions are read from the database.
+ */
+@Service
+public class SchemaResolutionApplication {
+
+  /**
+   * LOGGER.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchemaResolutionApplication.class);
+
+  /**
+   * Developer data service.
+   */
+  @Autowired
+  private transient DeveloperDataService developerDataService;
+
+  /**
+   * Platform data service.
+   */
+  @Autowired
+  private transient PlatformDataService platformDataService;
+
+  /**
+   * Cache application.
+   */
+  @Autowired
+  private transient CacheApplication cacheApplication;
+
+  /**
+   * Get the resolved schema of a device data definition, from the cache if it is cached.
+   *
+   * @param dataDefinition the data definition
+   * @return the resolved schema
+   */
+  public String resolve(DeviceDataDefinition dataDefinition) {
+    if (!SchemaResolver.hasReferences(dataDefinition.getDataSchema())) {
+      return dataDefinition.getDataSchema();
+    }
+    LOGGER.debug("Enter. id: {}, version: {}.", dataDefinition.getId(),
+        dataDefinition.getVersion());
+
+    ResolvedSchema resolved = cacheApplication.getResolvedSchema(DefinitionType.DEVICE,
+        dataDefinition.getId(), dataDefinition.getVersion());
+    if (resolved == null) {
+      Map<String, Long> generations = Maps.newHashMap();
+      Function<SchemaReference, String> loader = loader(dataDefinition.getDeveloperId());
+      resolved = SchemaResolver.resolve(dataDefinition.getDataSchema(), reference -> {
+        // read before the schema, a change committed after the read bumps it afterwards
+        generations.put(reference.definitionKey(),
+            cacheApplication.getSchemaGeneration(reference.definitionKey()));
+        return loader.apply(reference);
+      });
+      resolved.setGenerations(generations);
+      cacheApplication.cacheResolvedSchema(DefinitionType.DEVICE, dataDefinition.getId(),
+          dataDefinition.getVersion(), resolved);
+    }
+    String result = resolved.getSchema();
+
+    LOGGER.debug("Exit. resolved schema length: {}.", result.length());
+
+    return result;
+  }
+
+  /**
+   * Get the resolved schema of a device data definition, or its stored schema if a reference
+   * can not be resolved any more, so payload validation reports the dangling $ref.
+   *
+   * @param dataDefinition the data definition
+   * @return the schema to validate payloads with
+   */
+  public String resolveForValidation(DeviceDataDefinition dataDefinition) {
+    try {
+      return resolve(dataDefinition);
+    } catch (ParametersException ex) {
+      LOGGER.debug("Can not resolve schema of dataDefinition: {}.", dataDefinition.getId(), ex);
+      return dataDefinition.getDataSchema();
+    }
+  }
+
+  /**
+   * Check that every data definition a new schema refers to exists and may be referred to.
+   * A transaction of the caller is suspended, since it is bound to the developer's shard while
+   * referenced platform data lives on the global shard.
+   *
+   * @param developerId the developer id, null for platform data definitions
+   * @param schema the schema
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public void checkReferences(String developerId, String schema) {
+    if (SchemaResolver.hasReferences(schema)) {
+      LOGGER.debug("Enter. developerId: {}.", developerId);
+
+      ResolvedSchema resolved = SchemaResolver.resolve(schema, loader(developerId));
+
+      LOGGER.debug("Exit. dependencies: {}.", resolved.getDependencies());
+    }
+  }
+
+  /**
+   * Drop the cached resolved schemas which include a data definition, once its change commits.
+   *
+   * @param type the definition type
+   * @param id the id
+   */
+  public void invalidate(DefinitionType type, UUID id) {
+    LOGGER.debug("Enter. type: {}, id: {}.", type, id);
+
+    TransactionUtils.afterCommit(() -> cacheApplication.invalidateResolvedSchemas(type, id));
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * Loader of referenced schemas. Developer data definitions may only be referred to by the
+   * same developer, platform data definitions by everyone.
+   *
+   * @param developerId the developer id, null for platform data definitions
+   * @return the loader
+   */
+  private Function<SchemaReference, String> loader(String developerId) {
+    return reference -> {
+      if (reference.getType() == DefinitionType.PLATFORM) {
+        try {
+          return platformDataService.getById(reference.getId()).getDataSchema();
+        } catch (NotExistException ex) {
+          throw notExist(reference);
+        }
+      }
+      DeveloperDataDefinition dataDefinition = developerId == null ? null
+          : developerDataService.getById(reference.getId());
+      if (dataDefinition == null || !developerId.equals(dataDefinition.getDeveloperId())) {
+        throw notExist(reference);
+      }
+      return dataDefinition.getDataSchema();
+    };
+  }
+
+  /**
+   * Error of a reference to a data definition which does not exist.
+   *
+   * @param reference the reference
+   * @return the exception
+   */
+  private ParametersException notExist(SchemaReference reference) {
+    LOGGER.debug("Referenced {} dataDefinition: {} not exist.", reference.getType(),
+        reference.getId());
+    return new ParametersException("Referenced data definition not exist: "
+        + reference.definitionKey());
+  }
+}
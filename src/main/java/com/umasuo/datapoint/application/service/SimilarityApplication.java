@@ -0,0 +1,290 @@
+package com.umasuo.datapoint.application.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.umasuo.datapoint.application.dto.SimilarSchemaView;
+import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
+import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.domain.model.PlatformDataDefinition;
+import com.umasuo.datapoint.domain.service.DeveloperDataService;
+import com.umasuo.datapoint.domain.service.PlatformDataService;
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+import com.umasuo.datapoint.infrastructure.index.LshIndex;
+import com.umasuo.datapoint.infrastructure.index.MinHash;
+import com.umasuo.datapoint.infrastructure.validator.PageValidator;
+import com.umasuo.datapoint.infrastructure.validator.SchemaValidator;
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds platform and developer data definitions whose schema is similar to a device data
+ * definition schema, so developers reuse them instead of writing the same schema again.
+ * Schemas are compared by MinHash signatures of their fields' (path, type), through in memory
+ * LSH indexes: one of the platform catalog and one per developer library, built on first use
+ * and dropped once a change of the catalog or the library commits. Indexes also expire after a while, since
+ * changes made through other instances only drop the indexes of that instance.
+ */
+@Service
+public class SimilarityApplication {
+
+  /**
+   * LOGGER.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SimilarityApplication.class);
+
+  /**
+   * Less similar schemas are not returned. The LshIndex bands find pairs this similar with a
+   * probability over 0.99, they must be retuned along with it.
+   */
+  public static final double MIN_SIMILARITY = 0.3;
+
+  /**
+   * Max indexes kept, one is the platform index and the others developer indexes.
+   */
+  private static final int MAX_INDEXES = 1024;
+
+  /**
+   * Minutes an index is kept after it was built.
+   */
+  private static final long INDEX_TTL_MINUTES = 10;
+
+  /**
+   * Key of the platform index.
+   */
+  private static final String PLATFORM_KEY = "platform";
+
+  /**
+   * Prefix of developer index keys.
+   */
+  private static final String DEVELOPER_KEY_PREFIX = "developer:";
+
+  /**
+   * LSH indexes of platform and developer data definitions.
+   */
+  private final Cache<String, LshIndex<SimilarSchemaView>> indexes = CacheBuilder.newBuilder()
+      .maximumSize(MAX_INDEXES)
+      .expireAfterWrite(INDEX_TTL_MINUTES, TimeUnit.MINUTES)
+      .build();
+
+  /**
+   * Platform data service.
+   */
+  @Autowired
+  private transient PlatformDataService platformDataService;
+
+  /**
+   * Developer data service.
+   */
+  @Autowired
+  private transient DeveloperDataService developerDataService;
+
+  /**
+   * Data definition app, reads through the product cache.
+   */
+  @Autowired
+  private transient DataDefinitionApplication definitionApplication;
+
+  /**
+   * Find platform and developer data definitions similar to a schema.
+   *
+   * @param developerId the developer id
+   * @param schema the schema
+   * @param limit max results
+   * @return the similar data definitions, most similar first
+   */
+  public List<SimilarSchemaView> findSimilar(String developerId, String schema, Integer limit) {
+    LOGGER.debug("Enter. developerId: {}, limit: {}.", developerId, limit);
+
+    PageValidator.validateLimit(limit);
+    if (schema == null) {
+      throw new ParametersException("DataSchema should not be null.");
+    }
+    if (schema.length() > SchemaValidator.MAX_SCHEMA_LENGTH) {
+      throw new ParametersException("DataSchema should not be longer than "
+          + SchemaValidator.MAX_SCHEMA_LENGTH);
+    }
+    SchemaValidator.checkBudget(schema);
+
+    List<SimilarSchemaView> result = query(developerId, MinHash.of(schema), limit);
+
+    LOGGER.debug("Exit. result size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * Find platform and developer data definitions similar to a device data definition.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param id the device data definition id
+   * @param limit max results
+   * @return the similar data definitions, most similar first
+   */
+  public List<SimilarSchemaView> findSimilar(String developerId, String productId, UUID id,
+      Integer limit) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}, id: {}, limit: {}.", developerId,
+        productId, id, limit);
+
+    PageValidator.validateLimit(limit);
+    DeviceDataDefinition dataDefinition = definitionApplication.getModel(developerId, productId,
+        id);
+
+    List<SimilarSchemaView> result =
+        query(developerId, MinHash.of(dataDefinition.getDataSchema()), limit);
+
+    LOGGER.debug("Exit. result size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * Drop the platform index, after the platform catalog changed.
+   */
+  public void invalidatePlatform() {
+    LOGGER.debug("Enter.");
+
+    indexes.invalidate(PLATFORM_KEY);
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * Drop the index of a developer, after the developer's library changed.
+   *
+   * @param developerId the developer id
+   */
+  public void invalidateDeveloper(String developerId) {
+    LOGGER.debug("Enter. developerId: {}.", developerId);
+
+    indexes.invalidate(DEVELOPER_KEY_PREFIX + developerId);
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * Query the platform index and the developer index, and merge the matches.
+   *
+   * @param developerId the developer id
+   * @param signature the signature, null for schemas without fields
+   * @param limit max results
+   * @return the similar data definitions, most similar first
+   */
+  private List<SimilarSchemaView> query(String developerId, int[] signature, int limit) {
+    if (signature == null) {
+      LOGGER.debug("Schema has no field, nothing is similar.");
+      return Collections.emptyList();
+    }
+
+    List<LshIndex.Match<SimilarSchemaView>> matches = Lists.newArrayList();
+    matches.addAll(getPlatformIndex().query(signature, MIN_SIMILARITY, limit));
+    matches.addAll(getDeveloperIndex(developerId).query(signature, MIN_SIMILARITY, limit));
+    matches.sort(Comparator.comparingDouble(
+        LshIndex.Match<SimilarSchemaView>::getSimilarity).reversed());
+
+    List<SimilarSchemaView> result = Lists.newArrayListWithCapacity(limit);
+    for (LshIndex.Match<SimilarSchemaView> match : matches) {
+      if (result.size() == limit) {
+        break;
+      }
+      result.add(toView(match));
+    }
+    return result;
+  }
+
+  /**
+   * Get the platform index, built from the catalog if it is not kept.
+   *
+   * @return the index
+   */
+  private LshIndex<SimilarSchemaView> getPlatformIndex() {
+    LshIndex<SimilarSchemaView> index = indexes.getIfPresent(PLATFORM_KEY);
+    if (index == null) {
+      // built twice at worst when raced
+      index = new LshIndex<>();
+      for (PlatformDataDefinition dataDefinition : platformDataService.getAll()) {
+        SimilarSchemaView view = new SimilarSchemaView();
+        view.setType(DefinitionType.PLATFORM);
+        view.setId(dataDefinition.getId());
+        view.setDataId(dataDefinition.getDataId());
+        view.setName(dataDefinition.getName());
+        view.setProductTypeId(dataDefinition.getProductTypeId());
+        add(index, view, dataDefinition.getDataSchema());
+      }
+      LOGGER.debug("Platform index built, size: {}.", index.size());
+      indexes.put(PLATFORM_KEY, index);
+    }
+    return index;
+  }
+
+  /**
+   * Get the index of a developer, built from the developer's library if it is not kept.
+   *
+   * @param developerId the developer id
+   * @return the index
+   */
+  private LshIndex<SimilarSchemaView> getDeveloperIndex(String developerId) {
+    String key = DEVELOPER_KEY_PREFIX + developerId;
+    LshIndex<SimilarSchemaView> index = indexes.getIfPresent(key);
+    if (index == null) {
+      index = new LshIndex<>();
+      for (DeveloperDataDefinition dataDefinition :
+          developerDataService.getDeveloperDefinition(developerId)) {
+        SimilarSchemaView view = new SimilarSchemaView();
+        view.setType(DefinitionType.DEVELOPER);
+        view.setId(dataDefinition.getId());
+        view.setDataId(dataDefinition.getDataId());
+        view.setName(dataDefinition.getName());
+        add(index, view, dataDefinition.getDataSchema());
+      }
+      LOGGER.debug("Developer index built, developerId: {}, size: {}.", developerId,
+          index.size());
+      indexes.put(key, index);
+    }
+    return index;
+  }
+
+  /**
+   * Add one data definition to an index, schemas without fields are not indexed.
+   *
+   * @param index the index
+   * @param view the data definition
+   * @param schema the schema
+   */
+  private static void add(LshIndex<SimilarSchemaView> index, SimilarSchemaView view,
+      String schema) {
+    int[] signature = MinHash.of(schema);
+    if (signature != null) {
+      index.add(view, signature);
+    }
+  }
+
+  /**
+   * Copy an indexed data definition with the similarity of a match, indexed views are shared.
+   *
+   * @param match the match
+   * @return the view
+   */
+  private static SimilarSchemaView toView(LshIndex.Match<SimilarSchemaView> match) {
+    SimilarSchemaView indexed = match.getValue();
+    SimilarSchemaView view = new SimilarSchemaView();
+    view.setType(indexed.getType());
+    view.setId(indexed.getId());
+    view.setDataId(indexed.getDataId());
+    view.setName(indexed.getName());
+    view.setProductTypeId(indexed.getProductTypeId());
+    view.setSimilarity(match.getSimilarity());
+    return view;
+  }
+}
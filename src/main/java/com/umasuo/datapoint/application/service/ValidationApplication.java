@@ -0,0 +1,341 @@
+package com.umasuo.datapoint.application.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.umasuo.datapoint.application.dto.ValidationItem;
+import com.umasuo.datapoint.application.dto.ValidationResultView;
+import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.infrastructure.export.ExportFormat;
+import com.umasuo.datapoint.infrastructure.exception.ServiceBusyException;
+import com.umasuo.datapoint.infrastructure.export.ExportWriter;
+import com.umasuo.datapoint.infrastructure.validator.PayloadSchema;
+import com.umasuo.datapoint.infrastructure.validator.PayloadValidator;
+import com.umasuo.datapoint.infrastructure.validator.SchemaGuard;
+import com.umasuo.datapoint.infrastructure.validator.SchemaValidator;
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Validates device payloads against stored data definitions.
+ * Definitions come from the product cache and compiled schemas from the SchemaValidator cache,
+ * so validating a payload is mostly the schema check itself. Definitions are read on the request
+ * thread, compilation and validation run on the schema guard pool under its timeout.
+ * Streams are validated line by line on the request thread: the next line is only read after
+ * the result of the last one is written, so a slow client slows down reading and memory stays
+ * flat whatever the input size. Once the response is committed errors can not change its status,
+ * so a line the saturated guard pool rejects is reported retryable and the stream goes on.
+ */
+@Service
+public class ValidationApplication {
+
+  /**
+   * LOGGER.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ValidationApplication.class);
+
+  /**
+   * Error of payloads whose data definition does not exist.
+   */
+  private static final String NOT_EXIST_ERROR = "DataDefinition not exist.";
+
+  /**
+   * Error of lines rejected by a saturated guard pool.
+   */
+  private static final String BUSY_ERROR = "Service busy, retry later.";
+
+  /**
+   * Error of items without payload.
+   */
+  private static final String NO_PAYLOAD_ERROR = "Payload should not be null.";
+
+  /**
+   * Products whose compiled schemas are kept while streaming, the map is cleared beyond this.
+   */
+  private static final int MAX_STREAM_PRODUCTS = 256;
+
+  /**
+   * Item reader.
+   */
+  private static final ObjectReader ITEM_READER =
+      new ObjectMapper().readerFor(ValidationItem.class);
+
+  /**
+   * Data definition app, reads through the product cache.
+   */
+  @Autowired
+  private transient DataDefinitionApplication definitionApplication;
+
+  /**
+   * Schema guard.
+   */
+  @Autowired
+  private transient SchemaGuard schemaGuard;
+
+  /**
+   * Schema resolution, payloads are validated against resolved schemas.
+   */
+  @Autowired
+  private transient SchemaResolutionApplication resolutionApplication;
+
+  /**
+   * Validate payloads against one data definition.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param id the data definition id
+   * @param payloads the payloads
+   * @return result of each payload, in request order
+   */
+  public List<ValidationResultView> validate(String developerId, String productId, UUID id,
+      List<JsonNode> payloads) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}, id: {}, payload size: {}.",
+        developerId, productId, id, payloads == null ? null : payloads.size());
+
+    PayloadValidator.validateBatchSize(payloads == null ? null : payloads.size());
+
+    DeviceDataDefinition dataDefinition = definitionApplication.getModel(developerId, productId,
+        id);
+    String resolvedSchema = resolutionApplication.resolveForValidation(dataDefinition);
+    List<ValidationResultView> result = schemaGuard.call(() -> {
+      PayloadSchema schema = SchemaValidator.compile(resolvedSchema);
+
+      List<ValidationResultView> views = Lists.newArrayListWithCapacity(payloads.size());
+      for (int i = 0; i < payloads.size(); i++) {
+        views.add(toView(i, null, schema.validate(payloads.get(i))));
+      }
+      return views;
+    });
+
+    LOGGER.debug("Exit. invalid size: {}.", countInvalid(result));
+
+    return result;
+  }
+
+  /**
+   * Validate payloads, each against the data definition selected by (productId, dataId).
+   * Payloads whose data definition does not exist are reported invalid, not failed.
+   *
+   * @param developerId the developer id
+   * @param items the items
+   * @return result of each payload, in request order
+   */
+  public List<ValidationResultView> validate(String developerId, List<ValidationItem> items) {
+    LOGGER.debug("Enter. developerId: {}, item size: {}.", developerId,
+        items == null ? null : items.size());
+
+    PayloadValidator.validateBatchSize(items == null ? null : items.size());
+
+    // 每个产品只读一次缓存
+    Map<String, Map<String, DeviceDataDefinition>> definitionsByProduct = Maps.newHashMap();
+    List<DeviceDataDefinition> definitions = Lists.newArrayListWithCapacity(items.size());
+    items.forEach(item -> definitions.add(findDefinition(developerId, item, definitionsByProduct)));
+    List<String> schemas = definitions.stream().map(this::resolveSchema)
+        .collect(Collectors.toList());
+
+    List<ValidationResultView> result = schemaGuard.call(() -> {
+      List<ValidationResultView> views = Lists.newArrayListWithCapacity(items.size());
+      for (int i = 0; i < items.size(); i++) {
+        views.add(validateItem(i, items.get(i), definitions.get(i), schemas.get(i)));
+      }
+      return views;
+    });
+
+    LOGGER.debug("Exit. invalid size: {}.", countInvalid(result));
+
+    return result;
+  }
+
+  /**
+   * Validate a NDJSON stream, one item per line, and write the result of each line as NDJSON
+   * as soon as it is validated. Lines without productId use the given productId.
+   * An unreadable line is reported as the last result, since the rest can not be parsed.
+   *
+   * @param developerId the developer id
+   * @param productId the default product id, nullable
+   * @param invalidOnly only write results of invalid lines
+   * @param inputStream the NDJSON input stream
+   * @param outputStream the output stream
+   * @throws IOException the io exception
+   */
+  public void validate(String developerId, String productId, boolean invalidOnly,
+      InputStream inputStream, OutputStream outputStream) throws IOException {
+    LOGGER.info("Enter. developerId: {}, productId: {}, invalidOnly: {}.",
+        developerId, productId, invalidOnly);
+
+    Map<String, Map<String, DeviceDataDefinition>> definitionsByProduct = Maps.newHashMap();
+    int index = 0;
+    long invalid = 0;
+    long busy = 0;
+
+    try (ExportWriter writer = new ExportWriter(ExportFormat.NDJSON, outputStream);
+         MappingIterator<ValidationItem> items = ITEM_READER.readValues(inputStream)) {
+      try {
+        while (items.hasNextValue()) {
+          ValidationItem item = items.nextValue();
+          if (item.getProductId() == null) {
+            item.setProductId(productId);
+          }
+          if (definitionsByProduct.size() >= MAX_STREAM_PRODUCTS
+              && !definitionsByProduct.containsKey(item.getProductId())) {
+            definitionsByProduct.clear();
+          }
+
+          DeviceDataDefinition definition =
+              findDefinition(developerId, item, definitionsByProduct);
+          ValidationResultView view = validateGuarded(index, item, definition,
+              resolveSchema(definition));
+          if (!view.getValid()) {
+            invalid++;
+          }
+          if (view.getRetryable()) {
+            busy++;
+          }
+          if (!invalidOnly || !view.getValid()) {
+            writer.write(view);
+          }
+          // results written long ago reach the client while valid lines are skipped
+          writer.flushIfDue();
+          index++;
+        }
+      } catch (JsonProcessingException e) {
+        LOGGER.debug("Invalid json at line: {}.", index + 1, e);
+        writer.write(toView(index, null,
+            Collections.singletonList("Invalid json: " + e.getOriginalMessage())));
+        invalid++;
+      }
+    }
+
+    LOGGER.info("Exit. line size: {}, invalid size: {}, busy size: {}.", index, invalid, busy);
+  }
+
+  /**
+   * Validate one line of a stream on the guard pool, a line which times out is reported
+   * invalid, a line the saturated pool rejects is reported retryable, and the stream goes on.
+   *
+   * @param index the index
+   * @param item the item
+   * @param definition the data definition, null if not exist
+   * @param schema the resolved schema, null if not exist
+   * @return the result
+   */
+  private ValidationResultView validateGuarded(int index, ValidationItem item,
+      DeviceDataDefinition definition, String schema) {
+    try {
+      return schemaGuard.call(() -> validateItem(index, item, definition, schema));
+    } catch (ParametersException ex) {
+      return toView(index, item.getDataId(), Collections.singletonList(ex.getMessage()));
+    } catch (ServiceBusyException ex) {
+      LOGGER.debug("Guard pool busy at line: {}.", index + 1, ex);
+      ValidationResultView view =
+          toView(index, item.getDataId(), Collections.singletonList(BUSY_ERROR));
+      view.setRetryable(true);
+      return view;
+    }
+  }
+
+  /**
+   * Find the data definition selected by (productId, dataId) of an item, through the product
+   * cache. Must run on the request thread.
+   *
+   * @param developerId the developer id
+   * @param item the item
+   * @param definitionsByProduct definitions read so far, by productId and dataId
+   * @return the data definition, null if not exist
+   */
+  private DeviceDataDefinition findDefinition(String developerId, ValidationItem item,
+      Map<String, Map<String, DeviceDataDefinition>> definitionsByProduct) {
+    if (item.getProductId() == null) {
+      return null;
+    }
+    return definitionsByProduct.computeIfAbsent(item.getProductId(),
+        productId -> definitionApplication.getModelsByProductId(developerId, productId).stream()
+            .collect(Collectors.toMap(DeviceDataDefinition::getDataId, Function.identity(),
+                (first, second) -> first)))
+        .get(item.getDataId());
+  }
+
+  /**
+   * Resolve the schema of a data definition. Must run on the request thread.
+   *
+   * @param definition the data definition, nullable
+   * @return the resolved schema, null if the definition is null
+   */
+  private String resolveSchema(DeviceDataDefinition definition) {
+    return definition == null ? null : resolutionApplication.resolveForValidation(definition);
+  }
+
+  /**
+   * Validate one item against its data definition. A stored schema which does not compile
+   * any more makes the payload invalid.
+   *
+   * @param index the index
+   * @param item the item
+   * @param definition the data definition, null if not exist
+   * @param schema the resolved schema of the data definition
+   * @return the result
+   */
+  private ValidationResultView validateItem(int index, ValidationItem item,
+      DeviceDataDefinition definition, String schema) {
+    List<String> errors;
+    if (definition == null) {
+      errors = Collections.singletonList(NOT_EXIST_ERROR);
+    } else if (item.getPayload() == null) {
+      errors = Collections.singletonList(NO_PAYLOAD_ERROR);
+    } else {
+      try {
+        errors = SchemaValidator.compile(schema).validate(item.getPayload());
+      } catch (ParametersException ex) {
+        LOGGER.debug("Stored schema of dataDefinition: {} is invalid.", definition.getId(), ex);
+        errors = Collections.singletonList(ex.getMessage());
+      }
+    }
+    return toView(index, item.getDataId(), errors);
+  }
+
+  /**
+   * Build the result of one payload.
+   *
+   * @param index the index
+   * @param dataId the data id, nullable
+   * @param errors the errors
+   * @return the view
+   */
+  private ValidationResultView toView(int index, String dataId, List<String> errors) {
+    ValidationResultView view = new ValidationResultView();
+    view.setIndex(index);
+    view.setDataId(dataId);
+    view.setValid(errors.isEmpty());
+    view.setErrors(errors);
+    view.setRetryable(false);
+    return view;
+  }
+
+  /**
+   * Count invalid payloads, for logging.
+   *
+   * @param results the results
+   * @return the count
+   */
+  private long countInvalid(List<ValidationResultView> results) {
+    return results.stream().filter(view -> !view.getValid()).count();
+  }
+}
@@ -1,7 +1,7 @@
 package com.umasuo.datapoint.application.service.update;
 
 import com.umasuo.datapoint.application.dto.action.SetDataId;
-import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
 import com.umasuo.datapoint.infrastructure.update.UpdateAction;
 import com.umasuo.datapoint.infrastructure.update.UpdateActionUtils;
 import com.umasuo.model.Updater;
@@ -13,7 +13,7 @@ import org.springframework.stereotype.Service;
  * Updater for SetDataIdService.
  */
 @Service(UpdateActionUtils.SET_DATA_ID)
-public class SetDataIdService implements Updater<DeviceDataDefinition, UpdateAction> {
+public class SetDataIdService implements Updater<ChangeSet, UpdateAction> {
 
   /**
    * Logger.
@@ -23,17 +23,16 @@ public class SetDataIdService implements Updater<DeviceDataDefinition, UpdateAct
   /**
    * Update data definition id.
    *
-   * @param deviceDataDefinition
+   * @param changes
    * @param updateAction
    */
   @Override
-  public void handle(DeviceDataDefinition deviceDataDefinition, UpdateAction updateAction) {
+  public void handle(ChangeSet changes, UpdateAction updateAction) {
     LOGGER.debug("Enter.");
 
     String dataId = ((SetDataId) updateAction).getDataId();
 
-    // TODO: 17/7/4 要查询一下数据看是否存在该dataId
-    deviceDataDefinition.setDataId(dataId);
+    changes.set(ChangeSet.DATA_ID, dataId);
 
     LOGGER.debug("Exit.");
   }
@@ -1,7 +1,7 @@
 package com.umasuo.datapoint.application.service.update;
 
 import com.umasuo.datapoint.application.dto.action.SetDescription;
-import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
 import com.umasuo.datapoint.infrastructure.update.UpdateAction;
 import com.umasuo.datapoint.infrastructure.update.UpdateActionUtils;
 import com.umasuo.model.Updater;
@@ -13,7 +13,7 @@ import org.springframework.stereotype.Service;
  * Update service for description.
  */
 @Service(UpdateActionUtils.SET_DESCRIPTION)
-public class SetDescriptionService implements Updater<DeviceDataDefinition, UpdateAction> {
+public class SetDescriptionService implements Updater<ChangeSet, UpdateAction> {
 
   /**
    * Logger.
@@ -23,15 +23,15 @@ public class SetDescriptionService implements Updater<DeviceDataDefinition, Upda
   /**
    * Update data definition definition.
    *
-   * @param deviceDataDefinition
+   * @param changes
    * @param updateAction
    */
   @Override
-  public void handle(DeviceDataDefinition deviceDataDefinition, UpdateAction updateAction) {
+  public void handle(ChangeSet changes, UpdateAction updateAction) {
     LOGGER.debug("Enter.");
 
     String description = ((SetDescription) updateAction).getDescription();
-    deviceDataDefinition.setDescription(description);
+    changes.set(ChangeSet.DESCRIPTION, description);
 
     LOGGER.debug("Exit.");
   }
@@ -1,7 +1,7 @@
 package com.umasuo.datapoint.application.service.update;
 
 import com.umasuo.datapoint.application.dto.action.SetName;
-import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
 import com.umasuo.datapoint.infrastructure.update.UpdateAction;
 import com.umasuo.datapoint.infrastructure.update.UpdateActionUtils;
 import com.umasuo.model.Updater;
@@ -13,7 +13,7 @@ import org.springframework.stereotype.Service;
  * Update service for name.
  */
 @Service(UpdateActionUtils.SET_NAME)
-public class SetNameService implements Updater<DeveloperDataDefinition, UpdateAction> {
+public class SetNameService implements Updater<ChangeSet, UpdateAction> {
 
   /**
    * Logger.
@@ -22,17 +22,16 @@ public class SetNameService implements Updater<DeveloperDataDefinition, UpdateAc
 
   /**
    * Update data definition's name.
-   * @param dataDefinition
+   * @param changes
    * @param updateAction
    */
   @Override
-  public void handle(DeveloperDataDefinition dataDefinition, UpdateAction updateAction) {
+  public void handle(ChangeSet changes, UpdateAction updateAction) {
     LOGGER.debug("Enter.");
 
     String name = ((SetName) updateAction).getName();
 
-    // TODO: 17/7/4 需要查询数据库判断是否重复
-    dataDefinition.setName(name);
+    changes.set(ChangeSet.NAME, name);
 
     LOGGER.debug("Exit.");
   }
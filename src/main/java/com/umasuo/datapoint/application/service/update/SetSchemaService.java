@@ -1,10 +1,9 @@
 package com.umasuo.datapoint.application.service.update;
 
 import com.umasuo.datapoint.application.dto.action.SetSchema;
-import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
 import com.umasuo.datapoint.infrastructure.update.UpdateAction;
 import com.umasuo.datapoint.infrastructure.update.UpdateActionUtils;
-import com.umasuo.datapoint.infrastructure.validator.SchemaValidator;
 import com.umasuo.model.Updater;
 
 import org.slf4j.Logger;
@@ -15,7 +14,7 @@ import org.springframework.stereotype.Service;
  * Update service for schema.
  */
 @Service(UpdateActionUtils.SET_SCHEMA)
-public class SetSchemaService implements Updater<DeviceDataDefinition, UpdateAction> {
+public class SetSchemaService implements Updater<ChangeSet, UpdateAction> {
 
   /**
    * Logger.
@@ -26,14 +25,12 @@ public class SetSchemaService implements Updater<DeviceDataDefinition, UpdateAct
    * Update data definition's schema.
    */
   @Override
-  public void handle(DeviceDataDefinition deviceDataDefinition, UpdateAction updateAction) {
+  public void handle(ChangeSet changes, UpdateAction updateAction) {
     LOGGER.debug("Enter.");
 
     String schema = ((SetSchema) updateAction).getSchema();
 
-    SchemaValidator.validate(schema);
-
-    deviceDataDefinition.setDataSchema(schema);
+    changes.set(ChangeSet.DATA_SCHEMA, schema);
 
     LOGGER.debug("Exit.");
   }
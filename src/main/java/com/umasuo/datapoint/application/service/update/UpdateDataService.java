@@ -1,10 +1,9 @@
 package com.umasuo.datapoint.application.service.update;
 
 import com.umasuo.datapoint.application.dto.action.UpdateDataDefinition;
-import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
 import com.umasuo.datapoint.infrastructure.update.UpdateAction;
 import com.umasuo.datapoint.infrastructure.update.UpdateActionUtils;
-import com.umasuo.datapoint.infrastructure.validator.SchemaValidator;
 import com.umasuo.model.Updater;
 
 import org.slf4j.Logger;
@@ -15,7 +14,7 @@ import org.springframework.stereotype.Service;
  * Update data definition service.
  */
 @Service(UpdateActionUtils.UPDATE_DATA_DEFINITION)
-public class UpdateDataService implements Updater<DeviceDataDefinition, UpdateAction> {
+public class UpdateDataService implements Updater<ChangeSet, UpdateAction> {
 
   /**
    * Logger.
@@ -26,21 +25,19 @@ public class UpdateDataService implements Updater<DeviceDataDefinition, UpdateAc
    * Update data definition.
    */
   @Override
-  public void handle(DeviceDataDefinition deviceDataDefinition, UpdateAction updateAction) {
+  public void handle(ChangeSet changes, UpdateAction updateAction) {
     LOGGER.debug("Enter.");
 
     UpdateDataDefinition action = (UpdateDataDefinition) updateAction;
 
     String schema = action.getSchema();
 
-    SchemaValidator.validate(schema);
+    changes.set(ChangeSet.DATA_SCHEMA, schema);
 
-    deviceDataDefinition.setDataSchema(schema);
-
-    deviceDataDefinition.setDescription(action.getDescription());
-    deviceDataDefinition.setName(action.getName());
-    deviceDataDefinition.setDataId(action.getDataId());
-    deviceDataDefinition.setOpenable(action.getOpenable());
+    changes.set(ChangeSet.DESCRIPTION, action.getDescription());
+    changes.set(ChangeSet.NAME, action.getName());
+    changes.set(ChangeSet.DATA_ID, action.getDataId());
+    changes.set(ChangeSet.OPENABLE, action.getOpenable());
 
     LOGGER.debug("Exit.");
   }
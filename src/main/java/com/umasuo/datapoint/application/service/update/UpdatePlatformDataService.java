@@ -1,10 +1,9 @@
 package com.umasuo.datapoint.application.service.update;
 
 import com.umasuo.datapoint.application.dto.action.UpdateProductTypeData;
-import com.umasuo.datapoint.domain.model.PlatformDataDefinition;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
 import com.umasuo.datapoint.infrastructure.update.UpdateAction;
 import com.umasuo.datapoint.infrastructure.update.UpdateActionUtils;
-import com.umasuo.datapoint.infrastructure.validator.SchemaValidator;
 import com.umasuo.model.Updater;
 
 import org.slf4j.Logger;
@@ -15,7 +14,7 @@ import org.springframework.stereotype.Service;
  * Update data definition service.
  */
 @Service(UpdateActionUtils.UPDATE_PRODUCT_TYPE_DATA)
-public class UpdatePlatformDataService implements Updater<PlatformDataDefinition, UpdateAction> {
+public class UpdatePlatformDataService implements Updater<ChangeSet, UpdateAction> {
 
   /**
    * Logger.
@@ -26,18 +25,16 @@ public class UpdatePlatformDataService implements Updater<PlatformDataDefinition
    * Update data definition.
    */
   @Override
-  public void handle(PlatformDataDefinition dataDefinition, UpdateAction updateAction) {
+  public void handle(ChangeSet changes, UpdateAction updateAction) {
     LOGGER.debug("Enter.");
 
     UpdateProductTypeData action = (UpdateProductTypeData) updateAction;
 
     String schema = action.getSchema();
 
-    SchemaValidator.validate(schema);
-
-    dataDefinition.setDataSchema(schema);
-    dataDefinition.setDescription(action.getDescription());
-    dataDefinition.setName(action.getName());
+    changes.set(ChangeSet.DATA_SCHEMA, schema);
+    changes.set(ChangeSet.DESCRIPTION, action.getDescription());
+    changes.set(ChangeSet.NAME, action.getName());
 
     LOGGER.debug("Exit.");
   }
@@ -0,0 +1,88 @@
+package com.umasuo.datapoint.domain.model;
+
+import com.umasuo.datapoint.infrastructure.enums.ChangeOperation;
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+
+import lombok.Data;
+
+import org.hibernate.annotations.Type;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * One entry of the data definition change feed, written in the same transaction as the change.
+ */
+@Data
+@Entity
+@Table(name = "definition_change", indexes = {
+    @Index(name = "idx_definition_change_developer", columnList = "developer_id, seq")
+})
+public class DefinitionChange implements Serializable {
+
+  /**
+   * The serialVersionUID.
+   */
+  private static final long serialVersionUID = -2413570139840871175L;
+
+  /**
+   * Sequence number, increases in commit order.
+   */
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long seq;
+
+  /**
+   * When the change happened.
+   */
+  private Long createdAt;
+
+  /**
+   * Type of the changed data definition.
+   */
+  @Enumerated(EnumType.STRING)
+  private DefinitionType definitionType;
+
+  /**
+   * The operation.
+   */
+  @Enumerated(EnumType.STRING)
+  private ChangeOperation operation;
+
+  /**
+   * Id of the changed data definition, null if the change covers a whole product.
+   */
+  @Type(type = "pg-uuid")
+  @Column(columnDefinition = "uuid")
+  private UUID definitionId;
+
+  /**
+   * Version after the change, null for deletes.
+   */
+  private Integer version;
+
+  /**
+   * Developer id, null for platform data definitions.
+   */
+  private String developerId;
+
+  /**
+   * Product id of device data definitions.
+   */
+  private String productId;
+
+  /**
+   * Product type id of platform data definitions.
+   */
+  private String productTypeId;
+}
@@ -5,28 +5,41 @@ import com.umasuo.datapoint.infrastructure.enums.Category;
 import lombok.Data;
 
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Type;
+import org.hibernate.annotations.Where;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.io.Serializable;
+import java.util.UUID;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 import javax.persistence.Version;
 
 /**
  * DeviceDataDefinition.
+ * Deleted rows are tombstoned and filtered out of every read until purged, uniqueness of
+ * dataId and name only counts live rows, see the partial unique indexes in data.sql.
+ * dataAlias is unique in the product among all rows, tombstoned ones included.
  */
 @Data
 @Entity
-@Table(name = "device_data_definition")
+@Table(name = "device_data_definition", indexes = {
+    @Index(name = "idx_device_data_product_page",
+        columnList = "developer_id, product_id, created_at, id"),
+    @Index(name = "idx_device_data_open_page",
+        columnList = "developer_id, openable, created_at, id")
+})
+@Where(clause = "deleted_at is null")
 @EntityListeners(AuditingEntityListener.class)
-public class DeviceDataDefinition implements Serializable {
+public class DeviceDataDefinition implements Serializable, SchemaHolder {
 
   /**
    * The serialVersionUID.
@@ -34,13 +47,15 @@ public class DeviceDataDefinition implements Serializable {
   private static final long serialVersionUID = 6809407785157874299L;
 
   /**
-   * Id.
+   * Id, time ordered uuid stored as native uuid.
    */
   @Id
   @GeneratedValue(generator = "uuid")
-  @GenericGenerator(name = "uuid", strategy = "uuid2")
-  @Column(name = "id")
-  private String id;
+  @GenericGenerator(name = "uuid",
+      strategy = "com.umasuo.datapoint.infrastructure.repository.TimeOrderedUuidGenerator")
+  @Type(type = "pg-uuid")
+  @Column(name = "id", columnDefinition = "uuid")
+  private UUID id;
 
   /**
    * The Created at.
@@ -78,11 +93,23 @@ public class DeviceDataDefinition implements Serializable {
   private String dataId;
 
   /**
-   * the data structure.
+   * Dense alias of dataId in the product, assigned from 0 on creation and never reused, so
+   * devices and ingestion can refer to the data point by a small integer.
    */
-  @Column(length = 65536)
+  private Integer dataAlias;
+
+  /**
+   * the data structure, null if it is stored out of line.
+   */
+  @Column(columnDefinition = "text")
   private String dataSchema;
 
+  /**
+   * Hash of the schema in schema_blob, null if the schema is inline.
+   */
+  @Column(length = 64)
+  private String schemaRef;
+
   /**
    * name of this definition.
    */
@@ -103,4 +130,9 @@ public class DeviceDataDefinition implements Serializable {
    * Data definition category.
    */
   private Category category;
+
+  /**
+   * Tombstone, when this data definition was deleted, null if alive.
+   */
+  private Long deletedAt;
 }
@@ -2,18 +2,22 @@ package com.umasuo.datapoint.domain.model;
 
 import lombok.Data;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Type;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.io.Serializable;
+import java.util.UUID;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import javax.persistence.Version;
 
 /**
@@ -21,9 +25,14 @@ import javax.persistence.Version;
  */
 @Data
 @Entity
-@Table(name = "platform_data_definition")
+@Table(name = "platform_data_definition", indexes = {
+    @Index(name = "idx_platform_data_page", columnList = "created_at, id")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_platform_data_data_id",
+        columnNames = {"product_type_id", "data_id"})
+})
 @EntityListeners(AuditingEntityListener.class)
-public class PlatformDataDefinition implements Serializable{
+public class PlatformDataDefinition implements Serializable, SchemaHolder {
 
   /**
    * The serialVersionUID.
@@ -31,13 +40,15 @@ public class PlatformDataDefinition implements Serializable{
   private static final long serialVersionUID = -3480326990339520679L;
 
   /**
-   * Id.
+   * Id, time ordered uuid stored as native uuid.
    */
   @Id
   @GeneratedValue(generator = "uuid")
-  @GenericGenerator(name = "uuid", strategy = "uuid2")
-  @Column(name = "id")
-  private String id;
+  @GenericGenerator(name = "uuid",
+      strategy = "com.umasuo.datapoint.infrastructure.repository.TimeOrderedUuidGenerator")
+  @Type(type = "pg-uuid")
+  @Column(name = "id", columnDefinition = "uuid")
+  private UUID id;
 
   /**
    * The Created at.
@@ -70,11 +81,17 @@ public class PlatformDataDefinition implements Serializable{
   private String productTypeId;
 
   /**
-   * the data structure.
+   * the data structure, null if it is stored out of line.
    */
-  @Column(length = 65536)
+  @Column(columnDefinition = "text")
   private String dataSchema;
 
+  /**
+   * Hash of the schema in schema_blob, null if the schema is inline.
+   */
+  @Column(length = 64)
+  private String schemaRef;
+
   /**
    * name of this definition.
    */
@@ -0,0 +1,50 @@
+package com.umasuo.datapoint.domain.model;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * A compressed schema stored out of line, shared by every data definition with the same schema.
+ */
+@Data
+@Entity
+@Table(name = "schema_blob", indexes = {
+    @Index(name = "idx_schema_blob_created", columnList = "created_at")
+})
+public class SchemaBlob implements Serializable {
+
+  /**
+   * The serialVersionUID.
+   */
+  private static final long serialVersionUID = -5327051932851446907L;
+
+  /**
+   * Sha-256 of the schema, in hex.
+   */
+  @Id
+  @Column(length = 64)
+  private String hash;
+
+  /**
+   * Deflate compressed utf-8 schema.
+   */
+  @Column(columnDefinition = "bytea")
+  private byte[] content;
+
+  /**
+   * Length of the uncompressed schema, in chars.
+   */
+  private Integer length;
+
+  /**
+   * When the blob was last written, orphans are purged some time after this.
+   */
+  private Long createdAt;
+}
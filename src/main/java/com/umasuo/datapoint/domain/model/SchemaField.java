@@ -0,0 +1,86 @@
+package com.umasuo.datapoint.domain.model;
+
+import lombok.Data;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Type;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * One field of a device data definition's schema, a (path, type) pair extracted when the schema
+ * is written, so fields can be searched across products without parsing schemas.
+ */
+@Data
+@Entity
+@Table(name = "schema_field", indexes = {
+    @Index(name = "idx_schema_field_name", columnList = "developer_id, name, type"),
+    @Index(name = "idx_schema_field_path", columnList = "developer_id, path, type"),
+    @Index(name = "idx_schema_field_definition", columnList = "developer_id, definition_id")
+})
+public class SchemaField implements Serializable {
+
+  /**
+   * The serialVersionUID.
+   */
+  private static final long serialVersionUID = -1129530717458520713L;
+
+  /**
+   * Id.
+   */
+  @Id
+  @GeneratedValue(generator = "uuid")
+  @GenericGenerator(name = "uuid",
+      strategy = "com.umasuo.datapoint.infrastructure.repository.TimeOrderedUuidGenerator")
+  @Type(type = "pg-uuid")
+  @Column(name = "id", columnDefinition = "uuid")
+  private UUID id;
+
+  /**
+   * Developer of the data definition.
+   */
+  private String developerId;
+
+  /**
+   * Product of the data definition.
+   */
+  private String productId;
+
+  /**
+   * Id of the data definition.
+   */
+  @Type(type = "pg-uuid")
+  @Column(columnDefinition = "uuid")
+  private UUID definitionId;
+
+  /**
+   * DataId of the data definition.
+   */
+  private String dataId;
+
+  /**
+   * Path of the field in payloads, e.g. readings[].temperature.
+   */
+  @Column(length = 512)
+  private String path;
+
+  /**
+   * Last property name of the path, e.g. temperature, as long as the path at most.
+   */
+  @Column(length = 512)
+  private String name;
+
+  /**
+   * Json schema type of the field, any if the schema does not declare one.
+   */
+  @Column(length = 16)
+  private String type;
+}
@@ -0,0 +1,45 @@
+package com.umasuo.datapoint.domain.model;
+
+/**
+ * A data definition whose schema may be stored out of line, in schema_blob.
+ * When schemaRef is set, the dataSchema column is null and the schema is read from the blob.
+ */
+public interface SchemaHolder {
+
+  /**
+   * Gets the schema, null if stored out of line and not loaded yet.
+   *
+   * @return the schema
+   */
+  String getDataSchema();
+
+  /**
+   * Sets the schema.
+   *
+   * @param dataSchema the schema
+   */
+  void setDataSchema(String dataSchema);
+
+  /**
+   * Gets hash of the out of line schema.
+   *
+   * @return the hash, null if the schema is inline
+   */
+  String getSchemaRef();
+
+  /**
+   * Sets hash of the out of line schema.
+   *
+   * @param schemaRef the hash, null if the schema is inline
+   */
+  void setSchemaRef(String schemaRef);
+
+  /**
+   * Schema to write to the data_schema column.
+   *
+   * @return the schema, null if stored out of line
+   */
+  default String inlineSchema() {
+    return getSchemaRef() == null ? getDataSchema() : null;
+  }
+}
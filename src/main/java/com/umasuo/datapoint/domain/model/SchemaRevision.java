@@ -0,0 +1,84 @@
+package com.umasuo.datapoint.domain.model;
+
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+
+import lombok.Data;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Type;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * One revision of a data definition's schema, rows are only ever appended.
+ * A checkpoint holds the full schema, other revisions hold a json patch (RFC 6902) against
+ * the previous revision.
+ */
+@Data
+@Entity
+@Table(name = "schema_revision", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_schema_revision_version",
+        columnNames = {"definition_id", "version"})
+})
+public class SchemaRevision implements Serializable {
+
+  /**
+   * The serialVersionUID.
+   */
+  private static final long serialVersionUID = 2968411053176295537L;
+
+  /**
+   * Id.
+   */
+  @Id
+  @GeneratedValue(generator = "uuid")
+  @GenericGenerator(name = "uuid",
+      strategy = "com.umasuo.datapoint.infrastructure.repository.TimeOrderedUuidGenerator")
+  @Type(type = "pg-uuid")
+  @Column(name = "id", columnDefinition = "uuid")
+  private UUID id;
+
+  /**
+   * Id of the data definition.
+   */
+  @Type(type = "pg-uuid")
+  @Column(columnDefinition = "uuid")
+  private UUID definitionId;
+
+  /**
+   * Type of the data definition.
+   */
+  @Enumerated(EnumType.STRING)
+  private DefinitionType definitionType;
+
+  /**
+   * Version of the data definition which wrote this schema.
+   */
+  private Integer version;
+
+  /**
+   * When the revision was written.
+   */
+  private Long createdAt;
+
+  /**
+   * True if content is the full schema, false if it is a patch.
+   */
+  private Boolean checkpoint;
+
+  /**
+   * Full schema or json patch.
+   */
+  @Column(columnDefinition = "text")
+  private String content;
+}
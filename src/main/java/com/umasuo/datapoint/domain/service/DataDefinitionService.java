@@ -1,19 +1,39 @@
 package com.umasuo.datapoint.domain.service;
 
-import com.umasuo.datapoint.application.dto.DataDefinitionView;
-import com.umasuo.datapoint.application.dto.mapper.DataDefinitionMapper;
+import com.google.common.collect.Lists;
 import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.infrastructure.paging.Cursor;
 import com.umasuo.datapoint.infrastructure.repository.DataDefinitionRepository;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
+import com.umasuo.datapoint.infrastructure.util.UuidUtils;
+import com.umasuo.datapoint.infrastructure.validator.VersionValidator;
 import com.umasuo.exception.AlreadyExistException;
+import com.umasuo.exception.ConflictException;
 import com.umasuo.exception.NotExistException;
+import com.umasuo.exception.ParametersException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 /**
  * DataDefinitionService.
@@ -33,58 +53,58 @@ public class DataDefinitionService {
   private transient DataDefinitionRepository repository;
 
   /**
-   * 判断dataId是否已经在developer＋product下存在。
-   *
-   * @param developerId the developer id
-   * @param productId   the product id
-   * @param dataId      the data id
-   */
-  public void isExistDataId(String developerId, String productId, String dataId) {
-    LOGGER.debug("Enter. developerId: {}, productId: {}, dataId: {}.",
-        developerId, productId, dataId);
-
-    DeviceDataDefinition ex = new DeviceDataDefinition();
-    ex.setDataId(dataId);
-    ex.setDeveloperId(developerId);
-    ex.setProductId(productId);
-    Example<DeviceDataDefinition> example = Example.of(ex);
-
-    boolean exists = this.repository.exists(example);
-    if (exists) {
-      LOGGER.debug("DataId: {} has existed for product: {}, developer: {}.",
-          dataId, productId, developerId);
-      throw new AlreadyExistException("Data Definition already exist for dataId: " + dataId);
-    }
+   * Out of line storage of large schemas.
+   */
+  @Autowired
+  private transient SchemaStorageService schemaStorageService;
 
-    LOGGER.debug("Exit. dataId is unique.");
-  }
+  /**
+   * Field index, maintained in the transaction of each schema change.
+   */
+  @Autowired
+  private transient SchemaFieldService schemaFieldService;
 
   /**
-   * Is exist name in developer.
+   * Entity manager, used to detach exported rows.
+   */
+  @PersistenceContext
+  private transient EntityManager entityManager;
+
+  /**
+   * Create device data definition in one INSERT ... ON CONFLICT DO NOTHING, the unique
+   * constraints on dataId and name decide if it already exists.
+   * Must run in a transaction, so the reserved data alias is released if it already exists.
    *
-   * @param developerId the developer id
-   * @param productId   the developer id
-   * @param name        the name
-   * @return the boolean
+   * @param dataDefinition the data definition
+   * @return the created data definition
    */
-  public void isExistName(String developerId, String productId, String name) {
-    LOGGER.debug("Enter. developerId: {}, productId: {}, name: {}.", developerId, productId, name);
+  public DeviceDataDefinition create(DeviceDataDefinition dataDefinition) {
+    LOGGER.debug("Enter. dataDefinition: {}.", dataDefinition);
 
-    DeviceDataDefinition sample = new DeviceDataDefinition();
-    sample.setProductId(productId);
-    sample.setName(name);
+    long now = System.currentTimeMillis();
+    dataDefinition.setId(UuidUtils.timeOrdered());
+    dataDefinition.setCreatedAt(now);
+    dataDefinition.setLastModifiedAt(now);
+    dataDefinition.setVersion(0);
+    dataDefinition.setDataAlias(repository.reserveAliases(dataDefinition.getDeveloperId(),
+        dataDefinition.getProductId(), 1));
 
-    Example<DeviceDataDefinition> example = Example.of(sample);
+    schemaStorageService.store(dataDefinition);
 
-    boolean exists = repository.exists(example);
+    boolean inserted = repository.insertIfAbsent(dataDefinition);
 
-    if (exists) {
-      LOGGER.debug("Name: {} has existed in product: {}, developer: {}.",
-          name, productId, developerId);
-      throw new AlreadyExistException("Name has existed");
+    if (!inserted) {
+      LOGGER.debug("DataId: {} or name: {} has existed in product: {}, developer: {}.",
+          dataDefinition.getDataId(), dataDefinition.getName(), dataDefinition.getProductId(),
+          dataDefinition.getDeveloperId());
+      throw new AlreadyExistException("DataDefinition dataId or name exist");
     }
 
-    LOGGER.debug("Exit. name is unique.");
+    schemaFieldService.index(dataDefinition);
+
+    LOGGER.debug("Exit. new dataDefinition id: {}.", dataDefinition.getId());
+
+    return dataDefinition;
   }
 
   /**
@@ -104,18 +124,30 @@ public class DataDefinitionService {
   }
 
   /**
-   * Save all list.
+   * Save new data definitions, e.g. copies, through COPY in the current transaction.
    *
    * @param dataDefinitions the data definitions
-   * @return the list
+   * @return the ids
    */
-  public List<String> saveAll(List<DeviceDataDefinition> dataDefinitions) {
+  public List<UUID> saveAll(List<DeviceDataDefinition> dataDefinitions) {
     LOGGER.debug("Enter. dataDefinitions size: {}.", dataDefinitions.size());
 
-    List<DeviceDataDefinition> savedDataDefinitions = repository.save(dataDefinitions);
-
+    long now = System.currentTimeMillis();
+    dataDefinitions.forEach(dataDefinition -> {
+      dataDefinition.setId(UuidUtils.timeOrdered());
+      dataDefinition.setCreatedAt(now);
+      dataDefinition.setLastModifiedAt(now);
+      dataDefinition.setVersion(0);
+    });
+
+    try {
+      copyIn(dataDefinitions);
+    } catch (DataIntegrityViolationException ex) {
+      LOGGER.debug("DataId or name conflicts with existing data definition.", ex);
+      throw new AlreadyExistException("DataDefinition dataId or name exist");
+    }
 
-    List<String> dataDefinitionIds = savedDataDefinitions.stream()
+    List<UUID> dataDefinitionIds = dataDefinitions.stream()
         .map(DeviceDataDefinition::getId).collect(Collectors.toList());
 
     LOGGER.debug("Exit. dataDefinition ids: {}.", dataDefinitionIds);
@@ -124,44 +156,273 @@ public class DataDefinitionService {
   }
 
   /**
-   * Delete.
+   * Bulk load data definitions through COPY, ids and audit fields must be filled already.
+   * Data aliases are reserved per product in list order, in the caller's transaction.
+   *
+   * @param dataDefinitions the data definitions
+   */
+  public void copyIn(List<DeviceDataDefinition> dataDefinitions) {
+    LOGGER.debug("Enter. dataDefinitions size: {}.", dataDefinitions.size());
+
+    Map<String, List<DeviceDataDefinition>> byProduct = dataDefinitions.stream().collect(
+        Collectors.groupingBy(DeviceDataDefinition::getProductId, LinkedHashMap::new,
+            Collectors.toList()));
+    byProduct.forEach((productId, definitions) -> {
+      int alias = repository.reserveAliases(definitions.get(0).getDeveloperId(), productId,
+          definitions.size());
+      for (DeviceDataDefinition definition : definitions) {
+        definition.setDataAlias(alias++);
+      }
+    });
+
+    dataDefinitions.forEach(dataDefinition -> schemaStorageService.store(dataDefinition));
+
+    repository.copyIn(dataDefinitions);
+    schemaFieldService.index(dataDefinitions);
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * Get (productId, dataId, name) of existing data definitions which may conflict with the
+   * given products, dataIds and names in one query.
+   *
+   * @param developerId the developer id
+   * @param productIds  the product ids
+   * @param dataIds     the data ids
+   * @param names       the names
+   * @return rows of [productId, dataId, name]
+   */
+  public List<Object[]> getKeys(String developerId, Collection<String> productIds,
+      Collection<String> dataIds, Collection<String> names) {
+    LOGGER.debug("Enter. developerId: {}, productIds: {}.", developerId, productIds);
+
+    List<Object[]> result = repository.findKeys(developerId, productIds, dataIds, names);
+
+    LOGGER.debug("Exit. key size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * Update the changed columns in one conditional UPDATE, without reading the row first.
+   * The row is only read when nothing matched, to tell not exist, forbidden and version
+   * conflict apart.
+   *
+   * @param developerId the developer id
+   * @param id the id
+   * @param version the expected version
+   * @param changes the changes
+   * @return the updated data definition
+   */
+  @Transactional
+  public DeviceDataDefinition update(String developerId, UUID id, Integer version,
+      ChangeSet changes) {
+    LOGGER.debug("Enter. developerId: {}, id: {}, version: {}, changes: {}.",
+        developerId, id, version, changes);
+
+    boolean fieldsChanged = changes.contains(ChangeSet.DATA_SCHEMA)
+        || changes.contains(ChangeSet.DATA_ID);
+    schemaStorageService.store(changes);
+
+    DeviceDataDefinition result;
+    try {
+      result = repository.updateIfVersion(developerId, id, version, changes);
+    } catch (DataIntegrityViolationException ex) {
+      LOGGER.debug("DataId or name conflicts with existing data definition.", ex);
+      throw new AlreadyExistException("DataDefinition dataId or name exist");
+    }
+
+    if (result == null) {
+      DeviceDataDefinition valueInDb = getById(developerId, id);
+      VersionValidator.checkVersion(version, valueInDb.getVersion());
+      LOGGER.debug("DataDefinition: {} changed concurrently.", id);
+      throw new ConflictException("DeviceDataDefinition version is not correct.");
+    }
+
+    schemaStorageService.load(result);
+    if (fieldsChanged) {
+      schemaFieldService.reindex(result);
+    }
+
+    LOGGER.debug("Exit. updated version: {}.", result.getVersion());
+
+    return result;
+  }
+
+  /**
+   * Update many data definitions of a developer. Rows are read with one query, versions are
+   * checked and changes applied in memory, then all rows are written in one JDBC batch of
+   * conditional UPDATEs, so a row changed meanwhile fails the whole batch. Rows are written in
+   * id order, so overlapping batches lock them in the same order instead of deadlocking, and
+   * rows without changes are not written and keep their version.
    *
+   * @param developerId the developer id
+   * @param versions the expected version by id
+   * @param changes the changes by id
+   * @return the updated data definitions, in the order of changes
+   */
+  @Transactional
+  public List<DeviceDataDefinition> updateAll(String developerId, Map<UUID, Integer> versions,
+      Map<UUID, ChangeSet> changes) {
+    LOGGER.debug("Enter. developerId: {}, size: {}.", developerId, changes.size());
+
+    Map<UUID, DeviceDataDefinition> rows = schemaStorageService
+        .load(repository.findByDeveloperIdAndIdIn(developerId, changes.keySet())).stream()
+        .collect(Collectors.toMap(DeviceDataDefinition::getId, row -> row));
+
+    long now = System.currentTimeMillis();
+    List<DeviceDataDefinition> result = Lists.newArrayListWithCapacity(changes.size());
+    for (Map.Entry<UUID, ChangeSet> entry : changes.entrySet()) {
+      DeviceDataDefinition row = rows.get(entry.getKey());
+      if (row == null) {
+        LOGGER.debug("Can not find dataDefinition: {}.", entry.getKey());
+        throw new NotExistException("DataDefinition not exist: " + entry.getKey());
+      }
+      VersionValidator.checkVersion(versions.get(entry.getKey()), row.getVersion());
+      // rows are written by the batch below, never flushed by the entity manager
+      entityManager.detach(row);
+      if (!entry.getValue().isEmpty()) {
+        apply(row, entry.getValue());
+        row.setLastModifiedAt(now);
+      }
+      result.add(row);
+    }
+
+    List<DeviceDataDefinition> written = result.stream()
+        .filter(row -> !changes.get(row.getId()).isEmpty())
+        .sorted(Comparator.comparing(DeviceDataDefinition::getId))
+        .collect(Collectors.toList());
+
+    int[] counts;
+    try {
+      counts = repository.updateAll(written);
+    } catch (DataIntegrityViolationException ex) {
+      LOGGER.debug("DataId or name conflicts with existing data definition.", ex);
+      throw new AlreadyExistException("DataDefinition dataId or name exist");
+    }
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == 0) {
+        LOGGER.debug("DataDefinition: {} changed concurrently.", written.get(i).getId());
+        throw new ConflictException("DeviceDataDefinition version is not correct.");
+      }
+    }
+
+    for (DeviceDataDefinition row : written) {
+      row.setVersion(row.getVersion() + 1);
+      ChangeSet rowChanges = changes.get(row.getId());
+      if (rowChanges.contains(ChangeSet.DATA_SCHEMA) || rowChanges.contains(ChangeSet.DATA_ID)) {
+        schemaFieldService.reindex(row);
+      }
+    }
+
+    LOGGER.debug("Exit. updated size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * Apply changes to a detached row, a changed schema is stored out of line if it is long.
+   *
+   * @param row the row
+   * @param changes the changes
+   */
+  private void apply(DeviceDataDefinition row, ChangeSet changes) {
+    for (Map.Entry<String, Object> change : changes.getChanges().entrySet()) {
+      switch (change.getKey()) {
+        case ChangeSet.DATA_ID:
+          row.setDataId((String) change.getValue());
+          break;
+        case ChangeSet.DATA_SCHEMA:
+          row.setDataSchema((String) change.getValue());
+          schemaStorageService.store(row);
+          break;
+        case ChangeSet.NAME:
+          row.setName((String) change.getValue());
+          break;
+        case ChangeSet.DESCRIPTION:
+          row.setDescription((String) change.getValue());
+          break;
+        case ChangeSet.OPENABLE:
+          row.setOpenable((Boolean) change.getValue());
+          break;
+        default:
+          throw new ParametersException("Column can not be updated: " + change.getKey());
+      }
+    }
+  }
+
+  /**
+   * Delete, the row is tombstoned and purged later.
+   *
+   * @param developerId the developer id
    * @param id the id
    */
-  public void delete(String id) {
-    LOGGER.debug("Enter. id: {}.", id);
+  @Transactional
+  public void delete(String developerId, UUID id) {
+    LOGGER.debug("Enter. developerId: {}, id: {}.", developerId, id);
 
-    repository.delete(id);
+    repository.softDelete(developerId, id, System.currentTimeMillis());
+    schemaFieldService.remove(developerId, Collections.singletonList(id));
 
     LOGGER.debug("Exit.");
   }
 
   /**
-   * Delete by product.
+   * Delete by product in one statement, rows are tombstoned and purged later.
    *
    * @param developerId the developer id
    * @param productId   the product id
    */
+  @Transactional
   public void deleteByProduct(String developerId, String productId) {
     LOGGER.debug("Enter. developerId: {}, productId: {}.", developerId, productId);
 
-    List<DeviceDataDefinition> dataDefinitions = getByProductId(developerId, productId);
+    int count =
+        repository.softDeleteByProduct(developerId, productId, System.currentTimeMillis());
+    schemaFieldService.removeByProduct(developerId, productId);
 
-    repository.delete(dataDefinitions);
+    LOGGER.debug("Exit. tombstoned size: {}.", count);
+  }
 
-    LOGGER.debug("Exit.");
+  /**
+   * Purge rows tombstoned before the given time, in batches each committed on its own so
+   * locks are short. Stops after maxBatches.
+   *
+   * @param deletedBefore tombstoned before this time
+   * @param batchSize the batch size
+   * @param maxBatches the max batches
+   * @return purged row count
+   */
+  public long purge(long deletedBefore, int batchSize, int maxBatches) {
+    LOGGER.debug("Enter. deletedBefore: {}, batchSize: {}, maxBatches: {}.",
+        deletedBefore, batchSize, maxBatches);
+
+    long count = 0;
+    for (int i = 0; i < maxBatches; i++) {
+      int purged = repository.purgeDeleted(deletedBefore, batchSize);
+      count += purged;
+      if (purged < batchSize) {
+        break;
+      }
+    }
+
+    LOGGER.debug("Exit. purged size: {}.", count);
+
+    return count;
   }
 
   /**
-   * Get one from db.
+   * Get one from db, filtered by developer so only the developer's partition is read.
    *
+   * @param developerId the developer id
    * @param id the id
    * @return by id
    */
-  public DeviceDataDefinition getById(String id) {
-    LOGGER.debug("Enter. id: {}", id);
+  public DeviceDataDefinition getById(String developerId, UUID id) {
+    LOGGER.debug("Enter. developerId: {}, id: {}", developerId, id);
 
-    DeviceDataDefinition valueInDb = this.repository.findOne(id);
+    DeviceDataDefinition valueInDb = this.repository.findOneByDeveloperIdAndId(developerId, id);
 
     if (valueInDb == null) {
       LOGGER.debug("Can not find dataDefinition: {}.", id);
@@ -170,7 +431,7 @@ public class DataDefinitionService {
 
     LOGGER.debug("Exit.");
 
-    return valueInDb;
+    return schemaStorageService.load(valueInDb);
   }
 
   /**
@@ -189,7 +450,7 @@ public class DataDefinitionService {
 
     Example<DeviceDataDefinition> example = Example.of(sample);
 
-    List<DeviceDataDefinition> result = repository.findAll(example);
+    List<DeviceDataDefinition> result = schemaStorageService.load(repository.findAll(example));
 
     LOGGER.debug("Exit. dataDefinition size: {}.", result.size());
 
@@ -197,25 +458,75 @@ public class DataDefinitionService {
   }
 
   /**
-   * Gets all open data.
+   * Gets one page of product data definitions, at most limit + 1 rows are returned so the caller
+   * can tell if there is a next page.
    *
    * @param developerId the developer id
-   * @return the all open data
+   * @param productId   the product id
+   * @param cursor      the cursor
+   * @param limit       the limit
+   * @return the page rows
    */
-  public List<DataDefinitionView> getAllOpenData(String developerId) {
-    LOGGER.info("Enter. developerId: {}.", developerId);
+  public List<DeviceDataDefinition> getPageByProductId(String developerId, String productId,
+      Cursor cursor, int limit) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}, cursor: {}, limit: {}.",
+        developerId, productId, cursor, limit);
 
-    DeviceDataDefinition sample = new DeviceDataDefinition();
-    sample.setOpenable(true);
-    sample.setDeveloperId(developerId);
+    List<DeviceDataDefinition> result = schemaStorageService.load(repository.findPageByProduct(
+        developerId, productId, cursor.getCreatedAt(), cursor.getId(),
+        new PageRequest(0, limit + 1)));
 
-    Example<DeviceDataDefinition> example = Example.of(sample);
-    List<DeviceDataDefinition> openDataDefinitions = repository.findAll(example);
+    LOGGER.debug("Exit. dataDefinition size: {}.", result.size());
+
+    return result;
+  }
 
-    List<DataDefinitionView> result = DataDefinitionMapper.toView(openDataDefinitions);
+  /**
+   * Gets one page of open data, at most limit + 1 rows are returned.
+   *
+   * @param developerId the developer id
+   * @param cursor      the cursor
+   * @param limit       the limit
+   * @return the page rows
+   */
+  public List<DeviceDataDefinition> getOpenDataPage(String developerId, Cursor cursor,
+      int limit) {
+    LOGGER.debug("Enter. developerId: {}, cursor: {}, limit: {}.", developerId, cursor, limit);
 
-    LOGGER.info("Exit. dataDefinition size: {}.", result.size());
+    List<DeviceDataDefinition> result = schemaStorageService.load(repository.findOpenPage(
+        developerId, cursor.getCreatedAt(), cursor.getId(), new PageRequest(0, limit + 1)));
+
+    LOGGER.debug("Exit. dataDefinition size: {}.", result.size());
 
     return result;
   }
+
+  /**
+   * Stream data definitions of a developer, or of all developers if developerId is null, through
+   * a server side cursor. Rows are detached after consumed so memory stays flat.
+   *
+   * @param developerId the developer id, nullable
+   * @param consumer consumer of each row
+   * @return exported row count
+   */
+  @Transactional(readOnly = true)
+  public long export(String developerId, Consumer<DeviceDataDefinition> consumer) {
+    LOGGER.debug("Enter. developerId: {}.", developerId);
+
+    long count = 0;
+    try (Stream<DeviceDataDefinition> stream = developerId == null
+        ? repository.streamAll() : repository.streamByDeveloperId(developerId)) {
+      Iterator<DeviceDataDefinition> iterator = stream.iterator();
+      while (iterator.hasNext()) {
+        DeviceDataDefinition dataDefinition = iterator.next();
+        consumer.accept(schemaStorageService.load(dataDefinition));
+        entityManager.detach(dataDefinition);
+        count++;
+      }
+    }
+
+    LOGGER.debug("Exit. exported size: {}.", count);
+
+    return count;
+  }
 }
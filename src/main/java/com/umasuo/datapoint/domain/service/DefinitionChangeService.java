@@ -0,0 +1,204 @@
+package com.umasuo.datapoint.domain.service;
+
+import com.umasuo.datapoint.domain.model.DefinitionChange;
+import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
+import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.domain.model.PlatformDataDefinition;
+import com.umasuo.datapoint.infrastructure.changefeed.ChangeNotifier;
+import com.umasuo.datapoint.infrastructure.enums.ChangeOperation;
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+import com.umasuo.datapoint.infrastructure.repository.DefinitionChangeRepository;
+import com.umasuo.datapoint.infrastructure.sharding.ShardContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Transactional outbox of data definition changes.
+ * Record methods must be called in the transaction of the change itself.
+ */
+@Service
+public class DefinitionChangeService {
+
+  /**
+   * LOGGER.
+   */
+  private final static Logger LOGGER = LoggerFactory.getLogger(DefinitionChangeService.class);
+
+  /**
+   * Repository.
+   */
+  @Autowired
+  private transient DefinitionChangeRepository repository;
+
+  /**
+   * Change notifier.
+   */
+  @Autowired
+  private transient ChangeNotifier notifier;
+
+  /**
+   * Record a change of a device data definition.
+   *
+   * @param operation the operation
+   * @param dataDefinition the data definition
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordDevice(ChangeOperation operation, DeviceDataDefinition dataDefinition) {
+    DefinitionChange change = newChange(DefinitionType.DEVICE, operation);
+    change.setDefinitionId(dataDefinition.getId());
+    change.setVersion(dataDefinition.getVersion());
+    change.setDeveloperId(dataDefinition.getDeveloperId());
+    change.setProductId(dataDefinition.getProductId());
+
+    append(change);
+  }
+
+  /**
+   * Record a change of a device data definition without the entity at hand.
+   *
+   * @param operation the operation
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param id the data definition id, null if the whole product changed
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordDevice(ChangeOperation operation, String developerId, String productId,
+      UUID id) {
+    DefinitionChange change = newChange(DefinitionType.DEVICE, operation);
+    change.setDefinitionId(id);
+    change.setDeveloperId(developerId);
+    change.setProductId(productId);
+
+    append(change);
+  }
+
+  /**
+   * Record a change of a developer data definition.
+   *
+   * @param operation the operation
+   * @param developerId the developer id
+   * @param id the data definition id
+   * @param version the version after change, null for deletes
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordDeveloper(ChangeOperation operation, String developerId, UUID id,
+      Integer version) {
+    DefinitionChange change = newChange(DefinitionType.DEVELOPER, operation);
+    change.setDefinitionId(id);
+    change.setVersion(version);
+    change.setDeveloperId(developerId);
+
+    append(change);
+  }
+
+  /**
+   * Record a change of a developer data definition.
+   *
+   * @param operation the operation
+   * @param dataDefinition the data definition
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordDeveloper(ChangeOperation operation, DeveloperDataDefinition dataDefinition) {
+    recordDeveloper(operation, dataDefinition.getDeveloperId(), dataDefinition.getId(),
+        dataDefinition.getVersion());
+  }
+
+  /**
+   * Record a change of a platform data definition.
+   *
+   * @param operation the operation
+   * @param productTypeId the product type id
+   * @param id the data definition id, null if the whole product type changed
+   * @param version the version after change, null for deletes
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordPlatform(ChangeOperation operation, String productTypeId, UUID id,
+      Integer version) {
+    DefinitionChange change = newChange(DefinitionType.PLATFORM, operation);
+    change.setDefinitionId(id);
+    change.setVersion(version);
+    change.setProductTypeId(productTypeId);
+
+    append(change);
+  }
+
+  /**
+   * Record a change of a platform data definition.
+   *
+   * @param operation the operation
+   * @param dataDefinition the data definition
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordPlatform(ChangeOperation operation, PlatformDataDefinition dataDefinition) {
+    recordPlatform(operation, dataDefinition.getProductTypeId(), dataDefinition.getId(),
+        dataDefinition.getVersion());
+  }
+
+  /**
+   * Get changes after a sequence number, of one developer or of all if developerId is null.
+   *
+   * @param developerId the developer id, nullable
+   * @param since the sequence number
+   * @param limit the limit
+   * @return the changes ordered by seq
+   */
+  public List<DefinitionChange> getChanges(String developerId, long since, int limit) {
+    LOGGER.debug("Enter. developerId: {}, since: {}, limit: {}.", developerId, since, limit);
+
+    PageRequest page = new PageRequest(0, limit);
+    List<DefinitionChange> result = developerId == null
+        ? repository.findSince(since, page) : repository.findSince(developerId, since, page);
+
+    LOGGER.debug("Exit. change size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * New change of now.
+   *
+   * @param type the type
+   * @param operation the operation
+   * @return the change
+   */
+  private DefinitionChange newChange(DefinitionType type, ChangeOperation operation) {
+    DefinitionChange change = new DefinitionChange();
+    change.setCreatedAt(System.currentTimeMillis());
+    change.setDefinitionType(type);
+    change.setOperation(operation);
+    return change;
+  }
+
+  /**
+   * Append the change and notify pollers once the transaction commits.
+   *
+   * @param change the change
+   */
+  private void append(DefinitionChange change) {
+    LOGGER.debug("Enter. change: {}.", change);
+
+    repository.append(change);
+
+    String shard = ShardContext.get();
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          @Override
+          public void afterCommit() {
+            notifier.publish(shard);
+          }
+        });
+
+    LOGGER.debug("Exit.");
+  }
+}
@@ -1,14 +1,26 @@
 package com.umasuo.datapoint.domain.service;
 
 import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
+import com.umasuo.datapoint.infrastructure.paging.Cursor;
 import com.umasuo.datapoint.infrastructure.repository.DeveloperDataRepository;
+import com.umasuo.datapoint.infrastructure.util.UuidUtils;
+import com.umasuo.exception.AlreadyExistException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 /**
  * DeveloperDataService.
@@ -27,6 +39,49 @@ public class DeveloperDataService {
   @Autowired
   private transient DeveloperDataRepository repository;
 
+  /**
+   * Out of line storage of large schemas.
+   */
+  @Autowired
+  private transient SchemaStorageService schemaStorageService;
+
+  /**
+   * Entity manager, used to detach exported rows.
+   */
+  @PersistenceContext
+  private transient EntityManager entityManager;
+
+  /**
+   * Create developer data definition in one INSERT ... ON CONFLICT DO NOTHING, the unique
+   * constraints on dataId and name decide if it already exists.
+   *
+   * @param dataDefinition the data definition
+   * @return the created data definition
+   */
+  public DeveloperDataDefinition create(DeveloperDataDefinition dataDefinition) {
+    LOGGER.debug("Enter. dataDefinition: {}.", dataDefinition);
+
+    long now = System.currentTimeMillis();
+    dataDefinition.setId(UuidUtils.timeOrdered());
+    dataDefinition.setCreatedAt(now);
+    dataDefinition.setLastModifiedAt(now);
+    dataDefinition.setVersion(0);
+
+    schemaStorageService.store(dataDefinition);
+
+    boolean inserted = repository.insertIfAbsent(dataDefinition);
+
+    if (!inserted) {
+      LOGGER.debug("DataId: {} or name: {} has existed in developer: {}.",
+          dataDefinition.getDataId(), dataDefinition.getName(), dataDefinition.getDeveloperId());
+      throw new AlreadyExistException("DataDefinition dataId or name exist");
+    }
+
+    LOGGER.debug("Exit. new dataDefinition id: {}.", dataDefinition.getId());
+
+    return dataDefinition;
+  }
+
   /**
    * Save DeviceDataDefinition.
    *
@@ -49,12 +104,12 @@ public class DeveloperDataService {
    * @param id the id
    * @return by id
    */
-  public DeveloperDataDefinition getById(String id) {
+  public DeveloperDataDefinition getById(UUID id) {
     LOGGER.debug("Enter. id: {}.", id);
 
     DeveloperDataDefinition result = this.repository.findOne(id);
 
-    return result;
+    return result == null ? null : schemaStorageService.load(result);
   }
 
   /**
@@ -94,7 +149,8 @@ public class DeveloperDataService {
     sample.setDeveloperId(developerId);
     Example<DeveloperDataDefinition> example = Example.of(sample);
 
-    List<DeveloperDataDefinition> result = repository.findAll(example);
+    List<DeveloperDataDefinition> result =
+        schemaStorageService.load(repository.findAll(example));
 
     LOGGER.debug("Exit. result size: {}.", result.size());
 
@@ -102,78 +158,79 @@ public class DeveloperDataService {
   }
 
   /**
-   * Delete developer data definition.
+   * Gets one page of developer data definitions, at most limit + 1 rows are returned.
    *
-   * @param id
+   * @param developerId the developer id
+   * @param cursor the cursor
+   * @param limit the limit
+   * @return the page rows
    */
-  public void delete(String id) {
-    LOGGER.debug("Enter. id: {}.", id);
+  public List<DeveloperDataDefinition> getDeveloperDefinitionPage(String developerId,
+      Cursor cursor, int limit) {
+    LOGGER.debug("Enter. developerId: {}, cursor: {}, limit: {}.", developerId, cursor, limit);
 
-    repository.delete(id);
+    List<DeveloperDataDefinition> result = schemaStorageService.load(repository.findPage(
+        developerId, cursor.getCreatedAt(), cursor.getId(), new PageRequest(0, limit + 1)));
 
-    LOGGER.debug("Exit.");
+    LOGGER.debug("Exit. result size: {}.", result.size());
+
+    return result;
   }
 
   /**
-   * Check if name is exist.
+   * Delete developer data definition.
    *
-   * @param developerId
-   * @param name
-   * @return
+   * @param id
    */
-  public boolean isNameExist(String developerId, String name) {
-    LOGGER.debug("Enter. developerId: {}, name: {}.", developerId, name);
-
-    DeveloperDataDefinition sample = new DeveloperDataDefinition();
-
-    sample.setDeveloperId(developerId);
-    sample.setName(name);
-
-    Example<DeveloperDataDefinition> example = Example.of(sample);
-
-    boolean result = repository.exists(example);
+  public void delete(UUID id) {
+    LOGGER.debug("Enter. id: {}.", id);
 
-    LOGGER.debug("Exit. is name exist? {}", result);
+    repository.delete(id);
 
-    return result;
+    LOGGER.debug("Exit.");
   }
 
   /**
-   * Check if data definition id exist.
+   * Get all developer data definitions by data definition id.
    *
-   * @param developerId
-   * @param dataId
+   * @param developerDataDefinitionIds
    * @return
    */
-  public boolean isDataIdExist(String developerId, String dataId) {
-    LOGGER.debug("Enter. developerId: {}, dataId: {}.", developerId, dataId);
-
-    DeveloperDataDefinition sample = new DeveloperDataDefinition();
-
-    sample.setDeveloperId(developerId);
-    sample.setDataId(dataId);
-
-    Example<DeveloperDataDefinition> example = Example.of(sample);
-
-    boolean result = repository.exists(example);
+  public List<DeveloperDataDefinition> getByIds(List<UUID> developerDataDefinitionIds) {
+    LOGGER.debug("Enter. developerDataDefinitionIds: {}.", developerDataDefinitionIds);
 
-    LOGGER.debug("Exit. is dataId exist? {}", result);
+    List<DeveloperDataDefinition> result =
+        schemaStorageService.load(repository.findAll(developerDataDefinitionIds));
 
+    LOGGER.debug("Exit.");
     return result;
   }
 
   /**
-   * Get all developer data definitions by data definition id.
+   * Stream data definitions of a developer through a server side cursor.
+   * Rows are detached after consumed so memory stays flat.
    *
-   * @param developerDataDefinitionIds
-   * @return
+   * @param developerId the developer id
+   * @param consumer consumer of each row
+   * @return exported row count
    */
-  public List<DeveloperDataDefinition> getByIds(List<String> developerDataDefinitionIds) {
-    LOGGER.debug("Enter. developerDataDefinitionIds: {}.", developerDataDefinitionIds);
+  @Transactional(readOnly = true)
+  public long export(String developerId, Consumer<DeveloperDataDefinition> consumer) {
+    LOGGER.debug("Enter. developerId: {}.", developerId);
 
-    List<DeveloperDataDefinition> result = repository.findAll(developerDataDefinitionIds);
+    long count = 0;
+    try (Stream<DeveloperDataDefinition> stream = repository.streamByDeveloperId(developerId)) {
+      Iterator<DeveloperDataDefinition> iterator = stream.iterator();
+      while (iterator.hasNext()) {
+        DeveloperDataDefinition dataDefinition = iterator.next();
+        consumer.accept(schemaStorageService.load(dataDefinition));
+        entityManager.detach(dataDefinition);
+        count++;
+      }
+    }
 
-    LOGGER.debug("Exit.");
-    return result;
+    LOGGER.debug("Exit. exported size: {}.", count);
+
+    return count;
   }
 }
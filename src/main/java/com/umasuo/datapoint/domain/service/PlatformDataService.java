@@ -1,17 +1,32 @@
 package com.umasuo.datapoint.domain.service;
 
 import com.umasuo.datapoint.domain.model.PlatformDataDefinition;
+import com.umasuo.datapoint.infrastructure.paging.Cursor;
 import com.umasuo.datapoint.infrastructure.repository.PlatformDataRepository;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
+import com.umasuo.datapoint.infrastructure.util.UuidUtils;
+import com.umasuo.datapoint.infrastructure.validator.VersionValidator;
 import com.umasuo.exception.AlreadyExistException;
+import com.umasuo.exception.ConflictException;
 import com.umasuo.exception.NotExistException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 /**
  * PlatformDataService.
@@ -30,6 +45,49 @@ public class PlatformDataService {
   @Autowired
   private transient PlatformDataRepository repository;
 
+  /**
+   * Out of line storage of large schemas.
+   */
+  @Autowired
+  private transient SchemaStorageService schemaStorageService;
+
+  /**
+   * Entity manager, used to detach exported rows.
+   */
+  @PersistenceContext
+  private transient EntityManager entityManager;
+
+  /**
+   * Create platform data definition in one INSERT ... ON CONFLICT DO NOTHING, the unique
+   * constraint on dataId decides if it already exists.
+   *
+   * @param dataDefinition the data definition
+   * @return the created data definition
+   */
+  public PlatformDataDefinition create(PlatformDataDefinition dataDefinition) {
+    LOGGER.debug("Enter. dataDefinition: {}.", dataDefinition);
+
+    long now = System.currentTimeMillis();
+    dataDefinition.setId(UuidUtils.timeOrdered());
+    dataDefinition.setCreatedAt(now);
+    dataDefinition.setLastModifiedAt(now);
+    dataDefinition.setVersion(0);
+
+    schemaStorageService.store(dataDefinition);
+
+    boolean inserted = repository.insertIfAbsent(dataDefinition);
+
+    if (!inserted) {
+      LOGGER.debug("DataId: {} has existed in productType: {}.",
+          dataDefinition.getDataId(), dataDefinition.getProductTypeId());
+      throw new AlreadyExistException("DataId already exist");
+    }
+
+    LOGGER.debug("Exit. new dataDefinition id: {}.", dataDefinition.getId());
+
+    return dataDefinition;
+  }
+
   /**
    * Save platform data definition.
    *
@@ -47,6 +105,41 @@ public class PlatformDataService {
   }
 
 
+  /**
+   * Update the changed columns in one conditional UPDATE, without reading the row first.
+   * The row is only read when nothing matched, to tell not exist and version conflict apart.
+   *
+   * @param id the id
+   * @param version the expected version
+   * @param changes the changes
+   * @return the updated platform data definition
+   */
+  @Transactional
+  public PlatformDataDefinition update(UUID id, Integer version, ChangeSet changes) {
+    LOGGER.debug("Enter. id: {}, version: {}, changes: {}.", id, version, changes);
+
+    schemaStorageService.store(changes);
+
+    PlatformDataDefinition result;
+    try {
+      result = repository.updateIfVersion(id, version, changes);
+    } catch (DataIntegrityViolationException ex) {
+      LOGGER.debug("DataId conflicts with existing platform data definition.", ex);
+      throw new AlreadyExistException("DataId already exist");
+    }
+
+    if (result == null) {
+      PlatformDataDefinition valueInDb = getById(id);
+      VersionValidator.checkVersion(version, valueInDb.getVersion());
+      LOGGER.debug("PlatformDataDefinition: {} changed concurrently.", id);
+      throw new ConflictException("PlatformDataDefinition version is not correct.");
+    }
+
+    LOGGER.debug("Exit. updated version: {}.", result.getVersion());
+
+    return schemaStorageService.load(result);
+  }
+
   /**
    * Delete by product type.
    *
@@ -69,7 +162,7 @@ public class PlatformDataService {
    *
    * @param id the id
    */
-  public void delete(String id) {
+  public void delete(UUID id) {
     LOGGER.debug("Enter. id: {}.", id);
 
     repository.delete(id);
@@ -86,7 +179,26 @@ public class PlatformDataService {
   public List<PlatformDataDefinition> getAll() {
     LOGGER.debug("Enter.");
 
-    List<PlatformDataDefinition> dataDefinitions = repository.findAll();
+    List<PlatformDataDefinition> dataDefinitions =
+        schemaStorageService.load(repository.findAll());
+
+    LOGGER.debug("Exit. platformDataDefinition size: {}.", dataDefinitions.size());
+
+    return dataDefinitions;
+  }
+
+  /**
+   * Get one page of platform data definitions, at most limit + 1 rows are returned.
+   *
+   * @param cursor the cursor
+   * @param limit the limit
+   * @return the page rows
+   */
+  public List<PlatformDataDefinition> getPage(Cursor cursor, int limit) {
+    LOGGER.debug("Enter. cursor: {}, limit: {}.", cursor, limit);
+
+    List<PlatformDataDefinition> dataDefinitions = schemaStorageService.load(repository.findPage(
+        cursor.getCreatedAt(), cursor.getId(), new PageRequest(0, limit + 1)));
 
     LOGGER.debug("Exit. platformDataDefinition size: {}.", dataDefinitions.size());
 
@@ -107,7 +219,7 @@ public class PlatformDataService {
 
     Example<PlatformDataDefinition> example = Example.of(sample);
 
-    List<PlatformDataDefinition> result = repository.findAll(example);
+    List<PlatformDataDefinition> result = schemaStorageService.load(repository.findAll(example));
 
     LOGGER.debug("Exit. dataDefinition size: {}.", result.size());
 
@@ -120,10 +232,11 @@ public class PlatformDataService {
    * @param dataDefinitionIds id列表
    * @return PlatformDataDefinition列表 by ids
    */
-  public List<PlatformDataDefinition> getByIds(List<String> dataDefinitionIds) {
+  public List<PlatformDataDefinition> getByIds(List<UUID> dataDefinitionIds) {
     LOGGER.debug("Enter. dataDefinitionIds: {}.", dataDefinitionIds);
 
-    List<PlatformDataDefinition> dataDefinitions = repository.findAll(dataDefinitionIds);
+    List<PlatformDataDefinition> dataDefinitions =
+        schemaStorageService.load(repository.findAll(dataDefinitionIds));
 
     LOGGER.debug("Exit. found dataDefinitions size: {}.", dataDefinitions.size());
 
@@ -136,10 +249,10 @@ public class PlatformDataService {
    * @param id the id
    * @return the by id
    */
-  public PlatformDataDefinition getById(String id) {
+  public PlatformDataDefinition getById(UUID id) {
     LOGGER.debug("Enter. id: {}.", id);
 
-    PlatformDataDefinition dataDefinition = repository.getOne(id);
+    PlatformDataDefinition dataDefinition = repository.findOne(id);
 
     if (dataDefinition == null) {
       LOGGER.debug("Can not find platformDataDefinition: {}.", id);
@@ -149,32 +262,33 @@ public class PlatformDataService {
     LOGGER.trace("platformDataDefinition: {}.", dataDefinition);
     LOGGER.debug("Exit.");
 
-    return dataDefinition;
+    return schemaStorageService.load(dataDefinition);
   }
 
   /**
-   * Get PlatformDataDefinition by productTypeId and dataId.
+   * Stream all platform data definitions through a server side cursor.
+   * Rows are detached after consumed so memory stays flat.
    *
-   * @param productTypeId the productTypeId
-   * @param dataId the dataId
-   * @return PlatformDataDefinition
+   * @param consumer consumer of each row
+   * @return exported row count
    */
-  public void existDataId(String productTypeId, String dataId) {
-    LOGGER.debug("Enter. productTypeId: {}, dataId: {}.", productTypeId, dataId);
-
-    PlatformDataDefinition sample = new PlatformDataDefinition();
-    sample.setProductTypeId(productTypeId);
-    sample.setDataId(dataId);
-
-    Example example = Example.of(sample);
-
-    boolean exists = repository.exists(example);
+  @Transactional(readOnly = true)
+  public long export(Consumer<PlatformDataDefinition> consumer) {
+    LOGGER.debug("Enter.");
 
-    if (exists) {
-      LOGGER.debug("dataId: {} has exist in productType: {}.", dataId, productTypeId);
-      throw new AlreadyExistException("DataId already exist");
+    long count = 0;
+    try (Stream<PlatformDataDefinition> stream = repository.streamAll()) {
+      Iterator<PlatformDataDefinition> iterator = stream.iterator();
+      while (iterator.hasNext()) {
+        PlatformDataDefinition dataDefinition = iterator.next();
+        consumer.accept(schemaStorageService.load(dataDefinition));
+        entityManager.detach(dataDefinition);
+        count++;
+      }
     }
 
-    LOGGER.debug("Exit. dataId: {} exist? {}.", dataId, exists);
+    LOGGER.debug("Exit. exported size: {}.", count);
+
+    return count;
   }
 }
@@ -0,0 +1,175 @@
+package com.umasuo.datapoint.domain.service;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.domain.model.SchemaField;
+import com.umasuo.datapoint.infrastructure.index.FieldPathExtractor;
+import com.umasuo.datapoint.infrastructure.repository.SchemaFieldRepository;
+import com.umasuo.datapoint.infrastructure.util.UuidUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Field index of device data definition schemas, written in the transaction of each schema
+ * change so it never disagrees with the schemas.
+ */
+@Service
+public class SchemaFieldService {
+
+  /**
+   * LOGGER.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchemaFieldService.class);
+
+  /**
+   * Fields inserted per batch.
+   */
+  private static final int BATCH_SIZE = 1000;
+
+  /**
+   * Types a number field query matches, integers are numbers too.
+   */
+  private static final Set<String> NUMBER_TYPES = ImmutableSet.of("number", "integer");
+
+  /**
+   * Repository.
+   */
+  @Autowired
+  private transient SchemaFieldRepository repository;
+
+  /**
+   * Index the fields of new data definitions, schemas must be loaded.
+   *
+   * @param dataDefinitions the data definitions
+   */
+  public void index(List<DeviceDataDefinition> dataDefinitions) {
+    LOGGER.debug("Enter. dataDefinition size: {}.", dataDefinitions.size());
+
+    List<SchemaField> fields = Lists.newArrayList();
+    dataDefinitions.forEach(dataDefinition -> fields.addAll(extract(dataDefinition)));
+
+    Lists.partition(fields, BATCH_SIZE).forEach(repository::insertAll);
+
+    LOGGER.debug("Exit. field size: {}.", fields.size());
+  }
+
+  /**
+   * Index the fields of a new data definition, the schema must be loaded.
+   *
+   * @param dataDefinition the data definition
+   */
+  public void index(DeviceDataDefinition dataDefinition) {
+    index(Collections.singletonList(dataDefinition));
+  }
+
+  /**
+   * Replace the fields of an updated data definition, the schema must be loaded.
+   *
+   * @param dataDefinition the data definition
+   */
+  public void reindex(DeviceDataDefinition dataDefinition) {
+    LOGGER.debug("Enter. id: {}.", dataDefinition.getId());
+
+    remove(dataDefinition.getDeveloperId(), Collections.singletonList(dataDefinition.getId()));
+    index(dataDefinition);
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * Remove the fields of data definitions.
+   *
+   * @param developerId the developer id
+   * @param definitionIds the data definition ids
+   */
+  public void remove(String developerId, Collection<UUID> definitionIds) {
+    LOGGER.debug("Enter. developerId: {}, ids: {}.", developerId, definitionIds);
+
+    int count = repository.deleteByDefinitions(developerId, definitionIds);
+
+    LOGGER.debug("Exit. removed size: {}.", count);
+  }
+
+  /**
+   * Remove the fields of a product.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   */
+  public void removeByProduct(String developerId, String productId) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}.", developerId, productId);
+
+    int count = repository.deleteByProduct(developerId, productId);
+
+    LOGGER.debug("Exit. removed size: {}.", count);
+  }
+
+  /**
+   * Remove the fields of a developer.
+   *
+   * @param developerId the developer id
+   */
+  public void removeByDeveloper(String developerId) {
+    LOGGER.debug("Enter. developerId: {}.", developerId);
+
+    int count = repository.deleteByDeveloper(developerId);
+
+    LOGGER.debug("Exit. removed size: {}.", count);
+  }
+
+  /**
+   * Find fields of a developer by name or by path, exactly one of them is given.
+   *
+   * @param developerId the developer id
+   * @param name the name, nullable
+   * @param path the path, nullable
+   * @param type the type, null for every type, number includes integer
+   * @param limit the limit
+   * @return the fields
+   */
+  public List<SchemaField> find(String developerId, String name, String path, String type,
+      int limit) {
+    LOGGER.debug("Enter. developerId: {}, name: {}, path: {}, type: {}, limit: {}.",
+        developerId, name, path, type, limit);
+
+    Set<String> types = type == null ? FieldPathExtractor.TYPES
+        : "number".equals(type) ? NUMBER_TYPES : Collections.singleton(type);
+    PageRequest page = new PageRequest(0, limit);
+    List<SchemaField> result = name != null
+        ? repository.findByName(developerId, name, types, page)
+        : repository.findByPath(developerId, path, types, page);
+
+    LOGGER.debug("Exit. field size: {}.", result.size());
+
+    return result;
+  }
+
+  /**
+   * Extract the fields of a data definition.
+   *
+   * @param dataDefinition the data definition
+   * @return the fields
+   */
+  private List<SchemaField> extract(DeviceDataDefinition dataDefinition) {
+    return FieldPathExtractor.extract(dataDefinition.getDataSchema()).stream().map(field -> {
+      field.setId(UuidUtils.timeOrdered());
+      field.setDeveloperId(dataDefinition.getDeveloperId());
+      field.setProductId(dataDefinition.getProductId());
+      field.setDefinitionId(dataDefinition.getId());
+      field.setDataId(dataDefinition.getDataId());
+      return field;
+    }).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,214 @@
+package com.umasuo.datapoint.domain.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchException;
+import com.github.fge.jsonpatch.diff.JsonDiff;
+import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.domain.model.PlatformDataDefinition;
+import com.umasuo.datapoint.domain.model.SchemaRevision;
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+import com.umasuo.datapoint.infrastructure.repository.SchemaRevisionRepository;
+import com.umasuo.datapoint.infrastructure.util.UuidUtils;
+import com.umasuo.exception.NotExistException;
+import com.umasuo.util.JsonUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only schema history of data definitions.
+ * Each schema change is stored as a json patch against the previous revision, a full checkpoint
+ * is written every {@link #CHECKPOINT_INTERVAL} revisions or when the patch is not much smaller
+ * than the schema, so reading any version applies at most that many patches.
+ */
+@Service
+public class SchemaHistoryService {
+
+  /**
+   * LOGGER.
+   */
+  private final static Logger LOGGER = LoggerFactory.getLogger(SchemaHistoryService.class);
+
+  /**
+   * Max revisions from a checkpoint to the next one, the checkpoint included.
+   */
+  public static final int CHECKPOINT_INTERVAL = 16;
+
+  /**
+   * Repository.
+   */
+  @Autowired
+  private transient SchemaRevisionRepository repository;
+
+  /**
+   * Record the schema of a device data definition.
+   *
+   * @param dataDefinition the data definition
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordDevice(DeviceDataDefinition dataDefinition) {
+    record(DefinitionType.DEVICE, dataDefinition.getId(), dataDefinition.getVersion(),
+        dataDefinition.getDataSchema());
+  }
+
+  /**
+   * Record the schemas of new device data definitions, as checkpoints in one batch.
+   *
+   * @param dataDefinitions the new data definitions
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordNewDevices(List<DeviceDataDefinition> dataDefinitions) {
+    LOGGER.debug("Enter. dataDefinition size: {}.", dataDefinitions.size());
+
+    List<SchemaRevision> revisions = dataDefinitions.stream().map(data -> {
+      SchemaRevision revision = newRevision(DefinitionType.DEVICE, data.getId(),
+          data.getVersion(), true, data.getDataSchema());
+      revision.setId(UuidUtils.timeOrdered());
+      return revision;
+    }).collect(Collectors.toList());
+    repository.insertAll(revisions);
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * Record the schema of a platform data definition.
+   *
+   * @param dataDefinition the data definition
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordPlatform(PlatformDataDefinition dataDefinition) {
+    record(DefinitionType.PLATFORM, dataDefinition.getId(), dataDefinition.getVersion(),
+        dataDefinition.getDataSchema());
+  }
+
+  /**
+   * Get the schema in effect at a version of the data definition.
+   *
+   * @param definitionId the data definition id
+   * @param version the version
+   * @return unsaved revision holding the full schema, version is the one that wrote it
+   */
+  @Transactional(readOnly = true)
+  public SchemaRevision getRevision(UUID definitionId, Integer version) {
+    LOGGER.debug("Enter. definitionId: {}, version: {}.", definitionId, version);
+
+    Integer checkpointVersion = repository.findCheckpointVersion(definitionId, version);
+    if (checkpointVersion == null) {
+      LOGGER.debug("Can not find schema of definition: {}, version: {}.", definitionId, version);
+      throw new NotExistException("Schema version not exist");
+    }
+
+    List<SchemaRevision> chain = repository.findRange(definitionId, checkpointVersion, version);
+    SchemaRevision last = chain.get(chain.size() - 1);
+
+    SchemaRevision result = newRevision(last.getDefinitionType(), definitionId,
+        last.getVersion(), true, rebuild(chain));
+    result.setCreatedAt(last.getCreatedAt());
+
+    LOGGER.debug("Exit. version: {}, applied patch size: {}.", result.getVersion(),
+        chain.size() - 1);
+
+    return result;
+  }
+
+  /**
+   * Append one revision, a patch against the latest one if it is worth it.
+   *
+   * @param type the definition type
+   * @param definitionId the definition id
+   * @param version the version which wrote the schema
+   * @param schema the schema
+   */
+  private void record(DefinitionType type, UUID definitionId, Integer version, String schema) {
+    LOGGER.debug("Enter. type: {}, definitionId: {}, version: {}.", type, definitionId, version);
+
+    Integer checkpointVersion = repository.findCheckpointVersion(definitionId, Integer.MAX_VALUE);
+    List<SchemaRevision> chain = checkpointVersion == null ? null
+        : repository.findRange(definitionId, checkpointVersion, Integer.MAX_VALUE);
+
+    SchemaRevision revision;
+    if (chain == null || chain.size() >= CHECKPOINT_INTERVAL) {
+      revision = newRevision(type, definitionId, version, true, schema);
+    } else {
+      JsonNode previous = parse(rebuild(chain));
+      JsonNode current = parse(schema);
+      if (previous.equals(current)) {
+        LOGGER.debug("Exit. schema not changed.");
+        return;
+      }
+      String patch = JsonDiff.asJson(previous, current).toString();
+      // 补丁不比整个schema小很多时, 直接存完整的schema
+      boolean checkpoint = patch.length() * 2 > schema.length();
+      revision = newRevision(type, definitionId, version, checkpoint,
+          checkpoint ? schema : patch);
+    }
+    repository.save(revision);
+
+    LOGGER.debug("Exit. checkpoint? {}, content size: {}.", revision.getCheckpoint(),
+        revision.getContent().length());
+  }
+
+  /**
+   * Apply the patches of a chain to its checkpoint.
+   *
+   * @param chain revisions ordered by version, a checkpoint followed by patches
+   * @return the full schema of the last revision
+   */
+  private String rebuild(List<SchemaRevision> chain) {
+    if (chain.size() == 1) {
+      return chain.get(0).getContent();
+    }
+    JsonNode schema = parse(chain.get(0).getContent());
+    for (SchemaRevision revision : chain.subList(1, chain.size())) {
+      try {
+        schema = JsonPatch.fromJson(parse(revision.getContent())).apply(schema);
+      } catch (IOException | JsonPatchException ex) {
+        throw new IllegalStateException("Broken schema revision: " + revision.getId(), ex);
+      }
+    }
+    return schema.toString();
+  }
+
+  /**
+   * Parse json.
+   *
+   * @param json the json
+   * @return the json node
+   */
+  private JsonNode parse(String json) {
+    return JsonUtils.deserialize(json, JsonNode.class);
+  }
+
+  /**
+   * New revision.
+   *
+   * @param type the definition type
+   * @param definitionId the definition id
+   * @param version the version
+   * @param checkpoint is checkpoint
+   * @param content the schema or patch
+   * @return the revision
+   */
+  private SchemaRevision newRevision(DefinitionType type, UUID definitionId, Integer version,
+      boolean checkpoint, String content) {
+    SchemaRevision revision = new SchemaRevision();
+    revision.setDefinitionType(type);
+    revision.setDefinitionId(definitionId);
+    revision.setVersion(version);
+    revision.setCreatedAt(System.currentTimeMillis());
+    revision.setCheckpoint(checkpoint);
+    revision.setContent(content);
+    return revision;
+  }
+}
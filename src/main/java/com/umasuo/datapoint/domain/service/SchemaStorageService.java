@@ -0,0 +1,176 @@
+package com.umasuo.datapoint.domain.service;
+
+import com.google.common.hash.Hashing;
+import com.umasuo.datapoint.domain.model.SchemaHolder;
+import com.umasuo.datapoint.infrastructure.repository.SchemaBlobRepository;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
+import com.umasuo.datapoint.infrastructure.util.CompressionUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Out of line storage of large schemas.
+ * Schemas longer than the inline limit are stored deflated in schema_blob, keyed by their hash
+ * so copies of one schema share a blob, and the data definition row only keeps the hash.
+ * Rows stay small for scans, the blob is only read when the schema is returned.
+ */
+@Service
+public class SchemaStorageService {
+
+  /**
+   * LOGGER.
+   */
+  private final static Logger LOGGER = LoggerFactory.getLogger(SchemaStorageService.class);
+
+  /**
+   * Schemas longer than this, in chars, are stored out of line.
+   */
+  @Value("${datapoint.schema.inline-limit:16384}")
+  private transient int inlineLimit;
+
+  /**
+   * Repository.
+   */
+  @Autowired
+  private transient SchemaBlobRepository repository;
+
+  /**
+   * Entity manager, rows are detached before their schema is filled in.
+   */
+  @PersistenceContext
+  private transient EntityManager entityManager;
+
+  /**
+   * Store the schema out of line if it is too long, must be called in the transaction which
+   * writes the data definition.
+   *
+   * @param schema the schema
+   * @return the hash to put into schema_ref, null if the schema stays inline
+   */
+  public String store(String schema) {
+    if (schema == null || schema.length() <= inlineLimit) {
+      return null;
+    }
+    LOGGER.debug("Enter. schema length: {}.", schema.length());
+
+    String hash = Hashing.sha256().hashString(schema, StandardCharsets.UTF_8).toString();
+    repository.upsert(hash, CompressionUtils.deflate(schema), schema.length(),
+        System.currentTimeMillis());
+
+    LOGGER.debug("Exit. hash: {}.", hash);
+
+    return hash;
+  }
+
+  /**
+   * Store the schema of a new data definition, schemaRef is set and dataSchema is kept in
+   * memory, writers only put it into data_schema while schemaRef is null.
+   *
+   * @param holder the data definition, not managed
+   */
+  public void store(SchemaHolder holder) {
+    holder.setSchemaRef(store(holder.getDataSchema()));
+  }
+
+  /**
+   * Store the schema of an update, a long schema is replaced by its hash.
+   *
+   * @param changes the changes
+   */
+  public void store(ChangeSet changes) {
+    if (!changes.contains(ChangeSet.DATA_SCHEMA)) {
+      return;
+    }
+    String hash = store((String) changes.getChanges().get(ChangeSet.DATA_SCHEMA));
+    changes.set(ChangeSet.SCHEMA_REF, hash);
+    if (hash != null) {
+      changes.set(ChangeSet.DATA_SCHEMA, null);
+    }
+  }
+
+  /**
+   * Fill in the schema of a data definition stored out of line.
+   *
+   * @param holder the data definition
+   * @param <T> the data definition type
+   * @return the holder
+   */
+  public <T extends SchemaHolder> T load(T holder) {
+    load(Collections.singletonList(holder));
+    return holder;
+  }
+
+  /**
+   * Fill in the schemas of data definitions stored out of line, with one query. Rows are
+   * detached first, so the schema is never flushed back into data_schema.
+   *
+   * @param holders the data definitions
+   * @param <T> the data definition type
+   * @return the holders
+   */
+  public <T extends SchemaHolder> List<T> load(List<T> holders) {
+    Set<String> hashes = holders.stream()
+        .filter(holder -> holder.getSchemaRef() != null && holder.getDataSchema() == null)
+        .map(SchemaHolder::getSchemaRef)
+        .collect(Collectors.toSet());
+    if (hashes.isEmpty()) {
+      return holders;
+    }
+    LOGGER.debug("Enter. blob size: {}.", hashes.size());
+
+    Map<String, String> schemas = repository.findContents(hashes).stream()
+        .collect(Collectors.toMap(row -> (String) row[0],
+            row -> CompressionUtils.inflate((byte[]) row[1])));
+
+    holders.stream()
+        .filter(holder -> holder.getSchemaRef() != null && holder.getDataSchema() == null)
+        .forEach(holder -> {
+          entityManager.detach(holder);
+          holder.setDataSchema(schemas.get(holder.getSchemaRef()));
+        });
+
+    LOGGER.debug("Exit.");
+
+    return holders;
+  }
+
+  /**
+   * Purge blobs no data definition refers to any more, in batches each committed on its own.
+   *
+   * @param createdBefore written before this time
+   * @param batchSize the batch size
+   * @param maxBatches the max batches
+   * @return purged blob count
+   */
+  public long purgeOrphans(long createdBefore, int batchSize, int maxBatches) {
+    LOGGER.debug("Enter. createdBefore: {}, batchSize: {}, maxBatches: {}.",
+        createdBefore, batchSize, maxBatches);
+
+    long count = 0;
+    for (int i = 0; i < maxBatches; i++) {
+      int purged = repository.purgeOrphans(createdBefore, batchSize);
+      count += purged;
+      if (purged < batchSize) {
+        break;
+      }
+    }
+
+    LOGGER.debug("Exit. purged size: {}.", count);
+
+    return count;
+  }
+}
@@ -39,4 +39,94 @@ public class Router {
    * Developer data definition with id.
    */
   public static final String DEVELOPER_DATA_WITH_ID = DEVELOPER_DATA_ROOT + "/{id}";
+
+  /**
+   * Export device data definitions.
+   */
+  public static final String DATA_EXPORT = DATA_DEFINITION_ROOT + "/export";
+
+  /**
+   * Export platform data definitions.
+   */
+  public static final String PLATFORM_DATA_EXPORT = PLATFORM_DATA_ROOT + "/export";
+
+  /**
+   * Export developer data definitions.
+   */
+  public static final String DEVELOPER_DATA_EXPORT = DEVELOPER_DATA_ROOT + "/export";
+
+  /**
+   * Bulk import device data definitions.
+   */
+  public static final String DATA_IMPORT = DATA_DEFINITION_ROOT + "/import";
+
+  /**
+   * Change feed of data definitions.
+   */
+  public static final String DATA_CHANGES = DATA_DEFINITION_ROOT + "/changes";
+
+  /**
+   * Schema of a device data definition at one version.
+   */
+  public static final String DATA_SCHEMA_VERSION = DATA_DEFINITION_WITH_ID + "/schemas/{version}";
+
+  /**
+   * Schema of a platform data definition at one version.
+   */
+  public static final String PLATFORM_SCHEMA_VERSION = PLATFORM_DATA_WITH_ID + "/schemas/{version}";
+
+  /**
+   * Validate payloads against one device data definition.
+   */
+  public static final String DATA_VALIDATE = DATA_DEFINITION_WITH_ID + "/validate";
+
+  /**
+   * Validate payloads against device data definitions selected by productId and dataId.
+   */
+  public static final String DATA_BATCH_VALIDATE = DATA_DEFINITION_ROOT + "/validate";
+
+  /**
+   * Validate a NDJSON stream of payloads against device data definitions.
+   */
+  public static final String DATA_STREAM_VALIDATE = DATA_BATCH_VALIDATE + "/stream";
+
+  /**
+   * Encode a payload to the binary format of one device data definition.
+   */
+  public static final String DATA_ENCODE = DATA_DEFINITION_WITH_ID + "/encode";
+
+  /**
+   * Decode a payload from the binary format of one device data definition.
+   */
+  public static final String DATA_DECODE = DATA_DEFINITION_WITH_ID + "/decode";
+
+  /**
+   * Data alias lookup table of a product.
+   */
+  public static final String DATA_ALIASES = DATA_DEFINITION_ROOT + "/aliases";
+
+  /**
+   * Schema of a device data definition with references to other data definitions resolved.
+   */
+  public static final String DATA_RESOLVED_SCHEMA = DATA_DEFINITION_WITH_ID + "/resolved-schema";
+
+  /**
+   * Search fields of device data definition schemas.
+   */
+  public static final String DATA_FIELDS = DATA_DEFINITION_ROOT + "/fields";
+
+  /**
+   * Rebuild the field index of a developer.
+   */
+  public static final String DATA_FIELDS_REINDEX = DATA_FIELDS + "/reindex";
+
+  /**
+   * Platform and developer data definitions similar to a schema.
+   */
+  public static final String DATA_SIMILAR = DATA_DEFINITION_ROOT + "/similar";
+
+  /**
+   * Platform and developer data definitions similar to a device data definition.
+   */
+  public static final String DATA_DEFINITION_SIMILAR = DATA_DEFINITION_WITH_ID + "/similar";
 }
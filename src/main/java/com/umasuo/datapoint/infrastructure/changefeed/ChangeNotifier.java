@@ -0,0 +1,45 @@
+package com.umasuo.datapoint.infrastructure.changefeed;
+
+import com.umasuo.datapoint.infrastructure.util.RedisUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells every node that new changes were committed on a shard, so long polls can return.
+ * Losing a notification only delays a poll until its timeout, the feed table is the truth.
+ */
+@Component
+public class ChangeNotifier {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChangeNotifier.class);
+
+  /**
+   * Redis template.
+   */
+  @Autowired
+  private transient StringRedisTemplate redisTemplate;
+
+  /**
+   * Publish a notification.
+   *
+   * @param shard the shard
+   */
+  public void publish(String shard) {
+    LOGGER.debug("Enter. shard: {}.", shard);
+
+    try {
+      redisTemplate.convertAndSend(RedisUtils.CHANGE_CHANNEL, shard);
+    } catch (RuntimeException ex) {
+      LOGGER.warn("Publish change notification failed, pollers will wait until timeout.", ex);
+    }
+
+    LOGGER.debug("Exit.");
+  }
+}
@@ -0,0 +1,29 @@
+package com.umasuo.datapoint.infrastructure.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary codec of one schema node, built by PayloadCodec.
+ */
+interface FieldCodec {
+
+  /**
+   * Write a node.
+   *
+   * @param node the node
+   * @param pointer json pointer of the node, for errors
+   * @param out the output
+   */
+  void write(JsonNode node, String pointer, ByteArrayOutputStream out);
+
+  /**
+   * Read a node.
+   *
+   * @param in the input
+   * @return the node
+   */
+  JsonNode read(ByteBuffer in);
+}
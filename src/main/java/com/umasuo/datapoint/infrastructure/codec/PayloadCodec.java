@@ -0,0 +1,782 @@
+package com.umasuo.datapoint.infrastructure.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.umasuo.exception.ParametersException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact positional binary encoding of device payloads, derived from a data definition schema,
+ * in the spirit of Avro: property names are not written, properties follow the order of the
+ * schema, optional properties are flagged in a bitmap, integers are zigzag varints, strings are
+ * length prefixed and enum values are indexes.
+ * Parts of a schema with no fixed shape, e.g. $ref, combinators or untyped nodes, fall back to
+ * length prefixed smile, so every payload of a schema can be encoded.
+ * An encoded payload starts with a format byte and the data definition version as a varint, so
+ * it can be decoded with the schema it was encoded with.
+ */
+public final class PayloadCodec {
+
+  /**
+   * Format byte.
+   */
+  private static final byte FORMAT = 1;
+
+  /**
+   * Max elements of an array or entries of a map, decoded null elements take no bytes.
+   */
+  private static final int MAX_COUNT = 1 << 16;
+
+  /**
+   * Keywords whose node is encoded as smile, since they change the shape of the payload.
+   */
+  private static final Set<String> SHAPELESS = ImmutableSet.of("$ref", "allOf", "anyOf", "oneOf",
+      "not", "patternProperties", "dependencies");
+
+  /**
+   * Smile mapper of shapeless nodes.
+   */
+  private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(new SmileFactory());
+
+  /**
+   * Node factory.
+   */
+  private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+  /**
+   * Codec of the root.
+   */
+  private final FieldCodec root;
+
+  /**
+   * Instantiates a new Payload codec.
+   *
+   * @param root the root codec
+   */
+  private PayloadCodec(FieldCodec root) {
+    this.root = root;
+  }
+
+  /**
+   * Build the codec of a schema.
+   *
+   * @param schema the schema
+   * @return the codec
+   */
+  public static PayloadCodec of(JsonNode schema) {
+    return new PayloadCodec(build(schema));
+  }
+
+  /**
+   * Encode a payload.
+   *
+   * @param payload the payload
+   * @param version the data definition version
+   * @return the encoded payload
+   */
+  public byte[] encode(JsonNode payload, int version) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+    out.write(FORMAT);
+    writeVarLong(out, version);
+    root.write(payload, "", out);
+    return out.toByteArray();
+  }
+
+  /**
+   * Decode a payload, the version header is skipped.
+   *
+   * @param bytes the encoded payload
+   * @return the payload
+   */
+  public JsonNode decode(byte[] bytes) {
+    ByteBuffer in = ByteBuffer.wrap(bytes);
+    try {
+      readHeader(in);
+      JsonNode payload = root.read(in);
+      if (in.hasRemaining()) {
+        throw new ParametersException("Malformed payload, trailing bytes.");
+      }
+      return payload;
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new ParametersException("Malformed payload.");
+    }
+  }
+
+  /**
+   * Read the data definition version an encoded payload was encoded with.
+   *
+   * @param bytes the encoded payload
+   * @return the version
+   */
+  public static int readVersion(byte[] bytes) {
+    try {
+      return readHeader(ByteBuffer.wrap(bytes));
+    } catch (BufferUnderflowException e) {
+      throw new ParametersException("Malformed payload.");
+    }
+  }
+
+  /**
+   * Read the header.
+   *
+   * @param in the input
+   * @return the version
+   */
+  private static int readHeader(ByteBuffer in) {
+    if (in.get() != FORMAT) {
+      throw new ParametersException("Unsupported payload format.");
+    }
+    long version = readVarLong(in);
+    if (version < 0 || version > Integer.MAX_VALUE) {
+      throw new ParametersException("Malformed payload version.");
+    }
+    return (int) version;
+  }
+
+  /**
+   * Build the codec of a schema node.
+   *
+   * @param schema the schema node
+   * @return the codec
+   */
+  private static FieldCodec build(JsonNode schema) {
+    if (schema == null || !schema.isObject()) {
+      return AnyCodec.INSTANCE;
+    }
+    Iterator<String> names = schema.fieldNames();
+    while (names.hasNext()) {
+      if (SHAPELESS.contains(names.next())) {
+        return AnyCodec.INSTANCE;
+      }
+    }
+
+    JsonNode values = schema.get("enum");
+    if (values != null && values.isArray() && values.size() > 0) {
+      return new EnumCodec(values);
+    }
+
+    JsonNode type = schema.get("type");
+    if (type != null && type.isTextual()) {
+      return build(schema, type.asText());
+    }
+    if (type != null && type.isArray() && type.size() > 0) {
+      List<String> types = Lists.newArrayList();
+      List<FieldCodec> codecs = Lists.newArrayList();
+      for (JsonNode element : type) {
+        types.add(element.asText());
+        codecs.add(build(schema, element.asText()));
+      }
+      return new UnionCodec(types, codecs);
+    }
+    return AnyCodec.INSTANCE;
+  }
+
+  /**
+   * Build the codec of a schema node for one type.
+   *
+   * @param schema the schema node
+   * @param type the type
+   * @return the codec
+   */
+  private static FieldCodec build(JsonNode schema, String type) {
+    switch (type) {
+      case "null":
+        return ScalarCodec.NULL;
+      case "boolean":
+        return ScalarCodec.BOOLEAN;
+      case "integer":
+        return ScalarCodec.INTEGER;
+      case "number":
+        return ScalarCodec.NUMBER;
+      case "string":
+        return ScalarCodec.STRING;
+      case "array":
+        JsonNode items = schema.get("items");
+        return items == null || items.isObject() ? new ArrayCodec(build(items))
+            : AnyCodec.INSTANCE;
+      case "object":
+        return new ObjectCodec(schema);
+      default:
+        return AnyCodec.INSTANCE;
+    }
+  }
+
+  /**
+   * Error of a node which does not match the schema.
+   *
+   * @param pointer the pointer
+   * @param message the message
+   * @return the exception
+   */
+  private static ParametersException mismatch(String pointer, String message) {
+    return new ParametersException("Payload does not match the schema at '" + pointer + "': "
+        + message);
+  }
+
+  /**
+   * Write a zigzag varint.
+   *
+   * @param out the output
+   * @param value the value
+   */
+  private static void writeVarLong(ByteArrayOutputStream out, long value) {
+    long zigzag = (value << 1) ^ (value >> 63);
+    while ((zigzag & ~0x7FL) != 0) {
+      out.write((int) ((zigzag & 0x7F) | 0x80));
+      zigzag >>>= 7;
+    }
+    out.write((int) zigzag);
+  }
+
+  /**
+   * Read a zigzag varint.
+   *
+   * @param in the input
+   * @return the value
+   */
+  private static long readVarLong(ByteBuffer in) {
+    long zigzag = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.get();
+      zigzag |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+      }
+    }
+    throw new ParametersException("Malformed varint.");
+  }
+
+  /**
+   * Read a count of elements or entries.
+   *
+   * @param in the input
+   * @return the count
+   */
+  private static int readCount(ByteBuffer in) {
+    long count = readVarLong(in);
+    if (count < 0 || count > MAX_COUNT) {
+      throw new ParametersException("Malformed payload, count out of range.");
+    }
+    return (int) count;
+  }
+
+  /**
+   * Integer node of the narrowest type, as the json parser would have read it.
+   *
+   * @param value the value
+   * @return the node
+   */
+  private static JsonNode integerNode(long value) {
+    return value == (int) value ? NODES.numberNode((int) value) : NODES.numberNode(value);
+  }
+
+  /**
+   * Write a length prefixed string.
+   *
+   * @param out the output
+   * @param value the value
+   */
+  private static void writeString(ByteArrayOutputStream out, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(out, bytes.length);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Read a length prefixed string.
+   *
+   * @param in the input
+   * @return the value
+   */
+  private static String readString(ByteBuffer in) {
+    return new String(readBytes(in), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Read length prefixed bytes.
+   *
+   * @param in the input
+   * @return the bytes
+   */
+  private static byte[] readBytes(ByteBuffer in) {
+    long length = readVarLong(in);
+    if (length < 0 || length > in.remaining()) {
+      throw new ParametersException("Malformed payload, length out of range.");
+    }
+    byte[] bytes = new byte[(int) length];
+    in.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Codec of scalar types.
+   */
+  private enum ScalarCodec implements FieldCodec {
+
+    /**
+     * Null, no bytes.
+     */
+    NULL {
+      @Override
+      public void write(JsonNode node, String pointer, ByteArrayOutputStream out) {
+        if (!node.isNull()) {
+          throw mismatch(pointer, "expected null");
+        }
+      }
+
+      @Override
+      public JsonNode read(ByteBuffer in) {
+        return NODES.nullNode();
+      }
+    },
+
+    /**
+     * Boolean, one byte.
+     */
+    BOOLEAN {
+      @Override
+      public void write(JsonNode node, String pointer, ByteArrayOutputStream out) {
+        if (!node.isBoolean()) {
+          throw mismatch(pointer, "expected boolean");
+        }
+        out.write(node.booleanValue() ? 1 : 0);
+      }
+
+      @Override
+      public JsonNode read(ByteBuffer in) {
+        return NODES.booleanNode(in.get() != 0);
+      }
+    },
+
+    /**
+     * Integer, zigzag varint.
+     */
+    INTEGER {
+      @Override
+      public void write(JsonNode node, String pointer, ByteArrayOutputStream out) {
+        if (!node.isIntegralNumber() || !node.canConvertToLong()) {
+          throw mismatch(pointer, "expected integer in the long range");
+        }
+        writeVarLong(out, node.longValue());
+      }
+
+      @Override
+      public JsonNode read(ByteBuffer in) {
+        return integerNode(readVarLong(in));
+      }
+    },
+
+    /**
+     * Number, a tag byte then a zigzag varint for integers, 8 bytes for doubles, or the decimal
+     * string of big integers and big decimals, so integers stay small and every number comes
+     * back as it was.
+     */
+    NUMBER {
+      @Override
+      public void write(JsonNode node, String pointer, ByteArrayOutputStream out) {
+        if (!node.isNumber()) {
+          throw mismatch(pointer, "expected number");
+        }
+        if (node.isIntegralNumber() && node.canConvertToLong()) {
+          out.write(0);
+          writeVarLong(out, node.longValue());
+        } else if (node.isDouble() || node.isFloat()) {
+          out.write(1);
+          long bits = Double.doubleToLongBits(node.doubleValue());
+          for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (bits >>> shift));
+          }
+        } else {
+          out.write(node.isBigInteger() ? 2 : 3);
+          writeString(out, node.asText());
+        }
+      }
+
+      @Override
+      public JsonNode read(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+          case 0:
+            return integerNode(readVarLong(in));
+          case 1:
+            return NODES.numberNode(in.getDouble());
+          case 2:
+            return NODES.numberNode(new BigInteger(readString(in)));
+          case 3:
+            return NODES.numberNode(new BigDecimal(readString(in)));
+          default:
+            throw new ParametersException("Malformed payload, number tag out of range.");
+        }
+      }
+    },
+
+    /**
+     * String, length prefixed utf-8.
+     */
+    STRING {
+      @Override
+      public void write(JsonNode node, String pointer, ByteArrayOutputStream out) {
+        if (!node.isTextual()) {
+          throw mismatch(pointer, "expected string");
+        }
+        writeString(out, node.textValue());
+      }
+
+      @Override
+      public JsonNode read(ByteBuffer in) {
+        return NODES.textNode(readString(in));
+      }
+    }
+  }
+
+  /**
+   * Codec of enums, the index of the value.
+   */
+  private static final class EnumCodec implements FieldCodec {
+
+    /**
+     * The values.
+     */
+    private final List<JsonNode> values = Lists.newArrayList();
+
+    /**
+     * Instantiates a new Enum codec.
+     *
+     * @param values the enum values
+     */
+    EnumCodec(JsonNode values) {
+      values.forEach(this.values::add);
+    }
+
+    @Override
+    public void write(JsonNode node, String pointer, ByteArrayOutputStream out) {
+      int index = values.indexOf(node);
+      if (index < 0) {
+        throw mismatch(pointer, "value not in enum");
+      }
+      writeVarLong(out, index);
+    }
+
+    @Override
+    public JsonNode read(ByteBuffer in) {
+      long index = readVarLong(in);
+      if (index < 0 || index >= values.size()) {
+        throw new ParametersException("Malformed payload, enum index out of range.");
+      }
+      return values.get((int) index).deepCopy();
+    }
+  }
+
+  /**
+   * Codec of nodes with several types, a type index then the value.
+   */
+  private static final class UnionCodec implements FieldCodec {
+
+    /**
+     * The types.
+     */
+    private final List<String> types;
+
+    /**
+     * Codec of each type.
+     */
+    private final List<FieldCodec> codecs;
+
+    /**
+     * Instantiates a new Union codec.
+     *
+     * @param types the types
+     * @param codecs codec of each type
+     */
+    UnionCodec(List<String> types, List<FieldCodec> codecs) {
+      this.types = types;
+      this.codecs = codecs;
+    }
+
+    @Override
+    public void write(JsonNode node, String pointer, ByteArrayOutputStream out) {
+      for (int i = 0; i < types.size(); i++) {
+        if (matches(types.get(i), node)) {
+          out.write(i);
+          codecs.get(i).write(node, pointer, out);
+          return;
+        }
+      }
+      throw mismatch(pointer, "expected one of " + types);
+    }
+
+    @Override
+    public JsonNode read(ByteBuffer in) {
+      int index = in.get();
+      if (index < 0 || index >= codecs.size()) {
+        throw new ParametersException("Malformed payload, type index out of range.");
+      }
+      return codecs.get(index).read(in);
+    }
+
+    /**
+     * Whether a node is of a type.
+     *
+     * @param type the type
+     * @param node the node
+     * @return true if it is
+     */
+    private static boolean matches(String type, JsonNode node) {
+      switch (type) {
+        case "null":
+          return node.isNull();
+        case "boolean":
+          return node.isBoolean();
+        case "integer":
+          return node.isIntegralNumber() && node.canConvertToLong();
+        case "number":
+          return node.isNumber();
+        case "string":
+          return node.isTextual();
+        case "array":
+          return node.isArray();
+        case "object":
+          return node.isObject();
+        default:
+          return true;
+      }
+    }
+  }
+
+  /**
+   * Codec of arrays, the count then each element.
+   */
+  private static final class ArrayCodec implements FieldCodec {
+
+    /**
+     * Codec of elements.
+     */
+    private final FieldCodec items;
+
+    /**
+     * Instantiates a new Array codec.
+     *
+     * @param items codec of elements
+     */
+    ArrayCodec(FieldCodec items) {
+      this.items = items;
+    }
+
+    @Override
+    public void write(JsonNode node, String pointer, ByteArrayOutputStream out) {
+      if (!node.isArray()) {
+        throw mismatch(pointer, "expected array");
+      }
+      writeVarLong(out, node.size());
+      for (int i = 0; i < node.size(); i++) {
+        items.write(node.get(i), pointer + "/" + i, out);
+      }
+    }
+
+    @Override
+    public JsonNode read(ByteBuffer in) {
+      int count = readCount(in);
+      ArrayNode node = NODES.arrayNode();
+      for (int i = 0; i < count; i++) {
+        node.add(items.read(in));
+      }
+      return node;
+    }
+  }
+
+  /**
+   * Codec of objects: a bitmap of the optional properties present, the declared properties in
+   * schema order, then the count and entries of other properties if the schema allows them.
+   */
+  private static final class ObjectCodec implements FieldCodec {
+
+    /**
+     * Declared property names.
+     */
+    private final String[] names;
+
+    /**
+     * Codec of each declared property.
+     */
+    private final FieldCodec[] codecs;
+
+    /**
+     * Bit index of each optional property, -1 for required ones.
+     */
+    private final int[] optionalBits;
+
+    /**
+     * Bytes of the optional property bitmap.
+     */
+    private final int bitmapSize;
+
+    /**
+     * Codec of other properties, null if the schema does not allow them.
+     */
+    private final FieldCodec additional;
+
+    /**
+     * Index of each declared property.
+     */
+    private final Map<String, Integer> indexes = Maps.newHashMap();
+
+    /**
+     * Instantiates a new Object codec.
+     *
+     * @param schema the schema node
+     */
+    ObjectCodec(JsonNode schema) {
+      JsonNode properties = schema.path("properties");
+      Set<String> required = Sets.newHashSet();
+      schema.path("required").forEach(name -> required.add(name.asText()));
+
+      int size = properties.size();
+      names = new String[size];
+      codecs = new FieldCodec[size];
+      optionalBits = new int[size];
+      int optionalCount = 0;
+      int i = 0;
+      Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        names[i] = field.getKey();
+        codecs[i] = build(field.getValue());
+        optionalBits[i] = required.contains(field.getKey()) ? -1 : optionalCount++;
+        indexes.put(field.getKey(), i);
+        i++;
+      }
+      bitmapSize = (optionalCount + 7) / 8;
+
+      JsonNode additionalProperties = schema.get("additionalProperties");
+      if (additionalProperties == null || additionalProperties.isBoolean()) {
+        additional = additionalProperties == null || additionalProperties.asBoolean()
+            ? AnyCodec.INSTANCE : null;
+      } else {
+        additional = build(additionalProperties);
+      }
+    }
+
+    @Override
+    public void write(JsonNode node, String pointer, ByteArrayOutputStream out) {
+      if (!node.isObject()) {
+        throw mismatch(pointer, "expected object");
+      }
+      byte[] bitmap = new byte[bitmapSize];
+      for (int i = 0; i < names.length; i++) {
+        boolean present = node.has(names[i]);
+        if (optionalBits[i] < 0 && !present) {
+          throw mismatch(pointer, "missing required property " + names[i]);
+        }
+        if (optionalBits[i] >= 0 && present) {
+          bitmap[optionalBits[i] >> 3] |= 1 << (optionalBits[i] & 7);
+        }
+      }
+      out.write(bitmap, 0, bitmap.length);
+
+      for (int i = 0; i < names.length; i++) {
+        JsonNode value = node.get(names[i]);
+        if (value != null) {
+          codecs[i].write(value, pointer + "/" + names[i], out);
+        }
+      }
+
+      int extra = node.size();
+      for (String name : names) {
+        if (node.has(name)) {
+          extra--;
+        }
+      }
+      if (additional == null) {
+        if (extra > 0) {
+          throw mismatch(pointer, "properties not allowed by the schema");
+        }
+        return;
+      }
+      writeVarLong(out, extra);
+      Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        if (!indexes.containsKey(field.getKey())) {
+          writeString(out, field.getKey());
+          additional.write(field.getValue(), pointer + "/" + field.getKey(), out);
+        }
+      }
+    }
+
+    @Override
+    public JsonNode read(ByteBuffer in) {
+      byte[] bitmap = new byte[bitmapSize];
+      in.get(bitmap);
+
+      ObjectNode node = NODES.objectNode();
+      for (int i = 0; i < names.length; i++) {
+        int bit = optionalBits[i];
+        if (bit < 0 || (bitmap[bit >> 3] & (1 << (bit & 7))) != 0) {
+          node.set(names[i], codecs[i].read(in));
+        }
+      }
+
+      if (additional != null) {
+        int count = readCount(in);
+        for (int i = 0; i < count; i++) {
+          String name = readString(in);
+          if (indexes.containsKey(name)) {
+            throw new ParametersException("Malformed payload, duplicated property.");
+          }
+          node.set(name, additional.read(in));
+        }
+      }
+      return node;
+    }
+  }
+
+  /**
+   * Codec of nodes with no fixed shape, length prefixed smile.
+   */
+  private static final class AnyCodec implements FieldCodec {
+
+    /**
+     * The instance.
+     */
+    static final AnyCodec INSTANCE = new AnyCodec();
+
+    @Override
+    public void write(JsonNode node, String pointer, ByteArrayOutputStream out) {
+      try {
+        byte[] bytes = SMILE_MAPPER.writeValueAsBytes(node);
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+      } catch (IOException e) {
+        throw mismatch(pointer, "can not be encoded");
+      }
+    }
+
+    @Override
+    public JsonNode read(ByteBuffer in) {
+      try {
+        return SMILE_MAPPER.readTree(readBytes(in));
+      } catch (IOException e) {
+        throw new ParametersException("Malformed payload.");
+      }
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.umasuo.datapoint.infrastructure.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.umasuo.exception.ParametersException;
+import com.umasuo.util.JsonUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codecs of data definition schemas, cached by the hash of the schema, so each schema version
+ * builds its codec once, and definitions which share a schema share the codec.
+ */
+public final class PayloadCodecs {
+
+  /**
+   * Max codecs cached.
+   */
+  private static final int MAX_CACHED_CODECS = 1024;
+
+  /**
+   * Schemas longer than this, in chars, are built every time, so a few huge schemas can not pin
+   * the cache.
+   */
+  private static final int MAX_CACHED_LENGTH = 64 * 1024;
+
+  /**
+   * Codecs, keyed by the sha256 of the schema.
+   */
+  private static final Cache<String, PayloadCodec> CACHE = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_CODECS)
+      .build();
+
+  /**
+   * Instantiates a new Payload codecs.
+   */
+  private PayloadCodecs() {
+  }
+
+  /**
+   * Get the codec of a schema, from the cache if it is known.
+   *
+   * @param schema the schema
+   * @return the codec
+   */
+  public static PayloadCodec forSchema(String schema) {
+    if (schema == null) {
+      throw new ParametersException("DataSchema should not be null.");
+    }
+    if (schema.length() > MAX_CACHED_LENGTH) {
+      return build(schema);
+    }
+
+    String hash = Hashing.sha256().hashString(schema, StandardCharsets.UTF_8).toString();
+    PayloadCodec codec = CACHE.getIfPresent(hash);
+    if (codec == null) {
+      // built twice at worst when raced
+      codec = build(schema);
+      CACHE.put(hash, codec);
+    }
+    return codec;
+  }
+
+  /**
+   * Build the codec of a schema.
+   *
+   * @param schema the schema
+   * @return the codec
+   */
+  private static PayloadCodec build(String schema) {
+    return PayloadCodec.of(JsonUtils.deserialize(schema, JsonNode.class));
+  }
+}
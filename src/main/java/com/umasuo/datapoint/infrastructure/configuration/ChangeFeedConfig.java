@@ -0,0 +1,34 @@
+package com.umasuo.datapoint.infrastructure.configuration;
+
+import com.umasuo.datapoint.infrastructure.util.RedisUtils;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Subscribes the change feed to change notifications of every node.
+ */
+@Configuration
+public class ChangeFeedConfig {
+
+  /**
+   * Listener container of the change channel.
+   *
+   * @param connectionFactory the connection factory
+   * @param changeFeedApplication the change feed listener
+   * @return the container
+   */
+  @Bean
+  public RedisMessageListenerContainer changeListenerContainer(
+      RedisConnectionFactory connectionFactory, MessageListener changeFeedApplication) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(changeFeedApplication,
+        new ChannelTopic(RedisUtils.CHANGE_CHANNEL));
+    return container;
+  }
+}
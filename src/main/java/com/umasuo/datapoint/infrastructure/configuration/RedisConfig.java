@@ -0,0 +1,62 @@
+package com.umasuo.datapoint.infrastructure.configuration;
+
+import com.umasuo.datapoint.infrastructure.util.UuidRedisSerializer;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+/**
+ * Redis templates of the definition caches.
+ * Keys are plain strings and values stay jdk serialized. Hash fields are utf-8 strings, except
+ * in the hashes of definitions by id, whose fields are the raw bytes of the id through
+ * {@link UuidRedisSerializer}.
+ */
+@Configuration
+public class RedisConfig {
+
+  /**
+   * Replaces the default template, whose jdk serialized keys and fields carry a java header.
+   *
+   * @param connectionFactory the connection factory
+   * @return the redis template
+   */
+  @Bean
+  public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    return template(connectionFactory, new StringRedisSerializer());
+  }
+
+  /**
+   * Template of the hashes of definitions by id.
+   *
+   * @param connectionFactory the connection factory
+   * @return the redis template
+   */
+  @Bean
+  public RedisTemplate<Object, Object> uuidHashRedisTemplate(
+      RedisConnectionFactory connectionFactory) {
+    return template(connectionFactory, new UuidRedisSerializer());
+  }
+
+  /**
+   * New template.
+   *
+   * @param connectionFactory the connection factory
+   * @param hashKeySerializer serializer of hash fields
+   * @return the redis template
+   */
+  private RedisTemplate<Object, Object> template(RedisConnectionFactory connectionFactory,
+      RedisSerializer<?> hashKeySerializer) {
+    RedisTemplate<Object, Object> template = new RedisTemplate<>();
+    template.setConnectionFactory(connectionFactory);
+    template.setKeySerializer(new StringRedisSerializer());
+    template.setHashKeySerializer(hashKeySerializer);
+    template.setValueSerializer(new JdkSerializationRedisSerializer());
+    template.setHashValueSerializer(new JdkSerializationRedisSerializer());
+    return template;
+  }
+}
@@ -0,0 +1,47 @@
+package com.umasuo.datapoint.infrastructure.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replica configuration.
+ */
+@Data
+@ConfigurationProperties(prefix = "datapoint.datasource")
+public class ReplicaProperties {
+
+  /**
+   * Read replicas, read only work is spread over them in round robin.
+   */
+  private List<Replica> replicas = new ArrayList<>();
+
+  /**
+   * How long a developer's reads stick to the primary after a write, in milliseconds.
+   */
+  private long stickyMillis = 5000L;
+
+  /**
+   * One read replica.
+   */
+  @Data
+  public static class Replica {
+
+    /**
+     * Jdbc url.
+     */
+    private String url;
+
+    /**
+     * User name.
+     */
+    private String username;
+
+    /**
+     * Password.
+     */
+    private String password;
+  }
+}
@@ -0,0 +1,131 @@
+package com.umasuo.datapoint.infrastructure.configuration;
+
+import com.google.common.collect.Maps;
+import com.umasuo.datapoint.infrastructure.routing.RecentWriteTracker;
+import com.umasuo.datapoint.infrastructure.routing.ReplicaRoutingDataSource;
+import com.umasuo.datapoint.infrastructure.routing.ReplicaRoutingInterceptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceBuilder;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes read only requests to read replicas, enabled by datapoint.datasource.replica-routing.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "datapoint.datasource", name = "replica-routing",
+    havingValue = "true")
+public class ReplicaRoutingConfig extends WebMvcConfigurerAdapter {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingConfig.class);
+
+  /**
+   * Replica properties.
+   */
+  private final transient ReplicaProperties replicaProperties;
+
+  /**
+   * Redis template.
+   */
+  private final transient StringRedisTemplate redisTemplate;
+
+  /**
+   * Instantiates a new Replica routing config.
+   *
+   * @param replicaProperties the replica properties
+   * @param redisTemplate the redis template
+   */
+  public ReplicaRoutingConfig(ReplicaProperties replicaProperties,
+      StringRedisTemplate redisTemplate) {
+    this.replicaProperties = replicaProperties;
+    this.redisTemplate = redisTemplate;
+  }
+
+  /**
+   * Routing data source, connections are fetched lazily so the route is decided on first use.
+   *
+   * @param primaryProperties spring.datasource properties
+   * @return the data source
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(DataSourceProperties primaryProperties) {
+    DataSource primary = primaryProperties.initializeDataSourceBuilder().build();
+
+    return new LazyConnectionDataSourceProxy(
+        routingDataSource(primary, primaryProperties, replicaProperties.getReplicas()));
+  }
+
+  /**
+   * Build routing data source from a primary and its replicas.
+   *
+   * @param primary the primary data source
+   * @param primaryProperties the primary properties, for driver class
+   * @param replicas the replicas
+   * @return the routing data source
+   */
+  static ReplicaRoutingDataSource routingDataSource(DataSource primary,
+      DataSourceProperties primaryProperties, List<ReplicaProperties.Replica> replicas) {
+    Map<Object, Object> targets = Maps.newHashMap();
+    targets.put(ReplicaRoutingDataSource.PRIMARY_KEY, primary);
+
+    for (int i = 0; i < replicas.size(); i++) {
+      ReplicaProperties.Replica replica = replicas.get(i);
+      LOGGER.info("Register read replica: {}.", replica.getUrl());
+
+      DataSource replicaDataSource = DataSourceBuilder.create()
+          .driverClassName(primaryProperties.determineDriverClassName())
+          .url(replica.getUrl())
+          .username(replica.getUsername())
+          .password(replica.getPassword())
+          .build();
+      targets.put(ReplicaRoutingDataSource.REPLICA_KEY_PREFIX + i, replicaDataSource);
+    }
+
+    ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(replicas.size());
+    routingDataSource.setTargetDataSources(targets);
+    routingDataSource.setDefaultTargetDataSource(primary);
+    routingDataSource.afterPropertiesSet();
+
+    return routingDataSource;
+  }
+
+  /**
+   * Recent write tracker.
+   *
+   * @return the recent write tracker
+   */
+  @Bean
+  public RecentWriteTracker recentWriteTracker() {
+    return new RecentWriteTracker(redisTemplate, replicaProperties.getStickyMillis());
+  }
+
+  /**
+   * Register routing interceptor.
+   *
+   * @param registry the registry
+   */
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new ReplicaRoutingInterceptor(recentWriteTracker()));
+  }
+}
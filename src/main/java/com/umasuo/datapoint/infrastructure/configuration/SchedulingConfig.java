@@ -0,0 +1,12 @@
+package com.umasuo.datapoint.infrastructure.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables background jobs, e.g. purging deleted data definitions.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,69 @@
+package com.umasuo.datapoint.infrastructure.configuration;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded worker pool for cpu heavy schema work.
+ */
+@Configuration
+public class SchemaExecutorConfig {
+
+  /**
+   * Bean name of the schema executor.
+   */
+  public static final String SCHEMA_EXECUTOR = "schemaExecutor";
+
+  /**
+   * Bean name of the executor which runs schema work of requests under a timeout.
+   */
+  public static final String SCHEMA_GUARD_EXECUTOR = "schemaGuardExecutor";
+
+  /**
+   * Schema executor, when the queue is full the caller runs the task itself, which slows
+   * down the producer instead of growing the queue.
+   *
+   * @param threads worker count, 0 means the number of processors
+   * @param queueSize the queue size
+   * @return the executor service
+   */
+  @Bean(name = SCHEMA_EXECUTOR, destroyMethod = "shutdown")
+  public ExecutorService schemaExecutor(@Value("${datapoint.schema.threads:0}") int threads,
+      @Value("${datapoint.schema.queue-size:1024}") int queueSize) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+    return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueSize),
+        new ThreadFactoryBuilder().setNameFormat("schema-%d").setDaemon(true).build(),
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  /**
+   * Schema guard executor, requests hand their schema work to it and wait with a timeout, so a
+   * pathological schema only ever holds a worker, never a servlet thread. When the queue is
+   * full tasks are rejected instead of run by the caller.
+   *
+   * @param threads worker count, 0 means the number of processors
+   * @param queueSize the queue size
+   * @return the executor service
+   */
+  @Bean(name = SCHEMA_GUARD_EXECUTOR, destroyMethod = "shutdownNow")
+  public ExecutorService schemaGuardExecutor(
+      @Value("${datapoint.schema.guard-threads:0}") int threads,
+      @Value("${datapoint.schema.guard-queue-size:256}") int queueSize) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+    return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueSize),
+        new ThreadFactoryBuilder().setNameFormat("schema-guard-%d").setDaemon(true).build(),
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+}
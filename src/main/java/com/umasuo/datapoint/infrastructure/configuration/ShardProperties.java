@@ -0,0 +1,54 @@
+package com.umasuo.datapoint.infrastructure.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shard configuration, the global shard is spring.datasource.
+ */
+@Data
+@ConfigurationProperties(prefix = "datapoint.sharding")
+public class ShardProperties {
+
+  /**
+   * Shards of developer data, order must not change once data is written.
+   */
+  private List<Shard> shards = new ArrayList<>();
+
+  /**
+   * Developers pinned to a shard, developer id to shard name.
+   */
+  private Map<String, String> developers = new HashMap<>();
+
+  /**
+   * One shard.
+   */
+  @Data
+  public static class Shard {
+
+    /**
+     * Shard name, used in routing and cache keys.
+     */
+    private String name;
+
+    /**
+     * Jdbc url.
+     */
+    private String url;
+
+    /**
+     * User name.
+     */
+    private String username;
+
+    /**
+     * Password.
+     */
+    private String password;
+  }
+}
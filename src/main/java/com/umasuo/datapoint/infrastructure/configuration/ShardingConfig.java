@@ -0,0 +1,146 @@
+package com.umasuo.datapoint.infrastructure.configuration;
+
+import com.google.common.collect.Maps;
+import com.umasuo.datapoint.infrastructure.sharding.GlobalShardAspect;
+import com.umasuo.datapoint.infrastructure.sharding.ShardMap;
+import com.umasuo.datapoint.infrastructure.sharding.ShardRoutingDataSource;
+import com.umasuo.datapoint.infrastructure.sharding.ShardRoutingInterceptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceBuilder;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+/**
+ * Shard map of developers. Routing is enabled by datapoint.sharding.enabled, it replaces
+ * replica routing and the two must not be enabled together.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardingConfig {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShardingConfig.class);
+
+  /**
+   * Shard map, every developer is on the global shard when sharding is off.
+   *
+   * @param shardProperties the shard properties
+   * @param enabled is sharding enabled
+   * @return the shard map
+   */
+  @Bean
+  public ShardMap shardMap(ShardProperties shardProperties,
+      @Value("${datapoint.sharding.enabled:false}") boolean enabled) {
+    if (!enabled) {
+      return new ShardMap(Collections.emptyList(), Collections.emptyMap());
+    }
+
+    List<String> shards = shardProperties.getShards().stream()
+        .map(ShardProperties.Shard::getName).collect(Collectors.toList());
+
+    return new ShardMap(shards, shardProperties.getDevelopers());
+  }
+
+  /**
+   * Routing of developer data to shards.
+   */
+  @Configuration
+  @ConditionalOnProperty(prefix = "datapoint.sharding", name = "enabled", havingValue = "true")
+  public static class ShardRoutingConfig extends WebMvcConfigurerAdapter {
+
+    /**
+     * Shard properties.
+     */
+    private final transient ShardProperties shardProperties;
+
+    /**
+     * Shard map.
+     */
+    private final transient ShardMap shardMap;
+
+    /**
+     * Instantiates a new Shard routing config.
+     *
+     * @param shardProperties the shard properties
+     * @param shardMap the shard map
+     */
+    public ShardRoutingConfig(ShardProperties shardProperties, ShardMap shardMap) {
+      this.shardProperties = shardProperties;
+      this.shardMap = shardMap;
+    }
+
+    /**
+     * Routing data source, connections are fetched lazily so the shard is decided on first use.
+     *
+     * @param globalProperties spring.datasource properties, the global shard
+     * @return the data source
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties globalProperties) {
+      DataSource global = globalProperties.initializeDataSourceBuilder().build();
+
+      Map<Object, Object> targets = Maps.newHashMap();
+      targets.put(ShardMap.GLOBAL_SHARD, global);
+
+      for (ShardProperties.Shard shard : shardProperties.getShards()) {
+        LOGGER.info("Register shard: {}, url: {}.", shard.getName(), shard.getUrl());
+
+        DataSource shardDataSource = DataSourceBuilder.create()
+            .driverClassName(globalProperties.determineDriverClassName())
+            .url(shard.getUrl())
+            .username(shard.getUsername())
+            .password(shard.getPassword())
+            .build();
+        targets.put(shard.getName(), shardDataSource);
+      }
+
+      ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+      routingDataSource.setTargetDataSources(targets);
+      routingDataSource.setDefaultTargetDataSource(global);
+      routingDataSource.setLenientFallback(false);
+      routingDataSource.afterPropertiesSet();
+
+      return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Keep platform definitions on the global shard.
+     *
+     * @return the global shard aspect
+     */
+    @Bean
+    public GlobalShardAspect globalShardAspect() {
+      return new GlobalShardAspect();
+    }
+
+    /**
+     * Register shard interceptor.
+     *
+     * @param registry the registry
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+      registry.addInterceptor(new ShardRoutingInterceptor(shardMap));
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.umasuo.datapoint.infrastructure.enums;
+
+/**
+ * Operation of a data definition change.
+ */
+public enum ChangeOperation {
+  /**
+   * Created.
+   */
+  CREATE,
+
+  /**
+   * Updated.
+   */
+  UPDATE,
+
+  /**
+   * Deleted, when definitionId is null the whole product or product type was deleted.
+   */
+  DELETE,
+
+  /**
+   * Copied from a platform or developer data definition.
+   */
+  COPY,
+
+  /**
+   * Bulk imported, definitionId is null and the whole product should be re-read.
+   */
+  IMPORT
+}
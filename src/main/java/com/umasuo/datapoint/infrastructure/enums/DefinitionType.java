@@ -0,0 +1,21 @@
+package com.umasuo.datapoint.infrastructure.enums;
+
+/**
+ * Which kind of data definition a change is about.
+ */
+public enum DefinitionType {
+  /**
+   * Data definition of a device product.
+   */
+  DEVICE,
+
+  /**
+   * Data definition shared by a developer's products.
+   */
+  DEVELOPER,
+
+  /**
+   * Data definition preset by platform for a product type.
+   */
+  PLATFORM
+}
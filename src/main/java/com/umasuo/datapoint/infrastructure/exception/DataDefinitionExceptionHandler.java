@@ -1,6 +1,10 @@
 package com.umasuo.datapoint.infrastructure.exception;
 
 import com.umasuo.exception.handler.ExceptionHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 import org.springframework.web.servlet.ModelAndView;
@@ -14,6 +18,12 @@ import javax.servlet.http.HttpServletResponse;
 @Component
 public class DataDefinitionExceptionHandler implements ExceptionHandler, HandlerExceptionResolver {
 
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(DataDefinitionExceptionHandler.class);
+
   /**
    * Resolve exception.
    * @param request
@@ -25,6 +35,13 @@ public class DataDefinitionExceptionHandler implements ExceptionHandler, Handler
   @Override
   public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response,
                                        Object handler, Exception ex) {
+    if (ex instanceof ServiceBusyException) {
+      LOGGER.debug("Service busy: {}.", ex.getMessage());
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER,
+          String.valueOf(((ServiceBusyException) ex).getRetryAfterSeconds()));
+      return new ModelAndView();
+    }
     setResponse(request, response, handler, ex);
     return new ModelAndView();
   }
@@ -0,0 +1,37 @@
+package com.umasuo.datapoint.infrastructure.exception;
+
+/**
+ * Thrown when a bounded resource is saturated, answered with 503 and a Retry-After header.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+  /**
+   * The serialVersionUID.
+   */
+  private static final long serialVersionUID = -4518235083462817930L;
+
+  /**
+   * Seconds the client should wait before retrying.
+   */
+  private final long retryAfterSeconds;
+
+  /**
+   * Instantiates a new Service busy exception.
+   *
+   * @param message the message
+   * @param retryAfterSeconds seconds the client should wait before retrying
+   */
+  public ServiceBusyException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  /**
+   * Gets the seconds the client should wait before retrying.
+   *
+   * @return the seconds
+   */
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
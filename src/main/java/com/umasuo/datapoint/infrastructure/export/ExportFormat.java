@@ -0,0 +1,57 @@
+package com.umasuo.datapoint.infrastructure.export;
+
+import com.umasuo.exception.ParametersException;
+
+/**
+ * Supported export formats.
+ */
+public enum ExportFormat {
+
+  /**
+   * Newline delimited json, one definition per line.
+   */
+  NDJSON("application/x-ndjson"),
+
+  /**
+   * Jackson smile, a compact binary json, definitions are written one after another.
+   */
+  SMILE("application/x-jackson-smile");
+
+  /**
+   * Http content type.
+   */
+  private final String contentType;
+
+  /**
+   * Instantiates a new Export format.
+   *
+   * @param contentType the content type
+   */
+  ExportFormat(String contentType) {
+    this.contentType = contentType;
+  }
+
+  /**
+   * Gets content type.
+   *
+   * @return the content type
+   */
+  public String getContentType() {
+    return contentType;
+  }
+
+  /**
+   * Parse format from request parameter.
+   *
+   * @param format the format
+   * @return the export format
+   */
+  public static ExportFormat of(String format) {
+    for (ExportFormat exportFormat : values()) {
+      if (exportFormat.name().equalsIgnoreCase(format)) {
+        return exportFormat;
+      }
+    }
+    throw new ParametersException("Unsupported export format: " + format);
+  }
+}
@@ -0,0 +1,144 @@
+package com.umasuo.datapoint.infrastructure.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes exported definitions one by one to an output stream, nothing is held in memory
+ * except the current row and the stream buffer. Rows are flushed every FLUSH_INTERVAL rows, and
+ * at most FLUSH_MILLIS after they were written when the caller polls flushIfDue.
+ */
+public class ExportWriter implements Closeable {
+
+  /**
+   * Flush to client after this many rows.
+   */
+  private static final int FLUSH_INTERVAL = 1000;
+
+  /**
+   * Flush to client when rows wait longer than this, in milliseconds.
+   */
+  private static final long FLUSH_MILLIS = 1000;
+
+  /**
+   * Json mapper.
+   */
+  private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+  /**
+   * Smile mapper.
+   */
+  private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(new SmileFactory());
+
+  /**
+   * The sequence writer.
+   */
+  private final SequenceWriter writer;
+
+  /**
+   * Written row count.
+   */
+  private long count;
+
+  /**
+   * Time of the last flush, from System.nanoTime.
+   */
+  private long lastFlush = System.nanoTime();
+
+  /**
+   * True if rows were written since the last flush.
+   */
+  private boolean pending;
+
+  /**
+   * Instantiates a new Export writer.
+   *
+   * @param format the format
+   * @param outputStream the output stream
+   * @throws IOException the io exception
+   */
+  public ExportWriter(ExportFormat format, OutputStream outputStream) throws IOException {
+    if (format == ExportFormat.SMILE) {
+      writer = SMILE_MAPPER.writer()
+          .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+          .writeValues(outputStream);
+    } else {
+      writer = JSON_MAPPER.writer()
+          .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+          .withRootValueSeparator("\n")
+          .writeValues(outputStream);
+    }
+  }
+
+  /**
+   * Write one row.
+   *
+   * @param row the row
+   */
+  public void write(Object row) {
+    try {
+      writer.write(row);
+      count++;
+      pending = true;
+      if (count % FLUSH_INTERVAL == 0) {
+        flush();
+      } else {
+        flushIfDue();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Flush if rows have waited longer than FLUSH_MILLIS, for callers which skip rows for a long
+   * time between writes.
+   */
+  public void flushIfDue() {
+    if (pending && System.nanoTime() - lastFlush > TimeUnit.MILLISECONDS.toNanos(FLUSH_MILLIS)) {
+      try {
+        flush();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Flush to the client.
+   *
+   * @throws IOException the io exception
+   */
+  private void flush() throws IOException {
+    writer.flush();
+    pending = false;
+    lastFlush = System.nanoTime();
+  }
+
+  /**
+   * Gets written row count.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Flush and close.
+   *
+   * @throws IOException the io exception
+   */
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+}
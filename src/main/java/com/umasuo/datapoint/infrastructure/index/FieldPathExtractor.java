@@ -0,0 +1,189 @@
+package com.umasuo.datapoint.infrastructure.index;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.umasuo.datapoint.domain.model.SchemaField;
+import com.umasuo.datapoint.infrastructure.validator.SchemaValidator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Extracts the flattened (path, type) list of a schema's fields.
+ * Paths follow properties, array items as [], and local $ref and allOf/anyOf/oneOf branches at
+ * the same path, e.g. readings[].temperature. $ref to other data definitions are not followed,
+ * their fields belong to the referenced definition.
+ */
+public final class FieldPathExtractor {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(FieldPathExtractor.class);
+
+  /**
+   * Type of fields without a declared type.
+   */
+  public static final String ANY = "any";
+
+  /**
+   * Every type a field may have.
+   */
+  public static final Set<String> TYPES = ImmutableSet.of("object", "array", "string", "number",
+      "integer", "boolean", "null", ANY);
+
+  /**
+   * Max fields extracted from one schema, the rest are not indexed.
+   */
+  public static final int MAX_FIELDS = 2000;
+
+  /**
+   * Max length of a path, longer paths are not indexed.
+   */
+  public static final int MAX_PATH_LENGTH = 512;
+
+  /**
+   * Combinators whose branches describe the same path.
+   */
+  private static final Set<String> COMBINATORS = ImmutableSet.of("allOf", "anyOf", "oneOf");
+
+  /**
+   * Json mapper.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * Instantiates a new Field path extractor.
+   */
+  private FieldPathExtractor() {
+  }
+
+  /**
+   * Extract the fields of a schema, only path, name and type are filled.
+   * A schema which is not valid json has no fields.
+   *
+   * @param schema the schema
+   * @return the fields, in schema order
+   */
+  public static List<SchemaField> extract(String schema) {
+    JsonNode root;
+    try {
+      root = schema == null ? null : MAPPER.readTree(schema);
+    } catch (IOException e) {
+      LOGGER.debug("Schema is not valid json, no field extracted.", e);
+      return Collections.emptyList();
+    }
+    if (root == null) {
+      return Collections.emptyList();
+    }
+
+    Map<String, SchemaField> fields = Maps.newLinkedHashMap();
+    walk(root, root, "", null, 0, Sets.newHashSet(), fields);
+    return Lists.newArrayList(fields.values());
+  }
+
+  /**
+   * Extract the fields of a schema node.
+   *
+   * @param root the root schema, target of local $ref
+   * @param node the schema node
+   * @param path path of the node, empty for the root
+   * @param name last property name of the path, null for the root
+   * @param depth the depth
+   * @param refs local $ref being followed, to stop on cycles
+   * @param fields fields so far, by path and type
+   */
+  private static void walk(JsonNode root, JsonNode node, String path, String name, int depth,
+      Set<String> refs, Map<String, SchemaField> fields) {
+    if (!node.isObject() || depth > SchemaValidator.MAX_DEPTH || fields.size() >= MAX_FIELDS
+        || path.length() > MAX_PATH_LENGTH) {
+      return;
+    }
+
+    JsonNode ref = node.get("$ref");
+    if (ref != null && ref.isTextual()) {
+      String pointer = ref.textValue();
+      if (pointer.startsWith("#") && refs.add(pointer)) {
+        walk(root, root.at(pointer.substring(1)), path, name, depth + 1, refs, fields);
+        refs.remove(pointer);
+      }
+      return;
+    }
+
+    if (!path.isEmpty()) {
+      JsonNode type = node.get("type");
+      if (type != null && type.isTextual()) {
+        add(path, name, type.textValue(), fields);
+      } else if (type != null && type.isArray()) {
+        type.forEach(element -> add(path, name, element.asText(), fields));
+      } else if (node.has("properties")) {
+        add(path, name, "object", fields);
+      } else if (!hasCombinator(node)) {
+        add(path, name, ANY, fields);
+      }
+    }
+
+    Iterator<Map.Entry<String, JsonNode>> properties = node.path("properties").fields();
+    while (properties.hasNext()) {
+      Map.Entry<String, JsonNode> property = properties.next();
+      String child = path.isEmpty() ? property.getKey() : path + "." + property.getKey();
+      walk(root, property.getValue(), child, property.getKey(), depth + 1, refs, fields);
+    }
+
+    JsonNode items = node.get("items");
+    if (items != null && items.isObject()) {
+      walk(root, items, path + "[]", name, depth + 1, refs, fields);
+    } else if (items != null && items.isArray()) {
+      items.forEach(item -> walk(root, item, path + "[]", name, depth + 1, refs, fields));
+    }
+
+    for (String combinator : COMBINATORS) {
+      JsonNode branches = node.get(combinator);
+      if (branches != null && branches.isArray()) {
+        branches.forEach(branch -> walk(root, branch, path, name, depth + 1, refs, fields));
+      }
+    }
+  }
+
+  /**
+   * Whether a schema node has allOf, anyOf or oneOf, whose branches declare its types.
+   *
+   * @param node the node
+   * @return true if it has
+   */
+  private static boolean hasCombinator(JsonNode node) {
+    return COMBINATORS.stream().anyMatch(node::has);
+  }
+
+  /**
+   * Add one field, once per path and type.
+   *
+   * @param path the path
+   * @param name the name
+   * @param type the type
+   * @param fields fields so far
+   */
+  private static void add(String path, String name, String type, Map<String, SchemaField> fields) {
+    if (!TYPES.contains(type) || fields.size() >= MAX_FIELDS) {
+      return;
+    }
+    fields.computeIfAbsent(path + "|" + type, key -> {
+      SchemaField field = new SchemaField();
+      field.setPath(path);
+      field.setName(name);
+      field.setType(type);
+      return field;
+    });
+  }
+}
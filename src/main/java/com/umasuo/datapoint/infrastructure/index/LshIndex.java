@@ -0,0 +1,186 @@
+package com.umasuo.datapoint.infrastructure.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory locality sensitive hashing index of MinHash signatures.
+ * Signatures are cut in BANDS bands of ROWS rows, and two signatures are candidates if one band
+ * is equal, so only candidates are compared instead of every signature. Signatures with a
+ * similarity of s are candidates with a probability of 1 - (1 - s^ROWS)^BANDS, about 0.5 at
+ * s = 0.1, 0.93 at s = 0.2 and over 0.99 from s = 0.3. The bands are tuned to the lowest
+ * similarity queried: wider bands drop most pairs near it, 4 rows find only 23% at s = 0.3.
+ * An index is filled once by add and only read afterwards, a changed data set gets a new index.
+ *
+ * @param <T> the indexed values
+ */
+public class LshIndex<T> {
+
+  /**
+   * Bands of a signature.
+   */
+  public static final int BANDS = 64;
+
+  /**
+   * Rows of a band.
+   */
+  public static final int ROWS = MinHash.SIZE / BANDS;
+
+  /**
+   * Entries by band key, the band number in the high bits and the band hash in the low bits.
+   */
+  private final Map<Long, List<Entry<T>>> buckets = Maps.newHashMap();
+
+  /**
+   * Indexed entry count.
+   */
+  private int size;
+
+  /**
+   * Add a value.
+   *
+   * @param value the value
+   * @param signature the MinHash signature of the value
+   */
+  public void add(T value, int[] signature) {
+    Entry<T> entry = new Entry<>(value, signature);
+    for (int band = 0; band < BANDS; band++) {
+      buckets.computeIfAbsent(key(signature, band), key -> Lists.newArrayList()).add(entry);
+    }
+    size++;
+  }
+
+  /**
+   * Indexed entry count.
+   *
+   * @return the size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Find the values most similar to a signature, most similar first.
+   *
+   * @param signature the signature
+   * @param minSimilarity values less similar are dropped
+   * @param limit max values
+   * @return the matches
+   */
+  public List<Match<T>> query(int[] signature, double minSimilarity, int limit) {
+    Set<Entry<T>> candidates = Sets.newIdentityHashSet();
+    for (int band = 0; band < BANDS; band++) {
+      List<Entry<T>> bucket = buckets.get(key(signature, band));
+      if (bucket != null) {
+        candidates.addAll(bucket);
+      }
+    }
+
+    List<Match<T>> matches = Lists.newArrayListWithCapacity(candidates.size());
+    for (Entry<T> candidate : candidates) {
+      double similarity = MinHash.similarity(signature, candidate.signature);
+      if (similarity >= minSimilarity) {
+        matches.add(new Match<>(candidate.value, similarity));
+      }
+    }
+    matches.sort(Comparator.comparingDouble(Match<T>::getSimilarity).reversed());
+    return matches.size() > limit ? Lists.newArrayList(matches.subList(0, limit)) : matches;
+  }
+
+  /**
+   * Key of one band of a signature.
+   *
+   * @param signature the signature
+   * @param band the band number
+   * @return the key
+   */
+  private static long key(int[] signature, int band) {
+    int hash = 1;
+    for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+      hash = 31 * hash + signature[i];
+    }
+    return ((long) band << 32) | (hash & 0xffffffffL);
+  }
+
+  /**
+   * Indexed value with its signature.
+   *
+   * @param <T> the value type
+   */
+  private static final class Entry<T> {
+
+    /**
+     * The value.
+     */
+    private final T value;
+
+    /**
+     * The signature.
+     */
+    private final int[] signature;
+
+    /**
+     * Instantiates a new Entry.
+     *
+     * @param value the value
+     * @param signature the signature
+     */
+    private Entry(T value, int[] signature) {
+      this.value = value;
+      this.signature = signature;
+    }
+  }
+
+  /**
+   * A value found by a query, with its estimated similarity.
+   *
+   * @param <T> the value type
+   */
+  public static final class Match<T> {
+
+    /**
+     * The value.
+     */
+    private final T value;
+
+    /**
+     * Estimated Jaccard similarity to the query.
+     */
+    private final double similarity;
+
+    /**
+     * Instantiates a new Match.
+     *
+     * @param value the value
+     * @param similarity the similarity
+     */
+    private Match(T value, double similarity) {
+      this.value = value;
+      this.similarity = similarity;
+    }
+
+    /**
+     * Gets the value.
+     *
+     * @return the value
+     */
+    public T getValue() {
+      return value;
+    }
+
+    /**
+     * Gets the similarity.
+     *
+     * @return the similarity
+     */
+    public double getSimilarity() {
+      return similarity;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.umasuo.datapoint.infrastructure.index;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.umasuo.datapoint.domain.model.SchemaField;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * MinHash signatures of schemas, whose shingles are the (path, type) of their fields as given by
+ * FieldPathExtractor. The share of equal positions in two signatures estimates the Jaccard
+ * similarity of the two shingle sets, with a standard error of about 1 / sqrt(SIZE).
+ */
+public final class MinHash {
+
+  /**
+   * Hashes in a signature.
+   */
+  public static final int SIZE = 128;
+
+  /**
+   * Base hash of a shingle.
+   */
+  private static final HashFunction HASH = Hashing.murmur3_128();
+
+  /**
+   * One seed per signature position, fixed so signatures of every node agree.
+   */
+  private static final long[] SEEDS = new Random(0x5eed_da7aL).longs(SIZE).toArray();
+
+  /**
+   * Instantiates a new Min hash.
+   */
+  private MinHash() {
+  }
+
+  /**
+   * Signature of a schema.
+   *
+   * @param schema the schema
+   * @return the signature, null if the schema has no field
+   */
+  public static int[] of(String schema) {
+    return of(FieldPathExtractor.extract(schema));
+  }
+
+  /**
+   * Signature of extracted fields.
+   *
+   * @param fields the fields
+   * @return the signature, null if there is no field
+   */
+  public static int[] of(Collection<SchemaField> fields) {
+    if (fields.isEmpty()) {
+      return null;
+    }
+    int[] signature = new int[SIZE];
+    Arrays.fill(signature, Integer.MAX_VALUE);
+    for (SchemaField field : fields) {
+      long base = HASH.hashString(field.getPath() + "|" + field.getType(), StandardCharsets.UTF_8)
+          .asLong();
+      // one base hash per shingle, remixed per position instead of SIZE hash functions
+      for (int i = 0; i < SIZE; i++) {
+        int hash = (int) mix(base ^ SEEDS[i]);
+        if (hash < signature[i]) {
+          signature[i] = hash;
+        }
+      }
+    }
+    return signature;
+  }
+
+  /**
+   * Estimated Jaccard similarity of two signatures.
+   *
+   * @param first a signature
+   * @param second a signature
+   * @return the similarity, between 0 and 1
+   */
+  public static double similarity(int[] first, int[] second) {
+    int equal = 0;
+    for (int i = 0; i < SIZE; i++) {
+      if (first[i] == second[i]) {
+        equal++;
+      }
+    }
+    return (double) equal / SIZE;
+  }
+
+  /**
+   * Finalizer of murmur3, spreads every input bit over the output.
+   *
+   * @param value the value
+   * @return the mixed value
+   */
+  private static long mix(long value) {
+    long hash = value;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,124 @@
+package com.umasuo.datapoint.infrastructure.paging;
+
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset cursor, points to the last (createdAt, id) returned by the previous page.
+ * Encoded as the url safe base64 of createdAt followed by the id's binary form.
+ */
+public final class Cursor {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(Cursor.class);
+
+  /**
+   * Length of the raw cursor, createdAt and the id's 16 bytes.
+   */
+  private static final int RAW_LENGTH = Long.BYTES + 16;
+
+  /**
+   * Cursor before the first row.
+   */
+  public static final Cursor START = new Cursor(Long.MIN_VALUE, new UUID(0L, 0L));
+
+  /**
+   * The createdAt of the last returned row.
+   */
+  private final Long createdAt;
+
+  /**
+   * The id of the last returned row.
+   */
+  private final UUID id;
+
+  /**
+   * Instantiates a new Cursor.
+   *
+   * @param createdAt the created at
+   * @param id the id
+   */
+  private Cursor(Long createdAt, UUID id) {
+    this.createdAt = createdAt;
+    this.id = id;
+  }
+
+  /**
+   * Build cursor for a row.
+   *
+   * @param createdAt the created at
+   * @param id the id
+   * @return the cursor
+   */
+  public static Cursor of(Long createdAt, UUID id) {
+    return new Cursor(createdAt, id);
+  }
+
+  /**
+   * Decode cursor from request, null or empty cursor means the first page.
+   *
+   * @param cursor the encoded cursor
+   * @return the cursor
+   */
+  public static Cursor decode(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return START;
+    }
+    try {
+      byte[] raw = Base64.getUrlDecoder().decode(cursor);
+      if (raw.length != RAW_LENGTH) {
+        throw new IllegalArgumentException("Invalid cursor length: " + raw.length);
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(raw);
+      return new Cursor(buffer.getLong(), new UUID(buffer.getLong(), buffer.getLong()));
+    } catch (IllegalArgumentException e) {
+      LOGGER.debug("Invalid cursor: {}.", cursor, e);
+      throw new ParametersException("Invalid cursor");
+    }
+  }
+
+  /**
+   * Encode cursor for response.
+   *
+   * @return the encoded cursor
+   */
+  public String encode() {
+    byte[] raw = ByteBuffer.allocate(RAW_LENGTH)
+        .putLong(createdAt)
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits())
+        .array();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+  }
+
+  /**
+   * Gets created at.
+   *
+   * @return the created at
+   */
+  public Long getCreatedAt() {
+    return createdAt;
+  }
+
+  /**
+   * Gets id.
+   *
+   * @return the id
+   */
+  public UUID getId() {
+    return id;
+  }
+
+  @Override
+  public String toString() {
+    return encode();
+  }
+}
@@ -0,0 +1,35 @@
+package com.umasuo.datapoint.infrastructure.reference;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A schema whose references to other stored data definitions are resolved.
+ */
+@Data
+public class ResolvedSchema implements Serializable {
+
+  /**
+   * auto generated serial id.
+   */
+  private static final long serialVersionUID = 8315716870423934151L;
+
+  /**
+   * The self contained schema.
+   */
+  private String schema;
+
+  /**
+   * Keys of the data definitions it includes, directly or not, see SchemaReference.key.
+   */
+  private Set<String> dependencies;
+
+  /**
+   * Generation of each dependency by key, read before its schema was loaded, null until set by
+   * the caller which caches it.
+   */
+  private Map<String, Long> generations;
+}
@@ -0,0 +1,112 @@
+package com.umasuo.datapoint.infrastructure.reference;
+
+import com.umasuo.datapoint.infrastructure.enums.DefinitionType;
+import com.umasuo.exception.ParametersException;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * A $ref to another stored data definition, datapoint://developer/{id} or
+ * datapoint://platform/{id}, optionally followed by a json pointer fragment.
+ */
+@Data
+public class SchemaReference implements Serializable {
+
+  /**
+   * auto generated serial id.
+   */
+  private static final long serialVersionUID = -3795519836461212058L;
+
+  /**
+   * Scheme of references to stored data definitions.
+   */
+  public static final String SCHEME = "datapoint://";
+
+  /**
+   * Type of the referenced data definition, developer or platform.
+   */
+  private DefinitionType type;
+
+  /**
+   * Id of the referenced data definition.
+   */
+  private UUID id;
+
+  /**
+   * Json pointer into the referenced schema, empty for the whole schema.
+   */
+  private String pointer;
+
+  /**
+   * Whether a $ref refers to another stored data definition.
+   *
+   * @param ref the $ref
+   * @return true if it does
+   */
+  public static boolean isStored(String ref) {
+    return ref.startsWith(SCHEME);
+  }
+
+  /**
+   * Parse a $ref to another stored data definition.
+   *
+   * @param ref the $ref
+   * @return the reference
+   */
+  public static SchemaReference parse(String ref) {
+    String path = ref.substring(SCHEME.length());
+    String pointer = "";
+    int hash = path.indexOf('#');
+    if (hash >= 0) {
+      pointer = path.substring(hash + 1);
+      path = path.substring(0, hash);
+    }
+
+    int slash = path.indexOf('/');
+    if (slash < 0 || (!pointer.isEmpty() && !pointer.startsWith("/"))) {
+      throw new ParametersException("Invalid data definition reference: " + ref);
+    }
+    SchemaReference reference = new SchemaReference();
+    switch (path.substring(0, slash)) {
+      case "developer":
+        reference.setType(DefinitionType.DEVELOPER);
+        break;
+      case "platform":
+        reference.setType(DefinitionType.PLATFORM);
+        break;
+      default:
+        throw new ParametersException("Invalid data definition reference: " + ref);
+    }
+    try {
+      reference.setId(UUID.fromString(path.substring(slash + 1)));
+    } catch (IllegalArgumentException e) {
+      throw new ParametersException("Invalid data definition reference: " + ref);
+    }
+    reference.setPointer(pointer);
+    return reference;
+  }
+
+  /**
+   * Key of the referenced data definition, e.g. developer-{id}, also its key in the definitions
+   * of a resolved schema.
+   *
+   * @return the key
+   */
+  public String definitionKey() {
+    return key(type, id);
+  }
+
+  /**
+   * Key of a data definition.
+   *
+   * @param type the type
+   * @param id the id
+   * @return the key
+   */
+  public static String key(DefinitionType type, UUID id) {
+    return type.name().toLowerCase() + "-" + id;
+  }
+}
@@ -0,0 +1,180 @@
+package com.umasuo.datapoint.infrastructure.reference;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Resolves $ref to other stored data definitions into one self contained schema.
+ * Each referenced schema is copied once under definitions/{type}-{id} of the root, the $ref is
+ * rewritten to point there, and local $ref of the copied schema are rewritten relative to its
+ * new place. Cycles between definitions therefore stay cycles of local $ref, instead of being
+ * inlined forever, and the result validates with any json schema validator.
+ */
+public final class SchemaResolver {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchemaResolver.class);
+
+  /**
+   * Max data definitions a schema may include, directly or not.
+   */
+  public static final int MAX_REFERENCED_DEFINITIONS = 32;
+
+  /**
+   * Json mapper.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * Instantiates a new Schema resolver.
+   */
+  private SchemaResolver() {
+  }
+
+  /**
+   * Whether a schema may refer to other stored data definitions, a cheap check which lets
+   * most schemas skip resolution.
+   *
+   * @param schema the schema
+   * @return true if it may
+   */
+  public static boolean hasReferences(String schema) {
+    return schema != null && schema.contains(SchemaReference.SCHEME);
+  }
+
+  /**
+   * Resolve the references of a schema.
+   *
+   * @param schema the schema
+   * @param loader loads the schema of a referenced data definition, throws if it does not exist
+   * @return the resolved schema
+   */
+  public static ResolvedSchema resolve(String schema, Function<SchemaReference, String> loader) {
+    ResolvedSchema result = new ResolvedSchema();
+    if (!hasReferences(schema)) {
+      result.setSchema(schema);
+      result.setDependencies(Collections.emptySet());
+      return result;
+    }
+
+    JsonNode root = read(schema);
+    Map<String, JsonNode> included = Maps.newLinkedHashMap();
+    rewrite(root, null, loader, included);
+
+    if (!included.isEmpty()) {
+      JsonNode definitions = root.get("definitions");
+      if (!root.isObject() || definitions != null && !definitions.isObject()) {
+        throw new ParametersException("DataSchema definitions should be an object.");
+      }
+      ObjectNode target = ((ObjectNode) root).with("definitions");
+      included.forEach(target::set);
+    }
+
+    LOGGER.debug("Resolved schema includes definitions: {}.", included.keySet());
+
+    result.setSchema(write(root));
+    result.setDependencies(ImmutableSet.copyOf(included.keySet()));
+    return result;
+  }
+
+  /**
+   * Rewrite the $ref of a node and its children.
+   *
+   * @param node the node
+   * @param base key of the included definition the node belongs to, null for the root schema
+   * @param loader the loader
+   * @param included definitions included so far, by key
+   */
+  private static void rewrite(JsonNode node, String base, Function<SchemaReference, String> loader,
+      Map<String, JsonNode> included) {
+    if (node.isObject()) {
+      JsonNode ref = node.get("$ref");
+      if (ref != null && ref.isTextual()) {
+        String value = ref.textValue();
+        if (SchemaReference.isStored(value)) {
+          SchemaReference reference = SchemaReference.parse(value);
+          include(reference, loader, included);
+          ((ObjectNode) node).put("$ref",
+              "#/definitions/" + reference.definitionKey() + reference.getPointer());
+        } else if (base != null && value.startsWith("#")) {
+          ((ObjectNode) node).put("$ref", "#/definitions/" + base + value.substring(1));
+        }
+      }
+    }
+    if (node.isContainerNode()) {
+      node.forEach(child -> rewrite(child, base, loader, included));
+    }
+  }
+
+  /**
+   * Include the schema of a referenced data definition, once.
+   *
+   * @param reference the reference
+   * @param loader the loader
+   * @param included definitions included so far, by key
+   */
+  private static void include(SchemaReference reference, Function<SchemaReference, String> loader,
+      Map<String, JsonNode> included) {
+    String key = reference.definitionKey();
+    if (included.containsKey(key)) {
+      return;
+    }
+    if (included.size() >= MAX_REFERENCED_DEFINITIONS) {
+      throw new ParametersException("DataSchema refers to more data definitions than "
+          + MAX_REFERENCED_DEFINITIONS);
+    }
+
+    JsonNode schema = read(loader.apply(reference));
+    if (schema.isObject()) {
+      // id 和 $schema 只对根有意义, 留着会改变本地 $ref 的解析范围
+      ((ObjectNode) schema).remove("id");
+      ((ObjectNode) schema).remove("$schema");
+    }
+    // 先放入再展开, 循环引用到这里就停止
+    included.put(key, schema);
+    rewrite(schema, key, loader, included);
+  }
+
+  /**
+   * Parse a schema.
+   *
+   * @param schema the schema
+   * @return the node
+   */
+  private static JsonNode read(String schema) {
+    try {
+      return MAPPER.readTree(schema);
+    } catch (IOException e) {
+      LOGGER.trace("Schema is not valid json.", e);
+      throw new ParametersException("DataSchema is not valid json.");
+    }
+  }
+
+  /**
+   * Serialize a schema.
+   *
+   * @param schema the node
+   * @return the schema
+   */
+  private static String write(JsonNode schema) {
+    try {
+      return MAPPER.writeValueAsString(schema);
+    } catch (IOException e) {
+      throw new ParametersException("DataSchema can not be serialized.");
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.google.common.collect.Lists;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
+import com.umasuo.exception.ParametersException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+/**
+ * Builds one {@code UPDATE ... WHERE id = ? AND version = ? RETURNING *} of only the changed
+ * columns, so an update needs no read before the write.
+ * Null values are written as a {@code NULL} literal instead of a bound parameter, since Hibernate
+ * binds an untyped null of a native query as bytea and Postgres rejects it for other columns.
+ * An empty change set writes nothing and keeps the version, the matching row is only selected.
+ */
+final class ConditionalUpdates {
+
+  /**
+   * Instantiates a new Conditional updates.
+   */
+  private ConditionalUpdates() {
+  }
+
+  /**
+   * Run the conditional update.
+   *
+   * @param entityManager the entity manager
+   * @param entityClass the entity class
+   * @param table the table
+   * @param columns columns allowed to be updated
+   * @param changes the changes
+   * @param conditions column to value, all must match, must contain id and version, a null
+   *     value matches null
+   * @param <T> the entity type
+   * @return the updated entity, or the matching entity if there is no change, or null if no row
+   *     matched
+   */
+  @SuppressWarnings("unchecked")
+  static <T> T update(EntityManager entityManager, Class<T> entityClass, String table,
+      Set<String> columns, ChangeSet changes, Map<String, Object> conditions) {
+    StringBuilder sql = new StringBuilder();
+    List<Object> parameters = Lists.newArrayList();
+
+    if (changes.isEmpty()) {
+      // nothing to write, a version bump would only conflict concurrent updates
+      sql.append("SELECT * FROM ").append(table).append(" WHERE ");
+    } else {
+      sql.append("UPDATE ").append(table).append(" SET ");
+      changes.getChanges().forEach((column, value) -> {
+        if (!columns.contains(column)) {
+          throw new ParametersException("Column can not be updated: " + column);
+        }
+        if (value == null) {
+          sql.append(column).append(" = NULL, ");
+        } else {
+          sql.append(column).append(" = ?, ");
+          parameters.add(value);
+        }
+      });
+      sql.append("version = version + 1, last_modified_at = ? WHERE ");
+      parameters.add(System.currentTimeMillis());
+    }
+
+    String separator = "";
+    for (Map.Entry<String, Object> condition : conditions.entrySet()) {
+      sql.append(separator).append(condition.getKey());
+      if (condition.getValue() == null) {
+        sql.append(" IS NULL");
+      } else {
+        sql.append(" = ?");
+        parameters.add(condition.getValue());
+      }
+      separator = " AND ";
+    }
+    if (!changes.isEmpty()) {
+      sql.append(" RETURNING *");
+    }
+
+    Query query = entityManager.createNativeQuery(sql.toString(), entityClass);
+    for (int i = 0; i < parameters.size(); i++) {
+      query.setParameter(i + 1, parameters.get(i));
+    }
+
+    List<T> result = query.getResultList();
+
+    return result.isEmpty() ? null : result.get(0);
+  }
+}
@@ -1,14 +1,144 @@
 package com.umasuo.datapoint.infrastructure.repository;
 
+import static com.umasuo.datapoint.infrastructure.repository.RepositoryHints.EXPORT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
 /**
  * Created by umasuo on 17/2/10.
+ * The table is hash partitioned by developer_id, queries of one developer must filter on
+ * developer_id so that only one partition is touched.
  */
 @Repository
-public interface DataDefinitionRepository extends JpaRepository<DeviceDataDefinition, String> {
+public interface DataDefinitionRepository extends JpaRepository<DeviceDataDefinition, UUID>,
+    DataDefinitionRepositoryCustom {
+
+  /**
+   * Find one page of a product's data definitions after the cursor (createdAt, id).
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param createdAt the cursor created at
+   * @param id the cursor id
+   * @param pageable the pageable, only the page size is used
+   * @return the list
+   */
+  @Query("select d from DeviceDataDefinition d where d.developerId = ?1 and d.productId = ?2"
+      + " and (d.createdAt > ?3 or (d.createdAt = ?3 and d.id > ?4))"
+      + " order by d.createdAt asc, d.id asc")
+  List<DeviceDataDefinition> findPageByProduct(String developerId, String productId,
+      Long createdAt, UUID id, Pageable pageable);
+
+  /**
+   * Find one page of a developer's open data definitions after the cursor (createdAt, id).
+   *
+   * @param developerId the developer id
+   * @param createdAt the cursor created at
+   * @param id the cursor id
+   * @param pageable the pageable, only the page size is used
+   * @return the list
+   */
+  @Query("select d from DeviceDataDefinition d where d.developerId = ?1 and d.openable = true"
+      + " and (d.createdAt > ?2 or (d.createdAt = ?2 and d.id > ?3))"
+      + " order by d.createdAt asc, d.id asc")
+  List<DeviceDataDefinition> findOpenPage(String developerId, Long createdAt, UUID id,
+      Pageable pageable);
+
+  /**
+   * Stream all data definitions of a developer through a server side cursor.
+   *
+   * @param developerId the developer id
+   * @return the stream, must be consumed in a transaction and closed
+   */
+  @QueryHints({
+      @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+      @QueryHint(name = HINT_READONLY, value = "true")})
+  @Query("select d from DeviceDataDefinition d where d.developerId = ?1")
+  Stream<DeviceDataDefinition> streamByDeveloperId(String developerId);
+
+  /**
+   * Stream all data definitions through a server side cursor.
+   *
+   * @return the stream, must be consumed in a transaction and closed
+   */
+  @QueryHints({
+      @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+      @QueryHint(name = HINT_READONLY, value = "true")})
+  @Query("select d from DeviceDataDefinition d")
+  Stream<DeviceDataDefinition> streamAll();
+
+  /**
+   * Find (productId, dataId, name) of existing definitions that may conflict with new ones,
+   * callers match the exact pairs.
+   *
+   * @param developerId the developer id
+   * @param productIds the product ids
+   * @param dataIds the data ids
+   * @param names the names
+   * @return rows of [productId, dataId, name]
+   */
+  @Query("select d.productId, d.dataId, d.name from DeviceDataDefinition d"
+      + " where d.developerId = ?1 and d.productId in ?2 and (d.dataId in ?3 or d.name in ?4)")
+  List<Object[]> findKeys(String developerId, Collection<String> productIds,
+      Collection<String> dataIds, Collection<String> names);
+
+  /**
+   * Find one data definition of a developer.
+   *
+   * @param developerId the developer id
+   * @param id the id
+   * @return the data definition, or null
+   */
+  DeviceDataDefinition findOneByDeveloperIdAndId(String developerId, UUID id);
+
+  /**
+   * Find data definitions of a developer by ids.
+   *
+   * @param developerId the developer id
+   * @param ids the ids
+   * @return the data definitions found, in no particular order
+   */
+  List<DeviceDataDefinition> findByDeveloperIdAndIdIn(String developerId, Collection<UUID> ids);
+
+  /**
+   * Tombstone one data definition of a developer in one statement.
+   *
+   * @param developerId the developer id
+   * @param id the id
+   * @param deletedAt the delete time
+   * @return tombstoned row count
+   */
+  @Modifying
+  @Query("update DeviceDataDefinition d set d.deletedAt = ?3, d.lastModifiedAt = ?3"
+      + " where d.developerId = ?1 and d.id = ?2 and d.deletedAt is null")
+  int softDelete(String developerId, UUID id, Long deletedAt);
 
+  /**
+   * Tombstone all data definitions of a product in one statement, rows are purged later.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param deletedAt the delete time
+   * @return tombstoned row count
+   */
+  @Modifying
+  @Query("update DeviceDataDefinition d set d.deletedAt = ?3, d.lastModifiedAt = ?3"
+      + " where d.developerId = ?1 and d.productId = ?2 and d.deletedAt is null")
+  int softDeleteByProduct(String developerId, String productId, Long deletedAt);
 }
@@ -0,0 +1,73 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hand written sql of DeviceDataDefinition.
+ */
+public interface DataDefinitionRepositoryCustom {
+
+  /**
+   * Load rows through the Postgres COPY protocol, ids and audit fields must be filled already.
+   *
+   * @param dataDefinitions the data definitions
+   */
+  void copyIn(List<DeviceDataDefinition> dataDefinitions);
+
+  /**
+   * Insert the row unless it conflicts with a unique constraint, in one statement.
+   * Id and audit fields must be filled already.
+   *
+   * @param dataDefinition the data definition
+   * @return true if inserted, false if conflicted
+   */
+  boolean insertIfAbsent(DeviceDataDefinition dataDefinition);
+
+  /**
+   * Update only the changed columns in one statement if the version matches, version is
+   * increased by one.
+   *
+   * @param developerId the developer id
+   * @param id the id
+   * @param version the expected version
+   * @param changes the changes
+   * @return the updated data definition, or null if no row matched
+   */
+  DeviceDataDefinition updateIfVersion(String developerId, UUID id, Integer version,
+      ChangeSet changes);
+
+  /**
+   * Write the updatable columns of each row in one JDBC batch of conditional UPDATEs, a row is
+   * only written if its version in the database is still the version it holds, and its version
+   * is increased by one in the database only.
+   *
+   * @param dataDefinitions the changed data definitions
+   * @return updated row count of each data definition, 0 if the version did not match
+   */
+  int[] updateAll(List<DeviceDataDefinition> dataDefinitions);
+
+  /**
+   * Delete one batch of rows tombstoned before the given time, rows locked by another purger
+   * are skipped.
+   *
+   * @param deletedBefore tombstoned before this time
+   * @param batchSize the batch size
+   * @return deleted row count
+   */
+  int purgeDeleted(long deletedBefore, int batchSize);
+
+  /**
+   * Reserve count consecutive data aliases of a product, the counter row stays locked until
+   * the transaction ends, so aliases are handed out in order and rolled back with it.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param count the count
+   * @return the first reserved alias
+   */
+  int reserveAliases(String developerId, String productId, int count);
+}
@@ -0,0 +1,292 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.umasuo.datapoint.domain.model.DeviceDataDefinition;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+
+/**
+ * Implementation of DataDefinitionRepositoryCustom, joins the current transaction.
+ */
+public class DataDefinitionRepositoryImpl implements DataDefinitionRepositoryCustom {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DataDefinitionRepositoryImpl.class);
+
+  /**
+   * Copy sql, column order must match {@link #appendRow(StringBuilder, DeviceDataDefinition)}.
+   */
+  private static final String COPY_SQL = "COPY device_data_definition (id, created_at,"
+      + " last_modified_at, version, developer_id, product_id, data_id, data_alias, data_schema,"
+      + " schema_ref, name, description, openable, category) FROM STDIN WITH (FORMAT csv)";
+
+  /**
+   * Table name.
+   */
+  private static final String TABLE = "device_data_definition";
+
+  /**
+   * Columns which update actions may change.
+   */
+  private static final Set<String> UPDATABLE_COLUMNS = ImmutableSet.of(
+      ChangeSet.DATA_ID, ChangeSet.DATA_SCHEMA, ChangeSet.SCHEMA_REF, ChangeSet.NAME,
+      ChangeSet.DESCRIPTION, ChangeSet.OPENABLE);
+
+  /**
+   * Insert sql, conflicts on any unique constraint insert nothing.
+   */
+  private static final String INSERT_SQL = "INSERT INTO device_data_definition (id, created_at,"
+      + " last_modified_at, version, developer_id, product_id, data_id, data_alias, data_schema,"
+      + " schema_ref, name, description, openable, category)"
+      + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+  /**
+   * Batch update sql, writes every updatable column of a row if its version still matches.
+   */
+  private static final String UPDATE_ALL_SQL = "UPDATE device_data_definition SET data_id = ?,"
+      + " data_schema = ?, schema_ref = ?, name = ?, description = ?, openable = ?,"
+      + " version = version + 1, last_modified_at = ?"
+      + " WHERE developer_id = ? AND id = ? AND version = ? AND deleted_at IS NULL";
+
+  /**
+   * Alias reservation sql, returns the next alias after the reserved ones.
+   */
+  private static final String RESERVE_ALIAS_SQL = "INSERT INTO data_alias_sequence"
+      + " (developer_id, product_id, next_alias) VALUES (?, ?, ?)"
+      + " ON CONFLICT (developer_id, product_id)"
+      + " DO UPDATE SET next_alias = data_alias_sequence.next_alias + EXCLUDED.next_alias"
+      + " RETURNING next_alias";
+
+  /**
+   * Purge sql, deletes one batch of tombstoned rows.
+   */
+  private static final String PURGE_SQL = "DELETE FROM device_data_definition"
+      + " WHERE (developer_id, id) IN (SELECT developer_id, id FROM device_data_definition"
+      + " WHERE deleted_at < ? LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+  /**
+   * Translate SQLException to spring DataAccessException.
+   */
+  private static final SQLExceptionTranslator EXCEPTION_TRANSLATOR =
+      new SQLStateSQLExceptionTranslator();
+
+  /**
+   * Data source.
+   */
+  @Autowired
+  private transient DataSource dataSource;
+
+  /**
+   * Jdbc template.
+   */
+  @Autowired
+  private transient JdbcTemplate jdbcTemplate;
+
+  /**
+   * Entity manager.
+   */
+  @PersistenceContext
+  private transient EntityManager entityManager;
+
+  /**
+   * Insert unless conflicted.
+   *
+   * @param data the data definition
+   * @return true if inserted
+   */
+  @Override
+  public boolean insertIfAbsent(DeviceDataDefinition data) {
+    LOGGER.debug("Enter. dataDefinition: {}.", data);
+
+    int count = jdbcTemplate.update(INSERT_SQL, data.getId(), data.getCreatedAt(),
+        data.getLastModifiedAt(), data.getVersion(), data.getDeveloperId(), data.getProductId(),
+        data.getDataId(), data.getDataAlias(), data.inlineSchema(), data.getSchemaRef(),
+        data.getName(), data.getDescription(), data.getOpenable(),
+        data.getCategory() == null ? null : data.getCategory().ordinal());
+
+    LOGGER.debug("Exit. inserted? {}.", count > 0);
+
+    return count > 0;
+  }
+
+  /**
+   * Load rows through COPY.
+   *
+   * @param dataDefinitions the data definitions
+   */
+  @Override
+  public void copyIn(List<DeviceDataDefinition> dataDefinitions) {
+    LOGGER.debug("Enter. dataDefinition size: {}.", dataDefinitions.size());
+
+    StringBuilder csv = new StringBuilder();
+    dataDefinitions.forEach(dataDefinition -> appendRow(csv, dataDefinition));
+
+    Connection connection = DataSourceUtils.getConnection(dataSource);
+    try {
+      long count = connection.unwrap(PGConnection.class).getCopyAPI()
+          .copyIn(COPY_SQL, new StringReader(csv.toString()));
+
+      LOGGER.debug("Exit. copied size: {}.", count);
+    } catch (SQLException e) {
+      throw EXCEPTION_TRANSLATOR.translate("copyIn", COPY_SQL, e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      DataSourceUtils.releaseConnection(connection, dataSource);
+    }
+  }
+
+  /**
+   * Append one csv row.
+   *
+   * @param csv the csv
+   * @param data the data definition
+   */
+  private void appendRow(StringBuilder csv, DeviceDataDefinition data) {
+    appendField(csv, data.getId()).append(',');
+    appendField(csv, data.getCreatedAt()).append(',');
+    appendField(csv, data.getLastModifiedAt()).append(',');
+    appendField(csv, data.getVersion()).append(',');
+    appendField(csv, data.getDeveloperId()).append(',');
+    appendField(csv, data.getProductId()).append(',');
+    appendField(csv, data.getDataId()).append(',');
+    appendField(csv, data.getDataAlias()).append(',');
+    appendField(csv, data.inlineSchema()).append(',');
+    appendField(csv, data.getSchemaRef()).append(',');
+    appendField(csv, data.getName()).append(',');
+    appendField(csv, data.getDescription()).append(',');
+    appendField(csv, data.getOpenable()).append(',');
+    appendField(csv, data.getCategory() == null ? null : data.getCategory().ordinal())
+        .append('\n');
+  }
+
+  /**
+   * Append one csv field, null is written as an unquoted empty field which COPY reads as NULL.
+   *
+   * @param csv the csv
+   * @param value the value
+   * @return the csv
+   */
+  private StringBuilder appendField(StringBuilder csv, Object value) {
+    if (value != null) {
+      csv.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+    }
+    return csv;
+  }
+
+  /**
+   * Update only the changed columns if the version matches.
+   *
+   * @param developerId the developer id
+   * @param id the id
+   * @param version the expected version
+   * @param changes the changes
+   * @return the updated data definition, or null if no row matched
+   */
+  @Override
+  public DeviceDataDefinition updateIfVersion(String developerId, UUID id, Integer version,
+      ChangeSet changes) {
+    LOGGER.debug("Enter. developerId: {}, id: {}, version: {}, changes: {}.",
+        developerId, id, version, changes);
+
+    Map<String, Object> conditions = Maps.newLinkedHashMap();
+    conditions.put("id", id);
+    conditions.put("version", version);
+    conditions.put("developer_id", developerId);
+    conditions.put("deleted_at", null);
+
+    DeviceDataDefinition result = ConditionalUpdates.update(entityManager,
+        DeviceDataDefinition.class, TABLE, UPDATABLE_COLUMNS, changes, conditions);
+
+    LOGGER.debug("Exit. updated? {}.", result != null);
+
+    return result;
+  }
+
+  /**
+   * Update rows in one batch.
+   *
+   * @param dataDefinitions the changed data definitions
+   * @return updated row counts
+   */
+  @Override
+  public int[] updateAll(List<DeviceDataDefinition> dataDefinitions) {
+    LOGGER.debug("Enter. dataDefinition size: {}.", dataDefinitions.size());
+
+    List<Object[]> rows = dataDefinitions.stream()
+        .map(data -> new Object[]{data.getDataId(), data.inlineSchema(), data.getSchemaRef(),
+            data.getName(), data.getDescription(), data.getOpenable(), data.getLastModifiedAt(),
+            data.getDeveloperId(), data.getId(), data.getVersion()})
+        .collect(Collectors.toList());
+    int[] counts = jdbcTemplate.batchUpdate(UPDATE_ALL_SQL, rows);
+
+    LOGGER.debug("Exit.");
+
+    return counts;
+  }
+
+  /**
+   * Reserve consecutive data aliases of a product.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @param count the count
+   * @return the first reserved alias
+   */
+  @Override
+  public int reserveAliases(String developerId, String productId, int count) {
+    LOGGER.debug("Enter. developerId: {}, productId: {}, count: {}.",
+        developerId, productId, count);
+
+    int next = jdbcTemplate.queryForObject(RESERVE_ALIAS_SQL, Integer.class, developerId,
+        productId, count);
+
+    LOGGER.debug("Exit. first alias: {}.", next - count);
+
+    return next - count;
+  }
+
+  /**
+   * Delete one batch of tombstoned rows.
+   *
+   * @param deletedBefore tombstoned before this time
+   * @param batchSize the batch size
+   * @return deleted row count
+   */
+  @Override
+  public int purgeDeleted(long deletedBefore, int batchSize) {
+    LOGGER.debug("Enter. deletedBefore: {}, batchSize: {}.", deletedBefore, batchSize);
+
+    int count = jdbcTemplate.update(PURGE_SQL, deletedBefore, batchSize);
+
+    LOGGER.debug("Exit. purged size: {}.", count);
+
+    return count;
+  }
+}
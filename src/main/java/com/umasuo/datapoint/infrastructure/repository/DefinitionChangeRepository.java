@@ -0,0 +1,40 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.DefinitionChange;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Change feed repository.
+ */
+@Repository
+public interface DefinitionChangeRepository extends JpaRepository<DefinitionChange, Long>,
+    DefinitionChangeRepositoryCustom {
+
+  /**
+   * Find changes after a sequence number.
+   *
+   * @param since the sequence number
+   * @param pageable the pageable, only the page size is used
+   * @return the changes ordered by seq
+   */
+  @Query("select c from DefinitionChange c where c.seq > ?1 order by c.seq asc")
+  List<DefinitionChange> findSince(Long since, Pageable pageable);
+
+  /**
+   * Find changes of a developer after a sequence number.
+   *
+   * @param developerId the developer id
+   * @param since the sequence number
+   * @param pageable the pageable, only the page size is used
+   * @return the changes ordered by seq
+   */
+  @Query("select c from DefinitionChange c where c.developerId = ?1 and c.seq > ?2"
+      + " order by c.seq asc")
+  List<DefinitionChange> findSince(String developerId, Long since, Pageable pageable);
+}
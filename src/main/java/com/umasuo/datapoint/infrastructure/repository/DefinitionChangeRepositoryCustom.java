@@ -0,0 +1,18 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.DefinitionChange;
+
+/**
+ * Hand written sql of DefinitionChange.
+ */
+public interface DefinitionChangeRepositoryCustom {
+
+  /**
+   * Append a change in the current transaction, it is written just before the commit. Writes
+   * are serialized from then until commit, so sequence numbers become visible in order and a
+   * reader never skips a later committed one.
+   *
+   * @param change the change
+   */
+  void append(DefinitionChange change);
+}
@@ -0,0 +1,91 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.google.common.collect.Lists;
+import com.umasuo.datapoint.domain.model.DefinitionChange;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Implementation of DefinitionChangeRepositoryCustom, must run in a transaction.
+ * Changes are buffered and written just before the transaction commits, under an advisory lock
+ * held until the commit, so seq increases in commit order while the lock only serializes the
+ * commits, not the whole transactions, of all developers on the shard.
+ */
+public class DefinitionChangeRepositoryImpl implements DefinitionChangeRepositoryCustom {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(DefinitionChangeRepositoryImpl.class);
+
+  /**
+   * Transaction level advisory lock, released on commit or rollback.
+   */
+  private static final String LOCK_SQL = "SELECT 1 FROM pg_advisory_xact_lock(?)";
+
+  /**
+   * Advisory lock key of the change feed.
+   */
+  private static final long LOCK_KEY = 0x6368616e6765L;
+
+  /**
+   * Entity manager.
+   */
+  @PersistenceContext
+  private transient EntityManager entityManager;
+
+  /**
+   * Append a change, written when the transaction commits.
+   *
+   * @param change the change
+   */
+  @Override
+  public void append(DefinitionChange change) {
+    LOGGER.debug("Enter. change: {}.", change);
+
+    PendingChanges pending = null;
+    for (TransactionSynchronization synchronization
+        : TransactionSynchronizationManager.getSynchronizations()) {
+      if (synchronization instanceof PendingChanges) {
+        pending = (PendingChanges) synchronization;
+      }
+    }
+    if (pending == null) {
+      pending = new PendingChanges();
+      TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+    pending.changes.add(change);
+
+    LOGGER.debug("Exit. pending size: {}.", pending.changes.size());
+  }
+
+  /**
+   * Changes of the current transaction, written before it commits.
+   */
+  private final class PendingChanges extends TransactionSynchronizationAdapter {
+
+    /**
+     * The changes, in append order.
+     */
+    private final List<DefinitionChange> changes = Lists.newArrayList();
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      entityManager.createNativeQuery(LOCK_SQL).setParameter(1, LOCK_KEY).getSingleResult();
+      changes.forEach(entityManager::persist);
+      entityManager.flush();
+
+      LOGGER.debug("Changes written, last seq: {}.", changes.get(changes.size() - 1).getSeq());
+    }
+  }
+}
@@ -1,12 +1,52 @@
 package com.umasuo.datapoint.infrastructure.repository;
 
+import static com.umasuo.datapoint.infrastructure.repository.RepositoryHints.EXPORT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 /**
  * Created by Davis on 17/6/30.
  */
-public interface DeveloperDataRepository extends JpaRepository<DeveloperDataDefinition, String> {
+public interface DeveloperDataRepository extends JpaRepository<DeveloperDataDefinition, UUID>,
+    DeveloperDataRepositoryCustom {
+
+  /**
+   * Find one page of a developer's data definitions after the cursor (createdAt, id).
+   *
+   * @param developerId the developer id
+   * @param createdAt the cursor created at
+   * @param id the cursor id
+   * @param pageable the pageable, only the page size is used
+   * @return the list
+   */
+  @Query("select d from DeveloperDataDefinition d where d.developerId = ?1"
+      + " and (d.createdAt > ?2 or (d.createdAt = ?2 and d.id > ?3))"
+      + " order by d.createdAt asc, d.id asc")
+  List<DeveloperDataDefinition> findPage(String developerId, Long createdAt, UUID id,
+      Pageable pageable);
 
+  /**
+   * Stream all data definitions of a developer through a server side cursor.
+   *
+   * @param developerId the developer id
+   * @return the stream, must be consumed in a transaction and closed
+   */
+  @QueryHints({
+      @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+      @QueryHint(name = HINT_READONLY, value = "true")})
+  @Query("select d from DeveloperDataDefinition d where d.developerId = ?1")
+  Stream<DeveloperDataDefinition> streamByDeveloperId(String developerId);
 }
@@ -0,0 +1,18 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
+
+/**
+ * Hand written sql of DeveloperDataDefinition.
+ */
+public interface DeveloperDataRepositoryCustom {
+
+  /**
+   * Insert the row unless it conflicts with a unique constraint, in one statement.
+   * Id and audit fields must be filled already.
+   *
+   * @param dataDefinition the data definition
+   * @return true if inserted, false if conflicted
+   */
+  boolean insertIfAbsent(DeveloperDataDefinition dataDefinition);
+}
@@ -0,0 +1,51 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.DeveloperDataDefinition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Implementation of DeveloperDataRepositoryCustom, joins the current transaction.
+ */
+public class DeveloperDataRepositoryImpl implements DeveloperDataRepositoryCustom {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DeveloperDataRepositoryImpl.class);
+
+  /**
+   * Insert sql, conflicts on any unique constraint insert nothing.
+   */
+  private static final String INSERT_SQL = "INSERT INTO developer_data_definition (id, created_at,"
+      + " last_modified_at, version, developer_id, data_id, data_schema, schema_ref, name,"
+      + " description) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+  /**
+   * Jdbc template.
+   */
+  @Autowired
+  private transient JdbcTemplate jdbcTemplate;
+
+  /**
+   * Insert unless conflicted.
+   *
+   * @param data the data definition
+   * @return true if inserted
+   */
+  @Override
+  public boolean insertIfAbsent(DeveloperDataDefinition data) {
+    LOGGER.debug("Enter. dataDefinition: {}.", data);
+
+    int count = jdbcTemplate.update(INSERT_SQL, data.getId(), data.getCreatedAt(),
+        data.getLastModifiedAt(), data.getVersion(), data.getDeveloperId(), data.getDataId(),
+        data.inlineSchema(), data.getSchemaRef(), data.getName(), data.getDescription());
+
+    LOGGER.debug("Exit. inserted? {}.", count > 0);
+
+    return count > 0;
+  }
+}
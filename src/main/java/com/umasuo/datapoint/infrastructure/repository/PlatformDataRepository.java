@@ -1,11 +1,49 @@
 package com.umasuo.datapoint.infrastructure.repository;
 
+import static com.umasuo.datapoint.infrastructure.repository.RepositoryHints.EXPORT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.umasuo.datapoint.domain.model.PlatformDataDefinition;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 /**
  * Created by umasuo on 17/2/10.
  */
-public interface PlatformDataRepository extends JpaRepository<PlatformDataDefinition, String> {
+public interface PlatformDataRepository extends JpaRepository<PlatformDataDefinition, UUID>,
+    PlatformDataRepositoryCustom {
+
+  /**
+   * Find one page of platform data definitions after the cursor (createdAt, id).
+   *
+   * @param createdAt the cursor created at
+   * @param id the cursor id
+   * @param pageable the pageable, only the page size is used
+   * @return the list
+   */
+  @Query("select d from PlatformDataDefinition d"
+      + " where d.createdAt > ?1 or (d.createdAt = ?1 and d.id > ?2)"
+      + " order by d.createdAt asc, d.id asc")
+  List<PlatformDataDefinition> findPage(Long createdAt, UUID id, Pageable pageable);
+
+  /**
+   * Stream all platform data definitions through a server side cursor.
+   *
+   * @return the stream, must be consumed in a transaction and closed
+   */
+  @QueryHints({
+      @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+      @QueryHint(name = HINT_READONLY, value = "true")})
+  @Query("select d from PlatformDataDefinition d")
+  Stream<PlatformDataDefinition> streamAll();
 }
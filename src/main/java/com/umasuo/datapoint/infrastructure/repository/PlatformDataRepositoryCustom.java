@@ -0,0 +1,32 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.PlatformDataDefinition;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
+
+import java.util.UUID;
+
+/**
+ * Hand written sql of PlatformDataDefinition.
+ */
+public interface PlatformDataRepositoryCustom {
+
+  /**
+   * Insert the row unless it conflicts with a unique constraint, in one statement.
+   * Id and audit fields must be filled already.
+   *
+   * @param dataDefinition the data definition
+   * @return true if inserted, false if conflicted
+   */
+  boolean insertIfAbsent(PlatformDataDefinition dataDefinition);
+
+  /**
+   * Update only the changed columns in one statement if the version matches, version is
+   * increased by one.
+   *
+   * @param id the id
+   * @param version the expected version
+   * @param changes the changes
+   * @return the updated data definition, or null if no row matched
+   */
+  PlatformDataDefinition updateIfVersion(UUID id, Integer version, ChangeSet changes);
+}
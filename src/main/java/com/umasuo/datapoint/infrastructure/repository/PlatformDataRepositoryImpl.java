@@ -0,0 +1,102 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.umasuo.datapoint.domain.model.PlatformDataDefinition;
+import com.umasuo.datapoint.infrastructure.update.ChangeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Implementation of PlatformDataRepositoryCustom, joins the current transaction.
+ */
+public class PlatformDataRepositoryImpl implements PlatformDataRepositoryCustom {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PlatformDataRepositoryImpl.class);
+
+  /**
+   * Table name.
+   */
+  private static final String TABLE = "platform_data_definition";
+
+  /**
+   * Columns which update actions may change.
+   */
+  private static final Set<String> UPDATABLE_COLUMNS = ImmutableSet.of(
+      ChangeSet.DATA_SCHEMA, ChangeSet.SCHEMA_REF, ChangeSet.NAME, ChangeSet.DESCRIPTION);
+
+  /**
+   * Insert sql, conflicts on any unique constraint insert nothing.
+   */
+  private static final String INSERT_SQL = "INSERT INTO platform_data_definition (id, created_at,"
+      + " last_modified_at, version, product_type_id, data_id, data_schema, schema_ref, name,"
+      + " description) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+  /**
+   * Jdbc template.
+   */
+  @Autowired
+  private transient JdbcTemplate jdbcTemplate;
+
+  /**
+   * Entity manager.
+   */
+  @PersistenceContext
+  private transient EntityManager entityManager;
+
+  /**
+   * Insert unless conflicted.
+   *
+   * @param data the data definition
+   * @return true if inserted
+   */
+  @Override
+  public boolean insertIfAbsent(PlatformDataDefinition data) {
+    LOGGER.debug("Enter. dataDefinition: {}.", data);
+
+    int count = jdbcTemplate.update(INSERT_SQL, data.getId(), data.getCreatedAt(),
+        data.getLastModifiedAt(), data.getVersion(), data.getProductTypeId(), data.getDataId(),
+        data.inlineSchema(), data.getSchemaRef(), data.getName(), data.getDescription());
+
+    LOGGER.debug("Exit. inserted? {}.", count > 0);
+
+    return count > 0;
+  }
+
+  /**
+   * Update only the changed columns if the version matches.
+   *
+   * @param id the id
+   * @param version the expected version
+   * @param changes the changes
+   * @return the updated data definition, or null if no row matched
+   */
+  @Override
+  public PlatformDataDefinition updateIfVersion(UUID id, Integer version, ChangeSet changes) {
+    LOGGER.debug("Enter. id: {}, version: {}, changes: {}.", id, version, changes);
+
+    Map<String, Object> conditions = Maps.newLinkedHashMap();
+    conditions.put("id", id);
+    conditions.put("version", version);
+
+    PlatformDataDefinition result = ConditionalUpdates.update(entityManager,
+        PlatformDataDefinition.class, TABLE, UPDATABLE_COLUMNS, changes, conditions);
+
+    LOGGER.debug("Exit. updated? {}.", result != null);
+
+    return result;
+  }
+}
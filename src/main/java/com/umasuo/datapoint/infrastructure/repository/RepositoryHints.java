@@ -0,0 +1,18 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+/**
+ * Shared query hint values.
+ */
+public final class RepositoryHints {
+
+  /**
+   * Rows fetched per round trip by export cursors, keeps memory flat for big exports.
+   */
+  public static final String EXPORT_FETCH_SIZE = "500";
+
+  /**
+   * Instantiates a new Repository hints.
+   */
+  private RepositoryHints() {
+  }
+}
@@ -0,0 +1,27 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.SchemaBlob;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Out of line schema repository.
+ */
+@Repository
+public interface SchemaBlobRepository extends JpaRepository<SchemaBlob, String>,
+    SchemaBlobRepositoryCustom {
+
+  /**
+   * Find compressed contents without putting the blobs into the persistence context.
+   *
+   * @param hashes the hashes
+   * @return rows of [hash, content]
+   */
+  @Query("select b.hash, b.content from SchemaBlob b where b.hash in ?1")
+  List<Object[]> findContents(Collection<String> hashes);
+}
@@ -0,0 +1,27 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+/**
+ * Hand written sql of SchemaBlob.
+ */
+public interface SchemaBlobRepositoryCustom {
+
+  /**
+   * Insert the blob, or only refresh createdAt if the same schema is stored already, so a
+   * concurrent orphan purge does not take it.
+   *
+   * @param hash the hash
+   * @param content the compressed schema
+   * @param length the uncompressed length
+   * @param now the current time
+   */
+  void upsert(String hash, byte[] content, int length, long now);
+
+  /**
+   * Delete one batch of blobs written before the given time that no data definition refers to.
+   *
+   * @param createdBefore written before this time
+   * @param batchSize the batch size
+   * @return deleted blob count
+   */
+  int purgeOrphans(long createdBefore, int batchSize);
+}
@@ -0,0 +1,76 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Implementation of SchemaBlobRepositoryCustom, joins the current transaction.
+ */
+public class SchemaBlobRepositoryImpl implements SchemaBlobRepositoryCustom {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchemaBlobRepositoryImpl.class);
+
+  /**
+   * Upsert sql, an existing blob has the same content so only createdAt is refreshed.
+   */
+  private static final String UPSERT_SQL = "INSERT INTO schema_blob (hash, content, length,"
+      + " created_at) VALUES (?, ?, ?, ?)"
+      + " ON CONFLICT (hash) DO UPDATE SET created_at = EXCLUDED.created_at";
+
+  /**
+   * Purge sql, deleted rows of device data definitions still refer to their blob until purged.
+   */
+  private static final String PURGE_SQL = "DELETE FROM schema_blob WHERE hash IN"
+      + " (SELECT b.hash FROM schema_blob b WHERE b.created_at < ?"
+      + " AND NOT EXISTS (SELECT 1 FROM device_data_definition d WHERE d.schema_ref = b.hash)"
+      + " AND NOT EXISTS (SELECT 1 FROM developer_data_definition d WHERE d.schema_ref = b.hash)"
+      + " AND NOT EXISTS (SELECT 1 FROM platform_data_definition d WHERE d.schema_ref = b.hash)"
+      + " LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+  /**
+   * Jdbc template.
+   */
+  @Autowired
+  private transient JdbcTemplate jdbcTemplate;
+
+  /**
+   * Insert or refresh the blob.
+   *
+   * @param hash the hash
+   * @param content the compressed schema
+   * @param length the uncompressed length
+   * @param now the current time
+   */
+  @Override
+  public void upsert(String hash, byte[] content, int length, long now) {
+    LOGGER.debug("Enter. hash: {}, length: {}, compressed length: {}.",
+        hash, length, content.length);
+
+    jdbcTemplate.update(UPSERT_SQL, hash, content, length, now);
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * Delete one batch of orphan blobs.
+   *
+   * @param createdBefore written before this time
+   * @param batchSize the batch size
+   * @return deleted blob count
+   */
+  @Override
+  public int purgeOrphans(long createdBefore, int batchSize) {
+    LOGGER.debug("Enter. createdBefore: {}, batchSize: {}.", createdBefore, batchSize);
+
+    int count = jdbcTemplate.update(PURGE_SQL, createdBefore, batchSize);
+
+    LOGGER.debug("Exit. purged size: {}.", count);
+
+    return count;
+  }
+}
@@ -0,0 +1,81 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.SchemaField;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Schema field index repository, queries of one developer filter on developer_id first.
+ */
+@Repository
+public interface SchemaFieldRepository extends JpaRepository<SchemaField, UUID>,
+    SchemaFieldRepositoryCustom {
+
+  /**
+   * Find fields of a developer by name and types.
+   *
+   * @param developerId the developer id
+   * @param name the name
+   * @param types the types
+   * @param pageable the pageable, only the page size is used
+   * @return the fields
+   */
+  @Query("select f from SchemaField f where f.developerId = ?1 and f.name = ?2"
+      + " and f.type in ?3 order by f.productId, f.dataId, f.path")
+  List<SchemaField> findByName(String developerId, String name, Collection<String> types,
+      Pageable pageable);
+
+  /**
+   * Find fields of a developer by path and types.
+   *
+   * @param developerId the developer id
+   * @param path the path
+   * @param types the types
+   * @param pageable the pageable, only the page size is used
+   * @return the fields
+   */
+  @Query("select f from SchemaField f where f.developerId = ?1 and f.path = ?2"
+      + " and f.type in ?3 order by f.productId, f.dataId, f.path")
+  List<SchemaField> findByPath(String developerId, String path, Collection<String> types,
+      Pageable pageable);
+
+  /**
+   * Delete the fields of data definitions.
+   *
+   * @param developerId the developer id
+   * @param definitionIds the data definition ids
+   * @return deleted row count
+   */
+  @Modifying
+  @Query("delete from SchemaField f where f.developerId = ?1 and f.definitionId in ?2")
+  int deleteByDefinitions(String developerId, Collection<UUID> definitionIds);
+
+  /**
+   * Delete the fields of a product.
+   *
+   * @param developerId the developer id
+   * @param productId the product id
+   * @return deleted row count
+   */
+  @Modifying
+  @Query("delete from SchemaField f where f.developerId = ?1 and f.productId = ?2")
+  int deleteByProduct(String developerId, String productId);
+
+  /**
+   * Delete the fields of a developer.
+   *
+   * @param developerId the developer id
+   * @return deleted row count
+   */
+  @Modifying
+  @Query("delete from SchemaField f where f.developerId = ?1")
+  int deleteByDeveloper(String developerId);
+}
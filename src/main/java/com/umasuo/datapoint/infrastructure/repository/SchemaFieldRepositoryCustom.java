@@ -0,0 +1,18 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.SchemaField;
+
+import java.util.List;
+
+/**
+ * Hand written sql of SchemaField.
+ */
+public interface SchemaFieldRepositoryCustom {
+
+  /**
+   * Insert fields in one batch, ids must be filled already.
+   *
+   * @param fields the fields
+   */
+  void insertAll(List<SchemaField> fields);
+}
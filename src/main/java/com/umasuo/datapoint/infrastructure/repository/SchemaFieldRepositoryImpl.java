@@ -0,0 +1,53 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.SchemaField;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of SchemaFieldRepositoryCustom, joins the current transaction.
+ */
+public class SchemaFieldRepositoryImpl implements SchemaFieldRepositoryCustom {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchemaFieldRepositoryImpl.class);
+
+  /**
+   * Insert sql.
+   */
+  private static final String INSERT_SQL = "INSERT INTO schema_field (id, developer_id,"
+      + " product_id, definition_id, data_id, path, name, type) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+  /**
+   * Jdbc template.
+   */
+  @Autowired
+  private transient JdbcTemplate jdbcTemplate;
+
+  /**
+   * Insert fields in one batch.
+   *
+   * @param fields the fields
+   */
+  @Override
+  public void insertAll(List<SchemaField> fields) {
+    LOGGER.debug("Enter. field size: {}.", fields.size());
+
+    List<Object[]> rows = fields.stream().map(field -> new Object[]{
+        field.getId(), field.getDeveloperId(), field.getProductId(), field.getDefinitionId(),
+        field.getDataId(), field.getPath(), field.getName(), field.getType()})
+        .collect(Collectors.toList());
+
+    jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+    LOGGER.debug("Exit.");
+  }
+}
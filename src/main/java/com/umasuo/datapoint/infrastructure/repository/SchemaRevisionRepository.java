@@ -0,0 +1,41 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.SchemaRevision;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Schema history repository.
+ */
+@Repository
+public interface SchemaRevisionRepository extends JpaRepository<SchemaRevision, UUID>,
+    SchemaRevisionRepositoryCustom {
+
+  /**
+   * Find the version of the last checkpoint at or before the version.
+   *
+   * @param definitionId the data definition id
+   * @param version the version
+   * @return the checkpoint version, or null if none
+   */
+  @Query("select max(r.version) from SchemaRevision r where r.definitionId = ?1"
+      + " and r.checkpoint = true and r.version <= ?2")
+  Integer findCheckpointVersion(UUID definitionId, Integer version);
+
+  /**
+   * Find revisions in a version range, both ends included.
+   *
+   * @param definitionId the data definition id
+   * @param from the first version
+   * @param to the last version
+   * @return the revisions ordered by version
+   */
+  @Query("select r from SchemaRevision r where r.definitionId = ?1"
+      + " and r.version >= ?2 and r.version <= ?3 order by r.version asc")
+  List<SchemaRevision> findRange(UUID definitionId, Integer from, Integer to);
+}
@@ -0,0 +1,18 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.SchemaRevision;
+
+import java.util.List;
+
+/**
+ * Hand written sql of SchemaRevision.
+ */
+public interface SchemaRevisionRepositoryCustom {
+
+  /**
+   * Insert revisions in one jdbc batch, ids must be filled already.
+   *
+   * @param revisions the revisions
+   */
+  void insertAll(List<SchemaRevision> revisions);
+}
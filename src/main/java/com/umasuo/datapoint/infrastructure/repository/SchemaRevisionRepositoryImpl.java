@@ -0,0 +1,54 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.domain.model.SchemaRevision;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of SchemaRevisionRepositoryCustom, joins the current transaction.
+ */
+public class SchemaRevisionRepositoryImpl implements SchemaRevisionRepositoryCustom {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchemaRevisionRepositoryImpl.class);
+
+  /**
+   * Insert sql.
+   */
+  private static final String INSERT_SQL = "INSERT INTO schema_revision (id, definition_id,"
+      + " definition_type, version, created_at, checkpoint, content)"
+      + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+  /**
+   * Jdbc template.
+   */
+  @Autowired
+  private transient JdbcTemplate jdbcTemplate;
+
+  /**
+   * Insert revisions in one batch.
+   *
+   * @param revisions the revisions
+   */
+  @Override
+  public void insertAll(List<SchemaRevision> revisions) {
+    LOGGER.debug("Enter. revision size: {}.", revisions.size());
+
+    List<Object[]> rows = revisions.stream().map(revision -> new Object[]{
+        revision.getId(), revision.getDefinitionId(), revision.getDefinitionType().name(),
+        revision.getVersion(), revision.getCreatedAt(), revision.getCheckpoint(),
+        revision.getContent()}).collect(Collectors.toList());
+
+    jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+    LOGGER.debug("Exit.");
+  }
+}
@@ -0,0 +1,26 @@
+package com.umasuo.datapoint.infrastructure.repository;
+
+import com.umasuo.datapoint.infrastructure.util.UuidUtils;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.io.Serializable;
+
+/**
+ * Hibernate id generator of time ordered uuid, for entities saved through jpa.
+ */
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+
+  /**
+   * Generate id.
+   *
+   * @param session the session
+   * @param object the entity
+   * @return the uuid
+   */
+  @Override
+  public Serializable generate(SessionImplementor session, Object object) {
+    return UuidUtils.timeOrdered();
+  }
+}
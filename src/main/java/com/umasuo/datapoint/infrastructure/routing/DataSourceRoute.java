@@ -0,0 +1,16 @@
+package com.umasuo.datapoint.infrastructure.routing;
+
+/**
+ * Which kind of database a piece of work should go to.
+ */
+public enum DataSourceRoute {
+  /**
+   * The primary database, serves all writes.
+   */
+  PRIMARY,
+
+  /**
+   * One of the read replicas, serves read only work.
+   */
+  REPLICA
+}
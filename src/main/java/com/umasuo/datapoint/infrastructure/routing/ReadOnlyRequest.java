@@ -0,0 +1,18 @@
+package com.umasuo.datapoint.infrastructure.routing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler, or every handler of a controller, which only reads data definitions although
+ * it is not a GET, e.g. validation or encoding of a posted payload. ReplicaRoutingInterceptor
+ * routes it like a GET and does not mark a write.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface ReadOnlyRequest {
+}
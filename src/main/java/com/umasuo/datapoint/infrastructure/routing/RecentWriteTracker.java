@@ -0,0 +1,67 @@
+package com.umasuo.datapoint.infrastructure.routing;
+
+import com.umasuo.datapoint.infrastructure.util.RedisUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers developers who wrote recently, so their reads go to the primary until the
+ * replicas have caught up (read-your-writes).
+ */
+public class RecentWriteTracker {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(RecentWriteTracker.class);
+
+  /**
+   * Redis template.
+   */
+  private final transient StringRedisTemplate redisTemplate;
+
+  /**
+   * How long reads stick to the primary after a write, in milliseconds.
+   */
+  private final long stickyMillis;
+
+  /**
+   * Instantiates a new Recent write tracker.
+   *
+   * @param redisTemplate the redis template
+   * @param stickyMillis the sticky millis
+   */
+  public RecentWriteTracker(StringRedisTemplate redisTemplate, long stickyMillis) {
+    this.redisTemplate = redisTemplate;
+    this.stickyMillis = stickyMillis;
+  }
+
+  /**
+   * Mark developer wrote just now.
+   *
+   * @param developerId the developer id
+   */
+  public void markWrite(String developerId) {
+    LOGGER.debug("Enter. developerId: {}.", developerId);
+
+    String key = String.format(RedisUtils.RECENT_WRITE_FORMAT, developerId);
+    redisTemplate.opsForValue().set(key, "1", stickyMillis, TimeUnit.MILLISECONDS);
+
+    LOGGER.debug("Exit.");
+  }
+
+  /**
+   * Check if developer wrote recently.
+   *
+   * @param developerId the developer id
+   * @return true if reads should go to primary
+   */
+  public boolean hasRecentWrite(String developerId) {
+    String key = String.format(RedisUtils.RECENT_WRITE_FORMAT, developerId);
+    return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+  }
+}
@@ -0,0 +1,54 @@
+package com.umasuo.datapoint.infrastructure.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes connections to the primary or, in round robin, to one of the replicas.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  /**
+   * Lookup key of the primary data source.
+   */
+  public static final String PRIMARY_KEY = "primary";
+
+  /**
+   * Lookup key prefix of replica data sources.
+   */
+  public static final String REPLICA_KEY_PREFIX = "replica-";
+
+  /**
+   * Replica count.
+   */
+  private final int replicaCount;
+
+  /**
+   * Round robin counter.
+   */
+  private final AtomicInteger counter = new AtomicInteger();
+
+  /**
+   * Instantiates a new Replica routing data source.
+   *
+   * @param replicaCount the replica count
+   */
+  public ReplicaRoutingDataSource(int replicaCount) {
+    this.replicaCount = replicaCount;
+  }
+
+  /**
+   * Lookup key for current thread.
+   *
+   * @return the key
+   */
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (replicaCount == 0 || RoutingContext.get() == DataSourceRoute.PRIMARY) {
+      return PRIMARY_KEY;
+    }
+    int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % replicaCount;
+    return REPLICA_KEY_PREFIX + index;
+  }
+}
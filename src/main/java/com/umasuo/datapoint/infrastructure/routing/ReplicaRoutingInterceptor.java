@@ -0,0 +1,104 @@
+package com.umasuo.datapoint.infrastructure.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Decides the data source route of each request.
+ * GET requests, and handlers marked with {@link ReadOnlyRequest}, go to replicas unless the
+ * developer wrote recently, others go to primary.
+ * A write is marked before it is handled, since the response body is written by the handler
+ * and a follow-up read may arrive before afterCompletion runs, and marked again on completion
+ * so reads stick to the primary for the whole window after the write ended.
+ */
+public class ReplicaRoutingInterceptor extends HandlerInterceptorAdapter {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingInterceptor.class);
+
+  /**
+   * Developer id header.
+   */
+  private static final String DEVELOPER_ID = "developerId";
+
+  /**
+   * Recent write tracker.
+   */
+  private final transient RecentWriteTracker writeTracker;
+
+  /**
+   * Instantiates a new Replica routing interceptor.
+   *
+   * @param writeTracker the write tracker
+   */
+  public ReplicaRoutingInterceptor(RecentWriteTracker writeTracker) {
+    this.writeTracker = writeTracker;
+  }
+
+  /**
+   * Set route before handle request.
+   */
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    DataSourceRoute route = DataSourceRoute.PRIMARY;
+    String developerId = request.getHeader(DEVELOPER_ID);
+
+    if (isRead(request, handler)) {
+      if (developerId == null || !writeTracker.hasRecentWrite(developerId)) {
+        route = DataSourceRoute.REPLICA;
+      }
+    } else if (developerId != null) {
+      // marked before the response can be committed, a failed write only costs primary reads
+      writeTracker.markWrite(developerId);
+    }
+
+    LOGGER.trace("Route {} {} to {}.", request.getMethod(), request.getRequestURI(), route);
+    RoutingContext.set(route);
+
+    return true;
+  }
+
+  /**
+   * Restart the window of successful writes from their end, and clear route.
+   */
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    try {
+      String developerId = request.getHeader(DEVELOPER_ID);
+      if (!isRead(request, handler) && developerId != null && ex == null && response.getStatus() < 400) {
+        writeTracker.markWrite(developerId);
+      }
+    } finally {
+      RoutingContext.clear();
+    }
+  }
+
+  /**
+   * Whether a request only reads.
+   *
+   * @param request the request
+   * @param handler the handler
+   * @return true for GET requests and read only handlers
+   */
+  private static boolean isRead(HttpServletRequest request, Object handler) {
+    if (HttpMethod.GET.matches(request.getMethod())) {
+      return true;
+    }
+    if (!(handler instanceof HandlerMethod)) {
+      return false;
+    }
+    HandlerMethod method = (HandlerMethod) handler;
+    return method.hasMethodAnnotation(ReadOnlyRequest.class)
+        || method.getBeanType().isAnnotationPresent(ReadOnlyRequest.class);
+  }
+}
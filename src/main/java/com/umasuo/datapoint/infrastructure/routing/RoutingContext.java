@@ -0,0 +1,44 @@
+package com.umasuo.datapoint.infrastructure.routing;
+
+/**
+ * Holds the data source route of the current thread, default is primary.
+ */
+public final class RoutingContext {
+
+  /**
+   * Route of current thread.
+   */
+  private static final ThreadLocal<DataSourceRoute> ROUTE = new ThreadLocal<>();
+
+  /**
+   * Instantiates a new Routing context.
+   */
+  private RoutingContext() {
+  }
+
+  /**
+   * Set route of current thread.
+   *
+   * @param route the route
+   */
+  public static void set(DataSourceRoute route) {
+    ROUTE.set(route);
+  }
+
+  /**
+   * Get route of current thread.
+   *
+   * @return the route
+   */
+  public static DataSourceRoute get() {
+    DataSourceRoute route = ROUTE.get();
+    return route == null ? DataSourceRoute.PRIMARY : route;
+  }
+
+  /**
+   * Clear route of current thread.
+   */
+  public static void clear() {
+    ROUTE.remove();
+  }
+}
@@ -0,0 +1,32 @@
+package com.umasuo.datapoint.infrastructure.sharding;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Platform definitions are shared by all developers and always live on the global shard,
+ * whatever shard the request is on.
+ */
+@Aspect
+public class GlobalShardAspect {
+
+  /**
+   * Run platform repository calls on the global shard.
+   *
+   * @param joinPoint the join point
+   * @return the result
+   * @throws Throwable the throwable
+   */
+  @Around("execution(* com.umasuo.datapoint.infrastructure.repository"
+      + ".PlatformDataRepository+.*(..))")
+  public Object onGlobalShard(ProceedingJoinPoint joinPoint) throws Throwable {
+    String previous = ShardContext.peek();
+    ShardContext.set(ShardMap.GLOBAL_SHARD);
+    try {
+      return joinPoint.proceed();
+    } finally {
+      ShardContext.restore(previous);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.umasuo.datapoint.infrastructure.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard of the current thread, default is the global shard.
+ */
+public final class ShardContext {
+
+  /**
+   * Shard of current thread.
+   */
+  private static final ThreadLocal<String> SHARD = new ThreadLocal<>();
+
+  /**
+   * Instantiates a new Shard context.
+   */
+  private ShardContext() {
+  }
+
+  /**
+   * Set shard of current thread.
+   *
+   * @param shard the shard
+   */
+  public static void set(String shard) {
+    SHARD.set(shard);
+  }
+
+  /**
+   * Get shard of current thread.
+   *
+   * @return the shard
+   */
+  public static String get() {
+    String shard = SHARD.get();
+    return shard == null ? ShardMap.GLOBAL_SHARD : shard;
+  }
+
+  /**
+   * Get shard of current thread as set, null if not set.
+   *
+   * @return the shard or null
+   */
+  static String peek() {
+    return SHARD.get();
+  }
+
+  /**
+   * Restore a shard got from {@link #peek()}.
+   *
+   * @param shard the shard or null
+   */
+  static void restore(String shard) {
+    if (shard == null) {
+      SHARD.remove();
+    } else {
+      SHARD.set(shard);
+    }
+  }
+
+  /**
+   * Clear shard of current thread.
+   */
+  public static void clear() {
+    SHARD.remove();
+  }
+
+  /**
+   * Run work on the given shard, then restore the previous shard.
+   * Transactions must start inside the work so their connection comes from the shard.
+   *
+   * @param shard the shard
+   * @param work the work
+   * @param <T> the result type
+   * @return the result of work
+   */
+  public static <T> T callOn(String shard, Supplier<T> work) {
+    String previous = peek();
+    SHARD.set(shard);
+    try {
+      return work.get();
+    } finally {
+      restore(previous);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package com.umasuo.datapoint.infrastructure.sharding;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps each developer to one shard.
+ * Developers pinned in the map keep their shard, others are placed by consistent hashing so
+ * adding a shard moves as few developers as possible. With no shards every developer is on
+ * the global shard.
+ */
+public class ShardMap {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShardMap.class);
+
+  /**
+   * The global shard, holds platform definitions, and everything when sharding is off.
+   */
+  public static final String GLOBAL_SHARD = "global";
+
+  /**
+   * Hash function of developer id.
+   */
+  private static final HashFunction HASH = Hashing.murmur3_128();
+
+  /**
+   * Developer shards in configured order, order must not change once data is written.
+   */
+  private final transient List<String> shards;
+
+  /**
+   * Developers pinned to a shard, e.g. after being moved.
+   */
+  private final transient Map<String, String> pinned;
+
+  /**
+   * Instantiates a new Shard map.
+   *
+   * @param shards the developer shards
+   * @param pinned the pinned developers
+   */
+  public ShardMap(List<String> shards, Map<String, String> pinned) {
+    this.shards = ImmutableList.copyOf(shards);
+    this.pinned = ImmutableMap.copyOf(pinned);
+    LOGGER.info("Shards: {}, pinned developers: {}.", this.shards, this.pinned.size());
+  }
+
+  /**
+   * Get the shard of a developer.
+   *
+   * @param developerId the developer id
+   * @return the shard
+   */
+  public String shardOf(String developerId) {
+    if (developerId == null || shards.isEmpty()) {
+      return GLOBAL_SHARD;
+    }
+
+    String shard = pinned.get(developerId);
+    if (shard == null) {
+      int bucket = Hashing.consistentHash(
+          HASH.hashString(developerId, StandardCharsets.UTF_8), shards.size());
+      shard = shards.get(bucket);
+    }
+
+    return shard;
+  }
+
+  /**
+   * Get all developer shards, the global shard when sharding is off.
+   *
+   * @return the shards
+   */
+  public List<String> getShards() {
+    return shards.isEmpty() ? ImmutableList.of(GLOBAL_SHARD) : shards;
+  }
+}
@@ -0,0 +1,19 @@
+package com.umasuo.datapoint.infrastructure.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Routes connections to the shard of the current thread.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+  /**
+   * Lookup key for current thread.
+   *
+   * @return the shard
+   */
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return ShardContext.get();
+  }
+}
@@ -0,0 +1,62 @@
+package com.umasuo.datapoint.infrastructure.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sets the shard of each request from the developerId header, requests without it go to the
+ * global shard.
+ */
+public class ShardRoutingInterceptor extends HandlerInterceptorAdapter {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShardRoutingInterceptor.class);
+
+  /**
+   * Developer id header.
+   */
+  private static final String DEVELOPER_ID = "developerId";
+
+  /**
+   * Shard map.
+   */
+  private final transient ShardMap shardMap;
+
+  /**
+   * Instantiates a new Shard routing interceptor.
+   *
+   * @param shardMap the shard map
+   */
+  public ShardRoutingInterceptor(ShardMap shardMap) {
+    this.shardMap = shardMap;
+  }
+
+  /**
+   * Set shard before handle request.
+   */
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    String shard = shardMap.shardOf(request.getHeader(DEVELOPER_ID));
+
+    LOGGER.trace("Route {} {} to shard {}.", request.getMethod(), request.getRequestURI(), shard);
+    ShardContext.set(shard);
+
+    return true;
+  }
+
+  /**
+   * Clear shard.
+   */
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    ShardContext.clear();
+  }
+}
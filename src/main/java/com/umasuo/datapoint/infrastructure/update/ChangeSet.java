@@ -0,0 +1,91 @@
+package com.umasuo.datapoint.infrastructure.update;
+
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Columns changed by a list of update actions, built without loading the entity so the update
+ * can be sent as one conditional UPDATE statement of only these columns.
+ */
+public class ChangeSet {
+
+  /**
+   * Column of data id.
+   */
+  public static final String DATA_ID = "data_id";
+
+  /**
+   * Column of data schema.
+   */
+  public static final String DATA_SCHEMA = "data_schema";
+
+  /**
+   * Column of the out of line schema's hash.
+   */
+  public static final String SCHEMA_REF = "schema_ref";
+
+  /**
+   * Column of name.
+   */
+  public static final String NAME = "name";
+
+  /**
+   * Column of description.
+   */
+  public static final String DESCRIPTION = "description";
+
+  /**
+   * Column of openable.
+   */
+  public static final String OPENABLE = "openable";
+
+  /**
+   * Changed column to new value, later actions on the same column win.
+   */
+  private final transient Map<String, Object> changes = Maps.newLinkedHashMap();
+
+  /**
+   * Set the new value of a column.
+   *
+   * @param column the column
+   * @param value the value
+   */
+  public void set(String column, Object value) {
+    changes.put(column, value);
+  }
+
+  /**
+   * Get the changed columns and values.
+   *
+   * @return unmodifiable map of column to value
+   */
+  public Map<String, Object> getChanges() {
+    return Collections.unmodifiableMap(changes);
+  }
+
+  /**
+   * Is the column changed.
+   *
+   * @param column the column
+   * @return true if changed
+   */
+  public boolean contains(String column) {
+    return changes.containsKey(column);
+  }
+
+  /**
+   * Is nothing changed.
+   *
+   * @return true if no column changed
+   */
+  public boolean isEmpty() {
+    return changes.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "ChangeSet" + changes;
+  }
+}
@@ -1,50 +1,114 @@
 package com.umasuo.datapoint.infrastructure.update;
 
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.umasuo.datapoint.infrastructure.validator.SchemaGuard;
+import com.umasuo.exception.ParametersException;
 import com.umasuo.model.Updater;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 /**
  * updater service.
+ * Updaters of every action declared on UpdateAction are looked up once at startup into an
+ * immutable dispatch table, and a missing updater fails the startup instead of a request.
+ * Actions of one request are coalesced in the ChangeSet, so each column is written once with
+ * the last value, and the resulting schema is validated once after every action was applied,
+ * instead of once per action carrying a schema.
  */
 @Service
-public class UpdaterService implements Updater<Object, UpdateAction> {
+public class UpdaterService implements Updater<ChangeSet, UpdateAction> {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(UpdaterService.class);
 
   /**
-   * ApplicationContext for get update services.
+   * Schema guard, the resulting schema is validated on the guard pool with a timeout.
    */
-  private transient ApplicationContext context;
+  @Autowired
+  private transient SchemaGuard schemaGuard;
 
   /**
-   * constructor.
+   * Updater by action name.
+   */
+  private final transient Map<String, Updater<ChangeSet, UpdateAction>> updaters;
+
+  /**
+   * constructor, builds the dispatch table from the action names declared on UpdateAction.
    *
-   * @param context ApplicationContext
+   * @param context ApplicationContext for get update services
    */
+  @SuppressWarnings("unchecked")
   public UpdaterService(ApplicationContext context) {
-    this.context = context;
+    ImmutableMap.Builder<String, Updater<ChangeSet, UpdateAction>> builder =
+        ImmutableMap.builder();
+    for (JsonSubTypes.Type type : UpdateAction.class.getAnnotation(JsonSubTypes.class).value()) {
+      builder.put(type.name(), context.getBean(type.name(), Updater.class));
+    }
+    updaters = builder.build();
+
+    LOGGER.info("Updaters: {}.", updaters.keySet());
   }
 
   /**
-   * put the value in action to entity.
+   * put the value in action to the change set.
    *
-   * @param entity E
+   * @param changes ChangeSet
    * @param action UpdateAction
    */
   @Override
-  public void handle(Object entity, UpdateAction action) {
-    Updater updater = getUpdateService(action);
-    updater.handle(entity, action);
+  public void handle(ChangeSet changes, UpdateAction action) {
+    handle(changes, Collections.singletonList(action));
   }
 
   /**
-   * get mapper.
+   * put the values of all actions to the change set, later actions on the same column win.
+   * Every action is checked before any is applied, and the schema is validated once at the end.
    *
-   * @param action UpdateAction class
-   * @return ZoneUpdateMapper
+   * @param changes ChangeSet
+   * @param actions the actions
    */
-  private Updater getUpdateService(UpdateAction action) {
-    return (Updater) context.getBean(action.getActionName());
+  public void handle(ChangeSet changes, List<UpdateAction> actions) {
+    List<Updater<ChangeSet, UpdateAction>> resolved = Lists.newArrayListWithCapacity(
+        actions.size());
+    for (UpdateAction action : actions) {
+      resolved.add(getUpdateService(action));
+    }
+
+    for (int i = 0; i < actions.size(); i++) {
+      resolved.get(i).handle(changes, actions.get(i));
+    }
+
+    if (changes.contains(ChangeSet.DATA_SCHEMA)) {
+      schemaGuard.validate((String) changes.getChanges().get(ChangeSet.DATA_SCHEMA));
+    }
   }
 
+  /**
+   * get updater.
+   *
+   * @param action UpdateAction
+   * @return the updater
+   */
+  private Updater<ChangeSet, UpdateAction> getUpdateService(UpdateAction action) {
+    Updater<ChangeSet, UpdateAction> updater =
+        action == null ? null : updaters.get(action.getActionName());
+    if (updater == null) {
+      LOGGER.debug("Unknown action: {}.", action);
+      throw new ParametersException("Unknown update action: "
+          + (action == null ? null : action.getActionName()));
+    }
+    return updater;
+  }
 }
@@ -0,0 +1,74 @@
+package com.umasuo.datapoint.infrastructure.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * CompressionUtils, deflate of utf-8 text.
+ */
+public final class CompressionUtils {
+
+  /**
+   * Buffer size.
+   */
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Private default constructor.
+   */
+  private CompressionUtils() {
+  }
+
+  /**
+   * Compress text.
+   *
+   * @param text the text
+   * @return deflated utf-8 bytes
+   */
+  public static byte[] deflate(String text) {
+    byte[] input = text.getBytes(StandardCharsets.UTF_8);
+    Deflater deflater = new Deflater();
+    try {
+      deflater.setInput(input);
+      deflater.finish();
+      ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 4 + 16);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (!deflater.finished()) {
+        output.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return output.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Decompress text.
+   *
+   * @param bytes deflated utf-8 bytes
+   * @return the text
+   */
+  public static String inflate(byte[] bytes) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes);
+      ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length * 4);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (!inflater.finished()) {
+        int count = inflater.inflate(buffer);
+        if (count == 0 && inflater.needsInput()) {
+          throw new IllegalArgumentException("Truncated deflate data");
+        }
+        output.write(buffer, 0, count);
+      }
+      return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    } catch (DataFormatException ex) {
+      throw new IllegalArgumentException("Invalid deflate data", ex);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -11,13 +11,55 @@ public final class RedisUtils {
   public static final String PLATFORM_DEFINITION_KEY = "data:definition:platform";
 
   /**
-   * Developer definition cache key.
+   * Developer definition cache key, shard and developer id.
    */
-  public static final String DEVELOPER_DEFINITION_FORMAT = "data:definition:developer:%s";
+  public static final String DEVELOPER_DEFINITION_FORMAT = "data:definition:%s:developer:%s";
 
   /**
-   * Device definition key.
+   * Device definition key, shard, developer id and product id.
    */
-  public static final String DEVICE_DEFINITION_FORMAT = "data:definition:%s:%s";
+  public static final String DEVICE_DEFINITION_FORMAT = "data:definition:%s:%s:%s";
+
+
+  /**
+   * Platform data definition page cache key.
+   */
+  public static final String PLATFORM_DEFINITION_PAGE_KEY = "data:definition:platform:page";
+
+  /**
+   * Developer definition page cache key, shard and developer id.
+   */
+  public static final String DEVELOPER_DEFINITION_PAGE_FORMAT =
+      "data:definition:%s:developer:page:%s";
+
+  /**
+   * Device definition page cache key, shard, developer id and product id.
+   */
+  public static final String DEVICE_DEFINITION_PAGE_FORMAT = "data:definition:%s:page:%s:%s";
+
+  /**
+   * Field of a page in the page cache, cursor and limit.
+   */
+  public static final String PAGE_FIELD_FORMAT = "%s:%d";
+
+  /**
+   * Marker of a developer's recent write, reads stick to the primary while it exists.
+   */
+  public static final String RECENT_WRITE_FORMAT = "data:definition:write:%s";
+
+  /**
+   * Channel notified after change feed entries are committed, message is the shard.
+   */
+  public static final String CHANGE_CHANNEL = "data:definition:changes";
+
+  /**
+   * Resolved schema of a data definition version, type, id and version.
+   */
+  public static final String RESOLVED_SCHEMA_FORMAT = "data:definition:resolved:%s:%s:%d";
+
+  /**
+   * Generation of a data definition, its SchemaReference key, bumped after each change.
+   */
+  public static final String SCHEMA_GENERATION_FORMAT = "data:definition:generation:%s";
 
 }
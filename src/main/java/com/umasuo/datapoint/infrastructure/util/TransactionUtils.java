@@ -0,0 +1,52 @@
+package com.umasuo.datapoint.infrastructure.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * TransactionUtils.
+ * Cache evictions of a change must run after its transaction commits: evicted inside the
+ * transaction, a concurrent reader still sees the old rows and caches them again until the next
+ * change.
+ */
+public final class TransactionUtils {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransactionUtils.class);
+
+  /**
+   * Private default constructor.
+   */
+  private TransactionUtils() {
+  }
+
+  /**
+   * Run an action once the current transaction commits, or now if there is no transaction.
+   * The action is dropped if the transaction rolls back. Failures are logged instead of thrown,
+   * the change is already committed.
+   *
+   * @param action the action
+   */
+  public static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          @Override
+          public void afterCommit() {
+            try {
+              action.run();
+            } catch (RuntimeException ex) {
+              LOGGER.warn("After commit action failed.", ex);
+            }
+          }
+        });
+  }
+}
@@ -0,0 +1,45 @@
+package com.umasuo.datapoint.infrastructure.util;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.UUID;
+
+/**
+ * Serializer of uuid redis hash fields, stored as their 16 raw bytes.
+ * Only used by the template of hashes whose fields are all ids, hashes with string fields use
+ * a string serializer, so a field is never told apart by its length.
+ */
+public class UuidRedisSerializer implements RedisSerializer<UUID> {
+
+  /**
+   * Serialize field.
+   *
+   * @param field the uuid
+   * @return the bytes
+   */
+  @Override
+  public byte[] serialize(UUID field) {
+    if (field == null) {
+      return null;
+    }
+    return UuidUtils.toBytes(field);
+  }
+
+  /**
+   * Deserialize field.
+   *
+   * @param bytes the bytes
+   * @return the uuid
+   */
+  @Override
+  public UUID deserialize(byte[] bytes) {
+    if (bytes == null) {
+      return null;
+    }
+    if (bytes.length != UuidUtils.BYTES) {
+      throw new SerializationException("Hash field is not an uuid, length: " + bytes.length);
+    }
+    return UuidUtils.fromBytes(bytes);
+  }
+}
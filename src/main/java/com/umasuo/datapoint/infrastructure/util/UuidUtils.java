@@ -0,0 +1,81 @@
+package com.umasuo.datapoint.infrastructure.util;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * UuidUtils.
+ * Ids are time ordered (version 7 layout): the first 48 bits are the unix millis, so new rows
+ * land at the right edge of the primary key index instead of a random page.
+ */
+public final class UuidUtils {
+
+  /**
+   * Length of a uuid in bytes.
+   */
+  public static final int BYTES = 16;
+
+  /**
+   * Random source of the 74 random bits.
+   */
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  /**
+   * Private default constructor.
+   */
+  private UuidUtils() {
+  }
+
+  /**
+   * Generate a time ordered uuid.
+   *
+   * @return the uuid
+   */
+  public static UUID timeOrdered() {
+    return timeOrdered(System.currentTimeMillis());
+  }
+
+  /**
+   * Generate a time ordered uuid for the given time.
+   *
+   * @param millis the unix millis
+   * @return the uuid
+   */
+  public static UUID timeOrdered(long millis) {
+    byte[] random = new byte[10];
+    RANDOM.nextBytes(random);
+    ByteBuffer buffer = ByteBuffer.wrap(random);
+
+    long randomA = buffer.getShort() & 0x0FFFL;
+    long randomB = buffer.getLong() & 0x3FFFFFFFFFFFFFFFL;
+
+    long mostSigBits = (millis << 16) | 0x7000L | randomA;
+    long leastSigBits = 0x8000000000000000L | randomB;
+    return new UUID(mostSigBits, leastSigBits);
+  }
+
+  /**
+   * Binary form of the uuid.
+   *
+   * @param uuid the uuid
+   * @return 16 bytes
+   */
+  public static byte[] toBytes(UUID uuid) {
+    return ByteBuffer.allocate(BYTES)
+        .putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits())
+        .array();
+  }
+
+  /**
+   * Read uuid from its binary form.
+   *
+   * @param bytes 16 bytes
+   * @return the uuid
+   */
+  public static UUID fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+}
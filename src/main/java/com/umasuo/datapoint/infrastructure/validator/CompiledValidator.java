@@ -0,0 +1,21 @@
+package com.umasuo.datapoint.infrastructure.validator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * A payload validator specialized to one schema by ValidatorCompiler.
+ */
+@FunctionalInterface
+public interface CompiledValidator {
+
+  /**
+   * Validate a node, errors are appended as "pointer: message".
+   *
+   * @param node the node
+   * @param pointer json pointer of the node, empty for the root
+   * @param errors the errors of the whole payload, children are skipped once it is not empty
+   */
+  void validate(JsonNode node, String pointer, List<String> errors);
+}
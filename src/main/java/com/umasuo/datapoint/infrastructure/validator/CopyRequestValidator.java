@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Created by Davis on 17/8/11.
@@ -31,7 +32,7 @@ public final class CopyRequestValidator {
    * @param requestIds the request ids
    * @param dataDefinitions the data definitions
    */
-  public static void matchRequestIds(List<String> requestIds, List dataDefinitions) {
+  public static void matchRequestIds(List<UUID> requestIds, List dataDefinitions) {
     if (requestIds.size() != dataDefinitions.size()) {
       LOG.debug("Can not find all dataDefinition: {}.", requestIds);
       throw new NotExistException("DeviceDataDefinition not exist");
@@ -4,6 +4,8 @@ import com.umasuo.exception.NotExistException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.UUID;
+
 /**
  * DefinitionValidator.
  */
@@ -27,7 +29,7 @@ public final class DefinitionValidator {
    * @param requestDeveloper
    * @param id
    */
-  public static void validateDeveloper(String developerId, String requestDeveloper, String id) {
+  public static void validateDeveloper(String developerId, String requestDeveloper, UUID id) {
     if (!requestDeveloper.equals(developerId)) {
       LOGGER.debug("DataDefinition: {} not belong to developer: {}.", id, developerId);
       throw new NotExistException("DataDefinition: " + id +
@@ -42,7 +44,7 @@ public final class DefinitionValidator {
    * @param requireProduct
    * @param id
    */
-  public static void validateProduct(String productId, String requireProduct, String id) {
+  public static void validateProduct(String productId, String requireProduct, UUID id) {
     if (!requireProduct.equals(productId)) {
       LOGGER.debug("DataDefinition: {} is not belong to product: {}.", id, productId);
       throw new NotExistException("Product do not have this dataDefinition.");
@@ -0,0 +1,40 @@
+package com.umasuo.datapoint.infrastructure.validator;
+
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * PageValidator.
+ */
+public final class PageValidator {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PageValidator.class);
+
+  /**
+   * Max page size.
+   */
+  public static final int MAX_LIMIT = 500;
+
+  /**
+   * Instantiates a new Page validator.
+   */
+  private PageValidator() {
+  }
+
+  /**
+   * Validate page size.
+   *
+   * @param limit the limit
+   */
+  public static void validateLimit(Integer limit) {
+    if (limit == null || limit < 1 || limit > MAX_LIMIT) {
+      LOGGER.debug("Page limit: {} is out of range.", limit);
+      throw new ParametersException("Limit should between 1 and " + MAX_LIMIT);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.umasuo.datapoint.infrastructure.validator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.google.common.collect.Lists;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A compiled data definition schema which validates payloads.
+ * Payloads are checked by the interpreted json schema validator until the schema got hot, then
+ * the schema is compiled by ValidatorCompiler once and later payloads use the compiled
+ * validator. Schemas the compiler does not support stay interpreted.
+ */
+public class PayloadSchema {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PayloadSchema.class);
+
+  /**
+   * Validations after which the schema is compiled.
+   */
+  public static final int HOT_THRESHOLD = 64;
+
+  /**
+   * The schema.
+   */
+  private final JsonNode schemaNode;
+
+  /**
+   * The interpreted validator.
+   */
+  private final JsonSchema interpreted;
+
+  /**
+   * Validations so far, only counted until the schema got hot.
+   */
+  private final AtomicInteger uses = new AtomicInteger();
+
+  /**
+   * The compiled validator, null until the schema got hot.
+   */
+  private volatile CompiledValidator compiled;
+
+  /**
+   * True if the compiler does not support the schema.
+   */
+  private volatile boolean unsupported;
+
+  /**
+   * Instantiates a new Payload schema.
+   *
+   * @param schemaNode the schema
+   * @param interpreted the interpreted validator
+   */
+  public PayloadSchema(JsonNode schemaNode, JsonSchema interpreted) {
+    this.schemaNode = schemaNode;
+    this.interpreted = interpreted;
+  }
+
+  /**
+   * Validate one payload.
+   *
+   * @param payload the payload
+   * @return the errors, empty if the payload is valid
+   */
+  public List<String> validate(JsonNode payload) {
+    CompiledValidator validator = compiled;
+    if (validator == null && !unsupported && uses.incrementAndGet() >= HOT_THRESHOLD) {
+      validator = compile();
+    }
+    if (validator == null) {
+      return PayloadValidator.validate(interpreted, payload);
+    }
+
+    List<String> errors = Lists.newArrayListWithCapacity(0);
+    validator.validate(payload, "", errors);
+    return errors.isEmpty() ? Collections.emptyList() : errors;
+  }
+
+  /**
+   * Whether payloads are checked by the compiled validator.
+   *
+   * @return true if compiled
+   */
+  public boolean isCompiled() {
+    return compiled != null;
+  }
+
+  /**
+   * Compile the schema, at worst twice when raced. Schemas with syntax errors are never
+   * compiled, the interpreted validator reports them on every payload.
+   *
+   * @return the compiled validator, null if not supported
+   */
+  private CompiledValidator compile() {
+    CompiledValidator validator = SchemaValidator.isSyntaxValid(schemaNode)
+        ? ValidatorCompiler.compile(schemaNode) : null;
+    if (validator == null) {
+      LOGGER.debug("Schema is not supported by the compiler, stays interpreted.");
+      unsupported = true;
+    } else {
+      LOGGER.debug("Schema got hot, compiled.");
+      compiled = validator;
+    }
+    return validator;
+  }
+}
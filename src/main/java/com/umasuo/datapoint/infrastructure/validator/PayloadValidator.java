@@ -0,0 +1,82 @@
+package com.umasuo.datapoint.infrastructure.validator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.LogLevel;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.google.common.collect.Lists;
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Validates device payloads against compiled data definition schemas.
+ */
+public final class PayloadValidator {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PayloadValidator.class);
+
+  /**
+   * Max payloads validated in one request.
+   */
+  public static final int MAX_BATCH_SIZE = 1000;
+
+  /**
+   * Instantiates a new Payload validator.
+   */
+  private PayloadValidator() {
+  }
+
+  /**
+   * Validate batch size.
+   *
+   * @param size the size
+   */
+  public static void validateBatchSize(Integer size) {
+    if (size == null || size < 1 || size > MAX_BATCH_SIZE) {
+      LOGGER.debug("Batch size: {} is out of range.", size);
+      throw new ParametersException("Payload size should between 1 and " + MAX_BATCH_SIZE);
+    }
+  }
+
+  /**
+   * Validate one payload.
+   *
+   * @param schema the compiled schema
+   * @param payload the payload
+   * @return the errors, empty if the payload is valid
+   */
+  public static List<String> validate(JsonSchema schema, JsonNode payload) {
+    ProcessingReport report;
+    try {
+      report = schema.validate(payload);
+    } catch (ProcessingException e) {
+      // e.g. a $ref which can not be resolved, the payload can not be checked
+      LOGGER.trace("Schema failed to process payload.", e);
+      return Collections.singletonList(e.getProcessingMessage().getMessage());
+    }
+
+    if (report.isSuccess()) {
+      return Collections.emptyList();
+    }
+
+    List<String> errors = Lists.newArrayList();
+    for (ProcessingMessage message : report) {
+      if (message.getLogLevel().compareTo(LogLevel.ERROR) >= 0) {
+        String pointer = message.asJson().path("instance").path("pointer").asText();
+        errors.add(pointer.isEmpty() ? message.getMessage() : pointer + ": "
+            + message.getMessage());
+      }
+    }
+    return errors;
+  }
+}
@@ -0,0 +1,114 @@
+package com.umasuo.datapoint.infrastructure.validator;
+
+import com.umasuo.datapoint.infrastructure.configuration.SchemaExecutorConfig;
+import com.umasuo.datapoint.infrastructure.exception.ServiceBusyException;
+import com.umasuo.exception.ParametersException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs schema compilation and payload validation of requests on the bounded guard pool with a
+ * timeout. Tasks must not touch the database, shard and replica routing are thread bound.
+ * A timed out task is interrupted, but json schema validation does not check interrupts, so the
+ * complexity budgets of SchemaValidator are what bound how long a worker stays busy.
+ * A saturated pool answers 503 with a Retry-After instead of queueing more work.
+ */
+@Component
+public class SchemaGuard {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(SchemaGuard.class);
+
+  /**
+   * The guard pool.
+   */
+  @Autowired
+  @Qualifier(SchemaExecutorConfig.SCHEMA_GUARD_EXECUTOR)
+  private transient ExecutorService executor;
+
+  /**
+   * Max time a request waits for its schema work, in milliseconds.
+   */
+  @Value("${datapoint.schema.timeout-millis:2000}")
+  private transient long timeoutMillis;
+
+  /**
+   * Seconds a client is told to wait when the pool is saturated.
+   */
+  @Value("${datapoint.schema.retry-after-seconds:1}")
+  private transient long retryAfterSeconds;
+
+  /**
+   * Validate json schema on the guard pool.
+   *
+   * @param schema the schema
+   */
+  public void validate(String schema) {
+    compile(schema);
+  }
+
+  /**
+   * Validate and compile json schema on the guard pool.
+   *
+   * @param schema the schema
+   * @return the compiled schema
+   */
+  public PayloadSchema compile(String schema) {
+    return call(() -> SchemaValidator.compile(schema));
+  }
+
+  /**
+   * Run a task on the guard pool and wait for it at most the timeout.
+   *
+   * @param task the task
+   * @param <T> the result type
+   * @return the result
+   */
+  public <T> T call(Callable<T> task) {
+    Future<T> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn("Schema guard pool is saturated.");
+      throw new ServiceBusyException("Too many schemas are being handled, retry later.",
+          retryAfterSeconds);
+    }
+
+    try {
+      return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      LOGGER.debug("Schema task timed out after {} millis.", timeoutMillis);
+      throw new ParametersException("DataSchema took longer than " + timeoutMillis
+          + " millis to handle.");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Schema task failed", cause);
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for schema task", e);
+    }
+  }
+}
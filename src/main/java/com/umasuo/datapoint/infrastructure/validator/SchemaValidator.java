@@ -1,16 +1,32 @@
 package com.umasuo.datapoint.infrastructure.validator;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 import com.umasuo.exception.ParametersException;
 import com.umasuo.util.JsonUtils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
 /**
  * SchemaValidator.
+ * The factory is built once, and compiled schemas are cached by the hash of their content, since
+ * the same schemas recur through copies, so validating a known schema is a hash lookup.
+ * New schemas first go through a streaming pre-pass which enforces the complexity budgets below,
+ * before any tree is built, so a pathological schema is rejected in linear time.
+ * Compiled schemas are PayloadSchemas, which switch to a compiled validator once hot.
  */
 public final class SchemaValidator {
 
@@ -19,6 +35,67 @@ public final class SchemaValidator {
    */
   private static final Logger LOGGER = LoggerFactory.getLogger(SchemaValidator.class);
 
+  /**
+   * Max schema length in chars, schemas over the inline limit are stored compressed out of line.
+   */
+  public static final int MAX_SCHEMA_LENGTH = 4 * 1024 * 1024;
+
+  /**
+   * Max nesting depth of a schema.
+   */
+  public static final int MAX_DEPTH = 32;
+
+  /**
+   * Max json nodes in a schema.
+   */
+  public static final int MAX_NODES = 20000;
+
+  /**
+   * Max $ref in a schema.
+   */
+  public static final int MAX_REFS = 64;
+
+  /**
+   * Max length of a regex in pattern or patternProperties.
+   */
+  public static final int MAX_PATTERN_LENGTH = 256;
+
+  /**
+   * A quantified group which contains a quantifier, e.g. (a+)+, the usual cause of catastrophic
+   * backtracking.
+   */
+  private static final Pattern NESTED_QUANTIFIER = Pattern.compile(
+      "\\((?:[^()\\\\]|\\\\.)*(?:[*+]|\\{\\d*,\\d*\\})(?:[^()\\\\]|\\\\.)*\\)"
+          + "(?:[*+]|\\{\\d*,\\d*\\})");
+
+  /**
+   * Json factory of the pre-pass.
+   */
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  /**
+   * Max compiled schemas cached.
+   */
+  private static final int MAX_CACHED_SCHEMAS = 1024;
+
+  /**
+   * Schemas longer than this, in chars, are compiled every time, so a few huge schemas can not
+   * pin the cache.
+   */
+  private static final int MAX_CACHED_LENGTH = 64 * 1024;
+
+  /**
+   * Shared factory, thread safe and expensive to build.
+   */
+  private static final JsonSchemaFactory FACTORY = JsonSchemaFactory.byDefault();
+
+  /**
+   * Compiled schemas, keyed by the sha256 of the schema.
+   */
+  private static final Cache<String, PayloadSchema> CACHE = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_SCHEMAS)
+      .build();
+
   /**
    * Instantiates a new Schema validator.
    */
@@ -31,12 +108,130 @@ public final class SchemaValidator {
    * @param schema
    */
   public static void validate(String schema) {
+    compile(schema);
+  }
+
+  /**
+   * Validate and compile json schema, from the cache if it is known.
+   *
+   * @param schema the schema
+   * @return the compiled schema
+   */
+  public static PayloadSchema compile(String schema) {
+    if (schema == null) {
+      throw new ParametersException("DataSchema should not be null.");
+    }
+    if (schema.length() > MAX_SCHEMA_LENGTH) {
+      LOGGER.debug("Schema length: {} is over the limit.", schema.length());
+      throw new ParametersException("DataSchema should not be longer than " + MAX_SCHEMA_LENGTH);
+    }
+    if (schema.length() > MAX_CACHED_LENGTH) {
+      return doCompile(schema);
+    }
+
+    String hash = Hashing.sha256().hashString(schema, StandardCharsets.UTF_8).toString();
+    PayloadSchema compiled = CACHE.getIfPresent(hash);
+    if (compiled == null) {
+      // compiled twice at worst when raced, invalid schemas are not cached
+      compiled = doCompile(schema);
+      CACHE.put(hash, compiled);
+    }
+    return compiled;
+  }
+
+  /**
+   * Check the complexity budgets with a streaming parser: depth, node count, $ref count and the
+   * regexes of pattern and patternProperties.
+   *
+   * @param schema the schema
+   */
+  public static void checkBudget(String schema) {
+    int depth = 0;
+    int nodes = 0;
+    int refs = 0;
+    try (JsonParser parser = JSON_FACTORY.createParser(schema)) {
+      JsonToken token;
+      while ((token = parser.nextToken()) != null) {
+        switch (token) {
+          case START_OBJECT:
+          case START_ARRAY:
+            if (++depth > MAX_DEPTH) {
+              throw new ParametersException("DataSchema is deeper than " + MAX_DEPTH);
+            }
+            nodes++;
+            break;
+          case END_OBJECT:
+          case END_ARRAY:
+            depth--;
+            break;
+          case FIELD_NAME:
+            if ("$ref".equals(parser.getCurrentName()) && ++refs > MAX_REFS) {
+              throw new ParametersException("DataSchema has more $ref than " + MAX_REFS);
+            }
+            JsonStreamContext parent = parser.getParsingContext().getParent();
+            if (parent != null && "patternProperties".equals(parent.getCurrentName())) {
+              checkPattern(parser.getCurrentName());
+            }
+            break;
+          case VALUE_STRING:
+            if ("pattern".equals(parser.getCurrentName())) {
+              checkPattern(parser.getText());
+            }
+            nodes++;
+            break;
+          default:
+            nodes++;
+        }
+        if (nodes > MAX_NODES) {
+          throw new ParametersException("DataSchema has more nodes than " + MAX_NODES);
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.trace("DataDefinition is not a validator JsonSchema.", e);
+      throw new ParametersException("DataDefinition is not a validator JsonSchema.");
+    }
+  }
+
+  /**
+   * Check the regex of pattern or patternProperties.
+   *
+   * @param pattern the pattern
+   */
+  private static void checkPattern(String pattern) {
+    if (pattern.length() > MAX_PATTERN_LENGTH) {
+      throw new ParametersException("Pattern is longer than " + MAX_PATTERN_LENGTH);
+    }
+    if (NESTED_QUANTIFIER.matcher(pattern).find()) {
+      LOGGER.debug("Pattern: {} has nested quantifiers.", pattern);
+      throw new ParametersException("Pattern should not repeat a group which repeats: "
+          + pattern);
+    }
+  }
+
+  /**
+   * Check budgets, parse and compile json schema.
+   *
+   * @param schema the schema
+   * @return the compiled schema
+   */
+  private static PayloadSchema doCompile(String schema) {
+    checkBudget(schema);
     try {
       JsonNode jsonNode = JsonUtils.deserialize(schema, JsonNode.class);
-      JsonSchemaFactory.byDefault().getJsonSchema(jsonNode);
+      return new PayloadSchema(jsonNode, FACTORY.getJsonSchema(jsonNode));
     } catch (ProcessingException e) {
       LOGGER.trace("DataDefinition is not a validator JsonSchema.", e);
       throw new ParametersException("DataDefinition is not a validator JsonSchema.");
     }
   }
+
+  /**
+   * Check the syntax of a schema against its meta schema.
+   *
+   * @param schemaNode the schema
+   * @return true if valid
+   */
+  static boolean isSyntaxValid(JsonNode schemaNode) {
+    return FACTORY.getSyntaxValidator().schemaIsValid(schemaNode);
+  }
 }
@@ -0,0 +1,703 @@
+package com.umasuo.datapoint.infrastructure.validator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles a draft v4 json schema into a tree of specialized validators, so a payload is checked
+ * by a few precomputed closures instead of walking the generic schema tree. Only a subset of
+ * keywords is supported, for any other keyword compile returns null and the interpreted
+ * validator has to be used, so results never differ from it.
+ * Reports are identical to the interpreted ones, in content and order: keywords of a schema are
+ * checked in the order of their names, object members in the order of theirs, and children are
+ * only visited while the whole report is still clean, as the interpreted validator does.
+ */
+public final class ValidatorCompiler {
+
+  /**
+   * Keywords the compiled validators check.
+   */
+  private static final Set<String> SUPPORTED = ImmutableSet.of("type", "properties", "required",
+      "additionalProperties", "items", "minimum", "maximum", "exclusiveMinimum",
+      "exclusiveMaximum", "minLength", "maxLength", "minItems", "maxItems", "minProperties",
+      "maxProperties", "enum");
+
+  /**
+   * Keywords which do not affect validation without $ref, additionalItems only matters when
+   * items is an array, which is not supported.
+   */
+  private static final Set<String> IGNORED = ImmutableSet.of("$schema", "id", "title",
+      "description", "default", "definitions", "additionalItems");
+
+  /**
+   * Draft v4 meta schema.
+   */
+  private static final String DRAFT_V4 = "http://json-schema.org/draft-04/schema";
+
+  /**
+   * Validator of an empty schema.
+   */
+  private static final CompiledValidator NONE = (node, pointer, errors) -> {
+  };
+
+  /**
+   * Type bits.
+   */
+  private static final int NULL = 1;
+  private static final int BOOLEAN = 1 << 1;
+  private static final int STRING = 1 << 2;
+  private static final int INTEGER = 1 << 3;
+  private static final int NUMBER = 1 << 4;
+  private static final int OBJECT = 1 << 5;
+  private static final int ARRAY = 1 << 6;
+
+  /**
+   * Type names in the order the interpreted validator lists them in errors.
+   */
+  private static final String[] TYPE_NAMES = {"array", "boolean", "integer", "null", "number",
+      "object", "string"};
+
+  /**
+   * Instantiates a new Validator compiler.
+   */
+  private ValidatorCompiler() {
+  }
+
+  /**
+   * Compile a schema.
+   *
+   * @param schema the schema
+   * @return the validator, null if the schema uses a keyword which is not supported
+   */
+  public static CompiledValidator compile(JsonNode schema) {
+    JsonNode draft = schema.get("$schema");
+    if (draft != null && !draft.asText().startsWith(DRAFT_V4)) {
+      return null;
+    }
+    return compileNode(schema);
+  }
+
+  /**
+   * Compile one schema node.
+   *
+   * @param schema the schema
+   * @return the validator, null if not supported
+   */
+  private static CompiledValidator compileNode(JsonNode schema) {
+    if (schema == null || !schema.isObject()) {
+      return null;
+    }
+    Iterator<String> names = schema.fieldNames();
+    while (names.hasNext()) {
+      String name = names.next();
+      if (!SUPPORTED.contains(name) && !IGNORED.contains(name)) {
+        return null;
+      }
+    }
+
+    // keyword checks by keyword, children of objects or arrays are validated after them
+    SortedMap<String, CompiledValidator> checks = Maps.newTreeMap();
+    List<CompiledValidator> children = Lists.newArrayList();
+    if (!addType(schema, checks) || !addObject(schema, checks, children)
+        || !addArray(schema, checks, children) || !addNumber(schema, checks)
+        || !addString(schema, checks) || !addEnum(schema, checks)) {
+      return null;
+    }
+
+    if (checks.isEmpty() && children.isEmpty()) {
+      return NONE;
+    }
+    CompiledValidator[] keywords = checks.values().toArray(new CompiledValidator[checks.size()]);
+    CompiledValidator[] descents = children.toArray(new CompiledValidator[children.size()]);
+    return (node, pointer, errors) -> {
+      for (CompiledValidator check : keywords) {
+        check.validate(node, pointer, errors);
+      }
+      // the interpreted validator stops descending once anything failed
+      if (!errors.isEmpty()) {
+        return;
+      }
+      for (CompiledValidator descent : descents) {
+        descent.validate(node, pointer, errors);
+      }
+    };
+  }
+
+  /**
+   * Add the type check.
+   *
+   * @param schema the schema
+   * @param checks the checks
+   * @return false if not supported
+   */
+  private static boolean addType(JsonNode schema, Map<String, CompiledValidator> checks) {
+    JsonNode type = schema.get("type");
+    if (type == null) {
+      return true;
+    }
+    int mask = 0;
+    if (type.isTextual()) {
+      mask = typeBits(type.asText());
+    } else if (type.isArray()) {
+      for (JsonNode element : type) {
+        mask |= element.isTextual() ? typeBits(element.asText()) : -1;
+      }
+    }
+    if (mask <= 0) {
+      return false;
+    }
+
+    int allowed = mask;
+    List<String> allowedNames = Lists.newArrayList();
+    for (String name : TYPE_NAMES) {
+      if ((typeBits(name) & ~mask) == 0) {
+        allowedNames.add(name);
+      }
+    }
+    String message = " does not match any allowed primitive type (allowed: "
+        + toJsonArray(allowedNames) + ")";
+    checks.put("type", (node, pointer, errors) -> {
+      if ((typeOf(node) & allowed) == 0) {
+        error(errors, pointer, "instance type (" + typeName(node) + ")" + message);
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Add checks of object instances: required, additionalProperties and property counts, and the
+   * validation of members by properties and additionalProperties.
+   *
+   * @param schema the schema
+   * @param checks the checks
+   * @param children the validations of children
+   * @return false if not supported
+   */
+  private static boolean addObject(JsonNode schema, Map<String, CompiledValidator> checks,
+      List<CompiledValidator> children) {
+    JsonNode properties = schema.get("properties");
+    JsonNode required = schema.get("required");
+    JsonNode additional = schema.get("additionalProperties");
+    if (properties == null && required == null && additional == null
+        && !schema.has("minProperties") && !schema.has("maxProperties")) {
+      return true;
+    }
+    if (properties != null && !properties.isObject()) {
+      return false;
+    }
+
+    SortedMap<String, CompiledValidator> propertyValidators = Maps.newTreeMap();
+    if (properties != null) {
+      Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        CompiledValidator validator = compileNode(field.getValue());
+        if (validator == null) {
+          return false;
+        }
+        propertyValidators.put(field.getKey(), validator);
+      }
+    }
+
+    String[] requiredNames = new String[0];
+    if (required != null) {
+      if (!required.isArray()) {
+        return false;
+      }
+      Set<String> sorted = Sets.newTreeSet();
+      for (JsonNode name : required) {
+        if (!name.isTextual() || !sorted.add(name.asText())) {
+          return false;
+        }
+      }
+      requiredNames = sorted.toArray(requiredNames);
+    }
+
+    // additional properties are rejected, checked by a schema, or else allowed unchecked
+    CompiledValidator additionalValidator = null;
+    boolean rejectAdditional = false;
+    if (additional != null) {
+      if (additional.isBoolean()) {
+        rejectAdditional = !additional.asBoolean();
+      } else {
+        additionalValidator = compileNode(additional);
+        if (additionalValidator == null) {
+          return false;
+        }
+      }
+    }
+    int minProperties = intValue(schema, "minProperties", 0);
+    int maxProperties = intValue(schema, "maxProperties", Integer.MAX_VALUE);
+    if (minProperties < 0 || maxProperties < 0) {
+      return false;
+    }
+
+    Set<String> known = propertyValidators.keySet();
+    if (rejectAdditional) {
+      checks.put("additionalProperties", (node, pointer, errors) -> {
+        if (!node.isObject()) {
+          return;
+        }
+        List<String> unknown = null;
+        Iterator<String> fieldNames = node.fieldNames();
+        while (fieldNames.hasNext()) {
+          String name = fieldNames.next();
+          if (!known.contains(name)) {
+            unknown = unknown == null ? Lists.newArrayList() : unknown;
+            unknown.add(name);
+          }
+        }
+        if (unknown != null) {
+          Collections.sort(unknown);
+          error(errors, pointer, "object instance has properties which are not allowed by the "
+              + "schema: " + toJsonArray(unknown));
+        }
+      });
+    }
+    if (requiredNames.length > 0) {
+      String[] mustHave = requiredNames;
+      checks.put("required", (node, pointer, errors) -> {
+        if (!node.isObject()) {
+          return;
+        }
+        List<String> missing = null;
+        for (String name : mustHave) {
+          if (!node.has(name)) {
+            missing = missing == null ? Lists.newArrayList() : missing;
+            missing.add(name);
+          }
+        }
+        if (missing != null) {
+          error(errors, pointer, "object has missing required properties ("
+              + toJsonArray(missing) + ")");
+        }
+      });
+    }
+    if (schema.has("minProperties")) {
+      checks.put("minProperties", (node, pointer, errors) -> {
+        if (node.isObject() && node.size() < minProperties) {
+          error(errors, pointer, "object has too few properties (found " + node.size()
+              + " but schema requires at least " + minProperties + ")");
+        }
+      });
+    }
+    if (schema.has("maxProperties")) {
+      checks.put("maxProperties", (node, pointer, errors) -> {
+        if (node.isObject() && node.size() > maxProperties) {
+          error(errors, pointer, "object has too many properties (found " + node.size()
+              + " but schema requires at most " + maxProperties + ")");
+        }
+      });
+    }
+
+    if (additionalValidator == null && propertyValidators.isEmpty()) {
+      return true;
+    }
+    // members in the order of their names, each by its property or else by additionalProperties
+    String[] names = known.toArray(new String[known.size()]);
+    CompiledValidator[] validators = propertyValidators.values()
+        .toArray(new CompiledValidator[names.length]);
+    String[] segments = new String[names.length];
+    for (int i = 0; i < names.length; i++) {
+      segments[i] = segment(names[i]);
+    }
+    CompiledValidator extra = additionalValidator;
+    children.add((node, pointer, errors) -> {
+      if (!node.isObject()) {
+        return;
+      }
+      if (extra == null) {
+        for (int i = 0; i < names.length; i++) {
+          JsonNode value = node.get(names[i]);
+          if (value != null) {
+            validators[i].validate(value, pointer + segments[i], errors);
+          }
+        }
+        return;
+      }
+      List<String> fields = Lists.newArrayList(node.fieldNames());
+      Collections.sort(fields);
+      for (String name : fields) {
+        CompiledValidator validator = propertyValidators.get(name);
+        (validator == null ? extra : validator).validate(node.get(name),
+            pointer + segment(name), errors);
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Add checks of array instances: item counts, and the validation of items.
+   *
+   * @param schema the schema
+   * @param checks the checks
+   * @param children the validations of children
+   * @return false if not supported
+   */
+  private static boolean addArray(JsonNode schema, Map<String, CompiledValidator> checks,
+      List<CompiledValidator> children) {
+    JsonNode items = schema.get("items");
+    if (items == null && !schema.has("minItems") && !schema.has("maxItems")) {
+      return true;
+    }
+    CompiledValidator itemValidator = items == null ? NONE : compileNode(items);
+    if (itemValidator == null) {
+      return false;
+    }
+    int minItems = intValue(schema, "minItems", 0);
+    int maxItems = intValue(schema, "maxItems", Integer.MAX_VALUE);
+    if (minItems < 0 || maxItems < 0) {
+      return false;
+    }
+
+    if (schema.has("minItems")) {
+      checks.put("minItems", (node, pointer, errors) -> {
+        if (node.isArray() && node.size() < minItems) {
+          error(errors, pointer, "array is too short: must have at least " + minItems
+              + " elements but instance has " + node.size() + " elements");
+        }
+      });
+    }
+    if (schema.has("maxItems")) {
+      checks.put("maxItems", (node, pointer, errors) -> {
+        if (node.isArray() && node.size() > maxItems) {
+          error(errors, pointer, "array is too long: must have at most " + maxItems
+              + " elements but instance has " + node.size() + " elements");
+        }
+      });
+    }
+    if (itemValidator != NONE) {
+      children.add((node, pointer, errors) -> {
+        if (!node.isArray()) {
+          return;
+        }
+        for (int i = 0; i < node.size(); i++) {
+          itemValidator.validate(node.get(i), pointer + "/" + i, errors);
+        }
+      });
+    }
+    return true;
+  }
+
+  /**
+   * Add checks of numeric instances: minimum and maximum.
+   *
+   * @param schema the schema
+   * @param checks the checks
+   * @return false if not supported
+   */
+  private static boolean addNumber(JsonNode schema, Map<String, CompiledValidator> checks) {
+    JsonNode minimum = schema.get("minimum");
+    JsonNode maximum = schema.get("maximum");
+    if (minimum == null && maximum == null) {
+      return true;
+    }
+    if (minimum != null && !minimum.isNumber() || maximum != null && !maximum.isNumber()) {
+      return false;
+    }
+    boolean exclusiveMinimum = schema.path("exclusiveMinimum").asBoolean(false);
+    boolean exclusiveMaximum = schema.path("exclusiveMaximum").asBoolean(false);
+    BigDecimal min = minimum == null ? null : minimum.decimalValue();
+    BigDecimal max = maximum == null ? null : maximum.decimalValue();
+    boolean longMin = isLong(minimum);
+    boolean longMax = isLong(maximum);
+    String minText = minimum == null ? null : limitText(minimum);
+    String maxText = maximum == null ? null : limitText(maximum);
+
+    if (min != null) {
+      checks.put("minimum", (node, pointer, errors) -> {
+        if (!node.isNumber()) {
+          return;
+        }
+        int compared = compare(node, min, longMin);
+        if (compared < 0) {
+          error(errors, pointer, "numeric instance is lower than the required minimum (minimum: "
+              + minText + ", found: " + node + ")");
+        } else if (compared == 0 && exclusiveMinimum) {
+          error(errors, pointer, "numeric instance is not strictly greater than the required "
+              + "minimum " + minText);
+        }
+      });
+    }
+    if (max != null) {
+      checks.put("maximum", (node, pointer, errors) -> {
+        if (!node.isNumber()) {
+          return;
+        }
+        int compared = compare(node, max, longMax);
+        if (compared > 0) {
+          error(errors, pointer, "numeric instance is greater than the required maximum "
+              + "(maximum: " + maxText + ", found: " + node + ")");
+        } else if (compared == 0 && exclusiveMaximum) {
+          error(errors, pointer, "numeric instance is not strictly lower than the required "
+              + "maximum " + maxText);
+        }
+      });
+    }
+    return true;
+  }
+
+  /**
+   * Whether a limit is an integer which fits a long.
+   *
+   * @param limit the limit, nullable
+   * @return true if it fits
+   */
+  private static boolean isLong(JsonNode limit) {
+    return limit != null && limit.isIntegralNumber() && limit.canConvertToLong();
+  }
+
+  /**
+   * A limit as the interpreted validator prints it, whole numbers without fraction or exponent.
+   *
+   * @param limit the limit
+   * @return the text
+   */
+  private static String limitText(JsonNode limit) {
+    BigDecimal value = limit.decimalValue();
+    if (limit.isIntegralNumber() || value.remainder(BigDecimal.ONE).signum() == 0
+        && (limit.canConvertToLong() || value.scale() == 0)) {
+      return value.toBigInteger().toString();
+    }
+    return limit.toString();
+  }
+
+  /**
+   * Compare a numeric instance to a limit, with longs when both are integers which fit.
+   *
+   * @param value the instance
+   * @param limit the limit
+   * @param longLimit whether the limit fits a long
+   * @return the comparison
+   */
+  private static int compare(JsonNode value, BigDecimal limit, boolean longLimit) {
+    if (longLimit && value.isIntegralNumber() && value.canConvertToLong()) {
+      return Long.compare(value.longValue(), limit.longValue());
+    }
+    return value.decimalValue().compareTo(limit);
+  }
+
+  /**
+   * Add checks of string instances: minLength and maxLength, in code points.
+   *
+   * @param schema the schema
+   * @param checks the checks
+   * @return false if not supported
+   */
+  private static boolean addString(JsonNode schema, Map<String, CompiledValidator> checks) {
+    if (!schema.has("minLength") && !schema.has("maxLength")) {
+      return true;
+    }
+    int minLength = intValue(schema, "minLength", 0);
+    int maxLength = intValue(schema, "maxLength", Integer.MAX_VALUE);
+    if (minLength < 0 || maxLength < 0) {
+      return false;
+    }
+
+    if (schema.has("minLength")) {
+      checks.put("minLength", (node, pointer, errors) -> {
+        int length = length(node);
+        if (length >= 0 && length < minLength) {
+          error(errors, pointer, "string " + node + " is too short (length: " + length
+              + ", required minimum: " + minLength + ")");
+        }
+      });
+    }
+    if (schema.has("maxLength")) {
+      checks.put("maxLength", (node, pointer, errors) -> {
+        int length = length(node);
+        if (length > maxLength) {
+          error(errors, pointer, "string " + node + " is too long (length: " + length
+              + ", maximum allowed: " + maxLength + ")");
+        }
+      });
+    }
+    return true;
+  }
+
+  /**
+   * Length of a string instance in code points.
+   *
+   * @param node the instance
+   * @return the length, -1 if not a string
+   */
+  private static int length(JsonNode node) {
+    if (!node.isTextual()) {
+      return -1;
+    }
+    String text = node.asText();
+    return text.codePointCount(0, text.length());
+  }
+
+  /**
+   * Add the enum check, only for strings, booleans and null, since numbers are compared by
+   * value and containers deeply by the interpreted validator.
+   *
+   * @param schema the schema
+   * @param checks the checks
+   * @return false if not supported
+   */
+  private static boolean addEnum(JsonNode schema, Map<String, CompiledValidator> checks) {
+    JsonNode values = schema.get("enum");
+    if (values == null) {
+      return true;
+    }
+    if (!values.isArray() || values.size() == 0) {
+      return false;
+    }
+    Set<JsonNode> allowed = Sets.newHashSet();
+    for (JsonNode value : values) {
+      if (!value.isTextual() && !value.isBoolean() && !value.isNull()) {
+        return false;
+      }
+      allowed.add(value);
+    }
+
+    String message = " not found in enum (possible values: " + values + ")";
+    checks.put("enum", (node, pointer, errors) -> {
+      if (!allowed.contains(node)) {
+        error(errors, pointer, "instance value (" + node + ")" + message);
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Get a non negative integer keyword.
+   *
+   * @param schema the schema
+   * @param name the keyword
+   * @param defaultValue used when absent
+   * @return the value, -1 if it is not a non negative int
+   */
+  private static int intValue(JsonNode schema, String name, int defaultValue) {
+    JsonNode value = schema.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    return value.isIntegralNumber() && value.canConvertToInt() ? Math.max(value.intValue(), -1)
+        : -1;
+  }
+
+  /**
+   * Type bits of a type name.
+   *
+   * @param name the name
+   * @return the bits, -1 if unknown
+   */
+  private static int typeBits(String name) {
+    switch (name) {
+      case "null":
+        return NULL;
+      case "boolean":
+        return BOOLEAN;
+      case "string":
+        return STRING;
+      case "integer":
+        return INTEGER;
+      case "number":
+        return INTEGER | NUMBER;
+      case "object":
+        return OBJECT;
+      case "array":
+        return ARRAY;
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * Type bit of a node, numbers written with a fraction or exponent are not integers.
+   *
+   * @param node the node
+   * @return the bit
+   */
+  private static int typeOf(JsonNode node) {
+    switch (node.getNodeType()) {
+      case NULL:
+        return NULL;
+      case BOOLEAN:
+        return BOOLEAN;
+      case STRING:
+        return STRING;
+      case NUMBER:
+        return node.isIntegralNumber() ? INTEGER : NUMBER;
+      case OBJECT:
+        return OBJECT;
+      case ARRAY:
+        return ARRAY;
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * Type name of a node, for errors.
+   *
+   * @param node the node
+   * @return the name
+   */
+  private static String typeName(JsonNode node) {
+    int type = typeOf(node);
+    switch (type) {
+      case NULL:
+        return "null";
+      case BOOLEAN:
+        return "boolean";
+      case STRING:
+        return "string";
+      case INTEGER:
+        return "integer";
+      case NUMBER:
+        return "number";
+      case OBJECT:
+        return "object";
+      default:
+        return "array";
+    }
+  }
+
+  /**
+   * Json pointer segment of a member name.
+   *
+   * @param name the name
+   * @return the segment
+   */
+  private static String segment(String name) {
+    return "/" + name.replace("~", "~0").replace("/", "~1");
+  }
+
+  /**
+   * Format names as a json array, for errors.
+   *
+   * @param names the names
+   * @return the json array
+   */
+  private static String toJsonArray(List<String> names) {
+    return names.stream().map(name -> "\"" + name.replace("\"", "\\\"") + "\"")
+        .collect(Collectors.joining(",", "[", "]"));
+  }
+
+  /**
+   * Add an error, in the format of PayloadValidator.
+   *
+   * @param errors the errors
+   * @param pointer the pointer
+   * @param message the message
+   */
+  private static void error(List<String> errors, String pointer, String message) {
+    errors.add(pointer.isEmpty() ? message : pointer + ": " + message);
+  }
+}
@@ -15,4 +15,27 @@ VALUES ('79f06fcb-c1f1-4791-a8b0-5f2043d39dc6', 1498014021202, 's003', '{"id":"n
 INSERT INTO platform_data_definition (id, created_at, data_id, data_schema, description, last_modified_at, name, version, product_type_id)
 VALUES ('0dd8c094-71b4-43c7-9bce-15adbfa63043', 1498014031451, 's004', '{"id":"node","type":"object","properties":{"title":{"type":"string"},"sub_node":{"$ref":"node"}}}', 'what heppen when it is too long', 1498014031451, '温度2', 0, '77616169-cc17-4051-8657-f706e7f4d303') on conflict DO NOTHING;
 INSERT INTO platform_data_definition (id, created_at, data_id, data_schema, description, last_modified_at, name, version, product_type_id)
-VALUES ('abf88f5a-5b5f-4a34-85cc-471ba1a73d23', 1498038475156, 's005', '{"id":"node","type":"object","properties":{"title":{"type":"string"},"sub_node":{"$ref":"node"}}}', 'what heppen when it is too long', 1498038475156, '温度3', 0, '77616169-cc17-4051-8657-f706e7f4d303') on conflict DO NOTHING;
\ No newline at end of file
+VALUES ('abf88f5a-5b5f-4a34-85cc-471ba1a73d23', 1498038475156, 's005', '{"id":"node","type":"object","properties":{"title":{"type":"string"},"sub_node":{"$ref":"node"}}}', 'what heppen when it is too long', 1498038475156, '温度3', 0, '77616169-cc17-4051-8657-f706e7f4d303') on conflict DO NOTHING;
+
+-- dataId 和 name 只在未删除的数据定义中唯一, 已删除的数据等待后台清理
+ALTER TABLE device_data_definition DROP CONSTRAINT IF EXISTS uk_device_data_data_id;
+ALTER TABLE device_data_definition DROP CONSTRAINT IF EXISTS uk_device_data_name;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_device_data_data_id ON device_data_definition (developer_id, product_id, data_id) WHERE deleted_at IS NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_device_data_name ON device_data_definition (developer_id, product_id, name) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_device_data_deleted ON device_data_definition (deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- 开发者和平台数据定义的唯一约束由 Hibernate 创建, 已有重复数据时只打印日志, 这里缺少约束就拒绝启动.
+-- 先执行 db/dedupe_definition_keys.sql 去重并加约束.
+DO 'BEGIN IF (SELECT count(*) FROM pg_constraint WHERE conname IN (''uk_developer_data_data_id'', ''uk_developer_data_name'', ''uk_platform_data_data_id'')) < 3 THEN RAISE EXCEPTION ''Unique keys of data definitions are missing, run db/dedupe_definition_keys.sql first.''; END IF; END';
+
+-- 超长的 schema 压缩后存在 schema_blob 里, 清理无引用的 blob 时按 schema_ref 查找
+CREATE INDEX IF NOT EXISTS idx_device_data_schema_ref ON device_data_definition (schema_ref) WHERE schema_ref IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_developer_data_schema_ref ON developer_data_definition (schema_ref) WHERE schema_ref IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_platform_data_schema_ref ON platform_data_definition (schema_ref) WHERE schema_ref IS NOT NULL;
+
+-- 每个产品的 dataId 别名从 0 开始连续分配, 已删除数据定义的别名不再复用
+CREATE TABLE IF NOT EXISTS data_alias_sequence (developer_id varchar(255) NOT NULL, product_id varchar(255) NOT NULL, next_alias integer NOT NULL, PRIMARY KEY (developer_id, product_id));
+CREATE UNIQUE INDEX IF NOT EXISTS uk_device_data_alias ON device_data_definition (developer_id, product_id, data_alias);
+
+-- 字段名最长和路径一样, ddl-auto 不会加长已有的列
+DO 'BEGIN IF (SELECT character_maximum_length FROM information_schema.columns WHERE table_name = ''schema_field'' AND column_name = ''name'') < 512 THEN ALTER TABLE schema_field ALTER COLUMN name TYPE varchar(512); END IF; END';
@@ -0,0 +1,37 @@
+-- 为已有的设备数据定义分配 dataId 别名, 每个产品按 (created_at, id) 顺序接着已分配的别名编号,
+-- 然后更新 data_alias_sequence. 可以重复执行, 已有别名的数据定义会被跳过.
+-- 执行期间应停止创建数据定义, 否则新分配的别名可能冲突.
+
+ALTER TABLE device_data_definition ADD COLUMN IF NOT EXISTS data_alias integer;
+
+CREATE TABLE IF NOT EXISTS data_alias_sequence (developer_id varchar(255) NOT NULL,
+    product_id varchar(255) NOT NULL, next_alias integer NOT NULL,
+    PRIMARY KEY (developer_id, product_id));
+
+UPDATE device_data_definition d SET data_alias = a.alias
+FROM (
+  SELECT n.developer_id, n.id,
+      COALESCE(s.next_alias, m.next_alias, 0)
+          + row_number() OVER (PARTITION BY n.developer_id, n.product_id
+                               ORDER BY n.created_at, n.id) - 1 AS alias
+  FROM device_data_definition n
+  LEFT JOIN data_alias_sequence s
+      ON s.developer_id = n.developer_id AND s.product_id = n.product_id
+  LEFT JOIN (SELECT developer_id, product_id, max(data_alias) + 1 AS next_alias
+             FROM device_data_definition WHERE data_alias IS NOT NULL
+             GROUP BY developer_id, product_id) m
+      ON m.developer_id = n.developer_id AND m.product_id = n.product_id
+  WHERE n.data_alias IS NULL
+) a
+WHERE d.developer_id = a.developer_id AND d.id = a.id;
+
+INSERT INTO data_alias_sequence (developer_id, product_id, next_alias)
+SELECT developer_id, product_id, max(data_alias) + 1
+FROM device_data_definition
+WHERE data_alias IS NOT NULL
+GROUP BY developer_id, product_id
+ON CONFLICT (developer_id, product_id)
+    DO UPDATE SET next_alias = GREATEST(data_alias_sequence.next_alias, EXCLUDED.next_alias);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_device_data_alias
+    ON device_data_definition (developer_id, product_id, data_alias);
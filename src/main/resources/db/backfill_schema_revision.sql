@@ -0,0 +1,15 @@
+-- 为已有的数据定义写入一个完整 schema 的 checkpoint, 之后的修改才能以补丁的形式追加.
+-- 可以重复执行, 已有历史的数据定义会被跳过. gen_random_uuid() 在 PostgreSQL 13 以下需要 pgcrypto.
+
+INSERT INTO schema_revision (id, definition_id, definition_type, version, created_at, checkpoint,
+    content)
+SELECT gen_random_uuid(), d.id, 'DEVICE', d.version, d.last_modified_at, true, d.data_schema
+FROM device_data_definition d
+WHERE d.deleted_at IS NULL
+  AND NOT EXISTS (SELECT 1 FROM schema_revision r WHERE r.definition_id = d.id);
+
+INSERT INTO schema_revision (id, definition_id, definition_type, version, created_at, checkpoint,
+    content)
+SELECT gen_random_uuid(), p.id, 'PLATFORM', p.version, p.last_modified_at, true, p.data_schema
+FROM platform_data_definition p
+WHERE NOT EXISTS (SELECT 1 FROM schema_revision r WHERE r.definition_id = p.id);
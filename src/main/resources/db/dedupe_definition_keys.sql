@@ -0,0 +1,108 @@
+-- 去掉重复的 dataId / name, 然后加上唯一约束. 创建和复制数据定义依赖这些约束 (ON CONFLICT DO NOTHING),
+-- 而 Hibernate ddl-auto=update 遇到重复数据时只打印 ALTER 失败的日志, 服务会在没有约束的情况下运行.
+-- 必须在部署新版本之前执行, 分片部署时在每个分片上执行:
+--   psql -v ON_ERROR_STOP=1 -f dedupe_definition_keys.sql data_definition
+-- 可以重复执行. 任何一步失败整个事务回滚, 最后的检查没有通过时报错退出.
+-- 重复数据的处理, 每组保留最早创建的 (created_at, id) 一条:
+--   设备数据定义: 其余的标记删除 (deleted_at), 由后台清理任务删除, 清理之前可以恢复.
+--   开发者和平台数据定义: 没有删除标记, 其余的 dataId / name 加上 "~" 和 id 的前 8 位, 由开发者自己处理.
+
+\set ON_ERROR_STOP on
+
+BEGIN;
+
+-- 执行期间不允许写入, 否则新写入的重复数据会让加约束失败
+LOCK TABLE device_data_definition, developer_data_definition, platform_data_definition
+  IN SHARE ROW EXCLUSIVE MODE;
+
+-- 1. 设备数据定义, 只在未删除的数据中唯一
+UPDATE device_data_definition d
+SET deleted_at = (extract(epoch FROM now()) * 1000)::bigint,
+    last_modified_at = (extract(epoch FROM now()) * 1000)::bigint
+FROM (
+  SELECT developer_id, id, row_number() OVER (PARTITION BY developer_id, product_id, data_id
+                                              ORDER BY created_at, id) AS rank
+  FROM device_data_definition WHERE deleted_at IS NULL
+) dup
+WHERE dup.rank > 1 AND d.developer_id = dup.developer_id AND d.id = dup.id;
+
+UPDATE device_data_definition d
+SET deleted_at = (extract(epoch FROM now()) * 1000)::bigint,
+    last_modified_at = (extract(epoch FROM now()) * 1000)::bigint
+FROM (
+  SELECT developer_id, id, row_number() OVER (PARTITION BY developer_id, product_id, name
+                                              ORDER BY created_at, id) AS rank
+  FROM device_data_definition WHERE deleted_at IS NULL
+) dup
+WHERE dup.rank > 1 AND d.developer_id = dup.developer_id AND d.id = dup.id;
+
+ALTER TABLE device_data_definition DROP CONSTRAINT IF EXISTS uk_device_data_data_id;
+ALTER TABLE device_data_definition DROP CONSTRAINT IF EXISTS uk_device_data_name;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_device_data_data_id
+  ON device_data_definition (developer_id, product_id, data_id) WHERE deleted_at IS NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_device_data_name
+  ON device_data_definition (developer_id, product_id, name) WHERE deleted_at IS NULL;
+
+-- 2. 开发者数据定义
+UPDATE developer_data_definition d
+SET data_id = left(d.data_id, 240) || '~' || left(d.id::text, 8)
+FROM (
+  SELECT id, row_number() OVER (PARTITION BY developer_id, data_id
+                                ORDER BY created_at, id) AS rank
+  FROM developer_data_definition
+) dup
+WHERE dup.rank > 1 AND d.id = dup.id;
+
+UPDATE developer_data_definition d
+SET name = left(d.name, 240) || '~' || left(d.id::text, 8)
+FROM (
+  SELECT id, row_number() OVER (PARTITION BY developer_id, name
+                                ORDER BY created_at, id) AS rank
+  FROM developer_data_definition
+) dup
+WHERE dup.rank > 1 AND d.id = dup.id;
+
+-- 3. 平台数据定义
+UPDATE platform_data_definition d
+SET data_id = left(d.data_id, 240) || '~' || left(d.id::text, 8)
+FROM (
+  SELECT id, row_number() OVER (PARTITION BY product_type_id, data_id
+                                ORDER BY created_at, id) AS rank
+  FROM platform_data_definition
+) dup
+WHERE dup.rank > 1 AND d.id = dup.id;
+
+DO $$
+BEGIN
+  IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_developer_data_data_id') THEN
+    ALTER TABLE developer_data_definition
+      ADD CONSTRAINT uk_developer_data_data_id UNIQUE (developer_id, data_id);
+  END IF;
+  IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_developer_data_name') THEN
+    ALTER TABLE developer_data_definition
+      ADD CONSTRAINT uk_developer_data_name UNIQUE (developer_id, name);
+  END IF;
+  IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_platform_data_data_id') THEN
+    ALTER TABLE platform_data_definition
+      ADD CONSTRAINT uk_platform_data_data_id UNIQUE (product_type_id, data_id);
+  END IF;
+END $$;
+
+-- 4. 检查, 缺少任何一个约束都报错, 事务回滚
+DO $$
+DECLARE
+  found int;
+BEGIN
+  SELECT count(*) INTO found FROM pg_class
+  WHERE relname IN ('uk_device_data_data_id', 'uk_device_data_name', 'uk_developer_data_data_id',
+                    'uk_developer_data_name', 'uk_platform_data_data_id')
+    AND relkind IN ('i', 'I');
+  IF found < 5 THEN
+    RAISE EXCEPTION 'Unique keys of data definitions are missing, found % of 5.', found;
+  END IF;
+END $$;
+
+COMMIT;
+
+-- 缓存: 被标记删除或改名的数据定义可能还在 redis 里, 执行后删除数据定义缓存:
+--   redis-cli --scan --pattern '*data:definition:*' | xargs redis-cli del
@@ -0,0 +1,22 @@
+-- 把数据定义的主键从 36 字符的 varchar 换成原生 uuid (16 字节), 主键和所有包含 id 的索引随之变小.
+-- 已有的随机 id 原样转换, 新 id 由应用按时间生成 (version 7 布局), 插入集中在索引最右侧.
+-- Hibernate ddl-auto=update 不会修改列类型, 必须在部署新版本之前执行.
+-- ALTER COLUMN TYPE 会重写表并重建索引, 持有 ACCESS EXCLUSIVE 锁, 请在维护窗口执行.
+-- 分区表 (见 partition_device_data_definition.sql) 上的修改会同步到所有分区.
+
+BEGIN;
+
+ALTER TABLE platform_data_definition ALTER COLUMN id TYPE uuid USING id::uuid;
+ALTER TABLE developer_data_definition ALTER COLUMN id TYPE uuid USING id::uuid;
+ALTER TABLE device_data_definition ALTER COLUMN id TYPE uuid USING id::uuid;
+ALTER TABLE definition_change ALTER COLUMN definition_id TYPE uuid USING definition_id::uuid;
+
+COMMIT;
+
+ANALYZE platform_data_definition;
+ANALYZE developer_data_definition;
+ANALYZE device_data_definition;
+
+-- 缓存: 新版本的 redis key 是普通字符串, hash field 是 id 的 16 字节, 旧版本 jdk 序列化的 key
+-- 不会再被读到. 部署后删除旧缓存, 数据会从数据库重新加载:
+--   redis-cli --scan --pattern '*data:definition:*' | xargs redis-cli del
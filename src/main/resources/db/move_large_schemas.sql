@@ -0,0 +1,12 @@
+-- data_schema 改为 text, 超过 datapoint.schema.inline-limit 的 schema 之后压缩存到 schema_blob,
+-- 数据定义里只保存 schema_ref (内容的 sha256). 可以重复执行.
+-- 已有的数据保持内联, 下次修改时才会移出.
+
+ALTER TABLE device_data_definition ALTER COLUMN data_schema TYPE text;
+ALTER TABLE device_data_definition ADD COLUMN IF NOT EXISTS schema_ref varchar(64);
+
+ALTER TABLE developer_data_definition ALTER COLUMN data_schema TYPE text;
+ALTER TABLE developer_data_definition ADD COLUMN IF NOT EXISTS schema_ref varchar(64);
+
+ALTER TABLE platform_data_definition ALTER COLUMN data_schema TYPE text;
+ALTER TABLE platform_data_definition ADD COLUMN IF NOT EXISTS schema_ref varchar(64);
@@ -0,0 +1,139 @@
+-- 把 device_data_definition 在线迁移为按 developer_id 哈希分区的表, 需要 PostgreSQL 11+.
+-- Steps 1-3 run while the service keeps serving, step 4 takes a short exclusive lock.
+-- Run each step separately with psql, not inside one transaction.
+
+-- 1. New partitioned table, primary key and unique indexes must contain developer_id.
+CREATE TABLE IF NOT EXISTS device_data_definition_new
+  (LIKE device_data_definition INCLUDING DEFAULTS)
+  PARTITION BY HASH (developer_id);
+
+DO $$
+BEGIN
+  FOR i IN 0..15 LOOP
+    EXECUTE format('CREATE TABLE IF NOT EXISTS device_data_definition_p%s'
+        || ' PARTITION OF device_data_definition_new'
+        || ' FOR VALUES WITH (MODULUS 16, REMAINDER %s)', i, i);
+  END LOOP;
+END $$;
+
+-- 索引和 data.sql 里的一致: dataId 和 name 只在未删除的数据定义中唯一, 已删除的行和新建的行共用这些值.
+-- 交换后 data.sql 的 CREATE INDEX IF NOT EXISTS 按名字跳过, 所以每个索引都要在新表上建好.
+ALTER TABLE device_data_definition_new
+  ADD CONSTRAINT pk_device_data_new PRIMARY KEY (developer_id, id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_device_data_data_id_new
+  ON device_data_definition_new (developer_id, product_id, data_id) WHERE deleted_at IS NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_device_data_name_new
+  ON device_data_definition_new (developer_id, product_id, name) WHERE deleted_at IS NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_device_data_alias_new
+  ON device_data_definition_new (developer_id, product_id, data_alias);
+CREATE INDEX IF NOT EXISTS idx_device_data_deleted_new
+  ON device_data_definition_new (deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_device_data_schema_ref_new
+  ON device_data_definition_new (schema_ref) WHERE schema_ref IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_device_data_product_page_new
+  ON device_data_definition_new (developer_id, product_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_device_data_open_page_new
+  ON device_data_definition_new (developer_id, openable, created_at, id);
+
+-- 2. Mirror every write on the old table into the new one.
+CREATE OR REPLACE FUNCTION mirror_device_data_definition() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    DELETE FROM device_data_definition_new
+      WHERE developer_id = OLD.developer_id AND id = OLD.id;
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    INSERT INTO device_data_definition_new SELECT NEW.*
+      ON CONFLICT (developer_id, id) DO NOTHING;
+  END IF;
+  RETURN NULL;
+END $$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS mirror_device_data_definition ON device_data_definition;
+CREATE TRIGGER mirror_device_data_definition
+  AFTER INSERT OR UPDATE OR DELETE ON device_data_definition
+  FOR EACH ROW EXECUTE PROCEDURE mirror_device_data_definition();
+
+-- 3. Backfill in small committed batches, rows already mirrored are skipped.
+-- id 是 varchar 或 uuid (migrate_ids_to_uuid.sql), 游标按列的类型声明, uuid 没有 min/max, 用 ORDER BY 取.
+CREATE OR REPLACE PROCEDURE backfill_device_data_definition(batch_size int DEFAULT 1000)
+AS $$
+DECLARE
+  last_id device_data_definition.id%TYPE;
+  next_id device_data_definition.id%TYPE;
+BEGIN
+  SELECT id INTO last_id FROM device_data_definition ORDER BY id LIMIT 1;
+  IF last_id IS NULL THEN
+    RETURN;
+  END IF;
+  INSERT INTO device_data_definition_new
+    SELECT * FROM device_data_definition WHERE id = last_id
+    ON CONFLICT (developer_id, id) DO NOTHING;
+  COMMIT;
+
+  LOOP
+    SELECT id INTO next_id FROM (
+      SELECT id FROM device_data_definition WHERE id > last_id ORDER BY id LIMIT batch_size
+    ) batch ORDER BY id DESC LIMIT 1;
+    EXIT WHEN next_id IS NULL;
+
+    INSERT INTO device_data_definition_new
+      SELECT * FROM device_data_definition WHERE id > last_id AND id <= next_id
+      ON CONFLICT (developer_id, id) DO NOTHING;
+    COMMIT;
+
+    last_id := next_id;
+  END LOOP;
+END $$ LANGUAGE plpgsql;
+
+CALL backfill_device_data_definition();
+
+-- 4. Swap the tables, the lock is held only for the reconcile and the renames.
+BEGIN;
+LOCK TABLE device_data_definition IN ACCESS EXCLUSIVE MODE;
+DROP TRIGGER mirror_device_data_definition ON device_data_definition;
+
+-- 回填的 INSERT ... SELECT 读的是旧快照, 和触发器的 DELETE 竞争时会把已删除或旧版本的行写回新表.
+-- 加锁后没有写入, 删除新表里在旧表中不存在或版本不同的行, 再补上旧表里缺少的行.
+DELETE FROM device_data_definition_new n
+  WHERE NOT EXISTS (
+    SELECT 1 FROM device_data_definition o
+    WHERE o.developer_id = n.developer_id AND o.id = n.id
+      AND o.version IS NOT DISTINCT FROM n.version
+      AND o.last_modified_at IS NOT DISTINCT FROM n.last_modified_at
+      AND o.deleted_at IS NOT DISTINCT FROM n.deleted_at);
+INSERT INTO device_data_definition_new
+  SELECT * FROM device_data_definition
+  ON CONFLICT (developer_id, id) DO NOTHING;
+
+DO $$
+BEGIN
+  IF (SELECT count(*) FROM device_data_definition)
+      <> (SELECT count(*) FROM device_data_definition_new) THEN
+    RAISE EXCEPTION 'device_data_definition_new does not match device_data_definition.';
+  END IF;
+END $$;
+
+ALTER TABLE device_data_definition RENAME TO device_data_definition_old;
+ALTER INDEX uk_device_data_data_id RENAME TO uk_device_data_data_id_old;
+ALTER INDEX uk_device_data_name RENAME TO uk_device_data_name_old;
+ALTER INDEX IF EXISTS uk_device_data_alias RENAME TO uk_device_data_alias_old;
+ALTER INDEX IF EXISTS idx_device_data_deleted RENAME TO idx_device_data_deleted_old;
+ALTER INDEX IF EXISTS idx_device_data_schema_ref RENAME TO idx_device_data_schema_ref_old;
+ALTER INDEX idx_device_data_product_page RENAME TO idx_device_data_product_page_old;
+ALTER INDEX idx_device_data_open_page RENAME TO idx_device_data_open_page_old;
+
+ALTER TABLE device_data_definition_new RENAME TO device_data_definition;
+ALTER INDEX uk_device_data_data_id_new RENAME TO uk_device_data_data_id;
+ALTER INDEX uk_device_data_name_new RENAME TO uk_device_data_name;
+ALTER INDEX uk_device_data_alias_new RENAME TO uk_device_data_alias;
+ALTER INDEX idx_device_data_deleted_new RENAME TO idx_device_data_deleted;
+ALTER INDEX idx_device_data_schema_ref_new RENAME TO idx_device_data_schema_ref;
+ALTER INDEX idx_device_data_product_page_new RENAME TO idx_device_data_product_page;
+ALTER INDEX idx_device_data_open_page_new RENAME TO idx_device_data_open_page;
+COMMIT;
+
+-- 5. After verifying, clean up.
+-- DROP TABLE device_data_definition_old;
+DROP PROCEDURE backfill_device_data_definition(int);
+DROP FUNCTION mirror_device_data_definition();
@@ -0,0 +1,239 @@
+package com.umasuo.datapoint.infrastructure.codec
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.node.JsonNodeFactory
+import com.fasterxml.jackson.dataformat.smile.SmileFactory
+import com.umasuo.exception.ParametersException
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * Round trips of PayloadCodec, for every schema type, optional and null properties, the smile
+ * fallback and the format/version header.
+ */
+class PayloadCodecTest extends Specification {
+
+  static final ObjectMapper MAPPER = new ObjectMapper()
+
+  static final JsonNodeFactory NODES = JsonNodeFactory.instance
+
+  @Unroll
+  def "integer #value is written as the zigzag varint #varint"() {
+    given:
+    PayloadCodec codec = PayloadCodec.of(json('{"type":"integer"}'))
+
+    when:
+    byte[] bytes = codec.encode(NODES.numberNode(value), 0)
+
+    then:
+    bytes.toList() == [1, 0] + varint.collect { it as byte }
+    codec.decode(bytes).longValue() == value
+
+    where:
+    value          | varint
+    0L             | [0x00]
+    -1L            | [0x01]
+    1L             | [0x02]
+    -64L           | [0x7F]
+    63L            | [0x7E]
+    64L            | [0x80, 0x01]
+    -65L           | [0x81, 0x01]
+    300L           | [0xD8, 0x04]
+    Long.MAX_VALUE | [0xFE] + [0xFF] * 8 + [0x01]
+    Long.MIN_VALUE | [0xFF] * 9 + [0x01]
+  }
+
+  @Unroll
+  def "payload #payload round trips with #schema"() {
+    given:
+    PayloadCodec codec = PayloadCodec.of(json(schema))
+    JsonNode node = json(payload)
+
+    expect:
+    codec.decode(codec.encode(node, 1)) == node
+
+    where:
+    schema                                       | payload
+    '{"type":"null"}'                            | 'null'
+    '{"type":"boolean"}'                         | 'true'
+    '{"type":"boolean"}'                         | 'false'
+    '{"type":"integer"}'                         | '2147483648'
+    '{"type":"integer"}'                         | '-2147483649'
+    '{"type":"number"}'                          | '12'
+    '{"type":"number"}'                          | '-9223372036854775808'
+    '{"type":"number"}'                          | '9223372036854775808'
+    '{"type":"number"}'                          | '0.1'
+    '{"type":"number"}'                          | '-1.5e300'
+    '{"type":"string"}'                          | '""'
+    '{"type":"string"}'                          | '"温度 😀"'
+    '{"enum":["on","off",1,null,{"a":[1]}]}'     | '"off"'
+    '{"enum":["on","off",1,null,{"a":[1]}]}'     | 'null'
+    '{"enum":["on","off",1,null,{"a":[1]}]}'     | '{"a":[1]}'
+    '{"type":["string","null"]}'                 | '"a"'
+    '{"type":["string","null"]}'                 | 'null'
+    '{"type":["integer","number"]}'              | '7'
+    '{"type":["integer","number"]}'              | '7.5'
+    '{"type":"array"}'                           | '[1,"a",null,{"b":[]}]'
+    '{"type":"array","items":{"type":"integer"}}' | '[]'
+    '{"type":"array","items":{"type":"integer"}}' | '[0,-1,1,9223372036854775807]'
+    '{"type":"array","items":{"type":"object","properties":{"t":{"type":"number"}},' +
+        '"required":["t"]}}'                     | '[{"t":1},{"t":2.5}]'
+    '{"type":"object"}'                          | '{"a":1,"b":{"c":[true]}}'
+    '{"type":"object","properties":{"a":{"type":"string"}},' +
+        '"additionalProperties":{"type":"integer"}}' | '{"a":"x","b":1,"c":-2}'
+    '{"type":"object","properties":{"a":{"type":"string"}},' +
+        '"additionalProperties":false}'          | '{"a":"x"}'
+  }
+
+  def "big numbers round trip without losing precision"() {
+    given:
+    PayloadCodec codec = PayloadCodec.of(json('{"type":"number"}'))
+
+    expect:
+    codec.decode(codec.encode(node, 1)) == node
+
+    where:
+    node << [
+        NODES.numberNode(new BigInteger('123456789012345678901234567890')),
+        NODES.numberNode(new BigDecimal('0.1')),
+        NODES.numberNode(new BigDecimal('1E+400')),
+        NODES.numberNode(new BigDecimal('-3.14159265358979323846264338327950288'))
+    ]
+  }
+
+  def "optional properties are only written when present, null values are kept"() {
+    given:
+    String properties = (0..9).collect { "\"o$it\":{\"type\":[\"integer\",\"null\"]}" }
+        .join(',')
+    PayloadCodec codec = PayloadCodec.of(json('{"type":"object","properties":{' + properties
+        + ',"r":{"type":"string"}},"required":["r"],"additionalProperties":false}'))
+
+    expect:
+    codec.decode(codec.encode(json(payload), 1)) == json(payload)
+    codec.encode(json(payload), 1).length == size
+
+    where:
+    payload                              | size
+    '{"r":""}'                           | 2 + 2 + 1
+    '{"r":"","o0":null}'                 | 2 + 2 + 1 + 1
+    '{"r":"","o9":5,"o0":null,"o8":null}' | 2 + 2 + 1 + 1 + 1 + 2
+  }
+
+  @Unroll
+  def "payload #payload does not match #schema"() {
+    given:
+    PayloadCodec codec = PayloadCodec.of(json(schema))
+
+    when:
+    codec.encode(json(payload), 1)
+
+    then:
+    thrown(ParametersException)
+
+    where:
+    schema                                                              | payload
+    '{"type":"integer"}'                                                | '1.5'
+    '{"type":"integer"}'                                                | '9223372036854775808'
+    '{"type":"string"}'                                                 | 'null'
+    '{"enum":["on","off"]}'                                             | '"auto"'
+    '{"type":["string","null"]}'                                        | '1'
+    '{"type":"object","properties":{"a":{"type":"string"}}}'            | '{"a":null}'
+    '{"type":"object","properties":{"a":{}},"required":["a"]}'          | '{}'
+    '{"type":"object","properties":{"a":{}},"additionalProperties":false}' | '{"b":1}'
+  }
+
+  @Unroll
+  def "nodes of #schema fall back to smile"() {
+    given:
+    PayloadCodec codec = PayloadCodec.of(json(schema))
+    JsonNode node = json(payload)
+    byte[] smile = new ObjectMapper(new SmileFactory()).writeValueAsBytes(node)
+
+    when:
+    byte[] bytes = codec.encode(node, 1)
+
+    then:
+    bytes.length == 2 + 1 + smile.length
+    Arrays.copyOfRange(bytes, 3, bytes.length) == smile
+    codec.decode(bytes) == node
+
+    where:
+    schema                                                | payload
+    '{}'                                                  | '{"any":[1,"a",null]}'
+    '{"$ref":"#/definitions/a","definitions":{"a":{}}}'   | '[1,2]'
+    '{"anyOf":[{"type":"string"},{"type":"integer"}]}'    | '"a"'
+    '{"type":"object","patternProperties":{"^a":{}}}'     | '{"ab":1}'
+    '{"type":"array","items":[{"type":"string"}]}'        | '["a",1]'
+    '{"type":"date-time"}'                                | '"2017-01-01"'
+  }
+
+  @Unroll
+  def "header carries the format byte and version #version"() {
+    given:
+    PayloadCodec codec = PayloadCodec.of(json('{"type":"boolean"}'))
+
+    when:
+    byte[] bytes = codec.encode(NODES.booleanNode(true), version)
+
+    then:
+    bytes[0] == 1 as byte
+    bytes.length == 1 + headerSize + 1
+    PayloadCodec.readVersion(bytes) == version
+    codec.decode(bytes) == NODES.booleanNode(true)
+
+    where:
+    version           | headerSize
+    0                 | 1
+    1                 | 1
+    63                | 1
+    64                | 2
+    Integer.MAX_VALUE | 5
+  }
+
+  @Unroll
+  def "malformed payload #bytes is rejected"() {
+    given:
+    PayloadCodec codec = PayloadCodec.of(json('{"type":"object","properties":' +
+        '{"n":{"type":"number"},"e":{"enum":["a"]}},"required":["n","e"]}'))
+
+    when:
+    codec.decode(bytes.collect { it as byte } as byte[])
+
+    then:
+    thrown(ParametersException)
+
+    where:
+    bytes << [
+        [],
+        [2, 2, 0, 0, 0],
+        [1, 1, 0, 0, 0],
+        [1, 2, 0],
+        [1, 2, 0, 2, 0, 0, 0],
+        [1, 2, 0, 0, 2],
+        [1, 2, 4, 0],
+        [1, 2, 2, 1, 0x31, 0],
+        [1, 0xFF, 0xFF, 0xFF, 0xFF, 0x7F, 0, 0, 0]
+    ]
+  }
+
+  def "version is read without decoding the payload"() {
+    expect:
+    PayloadCodec.readVersion([1, 0xD8, 0x04, 0xFF] as byte[]) == 300
+  }
+
+  def "version out of the int range is rejected"() {
+    when:
+    PayloadCodec.readVersion([1, 0x80, 0x80, 0x80, 0x80, 0x10] as byte[])
+
+    then:
+    thrown(ParametersException)
+  }
+
+  /**
+   * Parse json.
+   */
+  static JsonNode json(String text) {
+    return MAPPER.readTree(text)
+  }
+}
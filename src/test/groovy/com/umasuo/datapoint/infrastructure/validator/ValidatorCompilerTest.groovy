@@ -0,0 +1,172 @@
+package com.umasuo.datapoint.infrastructure.validator
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.node.ArrayNode
+import com.fasterxml.jackson.databind.node.JsonNodeFactory
+import com.fasterxml.jackson.databind.node.ObjectNode
+import com.github.fge.jsonschema.main.JsonSchema
+import com.github.fge.jsonschema.main.JsonSchemaFactory
+import spock.lang.Specification
+import spock.lang.Unroll
+
+/**
+ * The compiled validators must report exactly what the interpreted validator reports, the
+ * corpus covers every supported keyword, with hand written payloads and random ones.
+ */
+class ValidatorCompilerTest extends Specification {
+
+  static final ObjectMapper MAPPER = new ObjectMapper()
+
+  static final JsonNodeFactory NODES = JsonNodeFactory.instance
+
+  static final JsonSchemaFactory FACTORY = JsonSchemaFactory.byDefault()
+
+  /**
+   * Random payloads per schema.
+   */
+  static final int RANDOM_PAYLOADS = 500
+
+  static final List<String> SCHEMAS = [
+      '{}',
+      '{"type":"string"}',
+      '{"type":["string","null"]}',
+      '{"type":"integer","minimum":0,"maximum":100}',
+      '{"type":"number","minimum":-1.5,"exclusiveMinimum":true,"maximum":2.5,' +
+          '"exclusiveMaximum":true}',
+      '{"type":"integer","minimum":9223372036854775807}',
+      '{"type":"number","maximum":1e3}',
+      '{"minimum":2.0,"exclusiveMinimum":true,"maximum":1e30}',
+      '{"minimum":-9223372036854775809,"maximum":0.5}',
+      '{"type":"string","minLength":2,"maxLength":4}',
+      '{"type":"boolean"}',
+      '{"enum":["on","off",null,true]}',
+      '{"type":"array","items":{"type":"integer"},"minItems":1,"maxItems":3}',
+      '{"type":"array","items":{"type":"object","properties":{"a":{"type":"string"}},' +
+          '"required":["a"]}}',
+      '{"type":"object","properties":{"title":{"type":"string"},"count":{"type":"integer"}},' +
+          '"required":["title","missing"],"additionalProperties":false}',
+      '{"properties":{"b":{"type":"integer"},"title":{"maxLength":1}},' +
+          '"additionalProperties":{"type":["array","string"],"maxItems":1}}',
+      '{"type":"object","additionalProperties":{"type":"number"},"minProperties":1,' +
+          '"maxProperties":2}',
+      '{"$schema":"http://json-schema.org/draft-04/schema#","id":"node","title":"t",' +
+          '"description":"d","type":"object","properties":{"a/b":{"type":"string"},' +
+          '"c~d":{"type":"integer","maximum":1}},"definitions":{"x":{}}}',
+      '{"type":"object","properties":{"readings":{"type":"array","items":{"type":"object",' +
+          '"properties":{"temperature":{"type":"number","minimum":-40,"maximum":85},' +
+          '"unit":{"enum":["c","f"]}},"required":["temperature"]},"maxItems":2}},' +
+          '"required":["readings"]}'
+  ]
+
+  static final List<String> PAYLOADS = [
+      'null', 'true', '0', '-1', '1', '100', '101', '-1.5', '2.5', '0.5', '1.0', '1e3', '1001',
+      '9223372036854775807', '9223372036854775808', '2.0', '1e31', '-1e20', '""', '"a"',
+      '"ab"', '"abcde"', '"on"',
+      '"😀😀"', '[]', '[1]', '[1,2,3,4]', '[1,"a"]', '[{"a":"x"},{"b":1}]',
+      '{}', '{"title":"x"}', '{"title":1,"missing":2,"extra":3}', '{"a":1,"b":"x","c":3}',
+      '{"a/b":1,"c~d":2}', '{"readings":[{"temperature":90,"unit":"k"},{}, {"temperature":1}]}'
+  ]
+
+  @Unroll
+  def "compiled validator of #schema reports what the interpreted validator reports"() {
+    given:
+    JsonNode schemaNode = MAPPER.readTree(schema)
+    CompiledValidator compiled = ValidatorCompiler.compile(schemaNode)
+    JsonSchema interpreted = FACTORY.getJsonSchema(schemaNode)
+    List<JsonNode> payloads = PAYLOADS.collect { MAPPER.readTree(it) }
+    Random random = new Random(schema.hashCode())
+    RANDOM_PAYLOADS.times { payloads.add(randomNode(random, 0)) }
+
+    expect:
+    compiled != null
+    payloads.each { payload ->
+      assert validate(compiled, payload) == PayloadValidator.validate(interpreted, payload)
+    }
+
+    where:
+    schema << SCHEMAS
+  }
+
+  @Unroll
+  def "schema #schema is left to the interpreted validator"() {
+    expect:
+    ValidatorCompiler.compile(MAPPER.readTree(schema)) == null
+
+    where:
+    schema << [
+        '{"type":"string","pattern":"^a"}',
+        '{"$ref":"#/definitions/a","definitions":{"a":{}}}',
+        '{"anyOf":[{"type":"string"}]}',
+        '{"type":"array","items":[{"type":"string"}]}',
+        '{"enum":[1,2]}',
+        '{"$schema":"http://json-schema.org/draft-03/schema#"}',
+        '{"type":"object","properties":{"a":{"format":"date-time"}}}'
+    ]
+  }
+
+  def "payload schema reports the same before and after it got hot"() {
+    given:
+    String schema = SCHEMAS.last()
+    PayloadSchema payloadSchema = SchemaValidator.compile(schema)
+    JsonSchema interpreted = FACTORY.getJsonSchema(MAPPER.readTree(schema))
+    JsonNode invalid = MAPPER.readTree(PAYLOADS.last())
+    JsonNode valid = MAPPER.readTree('{"readings":[{"temperature":20,"unit":"c"}]}')
+    List<String> expected = PayloadValidator.validate(interpreted, invalid)
+
+    when:
+    List<List<String>> reports = (1..PayloadSchema.HOT_THRESHOLD + 1).collect {
+      payloadSchema.validate(invalid)
+    }
+
+    then:
+    payloadSchema.isCompiled()
+    !expected.isEmpty()
+    reports.every { it == expected }
+    payloadSchema.validate(valid).isEmpty()
+  }
+
+  /**
+   * Validate with a compiled validator the way PayloadSchema does.
+   */
+  static List<String> validate(CompiledValidator validator, JsonNode payload) {
+    List<String> errors = []
+    validator.validate(payload, '', errors)
+    return errors
+  }
+
+  /**
+   * Random json value, drawn from the names, numbers and strings the corpus schemas use.
+   */
+  static JsonNode randomNode(Random random, int depth) {
+    int kind = random.nextInt(depth > 2 ? 6 : 8)
+    switch (kind) {
+      case 0:
+        return NODES.nullNode()
+      case 1:
+        return NODES.booleanNode(random.nextBoolean())
+      case 2:
+        return NODES.numberNode(random.nextInt(240) - 120)
+      case 3:
+        return NODES.numberNode(new BigDecimal(random.nextInt(2000) - 1000).movePointLeft(
+            random.nextInt(3)))
+      case 4:
+        return NODES.numberNode(random.nextLong())
+      case 5:
+        return NODES.textNode(['', 'a', 'ab', 'abc', 'abcde', 'on', 'off', 'c', 'f', 'k'][
+            random.nextInt(10)])
+      case 6:
+        ArrayNode array = NODES.arrayNode()
+        random.nextInt(5).times { array.add(randomNode(random, depth + 1)) }
+        return array
+      default:
+        ObjectNode object = NODES.objectNode()
+        List<String> names = ['a', 'b', 'c', 'title', 'count', 'missing', 'a/b', 'c~d',
+                              'readings', 'temperature', 'unit']
+        random.nextInt(5).times {
+          object.set(names[random.nextInt(names.size())], randomNode(random, depth + 1))
+        }
+        return object
+    }
+  }
+}
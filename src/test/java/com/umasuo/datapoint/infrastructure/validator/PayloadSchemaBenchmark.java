@@ -0,0 +1,133 @@
+package com.umasuo.datapoint.infrastructure.validator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.google.common.collect.Lists;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of a payload by the interpreted json schema validator and by the compiled one.
+ * Run with the main method, from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadSchemaBenchmark {
+
+  /**
+   * Schema of a typical device payload.
+   */
+  private static final String SCHEMA = "{\"type\":\"object\",\"properties\":{"
+      + "\"deviceId\":{\"type\":\"string\",\"minLength\":1,\"maxLength\":64},"
+      + "\"online\":{\"type\":\"boolean\"},"
+      + "\"mode\":{\"enum\":[\"auto\",\"manual\",\"off\"]},"
+      + "\"readings\":{\"type\":\"array\",\"maxItems\":16,\"items\":{\"type\":\"object\","
+      + "\"properties\":{\"temperature\":{\"type\":\"number\",\"minimum\":-40,\"maximum\":85},"
+      + "\"humidity\":{\"type\":\"integer\",\"minimum\":0,\"maximum\":100}},"
+      + "\"required\":[\"temperature\"],\"additionalProperties\":false}}},"
+      + "\"required\":[\"deviceId\",\"readings\"]}";
+
+  /**
+   * Payload which passes.
+   */
+  private static final String VALID = "{\"deviceId\":\"d-0001\",\"online\":true,\"mode\":\"auto\","
+      + "\"readings\":[{\"temperature\":21.5,\"humidity\":40},{\"temperature\":22.0,"
+      + "\"humidity\":41},{\"temperature\":22.5,\"humidity\":43},{\"temperature\":23.0}]}";
+
+  /**
+   * Payload which fails on the first level.
+   */
+  private static final String INVALID = "{\"deviceId\":\"\",\"online\":\"yes\",\"mode\":\"eco\","
+      + "\"readings\":[{\"temperature\":90,\"humidity\":40}]}";
+
+  /**
+   * Whether the payload passes.
+   */
+  @Param({"true", "false"})
+  private boolean valid;
+
+  /**
+   * The interpreted validator.
+   */
+  private JsonSchema interpreted;
+
+  /**
+   * The compiled validator.
+   */
+  private CompiledValidator compiled;
+
+  /**
+   * The payload.
+   */
+  private JsonNode payload;
+
+  /**
+   * Parse the schema and the payload.
+   *
+   * @throws Exception if the schema is invalid
+   */
+  @Setup
+  public void setUp() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    JsonNode schema = mapper.readTree(SCHEMA);
+    interpreted = JsonSchemaFactory.byDefault().getJsonSchema(schema);
+    compiled = ValidatorCompiler.compile(schema);
+    payload = mapper.readTree(valid ? VALID : INVALID);
+  }
+
+  /**
+   * Validate with the interpreted validator.
+   *
+   * @return the errors
+   */
+  @Benchmark
+  public List<String> interpreted() {
+    return PayloadValidator.validate(interpreted, payload);
+  }
+
+  /**
+   * Validate with the compiled validator.
+   *
+   * @return the errors
+   */
+  @Benchmark
+  public List<String> compiled() {
+    List<String> errors = Lists.newArrayListWithCapacity(0);
+    compiled.validate(payload, "", errors);
+    return errors;
+  }
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args the args
+   * @throws RunnerException if the benchmark fails
+   */
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(PayloadSchemaBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}